@@ -1,16 +1,29 @@
 package com.cab302.eduplanner;
 
+import com.cab302.eduplanner.service.DriveImportService;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.sql.SQLException;
 
 /**
  * Boots the JavaFX application and provides helpers for scene management.
  */
 public class App extends Application {
+    /**
+     * Migrates the database schema on the launcher thread, before any window is shown.
+     * A failed migration aborts startup rather than letting screens run against a half-built schema.
+     *
+     * @throws SQLException if the schema cannot be brought up to date
+     */
+    @Override
+    public void init() throws SQLException {
+        DatabaseConnection.migrate();
+    }
+
     /**
      * Displays the login screen and applies the shared stylesheet.
      *
@@ -19,8 +32,6 @@ public class App extends Application {
      */
     @Override
     public void start(Stage stage) throws IOException {
-        DatabaseConnection.initSchema();
-
         FXMLLoader fxmlLoader = new FXMLLoader(App.class.getResource("/com/cab302/eduplanner/login.fxml"));
         Scene scene = new Scene(fxmlLoader.load(), 854, 480);
         scene.getStylesheets().add(App.class.getResource("/com/cab302/eduplanner/styles/app.css").toExternalForm());
@@ -31,6 +42,17 @@ public class App extends Application {
         stage.show();
     }
 
+    /**
+     * Stops the Drive folder watch, drains pending database work, then releases pooled connections
+     * when the window closes.
+     */
+    @Override
+    public void stop() {
+        DriveImportService.stopWatching();
+        DatabaseExecutor.shared().shutdown();
+        DatabaseConnection.shutdown();
+    }
+
     /**
      * Launches the JavaFX application.
      *
@@ -0,0 +1,370 @@
+package com.cab302.eduplanner;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of long-lived SQLite connections.
+ * Physical connections are opened lazily, configured with the given PRAGMAs exactly once,
+ * and handed out as proxies whose {@code close()} returns them to the pool instead of closing the file.
+ * Each physical connection also keeps a small LRU cache of prepared statements keyed by SQL text, so
+ * {@code prepareStatement} on hot queries skips SQLite's parse/plan step after the first call.
+ */
+public final class ConnectionPool {
+
+    /** Upper bound on cached statements per physical connection. */
+    private static final int STATEMENT_CACHE_SIZE = 32;
+
+    private final String url;
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final List<String> pragmas;
+
+    private final Semaphore leases;
+    private final ConcurrentLinkedDeque<Physical> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private volatile boolean shutdown;
+
+    // Metrics
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+    private final AtomicLong statementEvictions = new AtomicLong();
+
+    /**
+     * @param url           JDBC URL of the SQLite database
+     * @param maxSize       maximum number of physical connections
+     * @param maxWaitMillis how long a caller may block waiting for a free connection
+     * @param pragmas       statements run once on every newly opened physical connection
+     */
+    public ConnectionPool(String url, int maxSize, long maxWaitMillis, List<String> pragmas) {
+        if (maxSize < 1) throw new IllegalArgumentException("maxSize must be >= 1");
+        this.url = url;
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.pragmas = List.copyOf(pragmas);
+        this.leases = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Borrows a connection, blocking up to the configured wait time when all connections are in use.
+     * Closing the returned connection hands it back to the pool.
+     */
+    public Connection getConnection() throws SQLException {
+        if (shutdown) throw new SQLException("Connection pool has been shut down");
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = leases.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        long waited = System.nanoTime() - start;
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        if (!acquired) {
+            timeouts.incrementAndGet();
+            throw new SQLException("Timed out after " + maxWaitMillis + " ms waiting for a database connection");
+        }
+        acquisitions.incrementAndGet();
+
+        try {
+            Physical physical = idle.pollFirst();
+            if (physical == null || physical.conn.isClosed()) {
+                if (physical != null) open.decrementAndGet();
+                physical = openPhysical();
+            }
+            return lease(physical);
+        } catch (SQLException | RuntimeException e) {
+            leases.release();
+            throw e;
+        }
+    }
+
+    /** Closes every idle connection and rejects further borrowing. Leased connections are closed on return. */
+    public void shutdown() {
+        shutdown = true;
+        Physical p;
+        while ((p = idle.pollFirst()) != null) closeQuietly(p.conn);
+    }
+
+    /** Returns a point-in-time snapshot of pool occupancy and wait-time metrics. */
+    public Stats stats() {
+        int idleNow = idle.size();
+        int openNow = open.get();
+        return new Stats(maxSize, openNow, idleNow, maxSize - leases.availablePermits(),
+                acquisitions.get(), timeouts.get(), totalWaitNanos.get(), maxWaitNanos.get());
+    }
+
+    /** Returns prepared-statement cache hit/miss counters summed over all pooled connections. */
+    public StatementCacheStats statementCacheStats() {
+        return new StatementCacheStats(statementHits.get(), statementMisses.get(), statementEvictions.get());
+    }
+
+    private Physical openPhysical() throws SQLException {
+        Connection conn = DriverManager.getConnection(url);
+        try (Statement st = conn.createStatement()) {
+            for (String pragma : pragmas) st.execute(pragma);
+        } catch (SQLException e) {
+            closeQuietly(conn);
+            throw e;
+        }
+        open.incrementAndGet();
+        return new Physical(conn);
+    }
+
+    private Connection lease(Physical physical) {
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new LeasedConnection(physical));
+    }
+
+    private void release(Physical physical) {
+        try {
+            Connection conn = physical.conn;
+            if (shutdown || conn.isClosed()) {
+                discard(physical);
+                return;
+            }
+            // Leave no transaction open for the next borrower
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+            conn.clearWarnings();
+            idle.offerFirst(physical); // LIFO keeps the hottest connection (and its page cache) in use
+        } catch (SQLException e) {
+            discard(physical);
+        } finally {
+            leases.release();
+        }
+    }
+
+    private void discard(Physical physical) {
+        closeQuietly(physical.conn); // also finalizes its cached statements
+        open.decrementAndGet();
+    }
+
+    private static void closeQuietly(Connection c) {
+        try { c.close(); } catch (SQLException ignored) { }
+    }
+
+    /**
+     * Proxy handler for a borrowed connection. Close returns the connection to the pool, single-argument
+     * and generated-keys {@code prepareStatement} calls go through the statement cache, and everything
+     * else delegates to the physical connection.
+     */
+    private final class LeasedConnection implements InvocationHandler {
+        private final Physical holder;
+        private final Connection physical;
+        private boolean closed;
+
+        LeasedConnection(Physical holder) {
+            this.holder = holder;
+            this.physical = holder.conn;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!closed) {
+                        closed = true;
+                        release(holder);
+                    }
+                    return null;
+                }
+                case "isClosed" -> { return closed || physical.isClosed(); }
+                case "equals" -> { return proxy == args[0]; }
+                case "hashCode" -> { return System.identityHashCode(proxy); }
+                case "toString" -> { return "PooledConnection[" + physical + (closed ? ", closed]" : "]"); }
+                default -> { }
+            }
+            if (closed) throw new SQLException("Connection has already been returned to the pool");
+            if ("prepareStatement".equals(method.getName()) && args[0] instanceof String sql) {
+                if (args.length == 1) return holder.prepare(sql, Statement.NO_GENERATED_KEYS);
+                if (args.length == 2 && args[1] instanceof Integer keys) return holder.prepare(sql, keys);
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /** A physical connection together with its prepared-statement cache. Used by one borrower at a time. */
+    private final class Physical {
+        final Connection conn;
+        private final Map<StatementKey, CachedStatement> statements =
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<StatementKey, CachedStatement> eldest) {
+                        if (size() <= STATEMENT_CACHE_SIZE || eldest.getValue().inUse) return false;
+                        eldest.getValue().closePhysical();
+                        statementEvictions.incrementAndGet();
+                        return true;
+                    }
+                };
+
+        Physical(Connection conn) {
+            this.conn = conn;
+        }
+
+        PreparedStatement prepare(String sql, int generatedKeys) throws SQLException {
+            StatementKey key = new StatementKey(sql, generatedKeys);
+            CachedStatement cached = statements.get(key);
+            if (cached != null && !cached.inUse && !cached.statement.isClosed()) {
+                statementHits.incrementAndGet();
+                return cached.checkOut();
+            }
+            statementMisses.incrementAndGet();
+            PreparedStatement ps = generatedKeys == Statement.NO_GENERATED_KEYS
+                    ? conn.prepareStatement(sql)
+                    : conn.prepareStatement(sql, generatedKeys);
+            if (cached != null && cached.inUse) {
+                // Same SQL already open on this connection (e.g. nested iteration): hand out an uncached statement
+                return ps;
+            }
+            CachedStatement fresh = new CachedStatement(ps);
+            statements.put(key, fresh);
+            return fresh.checkOut();
+        }
+    }
+
+    private record StatementKey(String sql, int generatedKeys) {}
+
+    /**
+     * A cached statement. Each checkout hands out a proxy with its own {@link Lease}, so a proxy that has
+     * been closed can never reach the statement again, even after it has been checked out to someone else.
+     */
+    private static final class CachedStatement {
+        private final PreparedStatement statement;
+        private boolean inUse;
+
+        CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        PreparedStatement checkOut() {
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new Lease());
+        }
+
+        void closePhysical() {
+            try { statement.close(); } catch (SQLException ignored) { }
+        }
+
+        /**
+         * One checkout of the statement. Closing it closes the result sets it opened, which would otherwise
+         * hold a read cursor (and a WAL snapshot) on the pooled connection, resets the statement and returns
+         * it to the cache; any later use fails as it would on a closed statement.
+         */
+        private final class Lease implements InvocationHandler {
+            private final List<ResultSet> results = new ArrayList<>(1);
+            private boolean closed;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close" -> {
+                        if (!closed) {
+                            closed = true;
+                            release();
+                        }
+                        return null;
+                    }
+                    case "isClosed" -> { return closed || statement.isClosed(); }
+                    case "equals" -> { return proxy == args[0]; }
+                    case "hashCode" -> { return System.identityHashCode(proxy); }
+                    case "toString" -> { return "CachedStatement[" + statement + (closed ? ", closed]" : "]"); }
+                    default -> { }
+                }
+                if (closed) throw new SQLException("Statement has already been closed");
+                Object result;
+                try {
+                    result = method.invoke(statement, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (result instanceof ResultSet rs) results.add(rs);
+                return result;
+            }
+
+            private void release() throws SQLException {
+                try {
+                    for (ResultSet rs : results) rs.close();
+                    results.clear();
+                    statement.clearParameters();
+                    statement.clearBatch();
+                } finally {
+                    inUse = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Snapshot of pool metrics.
+     *
+     * @param maxSize        configured upper bound on physical connections
+     * @param open           physical connections currently open
+     * @param idle           open connections waiting in the pool
+     * @param active         connections currently leased to callers
+     * @param acquisitions   successful borrows since start-up
+     * @param timeouts       borrows that gave up waiting
+     * @param totalWaitNanos cumulative time callers spent waiting for a connection
+     * @param maxWaitNanos   longest single wait observed
+     */
+    public record Stats(int maxSize, int open, int idle, int active,
+                        long acquisitions, long timeouts, long totalWaitNanos, long maxWaitNanos) {
+
+        /** Mean time a caller waited to borrow a connection, in milliseconds. */
+        public double averageWaitMillis() {
+            long attempts = acquisitions + timeouts;
+            return attempts == 0 ? 0.0 : totalWaitNanos / 1_000_000.0 / attempts;
+        }
+    }
+
+    /**
+     * Prepared-statement cache counters.
+     *
+     * @param hits      prepareStatement calls served from a connection's cache
+     * @param misses    calls that had SQLite parse and plan the statement
+     * @param evictions statements finalized to keep each cache within its size bound
+     */
+    public record StatementCacheStats(long hits, long misses, long evictions) {
+
+        /** Fraction of prepareStatement calls served from cache, between 0 and 1. */
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.cab302.eduplanner;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Where a service gets its JDBC connections from. Production code passes {@code DatabaseConnection::getConnection};
+ * tests and benchmarks can point a service at a scratch database instead.
+ */
+@FunctionalInterface
+public interface ConnectionSource {
+    Connection getConnection() throws SQLException;
+}
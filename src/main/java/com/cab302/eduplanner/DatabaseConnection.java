@@ -1,15 +1,37 @@
 package com.cab302.eduplanner;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.util.List;
 
 public class DatabaseConnection {
 
+    private static final Logger log = LogManager.getLogger(DatabaseConnection.class);
+
     // Single DB URL
     private static final String DB_URL = "jdbc:sqlite:eduplanner_database.db";
 
+    // Pool sizing: SQLite allows one writer at a time, so a handful of connections covers concurrent readers
+    private static final int POOL_SIZE = 4;
+    private static final long POOL_MAX_WAIT_MS = 10_000;
+
+    /** Applied once per physical connection when the pool opens it. */
+    private static final List<String> PRAGMAS = List.of(
+            "PRAGMA foreign_keys = ON;",
+            "PRAGMA journal_mode = WAL;",        // readers no longer block the writer
+            "PRAGMA synchronous = NORMAL;",      // safe with WAL, avoids an fsync per commit
+            "PRAGMA busy_timeout = 5000;",
+            "PRAGMA mmap_size = 268435456;",     // 256 MB memory-mapped reads
+            "PRAGMA cache_size = -16000;"        // ~16 MB page cache per connection
+    );
+
+    private static final ConnectionPool POOL = new ConnectionPool(DB_URL, POOL_SIZE, POOL_MAX_WAIT_MS, PRAGMAS);
+
+    private static volatile boolean migrated;
+
     // SQLite Driver
     static {
         try {
@@ -18,84 +40,48 @@ public class DatabaseConnection {
         }
     }
 
-    /** Enables foreign keys once per connection and returns the connection. */
-    public static Connection getConnection() throws SQLException {
-        Connection conn = DriverManager.getConnection(DB_URL);
-        try (Statement st = conn.createStatement()) {
-            st.execute("PRAGMA foreign_keys = ON;");
-        }
-        return conn;
-    }
-
     /**
-     * Creates or ensures all tables and indexes exist. Call once at app startup.
+     * Borrows a pooled connection with foreign keys, WAL and the other PRAGMAs already applied,
+     * on a database whose schema has been migrated to the current version.
+     * Callers keep using try-with-resources; closing the connection returns it to the pool.
      */
-    public static void initSchema() {
-        final String createUsers = """
-            CREATE TABLE IF NOT EXISTS users (
-                user_id       INTEGER PRIMARY KEY AUTOINCREMENT,
-                username      TEXT    NOT NULL UNIQUE,
-                email         TEXT    UNIQUE,
-                first_name    TEXT,
-                last_name     TEXT,
-                password_hash TEXT    NOT NULL,
-                created_at    TEXT    NOT NULL DEFAULT (datetime('now')),
-                updated_at    TEXT    NOT NULL DEFAULT (datetime('now'))
-            );
-        """;
+    public static Connection getConnection() throws SQLException {
+        migrate();
+        return POOL.getConnection();
+    }
 
-        final String createTasks = """
-            CREATE TABLE IF NOT EXISTS tasks (
-                task_id       INTEGER PRIMARY KEY AUTOINCREMENT,
-                user_id       INTEGER NOT NULL,
-                subject       TEXT,
-                title         TEXT    NOT NULL,
-                due_date      TEXT,
-                notes         TEXT,
-                weight        INTEGER,
-                achieved_mark REAL,
-                max_mark      REAL,
-                created_at    TEXT    NOT NULL DEFAULT (datetime('now')),
-                updated_at    TEXT    NOT NULL DEFAULT (datetime('now')),
-                CHECK (weight IS NULL OR weight >= 0),
-                CHECK (achieved_mark IS NULL OR achieved_mark >= 0),
-                CHECK (max_mark IS NULL OR max_mark > 0),
-                FOREIGN KEY (user_id)
-                    REFERENCES users(user_id)
-                    ON DELETE CASCADE
-            );
-        """;
+    /** Current pool size and wait-time metrics. */
+    public static ConnectionPool.Stats getPoolStats() {
+        return POOL.stats();
+    }
 
-        final String createRubrics = """
-            CREATE TABLE IF NOT EXISTS rubrics (
-                rubric_id     INTEGER PRIMARY KEY AUTOINCREMENT,
-                task_id       INTEGER NOT NULL,
-                location      TEXT,
-                FOREIGN KEY (task_id)
-                    REFERENCES tasks(task_id)
-                    ON DELETE CASCADE
-            );
-        """;
+    /** Prepared-statement cache hit/miss counters across all pooled connections. */
+    public static ConnectionPool.StatementCacheStats getStatementCacheStats() {
+        return POOL.statementCacheStats();
+    }
 
-        final String createIdxTasksUser = """
-            CREATE INDEX IF NOT EXISTS idx_tasks_user_id  ON tasks(user_id);
-        """;
-        final String createIdxTasksDue = """
-            CREATE INDEX IF NOT EXISTS idx_tasks_due_date ON tasks(due_date);
-        """;
-        final String createIdxRubricsTask = """
-            CREATE INDEX IF NOT EXISTS idx_rubrics_task_id ON rubrics(task_id);
-        """;
+    /** Closes all pooled connections. Call once when the application exits. */
+    public static void shutdown() {
+        POOL.shutdown();
+    }
 
-        try (Connection conn = getConnection(); Statement st = conn.createStatement()) {
-            st.execute(createUsers);
-            st.execute(createTasks);
-            st.execute(createRubrics);
-            st.execute(createIdxTasksUser);
-            st.execute(createIdxTasksDue);
-            st.execute(createIdxRubricsTask);
-        } catch (SQLException e) {
-            System.err.println("Schema init failed: " + e.getMessage());
+    /**
+     * Brings the database schema up to date. Runs at most once per process: the first call does the work
+     * (usually a single {@code PRAGMA user_version} read), later calls return immediately.
+     * {@link #getConnection()} calls this itself, so the app, tests and background jobs all see the current schema.
+     *
+     * @throws SQLException if a migration fails; nothing is applied in that case and the next call retries
+     */
+    public static void migrate() throws SQLException {
+        if (migrated) return;
+        synchronized (DatabaseConnection.class) {
+            if (migrated) return;
+            try (Connection conn = POOL.getConnection()) {
+                for (SchemaMigrator.Migration m : new SchemaMigrator().migrate(conn)) {
+                    log.info("Applied schema migration {}: {}", m.version(), m.description());
+                }
+            }
+            migrated = true;
         }
     }
 }
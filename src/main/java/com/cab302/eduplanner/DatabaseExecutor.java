@@ -0,0 +1,168 @@
+package com.cab302.eduplanner;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs repository calls off the JavaFX Application Thread.
+ * Writes go to a single writer thread, which matches SQLite's one-writer model and avoids busy retries.
+ * Reads go to a small bounded pool that runs alongside the writer thanks to WAL.
+ * Platform threads are used on purpose because sqlite-jdbc synchronizes on its native handle,
+ * and that would pin virtual threads.
+ * Every call records how long it queued and how long it ran.
+ */
+public final class DatabaseExecutor {
+
+    // Leaves one pooled connection free for the writer
+    private static final int READER_THREADS = 3;
+    private static final long SLOW_CALL_NANOS = 250_000_000L;
+    private static final long SHUTDOWN_GRACE_SECONDS = 5;
+
+    private final ExecutorService writer;
+    private final ExecutorService readers;
+    private final Map<String, OpStats> stats = new ConcurrentHashMap<>();
+
+    DatabaseExecutor(int readerThreads) {
+        this.writer = Executors.newSingleThreadExecutor(daemonThreads("db-writer"));
+        this.readers = Executors.newFixedThreadPool(readerThreads, daemonThreads("db-reader"));
+    }
+
+    private static final class Holder {
+        private static final DatabaseExecutor INSTANCE = new DatabaseExecutor(READER_THREADS);
+    }
+
+    /** Application-wide executor shared by all async repositories. */
+    public static DatabaseExecutor shared() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Runs a read-only repository call on the reader pool.
+     *
+     * @param operation name used for metrics, e.g. {@code "tasks.findByUserId"}
+     */
+    public <T> CompletableFuture<T> read(String operation, Callable<T> work) {
+        return submit(readers, operation, work);
+    }
+
+    /**
+     * Runs a repository call that modifies the database on the single writer thread.
+     *
+     * @param operation name used for metrics, e.g. {@code "tasks.insert"}
+     */
+    public <T> CompletableFuture<T> write(String operation, Callable<T> work) {
+        return submit(writer, operation, work);
+    }
+
+    /**
+     * Stops accepting work and gives queued calls a short grace period to finish,
+     * so pending writes land before the connection pool closes.
+     */
+    public void shutdown() {
+        writer.shutdown();
+        readers.shutdown();
+        try {
+            writer.awaitTermination(SHUTDOWN_GRACE_SECONDS, TimeUnit.SECONDS);
+            readers.awaitTermination(SHUTDOWN_GRACE_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Per-operation queue-wait and execution-time metrics, busiest operation first. */
+    public List<CallMetrics> metrics() {
+        List<CallMetrics> out = new ArrayList<>(stats.size());
+        stats.forEach((op, s) -> out.add(s.snapshot(op)));
+        out.sort(Comparator.comparingLong(CallMetrics::calls).reversed());
+        return out;
+    }
+
+    private <T> CompletableFuture<T> submit(ExecutorService pool, String operation, Callable<T> work) {
+        long enqueued = System.nanoTime();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        pool.execute(() -> {
+            long started = System.nanoTime();
+            T result;
+            try {
+                result = work.call();
+            } catch (Throwable t) {
+                record(operation, started - enqueued, System.nanoTime() - started, true);
+                future.completeExceptionally(t);
+                return;
+            }
+            // Record before completing so callers observing the result also see its metrics
+            record(operation, started - enqueued, System.nanoTime() - started, false);
+            future.complete(result);
+        });
+        return future;
+    }
+
+    private void record(String operation, long queueNanos, long execNanos, boolean failed) {
+        stats.computeIfAbsent(operation, k -> new OpStats()).add(queueNanos, execNanos, failed);
+        if (queueNanos + execNanos > SLOW_CALL_NANOS) {
+            System.err.printf("Slow DB call %s: queued %.1f ms, ran %.1f ms%n",
+                    operation, queueNanos / 1e6, execNanos / 1e6);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static final class OpStats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder queueNanos = new LongAdder();
+        private final LongAdder execNanos = new LongAdder();
+        private final AtomicLong maxQueueNanos = new AtomicLong();
+        private final AtomicLong maxExecNanos = new AtomicLong();
+
+        void add(long queue, long exec, boolean failed) {
+            calls.increment();
+            if (failed) failures.increment();
+            queueNanos.add(queue);
+            execNanos.add(exec);
+            maxQueueNanos.accumulateAndGet(queue, Math::max);
+            maxExecNanos.accumulateAndGet(exec, Math::max);
+        }
+
+        CallMetrics snapshot(String operation) {
+            long n = calls.sum();
+            return new CallMetrics(operation, n, failures.sum(),
+                    n == 0 ? 0 : queueNanos.sum() / 1e6 / n, maxQueueNanos.get() / 1e6,
+                    n == 0 ? 0 : execNanos.sum() / 1e6 / n, maxExecNanos.get() / 1e6);
+        }
+    }
+
+    /**
+     * Timing summary for one repository operation. All durations are in milliseconds.
+     *
+     * @param operation    operation name passed to {@link #read} or {@link #write}
+     * @param calls        completed calls
+     * @param failures     calls that threw
+     * @param avgQueueMs   mean time spent waiting for an executor thread
+     * @param maxQueueMs   longest wait for an executor thread
+     * @param avgExecMs    mean time spent running the call
+     * @param maxExecMs    longest single call
+     */
+    public record CallMetrics(String operation, long calls, long failures,
+                              double avgQueueMs, double maxQueueMs,
+                              double avgExecMs, double maxExecMs) {}
+}
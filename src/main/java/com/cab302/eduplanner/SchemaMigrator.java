@@ -0,0 +1,362 @@
+package com.cab302.eduplanner;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Brings a SQLite database up to the current schema version.
+ * The applied version is stored in {@code PRAGMA user_version}, so an up-to-date database costs one
+ * header read at startup and no DDL. Pending migrations run in a single transaction together with the
+ * version bump, so a failure leaves the database exactly as it was.
+ * To change the schema, append a new {@link Migration} to {@link #MIGRATIONS}; never edit one that has shipped.
+ */
+public final class SchemaMigrator {
+
+    /**
+     * One schema step.
+     *
+     * @param version     value stored in {@code user_version} once this step is applied
+     * @param description short summary for logs
+     * @param statements  DDL/DML executed in order
+     */
+    public record Migration(int version, String description, List<String> statements) {
+        public Migration {
+            statements = List.copyOf(statements);
+        }
+    }
+
+    /** Application schema history, oldest first. */
+    static final List<Migration> MIGRATIONS = List.of(
+            // Baseline: databases created by the old initSchema() already have these at user_version 0,
+            // so every statement must tolerate existing objects.
+            new Migration(1, "users, tasks and rubrics", List.of(
+                    """
+                    CREATE TABLE IF NOT EXISTS users (
+                        user_id       INTEGER PRIMARY KEY AUTOINCREMENT,
+                        username      TEXT    NOT NULL UNIQUE,
+                        email         TEXT    UNIQUE,
+                        first_name    TEXT,
+                        last_name     TEXT,
+                        password_hash TEXT    NOT NULL,
+                        created_at    TEXT    NOT NULL DEFAULT (datetime('now')),
+                        updated_at    TEXT    NOT NULL DEFAULT (datetime('now'))
+                    )""",
+                    """
+                    CREATE TABLE IF NOT EXISTS tasks (
+                        task_id       INTEGER PRIMARY KEY AUTOINCREMENT,
+                        user_id       INTEGER NOT NULL,
+                        subject       TEXT,
+                        title         TEXT    NOT NULL,
+                        due_date      TEXT,
+                        notes         TEXT,
+                        weight        INTEGER,
+                        achieved_mark REAL,
+                        max_mark      REAL,
+                        created_at    TEXT    NOT NULL DEFAULT (datetime('now')),
+                        updated_at    TEXT    NOT NULL DEFAULT (datetime('now')),
+                        CHECK (weight IS NULL OR weight >= 0),
+                        CHECK (achieved_mark IS NULL OR achieved_mark >= 0),
+                        CHECK (max_mark IS NULL OR max_mark > 0),
+                        FOREIGN KEY (user_id)
+                            REFERENCES users(user_id)
+                            ON DELETE CASCADE
+                    )""",
+                    """
+                    CREATE TABLE IF NOT EXISTS rubrics (
+                        rubric_id     INTEGER PRIMARY KEY AUTOINCREMENT,
+                        task_id       INTEGER NOT NULL,
+                        location      TEXT,
+                        FOREIGN KEY (task_id)
+                            REFERENCES tasks(task_id)
+                            ON DELETE CASCADE
+                    )""",
+                    "CREATE INDEX IF NOT EXISTS idx_tasks_due_date ON tasks(due_date)",
+                    "CREATE INDEX IF NOT EXISTS idx_rubrics_task_id ON rubrics(task_id)")),
+
+            new Migration(2, "composite task index for per-user due-date ordering", List.of(
+                    // Covers WHERE user_id = ? ORDER BY due_date, task_id without a temp B-tree sort
+                    "CREATE INDEX IF NOT EXISTS idx_tasks_user_due ON tasks(user_id, due_date, task_id)",
+                    // Prefix of idx_tasks_user_due, so it only costs writes now
+                    "DROP INDEX IF EXISTS idx_tasks_user_id")),
+
+            new Migration(3, "note folders and notes", List.of(
+                    """
+                    CREATE TABLE folders (
+                        folder_id     INTEGER PRIMARY KEY AUTOINCREMENT,
+                        user_id       INTEGER NOT NULL,
+                        name          TEXT    NOT NULL,
+                        created_at    TEXT    NOT NULL DEFAULT (datetime('now')),
+                        updated_at    TEXT    NOT NULL DEFAULT (datetime('now')),
+                        FOREIGN KEY (user_id)
+                            REFERENCES users(user_id)
+                            ON DELETE CASCADE
+                    )""",
+                    """
+                    CREATE TABLE notes (
+                        note_id       INTEGER PRIMARY KEY AUTOINCREMENT,
+                        folder_id     INTEGER NOT NULL,
+                        title         TEXT    NOT NULL DEFAULT '',
+                        content       TEXT    NOT NULL DEFAULT '',
+                        created_at    TEXT    NOT NULL DEFAULT (datetime('now')),
+                        updated_at    TEXT    NOT NULL DEFAULT (datetime('now')),
+                        FOREIGN KEY (folder_id)
+                            REFERENCES folders(folder_id)
+                            ON DELETE CASCADE
+                    )""",
+                    "CREATE INDEX idx_folders_user ON folders(user_id, folder_id)",
+                    // Covers the sidebar query, so building the tree never reads note rows or their overflow pages
+                    "CREATE INDEX idx_notes_folder_title ON notes(folder_id, note_id, title)")),
+
+            // External-content FTS5 indexes: the text lives only in notes/tasks, triggers keep the index in step.
+            // prefix='2 3' makes the as-you-type prefix term cheap for short prefixes.
+            new Migration(4, "full-text search over notes and tasks", List.of(
+                    """
+                    CREATE VIRTUAL TABLE notes_fts USING fts5(
+                        title, content,
+                        content='notes', content_rowid='note_id',
+                        tokenize='unicode61 remove_diacritics 2', prefix='2 3'
+                    )""",
+                    """
+                    CREATE TRIGGER notes_fts_ai AFTER INSERT ON notes BEGIN
+                        INSERT INTO notes_fts(rowid, title, content) VALUES (new.note_id, new.title, new.content);
+                    END""",
+                    """
+                    CREATE TRIGGER notes_fts_ad AFTER DELETE ON notes BEGIN
+                        INSERT INTO notes_fts(notes_fts, rowid, title, content)
+                        VALUES ('delete', old.note_id, old.title, old.content);
+                    END""",
+                    """
+                    CREATE TRIGGER notes_fts_au AFTER UPDATE OF title, content ON notes BEGIN
+                        INSERT INTO notes_fts(notes_fts, rowid, title, content)
+                        VALUES ('delete', old.note_id, old.title, old.content);
+                        INSERT INTO notes_fts(rowid, title, content) VALUES (new.note_id, new.title, new.content);
+                    END""",
+                    "INSERT INTO notes_fts(notes_fts) VALUES ('rebuild')",
+                    """
+                    CREATE VIRTUAL TABLE tasks_fts USING fts5(
+                        title, notes, subject,
+                        content='tasks', content_rowid='task_id',
+                        tokenize='unicode61 remove_diacritics 2', prefix='2 3'
+                    )""",
+                    """
+                    CREATE TRIGGER tasks_fts_ai AFTER INSERT ON tasks BEGIN
+                        INSERT INTO tasks_fts(rowid, title, notes, subject)
+                        VALUES (new.task_id, new.title, new.notes, new.subject);
+                    END""",
+                    """
+                    CREATE TRIGGER tasks_fts_ad AFTER DELETE ON tasks BEGIN
+                        INSERT INTO tasks_fts(tasks_fts, rowid, title, notes, subject)
+                        VALUES ('delete', old.task_id, old.title, old.notes, old.subject);
+                    END""",
+                    """
+                    CREATE TRIGGER tasks_fts_au AFTER UPDATE OF title, notes, subject ON tasks BEGIN
+                        INSERT INTO tasks_fts(tasks_fts, rowid, title, notes, subject)
+                        VALUES ('delete', old.task_id, old.title, old.notes, old.subject);
+                        INSERT INTO tasks_fts(rowid, title, notes, subject)
+                        VALUES (new.task_id, new.title, new.notes, new.subject);
+                    END""",
+                    "INSERT INTO tasks_fts(tasks_fts) VALUES ('rebuild')")),
+
+            new Migration(5, "flashcard folders, decks and cards", List.of(
+                    """
+                    CREATE TABLE flashcard_folders (
+                        folder_id     INTEGER PRIMARY KEY AUTOINCREMENT,
+                        user_id       INTEGER NOT NULL,
+                        name          TEXT    NOT NULL,
+                        created_at    TEXT    NOT NULL DEFAULT (datetime('now')),
+                        updated_at    TEXT    NOT NULL DEFAULT (datetime('now')),
+                        FOREIGN KEY (user_id)
+                            REFERENCES users(user_id)
+                            ON DELETE CASCADE
+                    )""",
+                    """
+                    CREATE TABLE flashcard_decks (
+                        deck_id       INTEGER PRIMARY KEY AUTOINCREMENT,
+                        folder_id     INTEGER NOT NULL,
+                        name          TEXT    NOT NULL,
+                        created_at    TEXT    NOT NULL DEFAULT (datetime('now')),
+                        updated_at    TEXT    NOT NULL DEFAULT (datetime('now')),
+                        FOREIGN KEY (folder_id)
+                            REFERENCES flashcard_folders(folder_id)
+                            ON DELETE CASCADE
+                    )""",
+                    """
+                    CREATE TABLE flashcards (
+                        card_id       INTEGER PRIMARY KEY AUTOINCREMENT,
+                        deck_id       INTEGER NOT NULL,
+                        question      TEXT    NOT NULL DEFAULT '',
+                        answer        TEXT    NOT NULL DEFAULT '',
+                        created_at    TEXT    NOT NULL DEFAULT (datetime('now')),
+                        updated_at    TEXT    NOT NULL DEFAULT (datetime('now')),
+                        FOREIGN KEY (deck_id)
+                            REFERENCES flashcard_decks(deck_id)
+                            ON DELETE CASCADE
+                    )""",
+                    "CREATE INDEX idx_flashcard_folders_user ON flashcard_folders(user_id, folder_id)",
+                    // Covers the sidebar query, like idx_notes_folder_title
+                    "CREATE INDEX idx_flashcard_decks_folder ON flashcard_decks(folder_id, deck_id, name)",
+                    // Serves COUNT(*) per deck and keyset pages WHERE deck_id = ? AND card_id > ? ORDER BY card_id
+                    "CREATE INDEX idx_flashcards_deck ON flashcards(deck_id, card_id)",
+                    """
+                    CREATE VIRTUAL TABLE flashcards_fts USING fts5(
+                        question, answer,
+                        content='flashcards', content_rowid='card_id',
+                        tokenize='unicode61 remove_diacritics 2', prefix='2 3'
+                    )""",
+                    """
+                    CREATE TRIGGER flashcards_fts_ai AFTER INSERT ON flashcards BEGIN
+                        INSERT INTO flashcards_fts(rowid, question, answer) VALUES (new.card_id, new.question, new.answer);
+                    END""",
+                    """
+                    CREATE TRIGGER flashcards_fts_ad AFTER DELETE ON flashcards BEGIN
+                        INSERT INTO flashcards_fts(flashcards_fts, rowid, question, answer)
+                        VALUES ('delete', old.card_id, old.question, old.answer);
+                    END""",
+                    """
+                    CREATE TRIGGER flashcards_fts_au AFTER UPDATE OF question, answer ON flashcards BEGIN
+                        INSERT INTO flashcards_fts(flashcards_fts, rowid, question, answer)
+                        VALUES ('delete', old.card_id, old.question, old.answer);
+                        INSERT INTO flashcards_fts(rowid, question, answer) VALUES (new.card_id, new.question, new.answer);
+                    END""")),
+
+            // due_at is epoch millis so ReviewScheduler can order cards without parsing dates; 0 = never reviewed
+            new Migration(6, "spaced-repetition schedule for flashcards", List.of(
+                    "ALTER TABLE flashcards ADD COLUMN ease REAL NOT NULL DEFAULT 2.5",
+                    "ALTER TABLE flashcards ADD COLUMN interval_days INTEGER NOT NULL DEFAULT 0",
+                    "ALTER TABLE flashcards ADD COLUMN repetitions INTEGER NOT NULL DEFAULT 0",
+                    "ALTER TABLE flashcards ADD COLUMN due_at INTEGER NOT NULL DEFAULT 0",
+                    // Serves the per-deck due count without reading card text
+                    "CREATE INDEX idx_flashcards_deck_due ON flashcards(deck_id, due_at)")),
+
+            // Text extracted from uploaded documents, keyed by content so renamed or re-uploaded copies hit;
+            // used_at is epoch millis and drives pruning of the oldest entries
+            new Migration(7, "extracted document text cache", List.of(
+                    """
+                    CREATE TABLE extracted_text (
+                        sha256            TEXT    NOT NULL,
+                        format            TEXT    NOT NULL,
+                        extractor_version INTEGER NOT NULL,
+                        text              TEXT    NOT NULL,
+                        used_at           INTEGER NOT NULL,
+                        PRIMARY KEY (sha256, format, extractor_version)
+                    )""",
+                    "CREATE INDEX idx_extracted_text_used ON extracted_text(used_at)")),
+
+            // Long submissions are extracted with a larger character budget than rubrics, so the budget
+            // joins the key; the table only holds a cache, so it is rebuilt rather than copied
+            new Migration(8, "character budget in the extracted text key", List.of(
+                    "DROP TABLE extracted_text",
+                    """
+                    CREATE TABLE extracted_text (
+                        sha256            TEXT    NOT NULL,
+                        format            TEXT    NOT NULL,
+                        extractor_version INTEGER NOT NULL,
+                        max_characters    INTEGER NOT NULL,
+                        text              TEXT    NOT NULL,
+                        used_at           INTEGER NOT NULL,
+                        PRIMARY KEY (sha256, format, extractor_version, max_characters)
+                    )""",
+                    "CREATE INDEX idx_extracted_text_used ON extracted_text(used_at)")),
+
+            // Grades returned by the rubric grader, keyed by content so an identical re-submission is not
+            // paid for twice; rubric_id optionally ties a grade to a task's rubric. Times are epoch millis
+            new Migration(9, "rubric grade cache", List.of(
+                    """
+                    CREATE TABLE rubric_grades (
+                        rubric_hash     TEXT    NOT NULL,
+                        assignment_hash TEXT    NOT NULL,
+                        model           TEXT    NOT NULL,
+                        result_json     TEXT    NOT NULL,
+                        rubric_id       INTEGER,
+                        created_at      INTEGER NOT NULL,
+                        used_at         INTEGER NOT NULL,
+                        PRIMARY KEY (rubric_hash, assignment_hash, model),
+                        FOREIGN KEY (rubric_id)
+                            REFERENCES rubrics(rubric_id)
+                            ON DELETE SET NULL
+                    )""",
+                    "CREATE INDEX idx_rubric_grades_used ON rubric_grades(used_at)",
+                    "CREATE INDEX idx_rubric_grades_rubric ON rubric_grades(rubric_id)"))
+    );
+
+    private final List<Migration> migrations;
+
+    /** Migrator for the application schema. */
+    public SchemaMigrator() {
+        this(MIGRATIONS);
+    }
+
+    /**
+     * @param migrations steps ordered by version, numbered consecutively from 1
+     * @throws IllegalArgumentException if the versions are not 1, 2, 3, ...
+     */
+    public SchemaMigrator(List<Migration> migrations) {
+        for (int i = 0; i < migrations.size(); i++) {
+            if (migrations.get(i).version() != i + 1) {
+                throw new IllegalArgumentException("Migration versions must be consecutive from 1; found "
+                        + migrations.get(i).version() + " at position " + i);
+            }
+        }
+        this.migrations = List.copyOf(migrations);
+    }
+
+    /** Version the database will be at after {@link #migrate(Connection)}. */
+    public int latestVersion() {
+        return migrations.size();
+    }
+
+    /**
+     * Applies every migration newer than the database's {@code user_version} in one transaction.
+     * Does nothing, and opens no transaction, when the schema is already current.
+     *
+     * @param conn connection in auto-commit mode; its auto-commit setting is restored on return
+     * @return the migrations that were applied, oldest first (empty when already current)
+     * @throws SQLException if a step fails (nothing is applied) or the database is newer than this build
+     */
+    public List<Migration> migrate(Connection conn) throws SQLException {
+        if (readVersion(conn) == latestVersion()) return List.of();
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement st = conn.createStatement()) {
+            // Re-read inside the transaction in case another process migrated in the meantime
+            int current = readVersion(conn);
+            if (current > latestVersion()) {
+                throw new SQLException("Database schema version " + current
+                        + " is newer than this build supports (" + latestVersion() + ")");
+            }
+            List<Migration> applied = new ArrayList<>();
+            for (Migration m : migrations.subList(current, migrations.size())) {
+                for (String sql : m.statements()) {
+                    try {
+                        st.execute(sql);
+                    } catch (SQLException e) {
+                        throw new SQLException("Migration " + m.version() + " (" + m.description()
+                                + ") failed: " + e.getMessage(), e);
+                    }
+                }
+                applied.add(m);
+            }
+            st.execute("PRAGMA user_version = " + latestVersion());
+            conn.commit();
+            return applied;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /** Reads {@code PRAGMA user_version}; 0 for a brand-new or pre-migration database. */
+    public static int readVersion(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
@@ -3,7 +3,9 @@ package com.cab302.eduplanner.controller;
 import com.cab302.eduplanner.App;
 import com.cab302.eduplanner.appcontext.UserSession;
 import com.cab302.eduplanner.model.Task;
-import com.cab302.eduplanner.repository.TaskRepository;
+import com.cab302.eduplanner.repository.AsyncTaskRepository;
+import com.cab302.eduplanner.service.BulkExportService;
+import com.cab302.eduplanner.service.DriveImportService;
 import com.cab302.eduplanner.service.GoogleCalendarExport;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -22,8 +24,11 @@ import javafx.stage.Stage;
 
 import java.awt.Desktop;
 import java.net.URI;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.time.LocalTime;
 import java.time.ZonedDateTime;
 import java.time.ZoneId;
@@ -58,6 +63,7 @@ public class DashboardController {
     @FXML private Button pomodoroTile;
     @FXML private Button darkTile;
     @FXML private Button rubricTile;
+    @FXML private Button exportAllTile;
 
     /**
      * Supported sort modes for rendering the task list.
@@ -65,9 +71,11 @@ public class DashboardController {
     private enum SortMode { DUE_DATE, ALPHA, GROUPED_SUBJECT }
     private SortMode sortMode = SortMode.DUE_DATE;
 
-    private final TaskRepository taskRepo = new TaskRepository();
+    private final AsyncTaskRepository taskRepo = new AsyncTaskRepository();
     /** Latest fetched tasks used for rendering/editing in this controller lifecycle. */
     private List<Task> tasks;
+    /** Running "Export All"; clicking the tile again cancels it. */
+    private javafx.concurrent.Task<BulkExportService.Progress> exportAllTask;
 
     /**
      * FXML lifecycle hook. Wires UI handlers, starts the clock ticker, and loads tasks for the
@@ -97,8 +105,13 @@ public class DashboardController {
         darkTile.setDisable(true);
         rubricTile.setOnAction(e -> navigate("/com/cab302/eduplanner/rubric.fxml", "EduPlanner — Rubric Analysis"));
         rubricTile.setDisable(false);
+        exportAllTile.setOnAction(e -> {
+            if (exportAllTask != null) exportAllTask.cancel();
+            else exportEverything();
+        });
 
         refreshTasks(); // loads from DB and renders
+        if (user != null) DriveImportService.startWatching(user.getUserId()); // picks up edits made in the Drive folder
     }
 
     // Local time helpers
@@ -142,7 +155,7 @@ public class DashboardController {
     }
 
     /**
-     * Fetches tasks for the logged-in user and triggers a re-render.
+     * Fetches tasks for the logged-in user off the FX thread and re-renders once they arrive.
      * If no user is logged in, shows a placeholder message and clears the list.
      */
     private void refreshTasks() {
@@ -153,8 +166,36 @@ public class DashboardController {
             return;
         }
         long userId = UserSession.getCurrentUser().getUserId();
-        tasks = taskRepo.findByUserId(userId);
-        render();
+        taskRepo.findByUserId(userId)
+                .thenAcceptAsync(loaded -> {
+                    tasks = loaded;
+                    render();
+                }, Platform::runLater)
+                .exceptionally(ex -> {
+                    info("Loading tasks failed: " + ex.getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * Confirms and deletes a task in the background, then reloads the list.
+     *
+     * @param t   task to delete
+     * @param del the card's checkbox, cleared again if the user cancels
+     */
+    private void deleteTask(Task t, CheckBox del) {
+        if (!confirm("Delete this task?")) {
+            del.setSelected(false);
+            return;
+        }
+        del.setDisable(true);
+        long userId = UserSession.getCurrentUser().getUserId();
+        taskRepo.delete(t.getTaskId(), userId)
+                .exceptionally(ex -> false)
+                .thenAcceptAsync(ok -> {
+                    if (!ok) info("Delete failed");
+                    refreshTasks();
+                }, Platform::runLater);
     }
 
     // Subject and title null-friendly helpers
@@ -190,11 +231,7 @@ public class DashboardController {
         CheckBox del = new CheckBox();
         del.setOnAction(e -> {
             e.consume();
-            if (confirm("Delete this task?")) {
-                long userId = UserSession.getCurrentUser().getUserId();
-                if (!taskRepo.delete(t.getTaskId(), userId)) info("Delete failed");
-                refreshTasks();
-            } else del.setSelected(false);
+            deleteTask(t, del);
         });
 
         HBox box = new HBox(10, subj, title, due, spacer, del);
@@ -221,11 +258,7 @@ public class DashboardController {
         CheckBox del = new CheckBox();
         del.setOnAction(e -> {
             e.consume();
-            if (confirm("Delete this task?")) {
-                long userId = UserSession.getCurrentUser().getUserId();
-                if (!taskRepo.delete(t.getTaskId(), userId)) info("Delete failed");
-                refreshTasks();
-            } else del.setSelected(false);
+            deleteTask(t, del);
         });
 
         HBox box = new HBox(10, title, due, spacer, del);
@@ -403,6 +436,75 @@ public class DashboardController {
         }
     }
 
+    /**
+     * Exports every note and flashcard deck into one ZIP file chosen by the user.
+     * Rendering runs on worker threads; the tile shows progress and throughput and cancels when clicked.
+     * A cancelled or failed export deletes the partial archive.
+     */
+    private void exportEverything() {
+        if (!UserSession.isLoggedIn()) {
+            new Alert(Alert.AlertType.INFORMATION, "Log in to export your notes and flashcards.").showAndWait();
+            return;
+        }
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export All Notes and Flashcards");
+        chooser.setInitialFileName("eduplanner-export.zip");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("ZIP Archives", "*.zip"));
+        File file = chooser.showSaveDialog(cardsBox.getScene().getWindow());
+        if (file == null) return;
+
+        long userId = UserSession.getCurrentUser().getUserId();
+        BulkExportService exporter = new BulkExportService();
+        javafx.concurrent.Task<BulkExportService.Progress> task = new javafx.concurrent.Task<>() {
+            @Override
+            protected BulkExportService.Progress call() throws Exception {
+                updateMessage("Preparing export…");
+                try {
+                    BulkExportService.Progress result;
+                    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file.toPath()))) {
+                        result = exporter.exportAll(userId, out, p -> {
+                            updateProgress(p.documents(), p.total());
+                            updateMessage("Exporting (click to cancel)\n" + p.describe());
+                        }, this::isCancelled);
+                    }
+                    if (result.total() == 0) Files.deleteIfExists(file.toPath());
+                    return result;
+                } catch (Exception ex) {
+                    // The stream is closed by now, so the partial archive can go
+                    Files.deleteIfExists(file.toPath());
+                    throw ex;
+                }
+            }
+        };
+        task.setOnSucceeded(e -> {
+            endExportAll();
+            BulkExportService.Progress result = task.getValue();
+            new Alert(Alert.AlertType.INFORMATION, result.total() == 0
+                    ? "There are no notes or flashcards to export yet."
+                    : "Exported " + result.documents() + " files to:\n" + file.getAbsolutePath()
+                      + "\n\n" + result.describe()).showAndWait();
+        });
+        task.setOnCancelled(e -> endExportAll());
+        task.setOnFailed(e -> {
+            endExportAll();
+            Throwable ex = task.getException();
+            new Alert(Alert.AlertType.ERROR,
+                    "Export failed:\n" + (ex == null ? "unknown error" : ex.getMessage())).showAndWait();
+        });
+
+        exportAllTask = task;
+        exportAllTile.textProperty().bind(task.messageProperty());
+        Thread worker = new Thread(task, "export-all-worker");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void endExportAll() {
+        exportAllTask = null;
+        exportAllTile.textProperty().unbind();
+        exportAllTile.setText("Export All");
+    }
+
     @FXML
     private void handleExportTasksToCalendar() {
         if (tasks == null || tasks.isEmpty()) {
@@ -1,15 +1,19 @@
 package com.cab302.eduplanner.controller;
 
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.ProgressIndicator;
+import javafx.scene.layout.HBox;
 import javafx.stage.DirectoryChooser;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 import com.cab302.eduplanner.App;
+import com.cab302.eduplanner.appcontext.UserSession;
 import com.cab302.eduplanner.model.Flashcard;
 import com.cab302.eduplanner.model.FlashcardDeck;
 import com.cab302.eduplanner.model.FlashcardFolder;
@@ -18,9 +22,21 @@ import com.cab302.eduplanner.repository.FlashcardRepository;
 import com.cab302.eduplanner.service.GoogleDriveService;
 import com.cab302.eduplanner.service.FlashcardExportService;
 import com.cab302.eduplanner.service.FlashcardExportService.Card;
+import com.cab302.eduplanner.service.BulkExportService;
+import com.cab302.eduplanner.service.DriveImportService;
+import com.cab302.eduplanner.service.DriveService;
+import com.cab302.eduplanner.service.FlashcardImportService;
+import com.cab302.eduplanner.service.FlashcardImportService.ImportResult;
+import com.cab302.eduplanner.service.ReviewScheduler;
+import com.cab302.eduplanner.service.ReviewScheduler.Grade;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
 import java.util.*;
 
 public class FlashcardController {
@@ -34,19 +50,35 @@ public class FlashcardController {
     @FXML private Button newFolderButton, newDeckButton, renameButton, deleteFolderDeckButton;
     @FXML private Button setupDriveButton, openDriveButton, forgetDriveButton;
     @FXML private Button exportDeckCsvButton, exportDeckPdfButton, exportDeckDriveButton;
+    @FXML private Button reviewButton, againButton, hardButton, goodButton, easyButton;
+    @FXML private HBox gradeBox;
 
-    @FXML private TreeView<String> folderTree;
+    // Items are the FlashcardFolder / FlashcardDeck objects themselves, so selection needs no lookup
+    @FXML private TreeView<Object> folderTree;
     @FXML private Label flashcardText, progressLabel;
     @FXML private ProgressBar progressBar;
 
     // ==== Data ====
-    private final List<FlashcardFolder> folders = FlashcardRepository.getFolders();
+    private final FlashcardRepository flashcardRepo = new FlashcardRepository();
+
+    /** Folder/deck headers for the sidebar; only {@link #currentDeck} holds cards. */
+    private final List<FlashcardFolder> folders = new ArrayList<>();
+    private final Map<Long, FlashcardDeck> decksById = new HashMap<>();
+    private final Map<Long, TreeItem<Object>> treeItemsByDeckId = new HashMap<>();
 
     private FlashcardDeck currentDeck;
     private int currentIndex = 0;
     private boolean showingQuestion = true;
     private boolean finished = false;
 
+    // Spaced-repetition session over currentDeck; null when browsing the deck in order
+    private ReviewScheduler review;
+    private Flashcard reviewCard;
+    private int reviewedCount;
+
+    // Running CSV/TSV import; the Upload button cancels it while set
+    private Task<ImportResult> importTask;
+
     private Stage addFlashcardStage;
     private Stage editFlashcardStage;
 
@@ -77,15 +109,17 @@ public class FlashcardController {
         setupSidebar();
         setupButtons();
 
-        // Add one default folder and deck if nothing exists yet
-        if (folders.isEmpty()) {
-            FlashcardFolder defaultFolder = new FlashcardFolder("Folder");
-            FlashcardDeck defaultDeck = new FlashcardDeck("Deck");
-            defaultDeck.getFlashcards().add(
-                    new Flashcard("Question", "Answer")
-            );
-            defaultFolder.getDecks().add(defaultDeck);
-            folders.add(defaultFolder);
+        // Headers only; cards load a page at a time when a deck is opened
+        long userId = currentUserId();
+        if (userId > 0) {
+            setFolders(flashcardRepo.loadTree(userId));
+            // Add one default folder and deck if nothing exists yet
+            if (folders.isEmpty()) {
+                flashcardRepo.createFolder(userId, "Folder").ifPresent(folderId ->
+                        flashcardRepo.createDeck(folderId, userId, "Deck").ifPresent(deckId ->
+                                flashcardRepo.createCard(deckId, userId, "Question", "Answer")));
+                setFolders(flashcardRepo.loadTree(userId));
+            }
         }
 
         refreshTree();
@@ -104,30 +138,35 @@ public class FlashcardController {
     private void setupSidebar() {
         folderTree.setShowRoot(false);
 
-        folderTree.getSelectionModel().selectedItemProperty().addListener((obs, oldSel, newSel) -> {
-            if (newSel != null && newSel.getParent() != null) {
-                currentDeck = getDeck(newSel.getParent().getValue(), newSel.getValue());
-                currentIndex = 0;
-                showingQuestion = true;
-                finished = false;
-                updateFlashcardView();
-            } else {
-                currentDeck = null;
-                updateFlashcardView();
+        folderTree.setCellFactory(tv -> new TreeCell<>() {
+            @Override
+            protected void updateItem(Object item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) { setText(null); return; }
+                if (item instanceof FlashcardFolder f) setText(f.getName());
+                else if (item instanceof FlashcardDeck d) setText(d.getName());
+                else setText(item.toString());
             }
         });
 
+        folderTree.getSelectionModel().selectedItemProperty().addListener((obs, oldSel, newSel) -> {
+            openDeck(newSel != null && newSel.getValue() instanceof FlashcardDeck d ? d : null);
+        });
+
         newFolderButton.setOnAction(e -> {
             TextInputDialog dialog = new TextInputDialog("New Folder");
             dialog.setHeaderText("Enter folder name:");
             dialog.showAndWait().ifPresent(name -> {
-                folders.add(new FlashcardFolder(name));
+                var id = flashcardRepo.createFolder(currentUserId(), name);
+                if (id.isEmpty()) { saveFailed("create the folder"); return; }
+                FlashcardFolder folder = new FlashcardFolder(id.get(), name);
+                folders.add(folder);
                 refreshTree();
             });
         });
 
         newDeckButton.setOnAction(e -> {
-            TreeItem<String> selected = folderTree.getSelectionModel().getSelectedItem();
+            TreeItem<Object> selected = folderTree.getSelectionModel().getSelectedItem();
 
             if (selected == null) {
                 Alert alert = new Alert(Alert.AlertType.INFORMATION);
@@ -138,19 +177,22 @@ public class FlashcardController {
                 return;
             }
 
-            TreeItem<String> folderItem = (selected.getParent() == folderTree.getRoot())
+            TreeItem<Object> folderItem = (selected.getParent() == folderTree.getRoot())
                     ? selected
                     : selected.getParent();
 
-            if (folderItem != null && folderItem.getParent() == folderTree.getRoot()) {
+            if (folderItem != null && folderItem.getValue() instanceof FlashcardFolder folder) {
                 TextInputDialog dialog = new TextInputDialog("New Deck");
                 dialog.setHeaderText("Enter deck name:");
                 dialog.showAndWait().ifPresent(name -> {
-                    FlashcardFolder folder = getFolder(folderItem.getValue());
-                    if (folder != null) {
-                        folder.getDecks().add(new FlashcardDeck(name));
-                        refreshTree();
-                    }
+                    var id = flashcardRepo.createDeck(folder.getFolderId(), currentUserId(), name);
+                    if (id.isEmpty()) { saveFailed("create the deck"); return; }
+                    FlashcardDeck deck = new FlashcardDeck(id.get(), name);
+                    deck.setCardCount(0);
+                    folder.getDecks().add(deck);
+                    decksById.put(deck.getDeckId(), deck);
+                    refreshTree();
+                    selectDeck(deck.getDeckId());
                 });
             } else {
                 Alert alert = new Alert(Alert.AlertType.INFORMATION);
@@ -162,42 +204,87 @@ public class FlashcardController {
         });
 
         renameButton.setOnAction(e -> {
-            TreeItem<String> selected = folderTree.getSelectionModel().getSelectedItem();
+            TreeItem<Object> selected = folderTree.getSelectionModel().getSelectedItem();
             if (selected != null) {
-                String oldValue = selected.getValue();
-                String parentValue = (selected.getParent() != null) ? selected.getParent().getValue() : null;
+                Object item = selected.getValue();
+                String oldValue = item instanceof FlashcardFolder f ? f.getName()
+                        : item instanceof FlashcardDeck d ? d.getName() : "";
 
                 TextInputDialog dialog = new TextInputDialog(oldValue);
                 dialog.setHeaderText("Enter new name:");
                 dialog.showAndWait().ifPresent(newName -> {
-                    if (selected.getParent() == folderTree.getRoot()) {
-                        FlashcardFolder folder = getFolder(oldValue);
-                        if (folder != null) folder.setName(newName);
-                    } else {
-                        FlashcardDeck deck = getDeck(parentValue, oldValue);
-                        if (deck != null) deck.setName(newName);
+                    if (item instanceof FlashcardFolder folder) {
+                        if (!flashcardRepo.renameFolder(folder.getFolderId(), currentUserId(), newName)) {
+                            saveFailed("rename the folder");
+                            return;
+                        }
+                        folder.setName(newName);
+                    } else if (item instanceof FlashcardDeck deck) {
+                        if (!flashcardRepo.renameDeck(deck.getDeckId(), currentUserId(), newName)) {
+                            saveFailed("rename the deck");
+                            return;
+                        }
+                        deck.setName(newName);
                     }
-                    refreshTree();
+                    folderTree.refresh();
                 });
             }
         });
 
         deleteFolderDeckButton.setOnAction(e -> {
-            TreeItem<String> selected = folderTree.getSelectionModel().getSelectedItem();
+            TreeItem<Object> selected = folderTree.getSelectionModel().getSelectedItem();
             if (selected != null) {
-                if (selected.getParent() == folderTree.getRoot()) {
-                    folders.removeIf(f -> f.getName().equals(selected.getValue()));
-                } else {
-                    FlashcardFolder folder = getFolder(selected.getParent().getValue());
-                    if (folder != null) {
-                        folder.getDecks().removeIf(d -> d.getName().equals(selected.getValue()));
+                if (selected.getValue() instanceof FlashcardFolder folder) {
+                    if (!flashcardRepo.deleteFolder(folder.getFolderId(), currentUserId())) {
+                        saveFailed("delete the folder");
+                        return;
+                    }
+                    folders.remove(folder);
+                    for (FlashcardDeck deck : folder.getDecks()) decksById.remove(deck.getDeckId());
+                } else if (selected.getValue() instanceof FlashcardDeck deck
+                        && selected.getParent().getValue() instanceof FlashcardFolder folder) {
+                    if (!flashcardRepo.deleteDeck(deck.getDeckId(), currentUserId())) {
+                        saveFailed("delete the deck");
+                        return;
                     }
+                    folder.getDecks().remove(deck);
+                    decksById.remove(deck.getDeckId());
                 }
                 refreshTree();
             }
         });
     }
 
+    /** Makes {@code deck} the active deck, releasing the cards of the previous one. */
+    private void openDeck(FlashcardDeck deck) {
+        endReview();
+        if (currentDeck != null && currentDeck != deck) {
+            currentDeck.getFlashcards().clear();
+            currentDeck.setCardCount(-1);
+        }
+        currentDeck = deck;
+        currentIndex = 0;
+        showingQuestion = true;
+        finished = false;
+        if (deck != null && deck.getFlashcards().isEmpty()) {
+            flashcardRepo.loadNextPage(deck, currentUserId());
+        }
+        updateFlashcardView();
+    }
+
+    /**
+     * Selects a deck in the sidebar by id, e.g. after it was created or from a search hit.
+     *
+     * @return false if the deck is not in the current user's library
+     */
+    public boolean selectDeck(long deckId) {
+        TreeItem<Object> item = treeItemsByDeckId.get(deckId);
+        if (item == null) return false;
+        item.getParent().setExpanded(true);
+        folderTree.getSelectionModel().select(item);
+        return true;
+    }
+
     // ==== Button setup ====
     private void setupButtons() {
         nextButton.setOnAction(e -> nextFlashcard());
@@ -218,16 +305,19 @@ public class FlashcardController {
         });
 
         uploadButton.setOnAction(e -> {
-            Alert alert = new Alert(Alert.AlertType.INFORMATION);
-            alert.setTitle("Upload Flashcards");
-            alert.setHeaderText(null);
-            alert.setContentText("Upload functionality not yet implemented.");
-            alert.showAndWait();
+            if (importTask != null) importTask.cancel();
+            else startImport();
         });
 
         addButton.setOnAction(e -> openAddFlashcardDialog());
         editButton.setOnAction(e -> openEditFlashcardDialog());
         deleteButton.setOnAction(e -> deleteFlashcard());
+
+        reviewButton.setOnAction(e -> startReview());
+        againButton.setOnAction(e -> gradeReviewCard(Grade.AGAIN));
+        hardButton.setOnAction(e -> gradeReviewCard(Grade.HARD));
+        goodButton.setOnAction(e -> gradeReviewCard(Grade.GOOD));
+        easyButton.setOnAction(e -> gradeReviewCard(Grade.EASY));
     }
 
     // ==== Flashcard logic ====
@@ -246,14 +336,15 @@ public class FlashcardController {
             progressBar.setProgress(ProgressIndicator.INDETERMINATE_PROGRESS);
             setButtonsDisabled(true);
             addButton.setDisable(false);
-            if (uploadButton != null) uploadButton.setDisable(!hasAnyFlashcards());
+            if (uploadButton != null) uploadButton.setDisable(!canImport());
             return;
         }
 
         Flashcard current = currentDeck.getFlashcards().get(currentIndex);
+        int total = currentDeck.getCardCount();
         flashcardText.setText(showingQuestion ? current.getQuestion() : current.getAnswer());
-        progressLabel.setText("Progress: " + (currentIndex + 1) + "/" + currentDeck.getFlashcards().size());
-        progressBar.setProgress((double) (currentIndex + 1) / currentDeck.getFlashcards().size());
+        progressLabel.setText("Progress: " + (currentIndex + 1) + "/" + total);
+        progressBar.setProgress((double) (currentIndex + 1) / total);
 
         prevButton.setDisable(currentIndex == 0 || finished);
         nextButton.setDisable(finished);
@@ -264,18 +355,20 @@ public class FlashcardController {
         addButton.setDisable(finished);
         editButton.setDisable(finished);
         deleteButton.setDisable(finished);
-        if (uploadButton != null) uploadButton.setDisable(!hasAnyFlashcards());
+        reviewButton.setDisable(false);
+        if (uploadButton != null) uploadButton.setDisable(!canImport());
     }
 
     private void nextFlashcard() {
         if (currentDeck == null) return;
-        if (currentIndex < currentDeck.getFlashcards().size() - 1) {
+        if (currentIndex < currentDeck.getCardCount() - 1 && ensureLoaded(currentIndex + 1)) {
             currentIndex++;
             showingQuestion = true;
             updateFlashcardView();
         } else {
+            int total = currentDeck.getCardCount();
             flashcardText.setText("All cards complete!");
-            progressLabel.setText("Progress: " + currentDeck.getFlashcards().size() + "/" + currentDeck.getFlashcards().size());
+            progressLabel.setText("Progress: " + total + "/" + total);
             progressBar.setProgress(1.0);
             finished = true;
         }
@@ -293,11 +386,14 @@ public class FlashcardController {
     private void flipFlashcard() {
         if (currentDeck == null || finished) return;
         showingQuestion = !showingQuestion;
-        updateFlashcardView();
+        if (review != null) showReviewCard();
+        else updateFlashcardView();
     }
 
     private void shuffleFlashcards() {
         if (currentDeck == null) return;
+        // Paging follows card id order, so the whole deck has to be in memory before it is reordered
+        loadAllCards(currentDeck);
         Collections.shuffle(currentDeck.getFlashcards());
         currentIndex = 0;
         showingQuestion = true;
@@ -307,6 +403,7 @@ public class FlashcardController {
 
     private void resetDeck() {
         if (currentDeck == null) return;
+        endReview();
         currentIndex = 0;
         showingQuestion = true;
         finished = false;
@@ -315,12 +412,205 @@ public class FlashcardController {
 
     private void finishDeck() {
         if (currentDeck == null) return;
+        if (review != null) {
+            int reviewed = reviewedCount;
+            endReview();
+            finished = true;
+            updateFlashcardView();
+            flashcardText.setText("Review ended. Cards reviewed: " + reviewed);
+            return;
+        }
         flashcardText.setText("You ended the deck early!");
-        progressLabel.setText("Progress: " + (currentIndex + 1) + "/" + currentDeck.getFlashcards().size());
+        progressLabel.setText("Progress: " + (currentIndex + 1) + "/" + currentDeck.getCardCount());
         progressBar.setProgress(1.0);
         finished = true;
     }
 
+    /**
+     * Loads pages of the current deck until {@code index} is in memory.
+     *
+     * @return false if the card could not be loaded (it was deleted elsewhere or the query failed)
+     */
+    private boolean ensureLoaded(int index) {
+        List<Flashcard> cards = currentDeck.getFlashcards();
+        while (index >= cards.size()) {
+            if (!flashcardRepo.loadNextPage(currentDeck, currentUserId())) {
+                currentDeck.setCardCount(cards.size());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void loadAllCards(FlashcardDeck deck) {
+        long userId = currentUserId();
+        while (!deck.isFullyLoaded()) {
+            if (!flashcardRepo.loadNextPage(deck, userId)) {
+                deck.setCardCount(deck.getFlashcards().size());
+            }
+        }
+    }
+
+    // ==== Spaced repetition ====
+
+    /** Starts reviewing the current deck's due cards, earliest due first. */
+    private void startReview() {
+        if (currentDeck == null) return;
+        long userId = currentUserId();
+        // Index-only count, so an up-to-date deck is not read into memory just to find nothing due
+        if (flashcardRepo.countDue(currentDeck.getDeckId(), userId, System.currentTimeMillis()) == 0) {
+            new Alert(Alert.AlertType.INFORMATION, "No cards in this deck are due for review.").showAndWait();
+            return;
+        }
+        loadAllCards(currentDeck);
+        review = new ReviewScheduler();
+        review.addAll(currentDeck.getFlashcards());
+        reviewedCount = 0;
+        finished = false;
+        showNextDue();
+    }
+
+    private void gradeReviewCard(Grade grade) {
+        if (review == null || reviewCard == null) return;
+        review.review(reviewCard, grade);
+        if (!flashcardRepo.updateSchedule(reviewCard, currentUserId())) {
+            saveFailed("save the review");
+        }
+        reviewedCount++;
+        showNextDue();
+    }
+
+    private void showNextDue() {
+        Optional<Flashcard> next = review.nextDue();
+        if (next.isEmpty()) {
+            String when = review.nextDueAt()
+                    .map(at -> DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT)
+                            .format(Instant.ofEpochMilli(at).atZone(ZoneId.systemDefault())))
+                    .orElse("-");
+            int reviewed = reviewedCount;
+            endReview();
+            finished = true;
+            updateFlashcardView();
+            flashcardText.setText("All due cards reviewed (" + reviewed + ").\nNext review: " + when);
+            return;
+        }
+        reviewCard = next.get();
+        showingQuestion = true;
+        showReviewCard();
+    }
+
+    private void showReviewCard() {
+        flashcardText.setText(showingQuestion ? reviewCard.getQuestion() : reviewCard.getAnswer());
+        progressLabel.setText("Reviewed: " + reviewedCount);
+        progressBar.setProgress(ProgressIndicator.INDETERMINATE_PROGRESS);
+
+        // Only flip, grade and finish make sense mid-review
+        setButtonsDisabled(true);
+        flipButton.setDisable(false);
+        finishButton.setDisable(false);
+        resetButton.setDisable(false);
+        reviewButton.setDisable(true);
+        gradeBox.setVisible(true);
+        gradeBox.setManaged(true);
+    }
+
+    private void endReview() {
+        if (review == null) return;
+        review = null;
+        reviewCard = null;
+        gradeBox.setVisible(false);
+        gradeBox.setManaged(false);
+    }
+
+    // ==== Import ====
+
+    /**
+     * Imports a CSV/TSV file into a new deck in the selected folder. Parsing and batched inserts run on a
+     * worker thread; the progress bar follows the bytes read and Upload turns into Cancel until it ends.
+     * The deck is deleted again if the import is cancelled or fails, so a partial import never shows up.
+     */
+    private void startImport() {
+        TreeItem<Object> selected = folderTree.getSelectionModel().getSelectedItem();
+        FlashcardFolder folder = selected == null ? null
+                : selected.getValue() instanceof FlashcardFolder f ? f
+                : selected.getParent().getValue() instanceof FlashcardFolder f ? f : null;
+        if (folder == null) {
+            new Alert(Alert.AlertType.INFORMATION, "Select the folder to import the deck into.").showAndWait();
+            return;
+        }
+
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Flashcards");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Flashcards (CSV, TSV)", "*.csv", "*.tsv", "*.txt"),
+                new FileChooser.ExtensionFilter("All files", "*.*"));
+        File file = chooser.showOpenDialog(uploadButton.getScene().getWindow());
+        if (file == null) return;
+
+        long userId = currentUserId();
+        String deckName = file.getName().replaceFirst("\\.[^.]+$", "");
+        var created = flashcardRepo.createDeck(folder.getFolderId(), userId, deckName);
+        if (created.isEmpty()) { saveFailed("create the deck"); return; }
+        long deckId = created.get();
+
+        FlashcardImportService importer = new FlashcardImportService(flashcardRepo);
+        Task<ImportResult> task = new Task<>() {
+            @Override
+            protected ImportResult call() throws Exception {
+                return importer.importInto(file.toPath(), deckId, userId, (read, total, imported) -> {
+                    updateProgress(read, total);
+                    updateMessage("Imported " + imported + " cards");
+                }, this::isCancelled);
+            }
+        };
+
+        task.setOnSucceeded(e -> {
+            ImportResult result = task.getValue();
+            endImport();
+            FlashcardDeck deck = new FlashcardDeck(deckId, deckName);
+            folder.getDecks().add(deck);
+            decksById.put(deckId, deck);
+            refreshTree();
+            selectDeck(deckId);
+            new Alert(Alert.AlertType.INFORMATION, "Imported " + result.imported() + " cards into \"" + deckName + "\"."
+                    + (result.skipped() > 0 ? "\nSkipped " + result.skipped() + " rows without a question and answer." : ""))
+                    .showAndWait();
+        });
+        task.setOnCancelled(e -> {
+            // Batches still in flight fail the ownership check once the deck is gone
+            flashcardRepo.deleteDeck(deckId, userId);
+            endImport();
+        });
+        task.setOnFailed(e -> {
+            flashcardRepo.deleteDeck(deckId, userId);
+            endImport();
+            Throwable error = task.getException();
+            new Alert(Alert.AlertType.ERROR, "Import failed: " + (error == null ? "unknown error" : error.getMessage()))
+                    .showAndWait();
+        });
+
+        folderTree.getSelectionModel().clearSelection();
+        folderTree.setDisable(true);
+        importTask = task;
+        uploadButton.setText("Cancel Import");
+        flashcardText.setText("Importing " + file.getName() + "…");
+        progressBar.progressProperty().bind(task.progressProperty());
+        progressLabel.textProperty().bind(task.messageProperty());
+
+        Thread worker = new Thread(task, "flashcard-import-worker");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void endImport() {
+        importTask = null;
+        progressBar.progressProperty().unbind();
+        progressLabel.textProperty().unbind();
+        uploadButton.setText("Upload");
+        folderTree.setDisable(false);
+        updateFlashcardView();
+    }
+
     // ==== CRUD ====
     private void openAddFlashcardDialog() {
         if (currentDeck == null) return;
@@ -338,7 +628,13 @@ public class FlashcardController {
                 AddFlashcardController controller = loader.getController();
                 Flashcard newCard = controller.getNewFlashcard();
                 if (newCard != null) {
-                    currentDeck.getFlashcards().add(newCard);
+                    var id = flashcardRepo.createCard(currentDeck.getDeckId(), currentUserId(),
+                            newCard.getQuestion(), newCard.getAnswer());
+                    if (id.isEmpty()) { saveFailed("save the flashcard"); return; }
+                    newCard.setCardId(id.get());
+                    // Unloaded pages are read in id order, so the new card arrives with the last page
+                    if (currentDeck.isFullyLoaded()) currentDeck.getFlashcards().add(newCard);
+                    currentDeck.setCardCount(currentDeck.getCardCount() + 1);
                     finished = false;
                     updateFlashcardView();
                 }
@@ -370,6 +666,12 @@ public class FlashcardController {
 
                 Flashcard updated = controller.getNewFlashcard();
                 if (updated != null) {
+                    if (!flashcardRepo.updateCard(current.getCardId(), currentUserId(),
+                            updated.getQuestion(), updated.getAnswer())) {
+                        saveFailed("save the flashcard");
+                        return;
+                    }
+                    updated.setCardId(current.getCardId());
                     currentDeck.getFlashcards().set(currentIndex, updated);
                     showingQuestion = true;
                     finished = false;
@@ -395,46 +697,65 @@ public class FlashcardController {
 
         Optional<ButtonType> result = alert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
+            if (!flashcardRepo.deleteCard(current.getCardId(), currentUserId())) {
+                saveFailed("delete the flashcard");
+                return;
+            }
             currentDeck.getFlashcards().remove(currentIndex);
-            if (currentDeck.getFlashcards().isEmpty()) {
+            currentDeck.setCardCount(currentDeck.getCardCount() - 1);
+            if (currentDeck.getCardCount() == 0) {
                 updateFlashcardView();
                 return;
             }
-            if (currentIndex >= currentDeck.getFlashcards().size()) {
-                currentIndex = currentDeck.getFlashcards().size() - 1;
+            if (currentIndex >= currentDeck.getCardCount()) {
+                currentIndex = currentDeck.getCardCount() - 1;
             }
+            ensureLoaded(currentIndex);
+            currentIndex = Math.min(currentIndex, currentDeck.getFlashcards().size() - 1);
             showingQuestion = true;
             updateFlashcardView();
         }
     }
 
     // ==== Helpers ====
+    private void setFolders(List<FlashcardFolder> loaded) {
+        folders.clear();
+        decksById.clear();
+        folders.addAll(loaded);
+        for (FlashcardFolder folder : loaded) {
+            for (FlashcardDeck deck : folder.getDecks()) decksById.put(deck.getDeckId(), deck);
+        }
+    }
+
     private void refreshTree() {
-        TreeItem<String> root = new TreeItem<>("Root");
+        TreeItem<Object> selected = folderTree.getSelectionModel().getSelectedItem();
+        Object keep = selected == null ? null : selected.getValue();
+
+        TreeItem<Object> root = new TreeItem<>("Root");
+        treeItemsByDeckId.clear();
+        TreeItem<Object> reselect = null;
         for (FlashcardFolder folder : folders) {
-            TreeItem<String> folderItem = new TreeItem<>(folder.getName());
+            TreeItem<Object> folderItem = new TreeItem<>(folder);
+            if (folder == keep) reselect = folderItem;
             for (FlashcardDeck deck : folder.getDecks()) {
-                folderItem.getChildren().add(new TreeItem<>(deck.getName()));
+                TreeItem<Object> deckItem = new TreeItem<>(deck);
+                treeItemsByDeckId.put(deck.getDeckId(), deckItem);
+                folderItem.getChildren().add(deckItem);
             }
             root.getChildren().add(folderItem);
         }
         folderTree.setRoot(root);
-    }
-
-    private FlashcardFolder getFolder(String name) {
-        return folders.stream().filter(f -> f.getName().equals(name)).findFirst().orElse(null);
-    }
 
-    private FlashcardDeck getDeck(String folderName, String deckName) {
-        FlashcardFolder folder = getFolder(folderName);
-        if (folder == null) return null;
-        return folder.getDecks().stream().filter(d -> d.getName().equals(deckName)).findFirst().orElse(null);
+        if (keep instanceof FlashcardDeck deck && decksById.containsKey(deck.getDeckId())) {
+            selectDeck(deck.getDeckId());
+        } else if (reselect != null) {
+            folderTree.getSelectionModel().select(reselect);
+        }
     }
 
-    private boolean hasAnyFlashcards() {
-        return folders.stream()
-                .flatMap(f -> f.getDecks().stream())
-                .anyMatch(d -> !d.getFlashcards().isEmpty());
+    private boolean canImport() {
+        // Imports create a deck, so they need a folder but not an open deck; a running import can always be cancelled
+        return importTask != null || !folders.isEmpty();
     }
 
     private void setButtonsDisabled(boolean disabled) {
@@ -447,11 +768,21 @@ public class FlashcardController {
         addButton.setDisable(disabled);
         editButton.setDisable(disabled);
         deleteButton.setDisable(disabled);
+        reviewButton.setDisable(disabled);
         if (uploadButton != null) {
-            uploadButton.setDisable(disabled || !hasAnyFlashcards());
+            uploadButton.setDisable(!canImport());
         }
     }
 
+    private static long currentUserId() {
+        var user = UserSession.getCurrentUser();
+        return user == null ? -1 : user.getUserId();
+    }
+
+    private void saveFailed(String action) {
+        new Alert(Alert.AlertType.ERROR, "Could not " + action + ". Please try again.").showAndWait();
+    }
+
     // ==== Google Drive Export Methods ====
     private void updateDriveButtonsState() {
         boolean hasDrive = driveService != null && driveService.getSavedDriveFolder() != null;
@@ -465,13 +796,15 @@ public class FlashcardController {
         FlashcardDeck deck = currentDeck;
 
         if (deck == null) {
+            long userId = currentUserId();
             outer:
             for (FlashcardFolder f : folders) {
                 for (FlashcardDeck d : f.getDecks()) {
-                    if (!d.getFlashcards().isEmpty()) { deck = d; break outer; }
+                    if (flashcardRepo.loadNextPage(d, userId)) { deck = d; break outer; }
                 }
             }
         }
+        if (deck != null) loadAllCards(deck);
 
         String name = deck == null ? "Deck" : (deck.getName() == null || deck.getName().isBlank() ? "Deck" : deck.getName());
         List<Card> cards = new ArrayList<>();
@@ -501,6 +834,7 @@ public class FlashcardController {
         if (base != null) {
             new Alert(Alert.AlertType.INFORMATION,
                     "Drive sync folder set:\n" + base.getAbsolutePath() + "\n\nSubfolders created:\n- Notes\n- Flashcards").showAndWait();
+            DriveImportService.startWatching(currentUserId());
         }
         updateDriveButtonsState();
     }
@@ -583,21 +917,40 @@ public class FlashcardController {
             new Alert(Alert.AlertType.ERROR, "Drive features unavailable.").showAndWait();
             return;
         }
-        DeckExport deck = gatherActiveDeck();
-
         if (driveService.getSavedDriveFolder() == null) {
             handleSetupDriveFolder();
             if (driveService.getSavedDriveFolder() == null) return;
         }
 
-        try {
-            File temp = cardExport.exportPdf(deck.name(), deck.cards(), new File(System.getProperty("java.io.tmpdir")));
+        // Mirrors every deck (PDF and CSV) into Drive/Flashcards; unchanged decks are not rewritten, so Drive
+        // doesn't re-upload them. Deck CSVs edited there since the last sync are imported first rather than overwritten.
+        long userId = currentUserId();
+        BulkExportService exporter = new BulkExportService();
+        Task<DriveService.SyncResult> task = new Task<>() {
+            @Override
+            protected DriveService.SyncResult call() throws Exception {
+                DriveService drive = new DriveService();
+                Path folder = drive.subfolder("Flashcards");
+                DriveImportService importer = new DriveImportService(userId, null, folder);
+                return drive.sync(folder, exporter.deckFiles(userId), importer::importEdit);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (exportDeckDriveButton != null) exportDeckDriveButton.setDisable(false);
             File fcFolder = driveService.ensureSubfolder("Flashcards");
-            File copied = cardExport.copyToFolder(temp, fcFolder);
-            new Alert(Alert.AlertType.INFORMATION, "Exported to Drive:\n" + copied.getAbsolutePath()).showAndWait();
+            new Alert(Alert.AlertType.INFORMATION, "Decks synced to Drive:\n" + fcFolder.getAbsolutePath()
+                    + "\n\n" + task.getValue().describe()).showAndWait();
             try { if (java.awt.Desktop.isDesktopSupported()) java.awt.Desktop.getDesktop().open(fcFolder); } catch (Exception ignore) {}
-        } catch (Exception ex) {
-            new Alert(Alert.AlertType.ERROR, "Drive export failed:\n" + ex.getMessage()).showAndWait();
-        }
+        });
+        task.setOnFailed(e -> {
+            if (exportDeckDriveButton != null) exportDeckDriveButton.setDisable(false);
+            Throwable ex = task.getException();
+            new Alert(Alert.AlertType.ERROR, "Drive export failed:\n" + (ex == null ? "unknown error" : ex.getMessage())).showAndWait();
+        });
+
+        if (exportDeckDriveButton != null) exportDeckDriveButton.setDisable(true);
+        Thread worker = new Thread(task, "drive-sync-worker");
+        worker.setDaemon(true);
+        worker.start();
     }
 }
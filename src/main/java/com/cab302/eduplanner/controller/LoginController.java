@@ -3,6 +3,7 @@ package com.cab302.eduplanner.controller;
 import com.cab302.eduplanner.service.AuthService;
 import com.cab302.eduplanner.App;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.Node;
 import javafx.scene.control.*;
@@ -122,12 +123,20 @@ public class LoginController {
         String u = usernameField.getText();
         String p = passwordField.getText();
 
-        // Uses AuthService instead of re-querying
-        if (auth.authenticate(u, p)) {
-            openMainUI(event);
-        } else {
-            messageLabel.setText("Invalid credentials");
-        }
+        // Lookup and BCrypt check run off the FX thread; disable the button so Enter can't queue repeats
+        loginButton.setDisable(true);
+        messageLabel.setText("");
+        auth.authenticateAsync(u, p).whenComplete((ok, err) -> Platform.runLater(() -> {
+            loginButton.setDisable(false);
+            if (err != null) {
+                System.err.println("Login failed: " + err.getMessage());
+                messageLabel.setText("Unable to sign in right now.");
+            } else if (ok) {
+                openMainUI(event);
+            } else {
+                messageLabel.setText("Invalid credentials");
+            }
+        }));
     }
 
     /**
@@ -1,10 +1,17 @@
 package com.cab302.eduplanner.controller;
 
 import com.cab302.eduplanner.App;
+import com.cab302.eduplanner.appcontext.UserSession;
 import com.cab302.eduplanner.model.Folder;
 import com.cab302.eduplanner.model.Note;
-import com.cab302.eduplanner.store.NoteStore;
+import com.cab302.eduplanner.repository.NoteRepository;
+import com.cab302.eduplanner.service.BulkExportService;
+import com.cab302.eduplanner.service.DriveImportService;
+import com.cab302.eduplanner.service.DriveService;
+import com.cab302.eduplanner.service.NoteExportService;
+import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.input.KeyCode;
@@ -25,17 +32,10 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.common.PDRectangle;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
 
 public class NoteController {
 
     private static final Logger LOG = Logger.getLogger(NoteController.class.getName());
-    private static final int WRAP_WIDTH = 90;
 
     // Sidebar
     @FXML private TreeView<Object> folderTree;
@@ -56,6 +56,7 @@ public class NoteController {
     @FXML private Button exportCsvButton;
     @FXML private Button exportPdfButton;
     @FXML private Button exportDriveButton;
+    @FXML private ProgressBar exportProgress;
 
     // ----- Editor -----
     @FXML private TextField titleField;
@@ -64,10 +65,16 @@ public class NoteController {
     @FXML private Button cancelButton;
 
     // ----- Model/state -----
-    private final ObservableList<Folder> folders = NoteStore.getFolders();
+    private final NoteRepository noteRepo = new NoteRepository();
+    private final NoteExportService noteExport = new NoteExportService();
+    /** Folder/note headers for the sidebar; only {@link #currentNote} holds its content. */
+    private final ObservableList<Folder> folders = FXCollections.observableArrayList();
     private Note currentNote = null;
     private boolean dirty = false;
     private boolean suppressSelectionEvents = false;
+    // Running PDF export; Export as PDF stays disabled until it finishes
+    private Task<Void> pdfExport;
+    private Task<DriveService.SyncResult> driveSync;
 
     // Preferences keys
     private static final String PREF_NODE = "com.cab302.eduplanner.notes";
@@ -76,11 +83,16 @@ public class NoteController {
 
     @FXML
     public void initialize() {
-        // Seed example only once for the whole app session
-        if (NoteStore.isEmpty()) {
-            Folder sample = new Folder("My Folder");
-            sample.addNote(new Note("Sample Note", "This is an example note."));
-            folders.add(sample);
+        // Headers only; note bodies load when a note is opened
+        long userId = currentUserId();
+        if (userId > 0) {
+            folders.setAll(noteRepo.loadTree(userId));
+            // Seed an example for a user with no notes yet
+            if (folders.isEmpty()) {
+                noteRepo.createFolder(userId, "My Folder").ifPresent(folderId ->
+                        noteRepo.createNote(folderId, userId, "Sample Note", "This is an example note."));
+                folders.setAll(noteRepo.loadTree(userId));
+            }
         }
 
         refreshTree();
@@ -130,7 +142,7 @@ public class NoteController {
 
         exportCsvButton.setOnAction(e -> exportCurrentNoteAsCsv());
         exportPdfButton.setOnAction(e -> exportCurrentNoteAsPdf());
-        exportDriveButton.setOnAction(e -> exportCurrentNoteToDrive());
+        exportDriveButton.setOnAction(e -> syncNotesToDrive());
 
         renameButton.disableProperty().bind(folderTree.getSelectionModel().selectedItemProperty().isNull());
         deleteButton.disableProperty().bind(folderTree.getSelectionModel().selectedItemProperty().isNull());
@@ -299,56 +311,47 @@ public class NoteController {
         File dest = fc.showSaveDialog(exportPdfButton.getScene().getWindow());
         if (dest == null) return;
 
-        try (PDDocument doc = new PDDocument()) {
-            PDPage page = new PDPage(PDRectangle.LETTER);
-            doc.addPage(page);
-
-            PDType1Font titleFont = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
-            PDType1Font bodyFont  = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
-
-            try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
-                float margin = 50f;
-                float y = page.getMediaBox().getHeight() - margin;
-
-                cs.setNonStrokingColor(0, 0, 0);
-
-                // Title
-                cs.beginText();
-                cs.setFont(titleFont, 18);
-                cs.newLineAtOffset(margin, y);
-                cs.showText(currentNote.getTitle().isBlank() ? "Untitled Note" : currentNote.getTitle());
-                cs.endText();
-
-                y -= 28f;
-
-                // Body (simple wrapping)
-                cs.beginText();
-                cs.setFont(bodyFont, 12);
-                cs.newLineAtOffset(margin, y);
+        // Layout and saving run on a worker; the note's text is captured now so later edits don't leak in
+        String title = currentNote.getTitle();
+        String content = currentNote.getContent();
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() throws Exception {
+                noteExport.writePdf(title, content, dest, this::updateProgress);
+                return null;
+            }
+        };
+        task.setOnSucceeded(e -> {
+            endPdfExport();
+            new Alert(Alert.AlertType.INFORMATION, "PDF exported:\n" + dest.getAbsolutePath()).showAndWait();
+        });
+        task.setOnFailed(e -> {
+            endPdfExport();
+            Throwable ex = task.getException();
+            LOG.log(Level.WARNING, "PDF export failed", ex);
+            new Alert(Alert.AlertType.ERROR, "Failed to export PDF:\n" + (ex == null ? "unknown error" : ex.getMessage())).showAndWait();
+        });
 
-                String[] lines = currentNote.getContent().split("\\R");
-                float leading = 16f;
+        pdfExport = task;
+        exportProgress.progressProperty().bind(task.progressProperty());
+        exportProgress.setVisible(true);
+        exportProgress.setManaged(true);
+        updateExportButtonsState();
 
-                for (String line : lines) {
-                    for (String chunk : wrap(line)) {
-                        cs.showText(chunk);
-                        cs.newLineAtOffset(0, -leading);
-                        y -= leading;
-                        if (y < margin) break; // single-page guard
-                    }
-                    if (y < margin) break;
-                }
-                cs.endText();
-            }
+        Thread worker = new Thread(task, "note-pdf-export-worker");
+        worker.setDaemon(true);
+        worker.start();
+    }
 
-            doc.save(dest);
-            new Alert(Alert.AlertType.INFORMATION, "PDF exported:\n" + dest.getAbsolutePath()).showAndWait();
-        } catch (IOException ex) {
-            new Alert(Alert.AlertType.ERROR, "Failed to export PDF:\n" + ex.getMessage()).showAndWait();
-        }
+    private void endPdfExport() {
+        pdfExport = null;
+        exportProgress.progressProperty().unbind();
+        exportProgress.setVisible(false);
+        exportProgress.setManaged(false);
+        updateExportButtonsState();
     }
 
-    private void exportCurrentNoteToDrive() {
+    private void syncNotesToDrive() {
         if (!canExportCurrent()) return;
 
         String root = prefs.get(PREF_DRIVE_PATH, null);
@@ -357,21 +360,39 @@ public class NoteController {
             return;
         }
 
-        String folderName = resolveSelectedFolderName();
-        String safeTitle = sanitizeFileName(currentNote.getTitle().isBlank() ? "Untitled Note" : currentNote.getTitle());
-        Path driveBase = normalizeGoogleDriveRoot(Path.of(root));
-        Path dest = driveBase.resolve("EduPlanner/Notes/" + folderName + "/" + safeTitle + ".md");
-        String markdown = "# " + safe(currentNote.getTitle()) + "\n\n" + safe(currentNote.getContent()) + "\n";
-
-        try {
-            Files.createDirectories(dest.getParent());
-            Files.writeString(dest, markdown, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-            new Alert(Alert.AlertType.INFORMATION, "Exported to Drive (will sync):\n" + dest).showAndWait();
-        } catch (IOException ex) {
+        // Mirrors every note into EduPlanner/Notes; unchanged notes are not rewritten, so Drive doesn't re-upload them.
+        // Notes edited there since the last sync are imported first rather than overwritten.
+        Path dest = normalizeGoogleDriveRoot(Path.of(root)).resolve("EduPlanner/Notes");
+        long userId = currentUserId();
+        Task<DriveService.SyncResult> task = new Task<>() {
+            @Override
+            protected DriveService.SyncResult call() throws Exception {
+                DriveImportService importer = new DriveImportService(userId, dest, null);
+                return new DriveService().sync(dest, new BulkExportService().noteMarkdown(userId), importer::importEdit);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            driveSync = null;
+            updateExportButtonsState();
+            DriveImportService.startWatching(userId); // the Notes folder may have just been created
+            new Alert(Alert.AlertType.INFORMATION, "Notes synced to Drive:\n" + dest
+                    + "\n\n" + task.getValue().describe()).showAndWait();
+        });
+        task.setOnFailed(e -> {
+            driveSync = null;
+            updateExportButtonsState();
+            Throwable ex = task.getException();
+            LOG.log(Level.WARNING, "Drive sync failed", ex);
             new Alert(Alert.AlertType.ERROR,
-                    "Failed to export to Drive:\n" + dest + "\n\n" + ex.getMessage()
+                    "Failed to export to Drive:\n" + dest + "\n\n" + (ex == null ? "unknown error" : ex.getMessage())
             ).showAndWait();
-        }
+        });
+
+        driveSync = task;
+        updateExportButtonsState();
+        Thread worker = new Thread(task, "note-drive-sync-worker");
+        worker.setDaemon(true);
+        worker.start();
     }
 
     private boolean canExportCurrent() {
@@ -381,9 +402,9 @@ public class NoteController {
     private void updateExportButtonsState() {
         boolean can = currentNote != null && !dirty;
         exportCsvButton.setDisable(!can);
-        exportPdfButton.setDisable(!can);
+        exportPdfButton.setDisable(!can || pdfExport != null);
         boolean hasDrive = prefs.get(PREF_DRIVE_PATH, null) != null;
-        exportDriveButton.setDisable(!can || !hasDrive);
+        exportDriveButton.setDisable(!can || !hasDrive || driveSync != null);
     }
 
     // --- Tree Management ---
@@ -417,7 +438,9 @@ public class NoteController {
     }
 
     private void addFolder() {
-        Folder folder = new Folder("New Folder");
+        var id = noteRepo.createFolder(currentUserId(), "New Folder");
+        if (id.isEmpty()) { saveFailed("create the folder"); return; }
+        Folder folder = new Folder(id.get(), "New Folder");
         folders.add(folder);
         refreshTree();
         selectInTree(folder);
@@ -433,7 +456,10 @@ public class NoteController {
                 : null;
         if (folder == null) return;
 
-        Note note = new Note("Untitled Note", "");
+        var id = noteRepo.createNote(folder.getFolderId(), currentUserId(), "Untitled Note", "");
+        if (id.isEmpty()) { saveFailed("create the note"); return; }
+        Note note = new Note(id.get(), "Untitled Note");
+        note.setContent("");
         folder.addNote(note);
         refreshTree();
         selectInTree(note);
@@ -455,8 +481,10 @@ public class NoteController {
         dialog.setContentText("Enter new name:");
         dialog.showAndWait().ifPresent(name -> {
             if (selected.getValue() instanceof Folder folder) {
+                if (!noteRepo.renameFolder(folder.getFolderId(), currentUserId(), name)) { saveFailed("rename the folder"); return; }
                 folder.setName(name);
             } else if (selected.getValue() instanceof Note note) {
+                if (!noteRepo.renameNote(note.getNoteId(), currentUserId(), name)) { saveFailed("rename the note"); return; }
                 note.setTitle(name);
                 if (currentNote == note) titleField.setText(name);
             }
@@ -478,6 +506,7 @@ public class NoteController {
             alert.setContentText("Folder: " + folder.getName() + "\nThis will also delete " + folder.getNotes().size() + " notes.");
             alert.showAndWait().ifPresent(result -> {
                 if (result == ButtonType.OK) {
+                    if (!noteRepo.deleteFolder(folder.getFolderId(), currentUserId())) { saveFailed("delete the folder"); return; }
                     folders.remove(folder);
                     refreshTree();
                     clearEditor();
@@ -490,6 +519,7 @@ public class NoteController {
             alert.setContentText("Title: " + (note.getTitle().isBlank() ? "(Untitled Note)" : note.getTitle()));
             alert.showAndWait().ifPresent(result -> {
                 if (result == ButtonType.OK) {
+                    if (!noteRepo.deleteNote(note.getNoteId(), currentUserId())) { saveFailed("delete the note"); return; }
                     TreeItem<Object> parent = selected.getParent();
                     if (parent != null && parent.getValue() instanceof Folder parentFolder) {
                         parentFolder.removeNote(note);
@@ -502,6 +532,21 @@ public class NoteController {
     }
 
     private void loadNoteIntoEditor(Note note) {
+        // Only the open note keeps its body in memory
+        if (currentNote != null && currentNote != note) currentNote.unloadContent();
+        if (!note.isContentLoaded()) {
+            var content = noteRepo.loadContent(note.getNoteId(), currentUserId());
+            if (content.isEmpty()) {
+                // The previous note is already unloaded, so its title and body must not stay in the editor
+                currentNote = null;
+                titleField.clear();
+                contentArea.clear();
+                onEditorChanged();
+                new Alert(Alert.AlertType.ERROR, "Could not open the note.").showAndWait();
+                return;
+            }
+            note.setContent(content.get());
+        }
         currentNote = note;
         titleField.setText(note.getTitle());
         contentArea.setText(note.getContent());
@@ -512,8 +557,14 @@ public class NoteController {
     private void saveNote() {
         if (currentNote == null) return;
 
-        currentNote.setTitle(titleField.getText().trim());
-        currentNote.setContent(contentArea.getText().trim());
+        String title = titleField.getText().trim();
+        String content = contentArea.getText().trim();
+        if (!noteRepo.updateNote(currentNote.getNoteId(), currentUserId(), title, content)) {
+            saveFailed("save the note");
+            return;
+        }
+        currentNote.setTitle(title);
+        currentNote.setContent(content);
 
         // Mark clean BEFORE any UI refresh to avoid discard dialog
         dirty = false;
@@ -543,6 +594,7 @@ public class NoteController {
             });
             return;
         }
+        if (currentNote != null) currentNote.unloadContent();
         currentNote = null;
         titleField.clear();
         contentArea.clear();
@@ -560,6 +612,15 @@ public class NoteController {
         updateExportButtonsState();
     }
 
+    private static long currentUserId() {
+        var user = UserSession.getCurrentUser();
+        return user == null ? -1 : user.getUserId();
+    }
+
+    private void saveFailed(String action) {
+        new Alert(Alert.AlertType.ERROR, "Could not " + action + ". Please try again.").showAndWait();
+    }
+
     // --- Upload integration scaffold ----
     private void selectInTree(Object target) {
         TreeItem<Object> root = folderTree.getRoot();
@@ -580,34 +641,11 @@ public class NoteController {
         return null;
     }
 
-    private String resolveSelectedFolderName() {
-        TreeItem<Object> sel = folderTree.getSelectionModel().getSelectedItem();
-        if (sel == null) return "Unsorted";
-        if (sel.getValue() instanceof Folder f) return f.getName();
-        if (sel.getParent() != null && sel.getParent().getValue() instanceof Folder pf) return pf.getName();
-        return "Unsorted";
-    }
-
     private static String sanitizeFileName(String s) {
         return s.replaceAll("[\\\\/:*?\"<>|]", "_").trim();
     }
 
-    private static String safe(String s) { return s == null ? "" : s; }
-
     private static String escapeCsv(String s) { return s == null ? "" : s.replace("\"", "\"\""); }
-
-    private static String[] wrap(String line) {
-        if (line == null) return new String[]{""};
-        if (line.length() <= WRAP_WIDTH) return new String[]{line};
-        StringBuilder sb = new StringBuilder(line);
-        java.util.List<String> parts = new java.util.ArrayList<>();
-        while (sb.length() > WRAP_WIDTH) {
-            parts.add(sb.substring(0, WRAP_WIDTH));
-            sb.delete(0, WRAP_WIDTH);
-        }
-        if (!sb.isEmpty()) parts.add(sb.toString());
-        return parts.toArray(String[]::new);
-    }
 }
 
 
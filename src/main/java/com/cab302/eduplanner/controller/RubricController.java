@@ -1,20 +1,30 @@
 package com.cab302.eduplanner.controller;
 
 import com.cab302.eduplanner.App;
+import com.cab302.eduplanner.DatabaseExecutor;
+import com.cab302.eduplanner.appcontext.UserSession;
+import com.cab302.eduplanner.integration.openai.OpenAiRubricClient;
 import com.cab302.eduplanner.model.RubricAnalysisResult;
 import com.cab302.eduplanner.model.RubricCategoryEvaluation;
+import com.cab302.eduplanner.repository.AsyncTaskRepository;
+import com.cab302.eduplanner.service.GradeCsvWriter;
 import com.cab302.eduplanner.service.RubricAnalysisService;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.concurrent.Task;
 
 import java.io.File;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.StringConverter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Locale;
 
 /**
@@ -42,7 +52,28 @@ public class RubricController {
     @FXML
     private Label statusLabel;
 
-    private final RubricAnalysisService analysisService = new RubricAnalysisService();
+    @FXML
+    private ComboBox<com.cab302.eduplanner.model.Task> taskComboBox;
+
+    @FXML
+    private CheckBox wholeAssignmentCheckBox;
+
+    @FXML
+    private Button gradeFolderButton;
+    @FXML
+    private TableView<RubricAnalysisService.SubmissionResult> batchTable;
+    @FXML
+    private TableColumn<RubricAnalysisService.SubmissionResult, String> submissionColumn;
+    @FXML
+    private TableColumn<RubricAnalysisService.SubmissionResult, String> scoreColumn;
+    @FXML
+    private TableColumn<RubricAnalysisService.SubmissionResult, String> statusColumn;
+
+    private boolean batchRunning;
+
+    private final RubricAnalysisService analysisService = RubricAnalysisService.shared();
+    private final AsyncTaskRepository taskRepo = new AsyncTaskRepository();
+    private final DatabaseExecutor db = DatabaseExecutor.shared();
     private File assignmentFile;
     private File rubricFile;
 
@@ -61,6 +92,74 @@ public class RubricController {
         if (generateButton != null) {
             generateButton.setDisable(true);
         }
+        if (gradeFolderButton != null) {
+            gradeFolderButton.setDisable(true);
+        }
+        if (batchTable != null) {
+            submissionColumn.setCellValueFactory(cell ->
+                    new ReadOnlyStringWrapper(cell.getValue().submission().getFileName().toString()));
+            scoreColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(formatScore(cell.getValue())));
+            statusColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(formatOutcome(cell.getValue())));
+        }
+        if (taskComboBox != null) {
+            initTaskChoice();
+        }
+        if (wholeAssignmentCheckBox != null) {
+            // Off by default: each part of a long assignment is a separate paid request
+            wholeAssignmentCheckBox.setText(String.format(Locale.US,
+                    "Grade the whole assignment in parts (up to %d requests)", analysisService.maxRequests()));
+        }
+    }
+
+    /**
+     * Lists the user's tasks so a grade can be linked to one. Choosing a task shows the last grade linked to it.
+     */
+    private void initTaskChoice() {
+        taskComboBox.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(com.cab302.eduplanner.model.Task task) {
+                return task == null ? "" : task.getSubject() + " — " + task.getTitle();
+            }
+
+            @Override
+            public com.cab302.eduplanner.model.Task fromString(String text) {
+                return null;
+            }
+        });
+        taskComboBox.valueProperty().addListener((obs, old, task) -> showLatestGrade(task));
+        if (!UserSession.isLoggedIn()) {
+            taskComboBox.setDisable(true);
+            return;
+        }
+        taskRepo.findByUserId(UserSession.getCurrentUser().getUserId())
+                .thenAcceptAsync(tasks -> taskComboBox.getItems().setAll(tasks), Platform::runLater)
+                .exceptionally(ex -> {
+                    log.error("Loading tasks failed: {}", ex.getMessage());
+                    return null;
+                });
+    }
+
+    private void showLatestGrade(com.cab302.eduplanner.model.Task task) {
+        if (task == null || task.getTaskId() == null) {
+            return;
+        }
+        db.read("rubrics.latestForTask", () -> analysisService.latestForTask(task.getTaskId()))
+                .thenAcceptAsync(grade -> {
+                    if (task != taskComboBox.getValue() || grade.isEmpty()) {
+                        return;
+                    }
+                    feedbackTextArea.setText(formatResult(grade.get()));
+                    statusLabel.setText("Showing the last grade for " + task.getTitle() + ".");
+                }, Platform::runLater)
+                .exceptionally(ex -> {
+                    log.error("Loading the last grade failed: {}", ex.getMessage());
+                    return null;
+                });
+    }
+
+    private Long selectedTaskId() {
+        com.cab302.eduplanner.model.Task task = taskComboBox == null ? null : taskComboBox.getValue();
+        return task == null ? null : task.getTaskId();
     }
 
     /**
@@ -107,7 +206,10 @@ public class RubricController {
     private void refreshSubmitState() {
         boolean ready = assignmentFile != null && rubricFile != null;
         if (generateButton != null) {
-            generateButton.setDisable(!ready);
+            generateButton.setDisable(!ready || batchRunning);
+        }
+        if (gradeFolderButton != null) {
+            gradeFolderButton.setDisable(rubricFile == null || batchRunning);
         }
     }
 
@@ -126,18 +228,27 @@ public class RubricController {
         progressIndicator.setProgress(ProgressIndicator.INDETERMINATE_PROGRESS);
     generateButton.setDisable(true);
         statusLabel.setText("Analysing submission with OpenAI rubric grader...");
+        feedbackTextArea.clear();
+        Long taskId = selectedTaskId();
+        boolean wholeAssignment = wholeAssignmentCheckBox != null && wholeAssignmentCheckBox.isSelected();
 
         Task<RubricAnalysisResult> analysisTask = new Task<>() {
             @Override
             protected RubricAnalysisResult call() throws Exception {
-                return analysisService.analyse(assignmentFile.toPath(), rubricFile.toPath());
+                // Categories are shown as the streamed grade completes them; the full result replaces them at the end
+                return analysisService.analyse(assignmentFile.toPath(), rubricFile.toPath(), taskId, wholeAssignment,
+                        category -> Platform.runLater(() -> feedbackTextArea.appendText(formatCategory(category))));
             }
         };
 
         analysisTask.setOnSucceeded(event -> {
             RubricAnalysisResult result = analysisTask.getValue();
             feedbackTextArea.setText(formatResult(result));
-            statusLabel.setText("Rubric analysis completed.");
+            RubricAnalysisService.CacheStats cache = analysisService.cacheStats();
+            log.info("Rubric grade cache: {} hits, {} misses", cache.hits(), cache.misses());
+            logResilience();
+            statusLabel.setText(String.format(Locale.US, "Rubric analysis completed. Grade cache hit rate: %.0f%% (%d of %d).",
+                    cache.hitRate() * 100, cache.hits(), cache.hits() + cache.misses()));
             progressIndicator.setVisible(false);
             progressIndicator.setProgress(1);
             generateButton.setDisable(false);
@@ -148,6 +259,7 @@ public class RubricController {
             if (error != null) {
                 error.printStackTrace();
             }
+            logResilience();
             feedbackTextArea.setText("An error occurred while running the rubric analysis.");
             if (error instanceof IllegalStateException) {
                 statusLabel.setText(error.getMessage());
@@ -159,9 +271,99 @@ public class RubricController {
             generateButton.setDisable(false);
         });
 
-        Thread worker = new Thread(analysisTask, "rubric-analysis-worker");
-        worker.setDaemon(true);
-        worker.start();
+        Thread.ofVirtual().name("rubric-analysis-worker").start(analysisTask);
+    }
+
+    /**
+     * Grades every submission in a chosen folder against the uploaded rubric. Rows are added to the table
+     * and to {@code rubric-grades.csv} in that folder as each submission finishes.
+     */
+    @FXML
+    private void handleGradeFolder() {
+        if (rubricFile == null) {
+            statusLabel.setText("Upload a rubric before grading a folder of submissions.");
+            return;
+        }
+        DirectoryChooser chooser = new DirectoryChooser();
+        chooser.setTitle("Choose a Folder of Submissions");
+        File folder = chooser.showDialog(gradeFolderButton.getScene().getWindow());
+        if (folder == null) {
+            return;
+        }
+
+        Path rubric = rubricFile.toPath();
+        Path csv = folder.toPath().resolve("rubric-grades.csv");
+        batchTable.getItems().clear();
+        batchRunning = true;
+        refreshSubmitState();
+        progressIndicator.setVisible(true);
+        progressIndicator.setProgress(ProgressIndicator.INDETERMINATE_PROGRESS);
+        statusLabel.setText("Grading submissions in " + folder.getName() + "...");
+
+        Task<RubricAnalysisService.BatchSummary> batchTask = new Task<>() {
+            @Override
+            protected RubricAnalysisService.BatchSummary call() throws Exception {
+                try (GradeCsvWriter csvWriter = new GradeCsvWriter(csv)) {
+                    return analysisService.analyseFolder(folder.toPath(), rubric,
+                            RubricAnalysisService.BatchOptions.defaults(), outcome -> {
+                                csvWriter.onResult(outcome);
+                                Platform.runLater(() -> {
+                                    batchTable.getItems().add(outcome);
+                                    statusLabel.setText("Graded " + batchTable.getItems().size() + " submissions...");
+                                });
+                            });
+                }
+            }
+        };
+
+        batchTask.setOnSucceeded(event -> {
+            RubricAnalysisService.BatchSummary summary = batchTask.getValue();
+            statusLabel.setText(String.format(Locale.US, "Graded %d of %d submissions in %.1f s. Results saved to %s.",
+                    summary.graded(), summary.graded() + summary.failed(), summary.elapsedNanos() / 1e9, csv.getFileName()));
+            finishBatch();
+        });
+
+        batchTask.setOnFailed(event -> {
+            Throwable error = batchTask.getException();
+            log.error("Batch grading failed", error);
+            statusLabel.setText(error instanceof IllegalStateException
+                    ? error.getMessage()
+                    : "Batch grading failed. Check the application logs for details.");
+            finishBatch();
+        });
+
+        Thread.ofVirtual().name("rubric-batch-worker").start(batchTask);
+    }
+
+    private void finishBatch() {
+        batchRunning = false;
+        progressIndicator.setVisible(false);
+        progressIndicator.setProgress(0);
+        refreshSubmitState();
+    }
+
+    private static String formatScore(RubricAnalysisService.SubmissionResult outcome) {
+        if (!outcome.succeeded()) {
+            return "";
+        }
+        return String.format(Locale.US, "%.2f / %.2f", outcome.result().getOverallScore(),
+                outcome.result().getOverallMaxScore());
+    }
+
+    private static String formatOutcome(RubricAnalysisService.SubmissionResult outcome) {
+        if (!outcome.succeeded()) {
+            return "Failed: " + outcome.error();
+        }
+        return outcome.cached()
+                ? "Graded (cached)"
+                : String.format(Locale.US, "Graded in %.1f s", outcome.elapsedNanos() / 1e9);
+    }
+
+    private void logResilience() {
+        OpenAiRubricClient.ResilienceStats stats = analysisService.resilienceStats();
+        log.info("OpenAI attempts: {} ({} retried, {} hedged, {} rejected), circuit {}, p50 {} ms, p95 {} ms",
+                stats.attempts(), stats.retries(), stats.hedges(), stats.rejected(), stats.circuit(),
+                Math.round(stats.p50Millis()), Math.round(stats.p95Millis()));
     }
 
     private String formatResult(RubricAnalysisResult result) {
@@ -173,21 +375,27 @@ public class RubricController {
             return builder.toString();
         }
         for (RubricCategoryEvaluation category : result.getCategories()) {
-            builder.append(category.getName()).append(System.lineSeparator());
-            builder.append(
-                    String.format(Locale.US, "  Score: %.2f / %.2f%n", category.getScore(), category.getMaxScore()));
-            builder.append("  Evidence: ").append(category.getEvidence()).append(System.lineSeparator());
-            if (!category.getImprovementSteps().isEmpty()) {
-                builder.append("  Improvements:\n");
-                for (String step : category.getImprovementSteps()) {
-                    builder.append("    • ").append(step).append(System.lineSeparator());
-                }
-            }
-            builder.append(System.lineSeparator());
+            builder.append(formatCategory(category));
         }
         return builder.toString().trim();
     }
 
+    private String formatCategory(RubricCategoryEvaluation category) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(category.getName()).append(System.lineSeparator());
+        builder.append(
+                String.format(Locale.US, "  Score: %.2f / %.2f%n", category.getScore(), category.getMaxScore()));
+        builder.append("  Evidence: ").append(category.getEvidence()).append(System.lineSeparator());
+        if (!category.getImprovementSteps().isEmpty()) {
+            builder.append("  Improvements:\n");
+            for (String step : category.getImprovementSteps()) {
+                builder.append("    • ").append(step).append(System.lineSeparator());
+            }
+        }
+        builder.append(System.lineSeparator());
+        return builder.toString();
+    }
+
     /**
      * Handles navigation back to the dashboard view.
      */
@@ -2,24 +2,26 @@ package com.cab302.eduplanner.controller;
 
 import com.cab302.eduplanner.appcontext.UserSession;
 import com.cab302.eduplanner.model.Task;
-import com.cab302.eduplanner.repository.TaskRepository;
+import com.cab302.eduplanner.repository.AsyncTaskRepository;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
 
 import java.time.LocalDate;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public class TaskFlowController {
     @FXML private TextField subjectField, titleField, dueDateField, weightField, achievedMarkField, maxMarkField;
     @FXML private TextArea notesArea;
     @FXML private Label errorLabel;
 
-    private final TaskRepository repo = new TaskRepository();
+    private final AsyncTaskRepository repo = new AsyncTaskRepository();
 
     private Task editing;     // null → create mode
     private boolean saved;    // whether user successfully saved
     private Task result;      // created/updated task (with id for create)
+    private boolean saving;   // a write is in flight; ignore repeat clicks
 
     public void setEditing(Task t) {
         this.editing = t;
@@ -36,6 +38,7 @@ public class TaskFlowController {
 
     @FXML
     private void onSave() {
+        if (saving) return;
         try {
             if (titleField.getText() == null || titleField.getText().isBlank()) {
                 throw new IllegalArgumentException("Title is required.");
@@ -55,19 +58,23 @@ public class TaskFlowController {
             if (t.getAchievedMark() != null && t.getAchievedMark() < 0) throw new IllegalArgumentException("Achieved must be ≥ 0.");
             if (t.getMaxMark() != null && t.getMaxMark() <= 0) throw new IllegalArgumentException("Max must be > 0.");
 
-            boolean ok;
-            if (editing == null) {
-                Optional<Long> id = repo.insert(t);
-                ok = id.isPresent();
-                id.ifPresent(t::setTaskId);
-            } else {
-                ok = repo.update(t);
-            }
-            if (!ok) { errorLabel.setText("Could not save task."); return; }
+            CompletableFuture<Boolean> write = (editing == null)
+                    ? repo.insert(t).thenApply(id -> {
+                        id.ifPresent(t::setTaskId);
+                        return id.isPresent();
+                    })
+                    : repo.update(t);
+
+            saving = true;
+            errorLabel.setText("");
+            write.exceptionally(ex -> false).thenAcceptAsync(ok -> {
+                saving = false;
+                if (!ok) { errorLabel.setText("Could not save task."); return; }
 
-            this.saved = true;
-            this.result = t;
-            close();
+                this.saved = true;
+                this.result = t;
+                close();
+            }, Platform::runLater);
         } catch (IllegalArgumentException ex) {
             errorLabel.setText(ex.getMessage());
         } catch (Exception ex) {
@@ -0,0 +1,125 @@
+package com.cab302.eduplanner.integration.openai;
+
+import com.cab302.eduplanner.model.RubricAnalysisResult;
+import com.cab302.eduplanner.model.RubricCategoryEvaluation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Parses a {@link RubricAnalysisResult} from JSON that arrives in pieces, such as the text deltas of a
+ * streamed response. A non-blocking Jackson parser takes each piece as it comes; the tokens of every
+ * element of {@code categories} are collected in a {@link TokenBuffer} and the category is handed to the
+ * listener as soon as its closing brace arrives, long before the rest of the document.
+ */
+final class IncrementalGradeParser {
+
+    private final ObjectMapper objectMapper;
+    private final Consumer<RubricCategoryEvaluation> onCategory;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+
+    private final List<RubricCategoryEvaluation> categories = new ArrayList<>();
+    private Double overallScore;
+    private Double overallMaxScore;
+
+    private boolean started;
+    private int depth;          // containers open outside the category being buffered
+    private String field;       // last field name of the top-level object
+    private boolean inCategories;
+    private TokenBuffer category;
+    private int categoryDepth;
+
+    IncrementalGradeParser(ObjectMapper objectMapper, Consumer<RubricCategoryEvaluation> onCategory) throws IOException {
+        this.objectMapper = objectMapper;
+        this.onCategory = onCategory;
+        this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /** Parses the next piece of the document, reporting any categories it completes. */
+    void feed(String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        feeder.feedInput(bytes, 0, bytes.length);
+        drain();
+    }
+
+    /** True once any part of the document has been parsed. */
+    boolean started() {
+        return started;
+    }
+
+    /**
+     * Ends the input and returns the whole result.
+     *
+     * @throws IOException if the document is empty, malformed or cut off
+     */
+    RubricAnalysisResult finish() throws IOException {
+        feeder.endOfInput();
+        drain();
+        if (!started || depth != 0 || category != null) {
+            throw new IOException("OpenAI API stream ended before the grade was complete.");
+        }
+        return new RubricAnalysisResult(overallScore, overallMaxScore, categories);
+    }
+
+    private void drain() throws IOException {
+        for (JsonToken token; (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE; ) {
+            started = true;
+            handle(token);
+        }
+    }
+
+    private void handle(JsonToken token) throws IOException {
+        if (category != null) {
+            category.copyCurrentEvent(parser);
+            if (token.isStructStart()) {
+                categoryDepth++;
+            } else if (token.isStructEnd() && --categoryDepth == 0) {
+                RubricCategoryEvaluation done = objectMapper.readValue(category.asParser(objectMapper), RubricCategoryEvaluation.class);
+                category = null;
+                categories.add(done);
+                onCategory.accept(done);
+            }
+            return;
+        }
+        switch (token) {
+            case START_OBJECT -> {
+                if (inCategories && depth == 2) {
+                    category = new TokenBuffer(parser);
+                    category.copyCurrentEvent(parser);
+                    categoryDepth = 1;
+                } else {
+                    depth++;
+                }
+            }
+            case START_ARRAY -> {
+                depth++;
+                inCategories = depth == 2 && "categories".equals(field);
+            }
+            case END_ARRAY -> {
+                if (depth == 2) inCategories = false;
+                depth--;
+            }
+            case END_OBJECT -> depth--;
+            case FIELD_NAME -> {
+                if (depth == 1) field = parser.currentName();
+            }
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> {
+                if (depth == 1 && "overallScore".equals(field)) overallScore = parser.getDoubleValue();
+                if (depth == 1 && "overallMaxScore".equals(field)) overallMaxScore = parser.getDoubleValue();
+            }
+            default -> {
+                // Other top-level values are not part of the grade
+            }
+        }
+    }
+}
@@ -1,40 +1,255 @@
 package com.cab302.eduplanner.integration.openai;
 
 import com.cab302.eduplanner.model.RubricAnalysisResult;
+import com.cab302.eduplanner.model.RubricCategoryEvaluation;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.cab302.eduplanner.util.CircuitBreaker;
+import com.cab302.eduplanner.util.LatencyHistogram;
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 /**
  * Lightweight client wrapper around the OpenAI Responses API for rubric analysis.
+ * Long submissions can be graded in chunks: overlapping windows of the text are graded concurrently and
+ * the per-category results merged into one grade. A submission that fits in one request can also be graded
+ * as a stream, with each category reported as soon as the model has written it.
+ * Every request goes through a resilience layer: transient failures (429, 5xx, dropped connections) are
+ * retried with jittered exponential backoff that honours {@code Retry-After}, a slow attempt can be hedged
+ * with a duplicate, and a circuit breaker fails calls at once while the endpoint keeps failing.
  */
 public class OpenAiRubricClient {
 
     private static final MediaType JSON = MediaType.get("application/json");
 
+    /** OpenAI Responses API. */
+    public static final String DEFAULT_ENDPOINT = "https://api.openai.com/v1/responses";
+
+    /** Characters of the submission sent per request in chunked grading. */
+    public static final int CHUNK_CHARACTERS = 12_000;
+
+    /** Characters each chunk repeats from the end of the previous one, so a passage cut at a boundary is seen whole. */
+    public static final int CHUNK_OVERLAP = 1_000;
+
+    /** Chunk requests in flight at once. */
+    public static final int CHUNK_PARALLELISM = 3;
+
+    /**
+     * Timing and token usage of one chunk request.
+     *
+     * @param index        position of the chunk in the submission, from 0
+     * @param characters   submission characters in the chunk
+     * @param latencyNanos time from sending the request to parsing the response
+     * @param inputTokens  prompt tokens reported by the API, 0 if it did not report usage
+     * @param outputTokens completion tokens reported by the API, 0 if it did not report usage
+     */
+    public record ChunkMetrics(int index, int characters, long latencyNanos, long inputTokens, long outputTokens) {
+    }
+
+    /**
+     * Merged grade of a chunked submission together with the metrics of each chunk, in submission order.
+     */
+    public record ChunkedGrading(RubricAnalysisResult result, List<ChunkMetrics> chunks) {
+        public ChunkedGrading {
+            chunks = List.copyOf(chunks);
+        }
+
+        public long inputTokens() {
+            return chunks.stream().mapToLong(ChunkMetrics::inputTokens).sum();
+        }
+
+        public long outputTokens() {
+            return chunks.stream().mapToLong(ChunkMetrics::outputTokens).sum();
+        }
+    }
+
+    /**
+     * Request counters since the client was created.
+     *
+     * @param requests      grading requests that returned a parsed result
+     * @param latencyNanos  total latency of those requests
+     * @param inputTokens   prompt tokens reported by the API
+     * @param outputTokens  completion tokens reported by the API
+     */
+    public record Stats(long requests, long latencyNanos, long inputTokens, long outputTokens) {
+
+        /** Mean latency per request in milliseconds, 0 before the first request. */
+        public double averageLatencyMillis() {
+            return requests == 0 ? 0.0 : latencyNanos / 1_000_000.0 / requests;
+        }
+    }
+
+    /**
+     * How transient failures are handled.
+     *
+     * @param maxAttempts     tries per request, including the first
+     * @param baseDelay       backoff before the first retry; it doubles for each further retry and the
+     *                        actual wait is drawn uniformly below it (full jitter)
+     * @param maxDelay        longest wait between tries; a {@code Retry-After} beyond it fails the request instead
+     * @param hedgePercentile attempt latency percentile, such as 0.95, after which a duplicate request is
+     *                        sent and the first answer wins; 0 disables hedging
+     * @param breakerFailures consecutive failed attempts that open the circuit
+     * @param breakerCooldown how long an open circuit fails calls before a probe is let through
+     */
+    public record Resilience(int maxAttempts, Duration baseDelay, Duration maxDelay, double hedgePercentile,
+                             int breakerFailures, Duration breakerCooldown) {
+        public Resilience {
+            if (maxAttempts < 1 || breakerFailures < 1) {
+                throw new IllegalArgumentException("maxAttempts and breakerFailures must be at least 1");
+            }
+            if (!(hedgePercentile >= 0 && hedgePercentile < 1)) {
+                throw new IllegalArgumentException("hedgePercentile must be 0 (off) or below 1");
+            }
+            Objects.requireNonNull(baseDelay, "baseDelay");
+            Objects.requireNonNull(maxDelay, "maxDelay");
+            Objects.requireNonNull(breakerCooldown, "breakerCooldown");
+        }
+
+        /**
+         * Four tries from half a second apart up to 30 s, circuit opened by five failures in a row for
+         * 30 s. Hedging is off because a duplicate request is paid for twice.
+         */
+        public static Resilience defaults() {
+            return new Resilience(4, Duration.ofMillis(500), Duration.ofSeconds(30), 0, 5, Duration.ofSeconds(30));
+        }
+    }
+
+    /**
+     * Resilience counters since the client was created.
+     *
+     * @param attempts    HTTP calls made, including retries and hedges
+     * @param retries     attempts repeated after a transient failure
+     * @param hedges      duplicate attempts sent because the first was slow
+     * @param rejected    requests failed at once because the circuit was open
+     * @param circuit     current state of the circuit breaker
+     * @param p50Millis   median attempt latency, up to the response headers
+     * @param p95Millis   95th percentile attempt latency
+     */
+    public record ResilienceStats(long attempts, long retries, long hedges, long rejected, CircuitBreaker.State circuit,
+                                  double p50Millis, double p95Millis) {
+    }
+
+    private static final class SharedHttp {
+        private static final OkHttpClient INSTANCE = new OkHttpClient.Builder()
+                // Batches keep several requests in flight; idle connections and TLS sessions outlive a batch
+                .connectionPool(new ConnectionPool(8, 5, TimeUnit.MINUTES))
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .pingInterval(Duration.ofSeconds(30))
+                .connectTimeout(Duration.ofSeconds(10))
+                .readTimeout(Duration.ofSeconds(120))
+                .writeTimeout(Duration.ofSeconds(60))
+                .retryOnConnectionFailure(false)
+                .build();
+    }
+
+    /**
+     * Application-wide HTTP client for OpenAI, so every grader shares one connection pool. HTTP/2
+     * multiplexes concurrent requests over a single TLS connection; pings keep it open between analyses.
+     */
+    public static OkHttpClient sharedHttpClient() {
+        return SharedHttp.INSTANCE;
+    }
+
+    /** Attempts recorded before the latency percentile is trusted for hedging. */
+    static final int MIN_HEDGE_SAMPLES = 20;
+
+    /** One parsed response and what it cost. */
+    private record Graded(RubricAnalysisResult result, long latencyNanos, long inputTokens, long outputTokens) {
+    }
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final LongAdder inputTokens = new LongAdder();
+    private final LongAdder outputTokens = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LatencyHistogram attemptLatency = new LatencyHistogram();
+
     private final OkHttpClient httpClient;
     private final ObjectMapper objectMapper;
     private final String apiKey;
     private final String model;
+    private final String endpoint;
+    private final Resilience resilience;
+    private final CircuitBreaker breaker;
+    private final ByteString payloadPrefix;
 
     static final String TYPESTRING = "string";
     static final String TYPENUMBER = "number";
     static final String TYPEARRAY = "array";
 
     public OpenAiRubricClient(OkHttpClient httpClient, ObjectMapper objectMapper, String apiKey, String model) {
-        this.httpClient = Objects.requireNonNull(httpClient, "httpClient");
+        this(httpClient, objectMapper, apiKey, model, DEFAULT_ENDPOINT);
+    }
+
+    /**
+     * @param endpoint URL grading requests are posted to, for example a proxy or a local stub server;
+     *                 null or blank uses {@link #DEFAULT_ENDPOINT}
+     */
+    public OpenAiRubricClient(OkHttpClient httpClient, ObjectMapper objectMapper, String apiKey, String model,
+                              String endpoint) {
+        this(httpClient, objectMapper, apiKey, model, endpoint, Resilience.defaults());
+    }
+
+    /**
+     * @param resilience retry, hedging and circuit breaker settings
+     */
+    public OpenAiRubricClient(OkHttpClient httpClient, ObjectMapper objectMapper, String apiKey, String model,
+                              String endpoint, Resilience resilience) {
+        this.resilience = Objects.requireNonNull(resilience, "resilience");
+        this.breaker = new CircuitBreaker(resilience.breakerFailures(), resilience.breakerCooldown());
+        // OkHttp would otherwise replay a dropped connection itself, uncounted and past maxAttempts
+        this.httpClient = Objects.requireNonNull(httpClient, "httpClient").newBuilder()
+                .retryOnConnectionFailure(false)
+                .build();
         this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper");
         this.apiKey = apiKey;
         this.model = model == null || model.isBlank() ? "gpt-4.1-mini" : model;
+        this.endpoint = endpoint == null || endpoint.isBlank() ? DEFAULT_ENDPOINT : endpoint;
+        this.payloadPrefix = payloadPrefix(this.objectMapper, this.model);
     }
 
     /**
@@ -46,36 +261,442 @@ public class OpenAiRubricClient {
      * @throws IOException if the API request fails or the response cannot be parsed
      */
     public RubricAnalysisResult gradeAssignment(String rubricText, String assignmentText) throws IOException {
+        requireApiKey();
+        return send(payload(rubricText, assignmentText, null, false)).result();
+    }
+
+    /**
+     * Grades the submission in one streamed request. The API sends the JSON grade as server-sent events of
+     * text deltas; they are parsed as they arrive and each category is passed to {@code onCategory} as soon
+     * as it is complete, so a caller can show feedback while the rest is still being written. The submission
+     * is not chunked, so it should fit in one request (see {@link #requestCount}).
+     *
+     * @param onCategory called on the calling thread with each category, in the order the model writes them
+     * @return the whole result, equal to what {@link #gradeAssignment} would have parsed
+     * @throws IOException if the request fails, the stream reports an error or ends before the grade is complete
+     */
+    public RubricAnalysisResult gradeAssignmentStreaming(String rubricText, String assignmentText,
+                                                         Consumer<RubricCategoryEvaluation> onCategory) throws IOException {
+        Objects.requireNonNull(onCategory, "onCategory");
+        requireApiKey();
+        Buffer payload = payload(rubricText, assignmentText, null, true);
+        long start = System.nanoTime();
+        Request request = newRequest(payload).newBuilder().header("Accept", "text/event-stream").build();
+
+        try (Response response = execute(request)) {
+            if (!response.isSuccessful()) {
+                throw failure(response.code(), response.body() != null ? response.body().string() : "");
+            }
+            if (response.body() == null) {
+                throw new IOException("OpenAI API returned an empty response body.");
+            }
+            IncrementalGradeParser grade = new IncrementalGradeParser(objectMapper, onCategory);
+            JsonNode completed = null;
+            try (BufferedReader events = new BufferedReader(
+                    new InputStreamReader(response.body().byteStream(), StandardCharsets.UTF_8))) {
+                StringBuilder data = new StringBuilder();
+                for (String line; (line = events.readLine()) != null && completed == null; ) {
+                    if (!line.isEmpty()) {
+                        appendData(data, line);
+                    } else if (!data.isEmpty()) {
+                        completed = handleEvent(data.toString(), grade);
+                        data.setLength(0);
+                    }
+                }
+                if (completed == null && !data.isEmpty()) {
+                    completed = handleEvent(data.toString(), grade);
+                }
+            }
+
+            RubricAnalysisResult result;
+            if (grade.started() || completed == null) {
+                result = grade.finish();
+            } else {
+                // No deltas were streamed; the final response still carries the whole output
+                result = parseResponse(completed);
+                result.getCategories().forEach(onCategory);
+            }
+            return recordGrade(result, start, completed == null ? objectMapper.missingNode() : completed.path("usage")).result();
+        }
+    }
+
+    /** Adds the value of an SSE {@code data:} line; event names, ids and comments are not needed. */
+    private static void appendData(StringBuilder data, String line) {
+        if (!line.startsWith("data:")) return;
+        if (!data.isEmpty()) data.append('\n');
+        data.append(line, line.startsWith("data: ") ? 6 : 5, line.length());
+    }
+
+    /**
+     * Applies one streamed event: text deltas go to the grade parser, errors are thrown. Returns the final
+     * response object once the stream reports completion, otherwise null.
+     */
+    private JsonNode handleEvent(String data, IncrementalGradeParser grade) throws IOException {
+        if ("[DONE]".equals(data)) {
+            return objectMapper.createObjectNode();
+        }
+        JsonNode event = objectMapper.readTree(data);
+        switch (event.path("type").asText()) {
+            case "response.output_text.delta" -> grade.feed(event.path("delta").asText());
+            case "response.completed" -> {
+                return event.path("response");
+            }
+            case "response.failed", "response.incomplete", "error" -> {
+                JsonNode error = event.path("response").path("error");
+                if (error.isMissingNode() || error.isNull()) error = event.path("error");
+                String message = error.path("message").asText(event.path("message").asText(event.path("type").asText()));
+                throw new IOException("OpenAI API stream failed: " + message);
+            }
+            default -> {
+                // Lifecycle events (created, in_progress, content_part.added, ...) carry nothing to grade
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Grades a submission of any length with the default chunk size, overlap and parallelism.
+     *
+     * @see #gradeAssignmentInChunks(String, String, int, int, int)
+     */
+    public ChunkedGrading gradeAssignmentInChunks(String rubricText, String assignmentText) throws IOException {
+        return gradeAssignmentInChunks(rubricText, assignmentText, CHUNK_CHARACTERS, CHUNK_OVERLAP, CHUNK_PARALLELISM);
+    }
+
+    /**
+     * Splits the submission into overlapping windows, grades each window against the whole rubric with at
+     * most {@code parallelism} requests in flight, and merges the results: each category keeps its best
+     * score, together with the evidence and improvement steps of the chunk that gave it. A submission that
+     * fits in one chunk is graded with a single request, exactly like {@link #gradeAssignment}.
+     *
+     * @param chunkCharacters submission characters per request
+     * @param overlap         characters shared by neighbouring chunks; less than half of {@code chunkCharacters}
+     * @param parallelism     maximum concurrent requests
+     * @throws IOException if any chunk request fails or cannot be parsed
+     */
+    public ChunkedGrading gradeAssignmentInChunks(String rubricText, String assignmentText, int chunkCharacters,
+                                                  int overlap, int parallelism) throws IOException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        requireApiKey();
+        List<String> chunks = split(assignmentText == null ? "" : assignmentText, chunkCharacters, overlap);
+        if (chunks.size() == 1) {
+            Graded graded = send(payload(rubricText, chunks.getFirst(), null, false));
+            return new ChunkedGrading(graded.result(), List.of(metrics(0, chunks.getFirst(), graded)));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, chunks.size()), r -> {
+            Thread t = new Thread(r, "rubric-chunk-grader");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<Graded>> pending = new ArrayList<>(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                String part = String.format(Locale.ROOT, PART_CONTEXT, chunks.size(), i + 1);
+                Buffer payload = payload(rubricText, chunks.get(i), part, false);
+                pending.add(pool.submit(() -> send(payload)));
+            }
+            List<RubricAnalysisResult> results = new ArrayList<>(chunks.size());
+            List<ChunkMetrics> metrics = new ArrayList<>(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                Graded graded = await(pending.get(i));
+                results.add(graded.result());
+                metrics.add(metrics(i, chunks.get(i), graded));
+            }
+            return new ChunkedGrading(merge(results), metrics);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** Requests {@link #gradeAssignmentInChunks(String, String)} makes for this submission. */
+    public int requestCount(String assignmentText) {
+        return split(assignmentText == null ? "" : assignmentText, CHUNK_CHARACTERS, CHUNK_OVERLAP).size();
+    }
+
+    /** Model that grades submissions; part of the key under which grades are cached. */
+    public String getModel() {
+        return model;
+    }
+
+    /** Returns a snapshot of the request, latency and token counters. */
+    public Stats stats() {
+        return new Stats(requests.sum(), latencyNanos.sum(), inputTokens.sum(), outputTokens.sum());
+    }
+
+    /** Returns a snapshot of the retry, hedging and circuit breaker counters. */
+    public ResilienceStats resilienceStats() {
+        return new ResilienceStats(attempts.sum(), retries.sum(), hedges.sum(), rejected.sum(), breaker.state(),
+                attemptLatency.percentileMillis(0.5), attemptLatency.percentileMillis(0.95));
+    }
+
+    /** Latency of every attempt that got a response, measured to the response headers. */
+    public LatencyHistogram attemptLatency() {
+        return attemptLatency;
+    }
+
+    private void requireApiKey() {
         if (apiKey == null || apiKey.isBlank()) {
             throw new IllegalStateException("OpenAI API key is not configured. Set the OPENAI_API_KEY environment variable.");
         }
+    }
 
-        ObjectNode payload = buildPayload(rubricText, assignmentText);
-        Request request = new Request.Builder()
-                .url("https://api.openai.com/v1/responses")
-                .post(RequestBody.create(objectMapper.writeValueAsString(payload), JSON))
-                .addHeader("Authorization", "Bearer " + apiKey)
-                .addHeader("Content-Type", "application/json")
-                .build();
-
-        try (Response response = httpClient.newCall(request).execute()) {
+    private Graded send(Buffer payload) throws IOException {
+        long start = System.nanoTime();
+        try (Response response = execute(newRequest(payload))) {
             String body = response.body() != null ? response.body().string() : "";
             if (!response.isSuccessful()) {
-                if (response.code() == 401) {
-                    throw new IOException("OpenAI API request failed with status 401 (Unauthorized). Response body: " + body + ". Ensure OPENAI_API_KEY is valid and available to the running process.");
-                }
-                throw new IOException("OpenAI API request failed with status " + response.code() + ": " + body);
+                throw failure(response.code(), body);
             }
 
             if (body.isBlank()) {
                 throw new IOException("OpenAI API returned an empty response body.");
             }
-            return parseResponse(body);
+            JsonNode root = objectMapper.readTree(body);
+            RubricAnalysisResult result = parseResponse(root);
+            return recordGrade(result, start, root.path("usage"));
+        }
+    }
+
+    /**
+     * Sends the request through the resilience layer and returns the first response that is not a transient
+     * failure. When the tries run out the last response is returned as it is, so the caller reports its
+     * status as usual; a connection failure on the last try is thrown. The body of a streamed response is
+     * read by the caller, so a stream that breaks after its headers is not retried.
+     *
+     * @throws IOException if the circuit is open, the last try failed to connect, or the thread was interrupted
+     */
+    private Response execute(Request request) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            if (!breaker.tryAcquire()) {
+                rejected.increment();
+                throw new IOException(String.format(Locale.ROOT,
+                        "OpenAI API is failing repeatedly; requests are paused for another %d s.",
+                        Math.max(1, breaker.retryIn().toSeconds())));
+            }
+            Attempt outcome = null;
+            try {
+                outcome = attempt(request);
+            } finally {
+                // Interrupted before an answer: no verdict on the service, and a half-open probe must not stay taken
+                if (outcome == null) breaker.release();
+            }
+            if (outcome.error() != null || serverFault(outcome.response().code())) {
+                breaker.recordFailure();
+            } else {
+                breaker.recordSuccess();
+            }
+            if (outcome.succeeded()) {
+                return outcome.response();
+            }
+
+            Duration retryAfter = outcome.response() == null ? null : retryAfter(outcome.response());
+            boolean lastTry = attempt >= resilience.maxAttempts()
+                    || (retryAfter != null && retryAfter.compareTo(resilience.maxDelay()) > 0)
+                    || Thread.currentThread().isInterrupted();
+            if (lastTry) {
+                if (outcome.error() != null) throw outcome.error();
+                return outcome.response();
+            }
+            outcome.close();
+            retries.increment();
+            try {
+                TimeUnit.NANOSECONDS.sleep(backoff(attempt, retryAfter).toNanos());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to retry the OpenAI API");
+            }
+        }
+    }
+
+    /** Outcome of one try: a response, or the exception that stopped it, and the call it came from. */
+    private record Attempt(Call call, Response response, IOException error) {
+
+        boolean succeeded() {
+            return error == null && !retryable(response.code());
+        }
+
+        void close() {
+            if (response != null) response.close();
+        }
+    }
+
+    /**
+     * Makes one try. Once enough latencies are known and hedging is on, a second identical call is sent if
+     * the first has not answered by the configured percentile; the first good answer is kept and the other
+     * call cancelled.
+     */
+    private Attempt attempt(Request request) throws InterruptedIOException {
+        long hedgeAfter = hedgeDelayNanos();
+        if (hedgeAfter <= 0) {
+            return call(httpClient.newCall(request));
+        }
+
+        BlockingQueue<Attempt> finished = new LinkedBlockingQueue<>();
+        List<Call> calls = new ArrayList<>(2);
+        int taken = 0;
+        try {
+            start(request, calls, finished);
+            Attempt result = finished.poll(hedgeAfter, TimeUnit.NANOSECONDS);
+            if (result == null) {
+                hedges.increment();
+                start(request, calls, finished);
+                result = finished.take();
+            }
+            taken++;
+            if (!result.succeeded() && taken < calls.size()) {
+                result.close();
+                result = finished.take();
+                taken++;
+            }
+            for (Call call : calls) {
+                if (call != result.call()) call.cancel();
+            }
+            return result;
+        } catch (InterruptedException e) {
+            calls.forEach(Call::cancel);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the OpenAI API");
+        } finally {
+            closeLosers(finished, calls.size() - taken);
+        }
+    }
+
+    private void start(Request request, List<Call> calls, BlockingQueue<Attempt> finished) {
+        Call call = httpClient.newCall(request);
+        calls.add(call);
+        Thread.ofVirtual().name("openai-attempt").start(() -> finished.add(call(call)));
+    }
+
+    /** Closes the responses of hedged calls that lost, whenever they arrive. */
+    private static void closeLosers(BlockingQueue<Attempt> finished, int outstanding) {
+        if (outstanding <= 0) return;
+        Thread.ofVirtual().name("openai-hedge-cleanup").start(() -> {
+            try {
+                for (int i = 0; i < outstanding; i++) finished.take().close();
+            } catch (InterruptedException ignored) {
+                // Nothing else waits on these calls
+            }
+        });
+    }
+
+    private Attempt call(Call call) {
+        attempts.increment();
+        long start = System.nanoTime();
+        try {
+            Response response = call.execute();
+            attemptLatency.record(System.nanoTime() - start);
+            return new Attempt(call, response, null);
+        } catch (IOException e) {
+            return new Attempt(call, null, e);
+        }
+    }
+
+    private long hedgeDelayNanos() {
+        if (resilience.hedgePercentile() == 0 || attemptLatency.count() < MIN_HEDGE_SAMPLES) return 0;
+        long delay = attemptLatency.percentileNanos(resilience.hedgePercentile());
+        return delay == Long.MAX_VALUE ? 0 : delay;
+    }
+
+    /** Full-jitter exponential backoff, but never sooner than the server asked. */
+    private Duration backoff(int attempt, Duration retryAfter) {
+        long base = resilience.baseDelay().toNanos();
+        long ceiling = Math.min(resilience.maxDelay().toNanos(), base << Math.min(attempt - 1, 30));
+        long delay = ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+        return retryAfter == null ? Duration.ofNanos(delay) : Duration.ofNanos(Math.max(delay, retryAfter.toNanos()));
+    }
+
+    /** Rate limits, timeouts and server errors are worth another try; other statuses are final. */
+    static boolean retryable(int code) {
+        return code == 408 || code == 429 || serverFault(code);
+    }
+
+    /** Statuses that count against the circuit breaker; a rate limit means the endpoint is up. */
+    private static boolean serverFault(int code) {
+        return code == 408 || code >= 500;
+    }
+
+    /**
+     * Wait requested by the server: OpenAI's {@code retry-after-ms}, or {@code Retry-After} in seconds or as
+     * an HTTP date. Null if neither header is present or readable.
+     */
+    static Duration retryAfter(Response response) {
+        String millis = response.header("retry-after-ms");
+        if (millis != null) {
+            try {
+                return Duration.ofMillis(Math.max(0, (long) Double.parseDouble(millis.trim())));
+            } catch (NumberFormatException ignored) {
+                // Fall back to Retry-After
+            }
+        }
+        String value = response.header("Retry-After");
+        if (value == null || value.isBlank()) return null;
+        try {
+            return Duration.ofMillis(Math.max(0, (long) (Double.parseDouble(value.trim()) * 1000)));
+        } catch (NumberFormatException notSeconds) {
+            try {
+                Instant at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                Duration wait = Duration.between(Instant.now(), at);
+                return wait.isNegative() ? Duration.ZERO : wait;
+            } catch (DateTimeParseException notDate) {
+                return null;
+            }
+        }
+    }
+
+    private Request newRequest(Buffer payload) {
+        return new Request.Builder()
+                .url(endpoint)
+                .post(jsonBody(payload))
+                .addHeader("Authorization", "Bearer " + apiKey)
+                .addHeader("Content-Type", "application/json")
+                .build();
+    }
+
+    /**
+     * Body that writes the payload without copying it. Each write sends a fresh view of the buffer, so
+     * retries and hedged duplicates can send the same body again.
+     */
+    private static RequestBody jsonBody(Buffer payload) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return JSON;
+            }
+
+            @Override
+            public long contentLength() {
+                return payload.size();
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                Buffer view = payload.clone();
+                sink.write(view, view.size());
+            }
+        };
+    }
+
+    private static IOException failure(int code, String body) {
+        if (code == 401) {
+            return new IOException("OpenAI API request failed with status 401 (Unauthorized). Response body: " + body + ". Ensure OPENAI_API_KEY is valid and available to the running process.");
         }
+        return new IOException("OpenAI API request failed with status " + code + ": " + body);
+    }
+
+    private Graded recordGrade(RubricAnalysisResult result, long start, JsonNode usage) {
+        long latency = System.nanoTime() - start;
+        long in = usage.path("input_tokens").asLong(), out = usage.path("output_tokens").asLong();
+        requests.increment();
+        latencyNanos.add(latency);
+        inputTokens.add(in);
+        outputTokens.add(out);
+        return new Graded(result, latency, in, out);
     }
 
-    private RubricAnalysisResult parseResponse(String body) throws IOException {
-        JsonNode root = objectMapper.readTree(body);
+    private RubricAnalysisResult parseResponse(JsonNode root) throws IOException {
         String content = extractContent(root);
         if (content.isBlank()) {
             throw new IOException("OpenAI API response did not contain any output text.");
@@ -83,6 +704,90 @@ public class OpenAiRubricClient {
         return objectMapper.readValue(content, RubricAnalysisResult.class);
     }
 
+    private static ChunkMetrics metrics(int index, String chunk, Graded graded) {
+        return new ChunkMetrics(index, chunk.length(), graded.latencyNanos(), graded.inputTokens(), graded.outputTokens());
+    }
+
+    private static Graded await(Future<Graded> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Chunked grading interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Cuts text into windows of at most {@code size} characters, each starting {@code overlap} characters
+     * before the previous one ended. Cuts fall on a space where one is near, so words are not split.
+     */
+    static List<String> split(String text, int size, int overlap) {
+        if (overlap < 0 || overlap * 2 >= size) {
+            throw new IllegalArgumentException("overlap must be between 0 and half the chunk size");
+        }
+        if (text.length() <= size) {
+            return List.of(text);
+        }
+        List<String> chunks = new ArrayList<>();
+        int start = 0;
+        while (true) {
+            int end = Math.min(text.length(), start + size);
+            if (end < text.length()) {
+                int space = text.lastIndexOf(' ', end);
+                if (space > end - overlap) end = space;
+            }
+            chunks.add(text.substring(start, end));
+            if (end == text.length()) {
+                return chunks;
+            }
+            int next = end - overlap;
+            int space = text.indexOf(' ', next);
+            start = space >= 0 && space < next + overlap / 2 ? space + 1 : next;
+        }
+    }
+
+    /**
+     * Combines chunk grades. A category is matched by name, ignoring case and surrounding spaces, and keeps
+     * the highest score any chunk gave it with that chunk's evidence and steps; a chunk without evidence for
+     * a criterion does not lower it. The overall score is the sum over the merged categories, or the best
+     * overall score when no chunk returned categories.
+     */
+    static RubricAnalysisResult merge(List<RubricAnalysisResult> results) {
+        Map<String, RubricCategoryEvaluation> best = new LinkedHashMap<>();
+        Map<String, Double> maxScores = new LinkedHashMap<>();
+        double overallScore = 0, overallMaxScore = 0;
+        for (RubricAnalysisResult result : results) {
+            overallScore = Math.max(overallScore, result.getOverallScore());
+            overallMaxScore = Math.max(overallMaxScore, result.getOverallMaxScore());
+            for (RubricCategoryEvaluation category : result.getCategories()) {
+                String key = category.getName().trim().toLowerCase(Locale.ROOT);
+                maxScores.merge(key, category.getMaxScore(), Math::max);
+                RubricCategoryEvaluation current = best.get(key);
+                if (current == null || category.getScore() > current.getScore()) best.put(key, category);
+            }
+        }
+        if (best.isEmpty()) {
+            return new RubricAnalysisResult(overallScore, overallMaxScore, List.of());
+        }
+
+        List<RubricCategoryEvaluation> categories = new ArrayList<>(best.size());
+        double score = 0, maxScore = 0;
+        for (Map.Entry<String, RubricCategoryEvaluation> entry : best.entrySet()) {
+            RubricCategoryEvaluation category = entry.getValue();
+            double categoryMax = maxScores.get(entry.getKey());
+            categories.add(new RubricCategoryEvaluation(category.getName(), category.getScore(), categoryMax,
+                    category.getEvidence(), category.getImprovementSteps()));
+            score += category.getScore();
+            maxScore += categoryMax;
+        }
+        return new RubricAnalysisResult(score, maxScore, categories);
+    }
+
     private String extractContent(JsonNode root) {
         StringBuilder builder = new StringBuilder();
 
@@ -119,14 +824,65 @@ public class OpenAiRubricClient {
         return builder.toString().trim();
     }
 
-    private ObjectNode buildPayload(String rubricText, String assignmentText) {
+    // Sent at the start of the input of each chunk request
+    private static final String PART_CONTEXT = "The assignment is too long for one request, so it has been split into %d overlapping parts and this is part %d. Grade only the evidence in this part: score a category 0 if this part has no evidence for it, but always report its maxScore from the rubric.";
+
+    private static final String SYSTEM_CONTEXT = "You are a high level academic grader. Evaluate assignments using the provided rubric and respond only with JSON that matches the specified schema. For each rubric category, return: name, score (earned), maxScore (possible), evidence (short quote or pointer), and improvementSteps (array of 3-6 concise actionable steps). If a value is unknown, return 0 for numeric fields and an empty string/array for others.";
+
+    /**
+     * Writes the request body: the prefix serialised once per client, then the only text that differs
+     * between requests, the {@code input} string. Jackson escapes the rubric and the assignment straight
+     * from their strings into the buffer's segments, so no combined prompt string, JSON tree or UTF-8
+     * copy of the body is made.
+     */
+    Buffer payload(String rubricText, String assignmentText, String partContext, boolean stream) throws IOException {
+        Buffer payload = new Buffer();
+        payload.write(payloadPrefix);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(payload.outputStream())) {
+            json.writeString(new ConcatReader(partContext == null ? "" : partContext + "\n\n",
+                    "Rubric:\n", Objects.toString(rubricText, ""),
+                    "\n\nAssignment:\n", Objects.toString(assignmentText, "")), -1);
+        }
+        payload.writeUtf8(stream ? ",\"stream\":true}" : "}");
+        return payload;
+    }
+
+    /** Reads several strings one after the other without joining them. */
+    private static final class ConcatReader extends Reader {
+        private final String[] parts;
+        private int part;
+        private int offset;
+
+        ConcatReader(String... parts) {
+            this.parts = parts;
+        }
+
+        @Override
+        public int read(char[] buffer, int off, int len) {
+            while (part < parts.length && offset == parts[part].length()) {
+                part++;
+                offset = 0;
+            }
+            if (part == parts.length) return -1;
+            int n = Math.min(len, parts[part].length() - offset);
+            parts[part].getChars(offset, offset + n, buffer, off);
+            offset += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * JSON that opens every request from this client, up to the value of {@code input}: the model, the
+     * grading instructions, metadata and the response schema. None of it depends on the submission.
+     */
+    private static ByteString payloadPrefix(ObjectMapper objectMapper, String model) {
         ObjectNode root = objectMapper.createObjectNode();
         root.put("model", model);
-
-    // Create a clear system/context instruction and include it at the top of the input
-    String systemContext = "You are a high level academic grader. Evaluate assignments using the provided rubric and respond only with JSON that matches the specified schema. For each rubric category, return: name, score (earned), maxScore (possible), evidence (short quote or pointer), and improvementSteps (array of 3-6 concise actionable steps). If a value is unknown, return 0 for numeric fields and an empty string/array for others.";
-    String inputText = systemContext + "\n\nRubric:\n" + rubricText + "\n\nAssignment:\n" + assignmentText;
-    root.put("input", inputText);
+        root.put("instructions", SYSTEM_CONTEXT);
 
         // Small metadata block for observability (not secret)
         ObjectNode metadata = root.putObject("metadata");
@@ -177,6 +933,12 @@ public class OpenAiRubricClient {
     required.add("overallMaxScore");
     required.add("categories");
 
-        return root;
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(root);
+            // Reopen the object after its closing brace so the input can follow
+            return new Buffer().write(json, 0, json.length - 1).writeUtf8(",\"input\":").readByteString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
\ No newline at end of file
@@ -1,13 +1,23 @@
 package com.cab302.eduplanner.model;
 
 /**
- * Represents a single flashcard with a question and answer.
+ * Represents a single flashcard with a question and answer, plus its spaced-repetition
+ * schedule (see {@code ReviewScheduler}). A new card is due immediately.
  */
 public class Flashcard {
 
+    /** Ease factor given to cards that have never been reviewed. */
+    public static final double DEFAULT_EASE = 2.5;
+
+    private long cardId;      // 0 until persisted
     private String question;
     private String answer;
 
+    private double ease = DEFAULT_EASE;
+    private int intervalDays;
+    private int repetitions;
+    private long dueAt;       // epoch millis; 0 = never reviewed
+
     /**
      * Constructs a flashcard with the given question and answer.
      * @param question the question text
@@ -18,6 +28,34 @@ public class Flashcard {
         this.answer = answer;
     }
 
+    /**
+     * Constructs a persisted flashcard.
+     * @param cardId the database id
+     * @param question the question text
+     * @param answer the answer text
+     */
+    public Flashcard(long cardId, String question, String answer) {
+        this.cardId = cardId;
+        this.question = question;
+        this.answer = answer;
+    }
+
+    /**
+     * Gets the database id.
+     * @return the id, or 0 if the card has not been saved
+     */
+    public long getCardId() {
+        return cardId;
+    }
+
+    /**
+     * Sets the database id.
+     * @param cardId the id
+     */
+    public void setCardId(long cardId) {
+        this.cardId = cardId;
+    }
+
     /**
      * Gets the question text.
      * @return the question
@@ -49,4 +87,50 @@ public class Flashcard {
     public void setAnswer(String answer) {
         this.answer = answer;
     }
+
+    /**
+     * Gets the ease factor that multiplies the interval after a successful review.
+     * @return the ease
+     */
+    public double getEase() {
+        return ease;
+    }
+
+    /**
+     * Gets the current review interval.
+     * @return the interval in days; 0 for new or relearning cards
+     */
+    public int getIntervalDays() {
+        return intervalDays;
+    }
+
+    /**
+     * Gets the number of successful reviews in a row.
+     * @return the repetition count
+     */
+    public int getRepetitions() {
+        return repetitions;
+    }
+
+    /**
+     * Gets when the card is next due.
+     * @return epoch milliseconds; 0 if the card has never been reviewed
+     */
+    public long getDueAt() {
+        return dueAt;
+    }
+
+    /**
+     * Sets the spaced-repetition state in one step.
+     * @param ease the ease factor
+     * @param intervalDays the interval in days
+     * @param repetitions successful reviews in a row
+     * @param dueAt next due time in epoch milliseconds
+     */
+    public void setSchedule(double ease, int intervalDays, int repetitions, long dueAt) {
+        this.ease = ease;
+        this.intervalDays = intervalDays;
+        this.repetitions = repetitions;
+        this.dueAt = dueAt;
+    }
 }
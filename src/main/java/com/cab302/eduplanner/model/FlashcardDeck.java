@@ -5,9 +5,13 @@ import java.util.List;
 
 /**
  * Represents a deck of flashcards.
+ * Decks loaded from the database start as headers; cards are fetched a page at a time,
+ * so {@link #getFlashcards()} may hold fewer cards than {@link #getCardCount()}.
  */
 public class FlashcardDeck {
+    private long deckId;      // 0 until persisted
     private String name;
+    private int cardCount = -1;   // -1 until counted
     private final List<Flashcard> flashcards = new ArrayList<>();
 
     /**
@@ -18,6 +22,26 @@ public class FlashcardDeck {
         this.name = name;
     }
 
+    /**
+     * Constructs a persisted deck header whose cards have not been loaded yet.
+     * @param deckId the database id
+     * @param name the deck name
+     */
+    public FlashcardDeck(long deckId, String name) {
+        this.deckId = deckId;
+        this.name = name;
+    }
+
+    /**
+     * Gets the database id.
+     * @return the id, or 0 if the deck has not been saved
+     */
+    public long getDeckId() { return deckId; }
+    /**
+     * Sets the database id.
+     * @param deckId the id
+     */
+    public void setDeckId(long deckId) { this.deckId = deckId; }
     /**
      * Gets the deck name.
      * @return the name
@@ -28,9 +52,24 @@ public class FlashcardDeck {
      * @param name the name
      */
     public void setName(String name) { this.name = name; }
+    /**
+     * Gets the total number of cards in the deck, loaded or not.
+     * @return the count; for a deck that has not been counted, the number of cards in memory
+     */
+    public int getCardCount() { return cardCount < 0 ? flashcards.size() : cardCount; }
+    /**
+     * Sets the total number of cards stored for the deck.
+     * @param cardCount the count
+     */
+    public void setCardCount(int cardCount) { this.cardCount = cardCount; }
+    /**
+     * Whether every card of the deck is in {@link #getFlashcards()}.
+     * @return true once all pages have been loaded
+     */
+    public boolean isFullyLoaded() { return flashcards.size() >= getCardCount(); }
     /**
      * Gets the list of flashcards in the deck.
-     * @return the flashcards
+     * @return the flashcards loaded so far
      */
     public List<Flashcard> getFlashcards() { return flashcards; }
 }
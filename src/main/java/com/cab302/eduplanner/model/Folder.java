@@ -7,6 +7,7 @@ import java.util.List;
  * Represents a folder containing notes.
  */
 public class Folder {
+    private long folderId;    // 0 until persisted
     private String name;
     private List<Note> notes = new ArrayList<>();
 
@@ -18,6 +19,32 @@ public class Folder {
         this.name = name;
     }
 
+    /**
+     * Constructs a persisted folder.
+     * @param folderId the database id
+     * @param name the folder name
+     */
+    public Folder(long folderId, String name) {
+        this.folderId = folderId;
+        this.name = name;
+    }
+
+    /**
+     * Gets the database id.
+     * @return the id, or 0 if the folder has not been saved
+     */
+    public long getFolderId() {
+        return folderId;
+    }
+
+    /**
+     * Sets the database id.
+     * @param folderId the id
+     */
+    public void setFolderId(long folderId) {
+        this.folderId = folderId;
+    }
+
     /**
      * Gets the folder name.
      * @return the name
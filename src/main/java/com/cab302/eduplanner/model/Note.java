@@ -2,10 +2,13 @@ package com.cab302.eduplanner.model;
 
 /**
  * Represents a note with a title and content.
+ * Notes loaded from the database start as headers (id and title only); the content is
+ * fetched when the note is opened and can be dropped again when it is closed.
  */
 public class Note {
+    private long noteId;      // 0 until persisted
     private String title;
-    private String content;
+    private String content;   // null while not loaded
 
     /**
      * Constructs a note with the given title and content.
@@ -17,6 +20,47 @@ public class Note {
         this.content = content;
     }
 
+    /**
+     * Constructs a persisted note header whose content has not been loaded yet.
+     * @param noteId the database id
+     * @param title the note title
+     */
+    public Note(long noteId, String title) {
+        this.noteId = noteId;
+        this.title = title;
+    }
+
+    /**
+     * Gets the database id.
+     * @return the id, or 0 if the note has not been saved
+     */
+    public long getNoteId() {
+        return noteId;
+    }
+
+    /**
+     * Sets the database id.
+     * @param noteId the id
+     */
+    public void setNoteId(long noteId) {
+        this.noteId = noteId;
+    }
+
+    /**
+     * Whether the content is currently held in memory.
+     * @return true once content has been set or loaded
+     */
+    public boolean isContentLoaded() {
+        return content != null;
+    }
+
+    /**
+     * Releases the content so only the header stays on the heap.
+     */
+    public void unloadContent() {
+        this.content = null;
+    }
+
     /**
      * Gets the note title.
      * @return the title
@@ -27,7 +71,7 @@ public class Note {
 
     /**
      * Gets the note content.
-     * @return the content
+     * @return the content, or null if it has not been loaded
      */
     public String getContent() {
         return content;
@@ -0,0 +1,65 @@
+package com.cab302.eduplanner.repository;
+
+import com.cab302.eduplanner.DatabaseExecutor;
+import com.cab302.eduplanner.model.Task;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking facade over {@link TaskRepository}.
+ * Reads run on the executor's reader pool and writes run on its single writer thread,
+ * so callers on the JavaFX Application Thread never touch the database directly.
+ * Results come back on an executor thread; UI code should hop back with {@code Platform::runLater}.
+ */
+public class AsyncTaskRepository {
+
+    private final TaskRepository delegate;
+    private final DatabaseExecutor executor;
+
+    public AsyncTaskRepository() {
+        this(new TaskRepository(), DatabaseExecutor.shared());
+    }
+
+    public AsyncTaskRepository(TaskRepository delegate, DatabaseExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<List<Task>> findByUserId(long userId) {
+        return executor.read("tasks.findByUserId", () -> delegate.findByUserId(userId));
+    }
+
+    public CompletableFuture<TaskRepository.TaskPage> findPageByUserId(long userId, TaskRepository.PageCursor after, int limit) {
+        return executor.read("tasks.findPageByUserId", () -> delegate.findPageByUserId(userId, after, limit));
+    }
+
+    public CompletableFuture<Optional<Task>> findById(long taskId, long userId) {
+        return executor.read("tasks.findById", () -> delegate.findById(taskId, userId));
+    }
+
+    public CompletableFuture<Optional<Long>> insert(Task t) {
+        return executor.write("tasks.insert", () -> delegate.insert(t));
+    }
+
+    public CompletableFuture<Boolean> update(Task t) {
+        return executor.write("tasks.update", () -> delegate.update(t));
+    }
+
+    public CompletableFuture<Boolean> delete(long taskId, long userId) {
+        return executor.write("tasks.delete", () -> delegate.delete(taskId, userId));
+    }
+
+    public CompletableFuture<List<Long>> insertAll(List<Task> tasks) {
+        return executor.write("tasks.insertAll", () -> delegate.insertAll(tasks));
+    }
+
+    public CompletableFuture<Integer> updateAll(List<Task> tasks) {
+        return executor.write("tasks.updateAll", () -> delegate.updateAll(tasks));
+    }
+
+    public CompletableFuture<Integer> deleteAll(List<Long> taskIds, long userId) {
+        return executor.write("tasks.deleteAll", () -> delegate.deleteAll(taskIds, userId));
+    }
+}
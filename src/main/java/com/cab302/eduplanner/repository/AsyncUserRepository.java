@@ -0,0 +1,41 @@
+package com.cab302.eduplanner.repository;
+
+import com.cab302.eduplanner.DatabaseExecutor;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking facade over {@link UserRepository}, backed by the shared {@link DatabaseExecutor}.
+ */
+public class AsyncUserRepository {
+
+    private final UserRepository delegate;
+    private final DatabaseExecutor executor;
+
+    public AsyncUserRepository() {
+        this(new UserRepository(), DatabaseExecutor.shared());
+    }
+
+    public AsyncUserRepository(UserRepository delegate, DatabaseExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Optional<UserRepository.User>> findByUsername(String username) {
+        return executor.read("users.findByUsername", () -> delegate.findByUsername(username));
+    }
+
+    public CompletableFuture<Boolean> existsByUsername(String username) {
+        return executor.read("users.existsByUsername", () -> delegate.existsByUsername(username));
+    }
+
+    public CompletableFuture<Boolean> existsByEmail(String email) {
+        return executor.read("users.existsByEmail", () -> delegate.existsByEmail(email));
+    }
+
+    public CompletableFuture<Boolean> createUser(String username, String email, String firstName, String lastName, String passwordHash) {
+        return executor.write("users.create",
+                () -> delegate.createUser(username, email, firstName, lastName, passwordHash));
+    }
+}
@@ -0,0 +1,105 @@
+package com.cab302.eduplanner.repository;
+
+import com.cab302.eduplanner.ConnectionSource;
+import com.cab302.eduplanner.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * SQLite store for text extracted from documents, keyed by the SHA-256 of the file bytes, the file
+ * format, the extractor version and the character budget. Only the most recently used {@link #MAX_ENTRIES} entries are kept.
+ */
+public class ExtractedTextRepository {
+
+    /** Entries kept; older ones are pruned when new text is saved. */
+    public static final int MAX_ENTRIES = 500;
+
+    private static final String SQL_SELECT = """
+        SELECT text FROM extracted_text
+        WHERE sha256 = ? AND format = ? AND extractor_version = ? AND max_characters = ?
+        """;
+
+    private static final String SQL_TOUCH = """
+        UPDATE extracted_text SET used_at = ?
+        WHERE sha256 = ? AND format = ? AND extractor_version = ? AND max_characters = ?
+        """;
+
+    private static final String SQL_UPSERT = """
+        INSERT INTO extracted_text (sha256, format, extractor_version, max_characters, text, used_at)
+        VALUES (?, ?, ?, ?, ?, ?)
+        ON CONFLICT (sha256, format, extractor_version, max_characters)
+        DO UPDATE SET text = excluded.text, used_at = excluded.used_at
+        """;
+
+    // Walks idx_extracted_text_used from the newest entry and drops everything past the limit
+    private static final String SQL_PRUNE = """
+        DELETE FROM extracted_text WHERE used_at < (
+            SELECT used_at FROM extracted_text ORDER BY used_at DESC LIMIT 1 OFFSET ?)
+        """;
+
+    private final ConnectionSource connections;
+
+    public ExtractedTextRepository() {
+        this(DatabaseConnection::getConnection);
+    }
+
+    public ExtractedTextRepository(ConnectionSource connections) {
+        this.connections = connections;
+    }
+
+    /** Returns the cached text and marks it as recently used; empty on a miss or a database error. */
+    public Optional<String> find(String sha256, String format, int extractorVersion, int maxCharacters) {
+        try (Connection c = connections.getConnection()) {
+            String text = null;
+            try (PreparedStatement ps = c.prepareStatement(SQL_SELECT)) {
+                ps.setString(1, sha256);
+                ps.setString(2, format);
+                ps.setInt(3, extractorVersion);
+                ps.setInt(4, maxCharacters);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) text = rs.getString(1);
+                }
+            }
+            if (text == null) return Optional.empty();
+            try (PreparedStatement ps = c.prepareStatement(SQL_TOUCH)) {
+                ps.setLong(1, System.currentTimeMillis());
+                ps.setString(2, sha256);
+                ps.setString(3, format);
+                ps.setInt(4, extractorVersion);
+                ps.setInt(5, maxCharacters);
+                ps.executeUpdate();
+            }
+            return Optional.of(text);
+        } catch (SQLException e) {
+            System.err.println("extracted text lookup failed: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /** Stores extracted text, replacing any earlier entry for the same key, then prunes old entries. */
+    public boolean save(String sha256, String format, int extractorVersion, int maxCharacters, String text) {
+        try (Connection c = connections.getConnection()) {
+            try (PreparedStatement ps = c.prepareStatement(SQL_UPSERT)) {
+                ps.setString(1, sha256);
+                ps.setString(2, format);
+                ps.setInt(3, extractorVersion);
+                ps.setInt(4, maxCharacters);
+                ps.setString(5, text);
+                ps.setLong(6, System.currentTimeMillis());
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = c.prepareStatement(SQL_PRUNE)) {
+                ps.setInt(1, MAX_ENTRIES - 1);
+                ps.executeUpdate();
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("extracted text save failed: " + e.getMessage());
+            return false;
+        }
+    }
+}
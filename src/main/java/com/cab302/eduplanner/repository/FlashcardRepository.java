@@ -1,19 +1,462 @@
 package com.cab302.eduplanner.repository;
 
+import com.cab302.eduplanner.ConnectionSource;
+import com.cab302.eduplanner.DatabaseConnection;
+import com.cab302.eduplanner.model.Flashcard;
+import com.cab302.eduplanner.model.FlashcardDeck;
 import com.cab302.eduplanner.model.FlashcardFolder;
+
+import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
+/**
+ * SQLite persistence for flashcard folders, decks and cards.
+ * The tree is loaded as headers only (ids and names); a deck's cards are counted and then read in
+ * keyset pages with {@link #loadCards}, so opening a large deck does not pull every card into memory.
+ * Every call is scoped to a user id.
+ */
 public class FlashcardRepository {
-    private static final List<FlashcardFolder> folders = new ArrayList<>();
 
-    private FlashcardRepository() {} // prevent instantiation
+    /** Cards per page when a deck is opened or the user studies past the loaded cards. */
+    public static final int PAGE_SIZE = 200;
+
+    private static final String SQL_SELECT_FOLDERS =
+            "SELECT folder_id, name FROM flashcard_folders WHERE user_id = ? ORDER BY folder_id";
+
+    // Reads only idx_flashcard_decks_folder
+    private static final String SQL_SELECT_DECK_HEADERS = """
+        SELECT d.folder_id, d.deck_id, d.name
+        FROM flashcard_folders f
+        JOIN flashcard_decks d ON d.folder_id = f.folder_id
+        WHERE f.user_id = ?
+        ORDER BY f.folder_id, d.deck_id
+        """;
+
+    // Constant ownership check, evaluated once per statement
+    private static final String OWNS_DECK = """
+        EXISTS (SELECT 1 FROM flashcard_decks d JOIN flashcard_folders f ON f.folder_id = d.folder_id
+                WHERE d.deck_id = ?1 AND f.user_id = ?2)
+        """;
+
+    private static final String SQL_COUNT_CARDS =
+            "SELECT COUNT(*) FROM flashcards WHERE deck_id = ?1 AND " + OWNS_DECK;
+
+    private static final String SQL_COUNT_DUE =
+            "SELECT COUNT(*) FROM flashcards WHERE deck_id = ?1 AND due_at <= ?3 AND " + OWNS_DECK;
+
+    private static final String SQL_SELECT_CARD_PAGE = """
+        SELECT card_id, question, answer, ease, interval_days, repetitions, due_at
+        FROM flashcards
+        WHERE deck_id = ?1 AND card_id > ?3 AND %s
+        ORDER BY card_id
+        LIMIT ?4
+        """.formatted(OWNS_DECK);
+
+    private static final String SQL_INSERT_FOLDER = "INSERT INTO flashcard_folders (user_id, name) VALUES (?, ?)";
+
+    private static final String SQL_RENAME_FOLDER = """
+        UPDATE flashcard_folders SET name = ?, updated_at = datetime('now')
+        WHERE folder_id = ? AND user_id = ?
+        """;
+
+    // Decks and cards cascade with their folder
+    private static final String SQL_DELETE_FOLDER = "DELETE FROM flashcard_folders WHERE folder_id = ? AND user_id = ?";
+
+    // Inserts nothing unless the folder belongs to the user
+    private static final String SQL_INSERT_DECK = """
+        INSERT INTO flashcard_decks (folder_id, name)
+        SELECT folder_id, ? FROM flashcard_folders WHERE folder_id = ? AND user_id = ?
+        """;
+
+    private static final String USER_DECKS = """
+        (SELECT d.deck_id FROM flashcard_decks d JOIN flashcard_folders f ON f.folder_id = d.folder_id
+         WHERE f.user_id = ?)
+        """;
+
+    private static final String SQL_RENAME_DECK =
+            "UPDATE flashcard_decks SET name = ?, updated_at = datetime('now') WHERE deck_id = ? AND deck_id IN "
+                    + USER_DECKS;
+
+    private static final String SQL_DELETE_DECK = "DELETE FROM flashcard_decks WHERE deck_id = ? AND deck_id IN " + USER_DECKS;
+
+    private static final String SQL_INSERT_CARD =
+            "INSERT INTO flashcards (deck_id, question, answer) SELECT ?1, ?3, ?4 WHERE " + OWNS_DECK;
+
+    private static final String SQL_UPDATE_CARD =
+            "UPDATE flashcards SET question = ?, answer = ?, updated_at = datetime('now') WHERE card_id = ? AND deck_id IN "
+                    + USER_DECKS;
+
+    private static final String SQL_UPDATE_SCHEDULE = """
+        UPDATE flashcards SET ease = ?, interval_days = ?, repetitions = ?, due_at = ?
+        WHERE card_id = ? AND deck_id IN """ + USER_DECKS;
+
+    private static final String SQL_DELETE_CARD = "DELETE FROM flashcards WHERE card_id = ? AND deck_id IN " + USER_DECKS;
+    private static final String SQL_DELETE_DECK_CARD =
+            "DELETE FROM flashcards WHERE card_id = ?3 AND deck_id = ?1 AND " + OWNS_DECK;
 
-    public static List<FlashcardFolder> getFolders() {
+    private final ConnectionSource connections;
+
+    public FlashcardRepository() {
+        this(DatabaseConnection::getConnection);
+    }
+
+    public FlashcardRepository(ConnectionSource connections) {
+        this.connections = connections;
+    }
+
+    // Read
+
+    /**
+     * Loads the user's folders with deck headers. Decks come back with no cards and no count.
+     *
+     * @param userId owner of the folders
+     * @return folders in creation order, each with its decks in creation order; empty on error
+     */
+    public List<FlashcardFolder> loadTree(long userId) {
+        List<FlashcardFolder> folders = new ArrayList<>();
+        try (Connection c = connections.getConnection()) {
+            try (PreparedStatement ps = c.prepareStatement(SQL_SELECT_FOLDERS)) {
+                ps.setLong(1, userId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) folders.add(new FlashcardFolder(rs.getLong("folder_id"), rs.getString("name")));
+                }
+            }
+            if (folders.isEmpty()) return folders;
+
+            // A folder created between the two reads (e.g. by a Drive import) is skipped until the next load
+            Map<Long, FlashcardFolder> byId = new HashMap<>();
+            for (FlashcardFolder f : folders) byId.put(f.getFolderId(), f);
+            try (PreparedStatement ps = c.prepareStatement(SQL_SELECT_DECK_HEADERS)) {
+                ps.setLong(1, userId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        FlashcardFolder folder = byId.get(rs.getLong("folder_id"));
+                        if (folder != null) folder.getDecks().add(new FlashcardDeck(rs.getLong("deck_id"), rs.getString("name")));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("loadTree failed: " + e.getMessage());
+            return new ArrayList<>();
+        }
         return folders;
     }
 
-    public static void clear() {
-        folders.clear();
+    /**
+     * Counts the cards in one of the user's decks.
+     *
+     * @return the number of cards; 0 if the deck is not the user's or the query failed
+     */
+    public int countCards(long deckId, long userId) {
+        try (Connection c = connections.getConnection();
+             PreparedStatement ps = c.prepareStatement(SQL_COUNT_CARDS)) {
+            ps.setLong(1, deckId);
+            ps.setLong(2, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            System.err.println("countCards failed: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Counts the cards in one of the user's decks that are due for review.
+     *
+     * @param now epoch millis; cards with {@code due_at <= now} are due, including never-reviewed cards
+     * @return the number of due cards; 0 if the deck is not the user's or the query failed
+     */
+    public int countDue(long deckId, long userId, long now) {
+        try (Connection c = connections.getConnection();
+             PreparedStatement ps = c.prepareStatement(SQL_COUNT_DUE)) {
+            ps.setLong(1, deckId);
+            ps.setLong(2, userId);
+            ps.setLong(3, now);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            System.err.println("countDue failed: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Reads the next page of a deck's cards in creation order.
+     *
+     * @param afterCardId card id of the last card already loaded, or 0 for the first page
+     * @param limit       maximum number of cards
+     * @return up to {@code limit} cards; empty if there are no more, the deck is not the user's, or the query failed
+     */
+    public List<Flashcard> loadCards(long deckId, long userId, long afterCardId, int limit) {
+        try (Connection c = connections.getConnection()) {
+            return selectCards(c, deckId, userId, afterCardId, limit);
+        } catch (SQLException e) {
+            System.err.println("loadCards failed: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Reads a whole deck a page at a time, for exports that need every card.
+     *
+     * @return cards in creation order; empty if the deck is not the user's or the query failed
+     */
+    public List<Flashcard> loadAllCards(long deckId, long userId) {
+        List<Flashcard> cards = new ArrayList<>();
+        long after = 0;
+        while (true) {
+            List<Flashcard> page = loadCards(deckId, userId, after, PAGE_SIZE);
+            cards.addAll(page);
+            if (page.size() < PAGE_SIZE) return cards;
+            after = page.getLast().getCardId();
+        }
+    }
+
+    /**
+     * Reads a whole deck like {@link #loadAllCards}, but reports a failed query instead of returning an
+     * empty deck, for callers that diff the deck against something else.
+     *
+     * @return cards in creation order; empty only if the deck has none or is not the user's
+     * @throws SQLException if any page cannot be read
+     */
+    public List<Flashcard> loadAllCardsOrThrow(long deckId, long userId) throws SQLException {
+        List<Flashcard> cards = new ArrayList<>();
+        try (Connection c = connections.getConnection()) {
+            long after = 0;
+            while (true) {
+                List<Flashcard> page = selectCards(c, deckId, userId, after, PAGE_SIZE);
+                cards.addAll(page);
+                if (page.size() < PAGE_SIZE) return cards;
+                after = page.getLast().getCardId();
+            }
+        }
+    }
+
+    /**
+     * Appends the next page of cards to a deck, counting the deck first if that has not happened yet.
+     *
+     * @return true if any cards were added
+     */
+    public boolean loadNextPage(FlashcardDeck deck, long userId) {
+        List<Flashcard> loaded = deck.getFlashcards();
+        if (loaded.isEmpty()) deck.setCardCount(countCards(deck.getDeckId(), userId));
+        if (deck.isFullyLoaded()) return false;
+        long after = loaded.isEmpty() ? 0 : loaded.getLast().getCardId();
+        List<Flashcard> page = loadCards(deck.getDeckId(), userId, after, PAGE_SIZE);
+        loaded.addAll(page);
+        return !page.isEmpty();
+    }
+
+    // Folders
+
+    public Optional<Long> createFolder(long userId, String name) {
+        try (Connection c = connections.getConnection();
+             PreparedStatement ps = c.prepareStatement(SQL_INSERT_FOLDER, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setLong(1, userId);
+            ps.setString(2, name);
+            return insertedId(ps);
+        } catch (SQLException e) {
+            System.err.println("createFolder failed: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public boolean renameFolder(long folderId, long userId, String name) {
+        return update("renameFolder", SQL_RENAME_FOLDER, name, folderId, userId);
+    }
+
+    /** Deletes a folder and, through the foreign key cascade, its decks and cards. */
+    public boolean deleteFolder(long folderId, long userId) {
+        return update("deleteFolder", SQL_DELETE_FOLDER, folderId, userId);
+    }
+
+    // Decks
+
+    /**
+     * Creates a deck in one of the user's folders.
+     *
+     * @return the new deck id, or empty if the folder is not the user's or the insert failed
+     */
+    public Optional<Long> createDeck(long folderId, long userId, String name) {
+        try (Connection c = connections.getConnection();
+             PreparedStatement ps = c.prepareStatement(SQL_INSERT_DECK, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, name);
+            ps.setLong(2, folderId);
+            ps.setLong(3, userId);
+            return insertedId(ps);
+        } catch (SQLException e) {
+            System.err.println("createDeck failed: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public boolean renameDeck(long deckId, long userId, String name) {
+        return update("renameDeck", SQL_RENAME_DECK, name, deckId, userId);
+    }
+
+    /** Deletes a deck and, through the foreign key cascade, its cards. */
+    public boolean deleteDeck(long deckId, long userId) {
+        return update("deleteDeck", SQL_DELETE_DECK, deckId, userId);
+    }
+
+    // Cards
+
+    /**
+     * Adds a card to the end of one of the user's decks.
+     *
+     * @return the new card id, or empty if the deck is not the user's or the insert failed
+     */
+    public Optional<Long> createCard(long deckId, long userId, String question, String answer) {
+        try (Connection c = connections.getConnection();
+             PreparedStatement ps = c.prepareStatement(SQL_INSERT_CARD, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setLong(1, deckId);
+            ps.setLong(2, userId);
+            ps.setString(3, question == null ? "" : question);
+            ps.setString(4, answer == null ? "" : answer);
+            return insertedId(ps);
+        } catch (SQLException e) {
+            System.err.println("createCard failed: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Adds cards to the end of one of the user's decks in a single transaction.
+     *
+     * @return number of cards inserted: all of them, or 0 if the deck is not the user's or the batch was rolled back
+     */
+    public int insertCards(long deckId, long userId, List<Flashcard> cards) {
+        if (cards == null || cards.isEmpty()) return 0;
+        try (Connection c = connections.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(SQL_INSERT_CARD)) {
+                for (Flashcard card : cards) {
+                    ps.setLong(1, deckId);
+                    ps.setLong(2, userId);
+                    ps.setString(3, card.getQuestion() == null ? "" : card.getQuestion());
+                    ps.setString(4, card.getAnswer() == null ? "" : card.getAnswer());
+                    ps.addBatch();
+                }
+                for (int n : ps.executeBatch()) {
+                    if (n == 0) throw new SQLException("deck " + deckId + " is not owned by user " + userId);
+                }
+                c.commit();
+                return cards.size();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("insertCards failed: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Deletes and adds cards in one of the user's decks in a single transaction, so a failure part way
+     * leaves the deck as it was.
+     *
+     * @param removed card ids to delete; each must be in the deck
+     * @param added   cards to append
+     * @throws SQLException if the deck is not the user's, a card is not in it, or the transaction was rolled back
+     */
+    public void replaceCards(long deckId, long userId, Collection<Long> removed, List<Flashcard> added)
+            throws SQLException {
+        if (removed.isEmpty() && added.isEmpty()) return;
+        try (Connection c = connections.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement delete = c.prepareStatement(SQL_DELETE_DECK_CARD);
+                 PreparedStatement insert = c.prepareStatement(SQL_INSERT_CARD)) {
+                for (long cardId : removed) {
+                    delete.setLong(1, deckId);
+                    delete.setLong(2, userId);
+                    delete.setLong(3, cardId);
+                    delete.addBatch();
+                }
+                for (int n : delete.executeBatch()) {
+                    if (n == 0) throw new SQLException("card is not in deck " + deckId + " of user " + userId);
+                }
+                for (Flashcard card : added) {
+                    insert.setLong(1, deckId);
+                    insert.setLong(2, userId);
+                    insert.setString(3, card.getQuestion() == null ? "" : card.getQuestion());
+                    insert.setString(4, card.getAnswer() == null ? "" : card.getAnswer());
+                    insert.addBatch();
+                }
+                for (int n : insert.executeBatch()) {
+                    if (n == 0) throw new SQLException("deck " + deckId + " is not owned by user " + userId);
+                }
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        }
+    }
+
+    public boolean updateCard(long cardId, long userId, String question, String answer) {
+        return update("updateCard", SQL_UPDATE_CARD,
+                question == null ? "" : question, answer == null ? "" : answer, cardId, userId);
+    }
+
+    /** Saves a card's spaced-repetition state after a review. */
+    public boolean updateSchedule(Flashcard card, long userId) {
+        return update("updateSchedule", SQL_UPDATE_SCHEDULE, card.getEase(), card.getIntervalDays(),
+                card.getRepetitions(), card.getDueAt(), card.getCardId(), userId);
+    }
+
+    public boolean deleteCard(long cardId, long userId) {
+        return update("deleteCard", SQL_DELETE_CARD, cardId, userId);
+    }
+
+    // Helpers
+
+    private static Optional<Long> insertedId(PreparedStatement ps) throws SQLException {
+        if (ps.executeUpdate() == 0) return Optional.empty();
+        try (ResultSet keys = ps.getGeneratedKeys()) {
+            return keys.next() ? Optional.of(keys.getLong(1)) : Optional.empty();
+        }
+    }
+
+    private static List<Flashcard> selectCards(Connection c, long deckId, long userId, long afterCardId, int limit)
+            throws SQLException {
+        List<Flashcard> cards = new ArrayList<>();
+        try (PreparedStatement ps = c.prepareStatement(SQL_SELECT_CARD_PAGE)) {
+            ps.setLong(1, deckId);
+            ps.setLong(2, userId);
+            ps.setLong(3, afterCardId);
+            ps.setInt(4, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Flashcard card = new Flashcard(rs.getLong("card_id"), rs.getString("question"), rs.getString("answer"));
+                    card.setSchedule(rs.getDouble("ease"), rs.getInt("interval_days"),
+                            rs.getInt("repetitions"), rs.getLong("due_at"));
+                    cards.add(card);
+                }
+            }
+        }
+        return cards;
+    }
+
+    private boolean update(String op, String sql, Object... params) {
+        try (Connection c = connections.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) ps.setObject(i + 1, params[i]);
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println(op + " failed: " + e.getMessage());
+            return false;
+        }
     }
 }
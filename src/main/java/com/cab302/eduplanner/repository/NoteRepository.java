@@ -0,0 +1,248 @@
+package com.cab302.eduplanner.repository;
+
+import com.cab302.eduplanner.ConnectionSource;
+import com.cab302.eduplanner.DatabaseConnection;
+import com.cab302.eduplanner.model.Folder;
+import com.cab302.eduplanner.model.Note;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * SQLite persistence for note folders and notes.
+ * The tree is loaded as headers only (ids, folder names and note titles); note content is fetched
+ * one note at a time with {@link #loadContent}, so memory tracks the notes a user has open rather
+ * than the size of their library. Every call is scoped to a user id.
+ */
+public class NoteRepository {
+
+    private static final String SQL_SELECT_FOLDERS =
+            "SELECT folder_id, name FROM folders WHERE user_id = ? ORDER BY folder_id";
+
+    // Reads only idx_notes_folder_title; content is never touched
+    private static final String SQL_SELECT_NOTE_HEADERS = """
+        SELECT n.folder_id, n.note_id, n.title
+        FROM folders f
+        JOIN notes n ON n.folder_id = f.folder_id
+        WHERE f.user_id = ?
+        ORDER BY f.folder_id, n.note_id
+        """;
+
+    private static final String SQL_SELECT_CONTENT = """
+        SELECT n.content
+        FROM notes n
+        JOIN folders f ON f.folder_id = n.folder_id
+        WHERE n.note_id = ? AND f.user_id = ?
+        """;
+
+    private static final String SQL_INSERT_FOLDER = "INSERT INTO folders (user_id, name) VALUES (?, ?)";
+
+    private static final String SQL_RENAME_FOLDER = """
+        UPDATE folders SET name = ?, updated_at = datetime('now')
+        WHERE folder_id = ? AND user_id = ?
+        """;
+
+    // Notes cascade with their folder
+    private static final String SQL_DELETE_FOLDER = "DELETE FROM folders WHERE folder_id = ? AND user_id = ?";
+
+    // Inserts nothing unless the folder belongs to the user
+    private static final String SQL_INSERT_NOTE = """
+        INSERT INTO notes (folder_id, title, content)
+        SELECT folder_id, ?, ? FROM folders WHERE folder_id = ? AND user_id = ?
+        """;
+
+    private static final String SQL_UPDATE_NOTE = """
+        UPDATE notes SET title = ?, content = ?, updated_at = datetime('now')
+        WHERE note_id = ? AND folder_id IN (SELECT folder_id FROM folders WHERE user_id = ?)
+        """;
+
+    private static final String SQL_RENAME_NOTE = """
+        UPDATE notes SET title = ?, updated_at = datetime('now')
+        WHERE note_id = ? AND folder_id IN (SELECT folder_id FROM folders WHERE user_id = ?)
+        """;
+
+    private static final String SQL_DELETE_NOTE = """
+        DELETE FROM notes
+        WHERE note_id = ? AND folder_id IN (SELECT folder_id FROM folders WHERE user_id = ?)
+        """;
+
+    private final ConnectionSource connections;
+
+    public NoteRepository() {
+        this(DatabaseConnection::getConnection);
+    }
+
+    public NoteRepository(ConnectionSource connections) {
+        this.connections = connections;
+    }
+
+    // Read
+
+    /**
+     * Loads the user's folders with note headers. Notes come back unloaded
+     * ({@link Note#isContentLoaded()} is false).
+     *
+     * @param userId owner of the folders
+     * @return folders in creation order, each with its notes in creation order; empty on error
+     */
+    public List<Folder> loadTree(long userId) {
+        List<Folder> folders = new ArrayList<>();
+        try (Connection c = connections.getConnection()) {
+            try (PreparedStatement ps = c.prepareStatement(SQL_SELECT_FOLDERS)) {
+                ps.setLong(1, userId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) folders.add(new Folder(rs.getLong("folder_id"), rs.getString("name")));
+                }
+            }
+            if (folders.isEmpty()) return folders;
+
+            // The two reads are separate statements, so a folder created in between (e.g. by a Drive import)
+            // can own notes that were never listed; those are skipped until the next load
+            Map<Long, Folder> byId = new HashMap<>();
+            for (Folder f : folders) byId.put(f.getFolderId(), f);
+            try (PreparedStatement ps = c.prepareStatement(SQL_SELECT_NOTE_HEADERS)) {
+                ps.setLong(1, userId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Folder folder = byId.get(rs.getLong("folder_id"));
+                        if (folder != null) folder.addNote(new Note(rs.getLong("note_id"), rs.getString("title")));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("loadTree failed: " + e.getMessage());
+            return new ArrayList<>();
+        }
+        return folders;
+    }
+
+    /**
+     * Fetches the body of a single note.
+     *
+     * @return the content, or empty if the note does not exist, belongs to another user, or the query failed
+     */
+    public Optional<String> loadContent(long noteId, long userId) {
+        try (Connection c = connections.getConnection();
+             PreparedStatement ps = c.prepareStatement(SQL_SELECT_CONTENT)) {
+            ps.setLong(1, noteId);
+            ps.setLong(2, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) return Optional.of(rs.getString(1));
+            }
+        } catch (SQLException e) {
+            System.err.println("loadContent failed: " + e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    // Folders
+
+    public Optional<Long> createFolder(long userId, String name) {
+        try (Connection c = connections.getConnection();
+             PreparedStatement ps = c.prepareStatement(SQL_INSERT_FOLDER, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setLong(1, userId);
+            ps.setString(2, name);
+            if (ps.executeUpdate() == 0) return Optional.empty();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (keys.next()) return Optional.of(keys.getLong(1));
+            }
+        } catch (SQLException e) {
+            System.err.println("createFolder failed: " + e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    public boolean renameFolder(long folderId, long userId, String name) {
+        try (Connection c = connections.getConnection();
+             PreparedStatement ps = c.prepareStatement(SQL_RENAME_FOLDER)) {
+            ps.setString(1, name);
+            ps.setLong(2, folderId);
+            ps.setLong(3, userId);
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("renameFolder failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Deletes a folder and, through the foreign key cascade, all of its notes. */
+    public boolean deleteFolder(long folderId, long userId) {
+        try (Connection c = connections.getConnection();
+             PreparedStatement ps = c.prepareStatement(SQL_DELETE_FOLDER)) {
+            ps.setLong(1, folderId);
+            ps.setLong(2, userId);
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("deleteFolder failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Notes
+
+    /**
+     * Creates a note in one of the user's folders.
+     *
+     * @return the new note id, or empty if the folder is not the user's or the insert failed
+     */
+    public Optional<Long> createNote(long folderId, long userId, String title, String content) {
+        try (Connection c = connections.getConnection();
+             PreparedStatement ps = c.prepareStatement(SQL_INSERT_NOTE, Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, title == null ? "" : title);
+            ps.setString(2, content == null ? "" : content);
+            ps.setLong(3, folderId);
+            ps.setLong(4, userId);
+            if (ps.executeUpdate() == 0) return Optional.empty();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (keys.next()) return Optional.of(keys.getLong(1));
+            }
+        } catch (SQLException e) {
+            System.err.println("createNote failed: " + e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    public boolean updateNote(long noteId, long userId, String title, String content) {
+        try (Connection c = connections.getConnection();
+             PreparedStatement ps = c.prepareStatement(SQL_UPDATE_NOTE)) {
+            ps.setString(1, title == null ? "" : title);
+            ps.setString(2, content == null ? "" : content);
+            ps.setLong(3, noteId);
+            ps.setLong(4, userId);
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("updateNote failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Changes a note's title without rewriting its content. */
+    public boolean renameNote(long noteId, long userId, String title) {
+        try (Connection c = connections.getConnection();
+             PreparedStatement ps = c.prepareStatement(SQL_RENAME_NOTE)) {
+            ps.setString(1, title == null ? "" : title);
+            ps.setLong(2, noteId);
+            ps.setLong(3, userId);
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("renameNote failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public boolean deleteNote(long noteId, long userId) {
+        try (Connection c = connections.getConnection();
+             PreparedStatement ps = c.prepareStatement(SQL_DELETE_NOTE)) {
+            ps.setLong(1, noteId);
+            ps.setLong(2, userId);
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("deleteNote failed: " + e.getMessage());
+            return false;
+        }
+    }
+}
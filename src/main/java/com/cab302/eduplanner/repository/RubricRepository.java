@@ -1 +1,215 @@
-package com.cab302.eduplanner.repository; public class RubricRepository {}
\ No newline at end of file
+package com.cab302.eduplanner.repository;
+
+import com.cab302.eduplanner.ConnectionSource;
+import com.cab302.eduplanner.DatabaseConnection;
+import com.cab302.eduplanner.model.RubricAnalysisResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Rubrics attached to tasks, and a SQLite cache of the grades returned for them. A grade is keyed by the
+ * SHA-256 of the normalised rubric text, the SHA-256 of the normalised assignment text and the model name.
+ * Grades older than the time-to-live miss and are deleted; beyond {@link #MAX_ENTRIES} the least recently
+ * used are dropped.
+ */
+public class RubricRepository {
+
+    /** Grades kept; the least recently used are pruned when a new one is saved. */
+    public static final int MAX_ENTRIES = 200;
+
+    /** How long a grade is reused before the grader is asked again. */
+    public static final Duration DEFAULT_TTL = Duration.ofDays(30);
+
+    /**
+     * Identifies one grading request.
+     *
+     * @param rubricHash     SHA-256 hex of the normalised rubric text
+     * @param assignmentHash SHA-256 hex of the normalised assignment text
+     * @param model          grader model name
+     */
+    public record GradeKey(String rubricHash, String assignmentHash, String model) {
+    }
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static final String SQL_FIND_RUBRIC = """
+        SELECT rubric_id FROM rubrics WHERE task_id = ? AND location IS ? ORDER BY rubric_id LIMIT 1
+        """;
+
+    private static final String SQL_INSERT_RUBRIC = """
+        INSERT INTO rubrics (task_id, location) VALUES (?, ?)
+        """;
+
+    private static final String SQL_SELECT = """
+        SELECT result_json, created_at FROM rubric_grades
+        WHERE rubric_hash = ? AND assignment_hash = ? AND model = ?
+        """;
+
+    private static final String SQL_TOUCH = """
+        UPDATE rubric_grades SET used_at = ? WHERE rubric_hash = ? AND assignment_hash = ? AND model = ?
+        """;
+
+    private static final String SQL_UPSERT = """
+        INSERT INTO rubric_grades (rubric_hash, assignment_hash, model, result_json, rubric_id, created_at, used_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
+        ON CONFLICT (rubric_hash, assignment_hash, model) DO UPDATE SET
+            result_json = excluded.result_json,
+            rubric_id   = COALESCE(excluded.rubric_id, rubric_grades.rubric_id),
+            created_at  = excluded.created_at,
+            used_at     = excluded.used_at
+        """;
+
+    private static final String SQL_DELETE_EXPIRED = """
+        DELETE FROM rubric_grades WHERE created_at < ?
+        """;
+
+    // Walks idx_rubric_grades_used from the newest entry and drops everything past the limit
+    private static final String SQL_PRUNE = """
+        DELETE FROM rubric_grades WHERE used_at < (
+            SELECT used_at FROM rubric_grades ORDER BY used_at DESC LIMIT 1 OFFSET ?)
+        """;
+
+    private static final String SQL_LATEST_FOR_TASK = """
+        SELECT g.result_json FROM rubric_grades g
+        JOIN rubrics r ON r.rubric_id = g.rubric_id
+        WHERE r.task_id = ?
+        ORDER BY g.created_at DESC LIMIT 1
+        """;
+
+    private final ConnectionSource connections;
+    private final Duration ttl;
+
+    public RubricRepository() {
+        this(DEFAULT_TTL);
+    }
+
+    public RubricRepository(Duration ttl) {
+        this(DatabaseConnection::getConnection, ttl);
+    }
+
+    public RubricRepository(ConnectionSource connections, Duration ttl) {
+        this.connections = connections;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Returns the id of the task's rubric stored at {@code location}, adding the row on first use.
+     * Empty on a database error, for example when the task does not exist.
+     */
+    public Optional<Long> attachToTask(long taskId, String location) {
+        try (Connection c = connections.getConnection()) {
+            try (PreparedStatement ps = c.prepareStatement(SQL_FIND_RUBRIC)) {
+                ps.setLong(1, taskId);
+                ps.setString(2, location);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) return Optional.of(rs.getLong(1));
+                }
+            }
+            try (PreparedStatement ps = c.prepareStatement(SQL_INSERT_RUBRIC, Statement.RETURN_GENERATED_KEYS)) {
+                ps.setLong(1, taskId);
+                ps.setString(2, location);
+                ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    return keys.next() ? Optional.of(keys.getLong(1)) : Optional.empty();
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("rubric attach failed: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns the cached grade and marks it as recently used; empty on a miss, an expired entry or a
+     * database error.
+     */
+    public Optional<RubricAnalysisResult> find(GradeKey key) {
+        try (Connection c = connections.getConnection()) {
+            String json = null;
+            long createdAt = 0;
+            try (PreparedStatement ps = c.prepareStatement(SQL_SELECT)) {
+                bindKey(ps, 1, key);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        json = rs.getString(1);
+                        createdAt = rs.getLong(2);
+                    }
+                }
+            }
+            long now = System.currentTimeMillis();
+            if (json == null || createdAt < now - ttl.toMillis()) return Optional.empty();
+            try (PreparedStatement ps = c.prepareStatement(SQL_TOUCH)) {
+                ps.setLong(1, now);
+                bindKey(ps, 2, key);
+                ps.executeUpdate();
+            }
+            return Optional.of(JSON.readValue(json, RubricAnalysisResult.class));
+        } catch (SQLException | JsonProcessingException e) {
+            System.err.println("rubric grade lookup failed: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores a grade, replacing any earlier one for the same key, then deletes expired entries and prunes
+     * the least recently used beyond {@link #MAX_ENTRIES}.
+     *
+     * @param rubricId the task rubric the grade belongs to, or null
+     */
+    public boolean save(GradeKey key, RubricAnalysisResult result, Long rubricId) {
+        try (Connection c = connections.getConnection()) {
+            long now = System.currentTimeMillis();
+            try (PreparedStatement ps = c.prepareStatement(SQL_UPSERT)) {
+                bindKey(ps, 1, key);
+                ps.setString(4, JSON.writeValueAsString(result));
+                if (rubricId == null) ps.setNull(5, Types.INTEGER);
+                else ps.setLong(5, rubricId);
+                ps.setLong(6, now);
+                ps.setLong(7, now);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = c.prepareStatement(SQL_DELETE_EXPIRED)) {
+                ps.setLong(1, now - ttl.toMillis());
+                ps.executeUpdate();
+            }
+            try (PreparedStatement ps = c.prepareStatement(SQL_PRUNE)) {
+                ps.setInt(1, MAX_ENTRIES - 1);
+                ps.executeUpdate();
+            }
+            return true;
+        } catch (SQLException | JsonProcessingException e) {
+            System.err.println("rubric grade save failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Most recent cached grade for any rubric of the task; empty if there is none or on a database error. */
+    public Optional<RubricAnalysisResult> findLatestForTask(long taskId) {
+        try (Connection c = connections.getConnection();
+             PreparedStatement ps = c.prepareStatement(SQL_LATEST_FOR_TASK)) {
+            ps.setLong(1, taskId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return Optional.empty();
+                return Optional.of(JSON.readValue(rs.getString(1), RubricAnalysisResult.class));
+            }
+        } catch (SQLException | JsonProcessingException e) {
+            System.err.println("rubric grade lookup failed: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static void bindKey(PreparedStatement ps, int first, GradeKey key) throws SQLException {
+        ps.setString(first, key.rubricHash());
+        ps.setString(first + 1, key.assignmentHash());
+        ps.setString(first + 2, key.model());
+    }
+}
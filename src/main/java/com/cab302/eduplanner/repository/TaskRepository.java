@@ -1,13 +1,16 @@
 package com.cab302.eduplanner.repository;
 
+import com.cab302.eduplanner.ConnectionSource;
 import com.cab302.eduplanner.DatabaseConnection;
 import com.cab302.eduplanner.model.Task;
 import com.cab302.eduplanner.util.DateUtil;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public class TaskRepository {
 
@@ -16,7 +19,35 @@ public class TaskRepository {
                created_at, updated_at
         FROM tasks
         WHERE user_id = ?
-        ORDER BY (CASE WHEN due_date IS NULL THEN 1 ELSE 0 END), due_date ASC
+        ORDER BY due_date ASC NULLS LAST, task_id ASC
+        """;
+
+    // Keyset pages walk idx_tasks_user_due: dated tasks by (due_date, task_id), then undated tasks by task_id
+    private static final String SQL_PAGE_DATED_FIRST = """
+        SELECT task_id, user_id, subject, title, due_date, notes, weight, achieved_mark, max_mark,
+               created_at, updated_at
+        FROM tasks
+        WHERE user_id = ? AND due_date IS NOT NULL
+        ORDER BY due_date ASC, task_id ASC
+        LIMIT ?
+        """;
+
+    private static final String SQL_PAGE_DATED_AFTER = """
+        SELECT task_id, user_id, subject, title, due_date, notes, weight, achieved_mark, max_mark,
+               created_at, updated_at
+        FROM tasks
+        WHERE user_id = ? AND due_date IS NOT NULL AND (due_date, task_id) > (?, ?)
+        ORDER BY due_date ASC, task_id ASC
+        LIMIT ?
+        """;
+
+    private static final String SQL_PAGE_UNDATED_AFTER = """
+        SELECT task_id, user_id, subject, title, due_date, notes, weight, achieved_mark, max_mark,
+               created_at, updated_at
+        FROM tasks
+        WHERE user_id = ? AND due_date IS NULL AND task_id > ?
+        ORDER BY task_id ASC
+        LIMIT ?
         """;
 
     private static final String SQL_SELECT_ONE = """
@@ -40,10 +71,22 @@ public class TaskRepository {
 
     private static final String SQL_DELETE = "DELETE FROM tasks WHERE task_id = ? AND user_id = ?";
 
+    private static final String SQL_LAST_ROWID = "SELECT last_insert_rowid()";
+
+    private final ConnectionSource connections;
+
+    public TaskRepository() {
+        this(DatabaseConnection::getConnection);
+    }
+
+    public TaskRepository(ConnectionSource connections) {
+        this.connections = connections;
+    }
+
     // Read
     public List<Task> findByUserId(long userId) {
         List<Task> out = new ArrayList<>();
-        try (Connection c = DatabaseConnection.getConnection();
+        try (Connection c = connections.getConnection();
              PreparedStatement ps = c.prepareStatement(SQL_SELECT_BY_USER)) {
             ps.setLong(1, userId);
             try (ResultSet rs = ps.executeQuery()) {
@@ -55,8 +98,89 @@ public class TaskRepository {
         return out;
     }
 
+    /**
+     * Streams every task of a user to {@code action} in due-date order (undated last) without
+     * building a list, so memory stays constant regardless of how many tasks the user has.
+     */
+    public void forEachByUserId(long userId, Consumer<Task> action) {
+        try (Connection c = connections.getConnection();
+             PreparedStatement ps = c.prepareStatement(SQL_SELECT_BY_USER)) {
+            ps.setLong(1, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) action.accept(mapRow(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("forEachByUserId failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns one keyset page of a user's tasks in the same order as {@link #findByUserId(long)}.
+     * Each page seeks directly to its start in the {@code (user_id, due_date, task_id)} index,
+     * so late pages cost the same as early ones.
+     *
+     * @param after cursor returned with the previous page, or {@code null} for the first page
+     * @param limit maximum number of tasks in the page
+     */
+    public TaskPage findPageByUserId(long userId, PageCursor after, int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("limit must be positive");
+        List<Task> out = new ArrayList<>(Math.min(limit, 256));
+        boolean inUndated = after != null && after.dueDate() == null;
+
+        try (Connection c = connections.getConnection()) {
+            if (!inUndated) {
+                String sql = after == null ? SQL_PAGE_DATED_FIRST : SQL_PAGE_DATED_AFTER;
+                try (PreparedStatement ps = c.prepareStatement(sql)) {
+                    int i = 1;
+                    ps.setLong(i++, userId);
+                    if (after != null) {
+                        ps.setString(i++, DateUtil.toIso(after.dueDate()));
+                        ps.setLong(i++, after.taskId());
+                    }
+                    ps.setInt(i, limit);
+                    readInto(ps, out);
+                }
+            }
+            if (out.size() < limit) {
+                try (PreparedStatement ps = c.prepareStatement(SQL_PAGE_UNDATED_AFTER)) {
+                    ps.setLong(1, userId);
+                    ps.setLong(2, inUndated ? after.taskId() : 0L);
+                    ps.setInt(3, limit - out.size());
+                    readInto(ps, out);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("findPageByUserId failed: " + e.getMessage());
+        }
+
+        PageCursor next = null;
+        if (out.size() == limit) {
+            Task last = out.get(out.size() - 1);
+            next = new PageCursor(last.getDueDate(), last.getTaskId());
+        }
+        return new TaskPage(out, next);
+    }
+
+    /**
+     * Keyset position: the sort key of the last task on a page.
+     *
+     * @param dueDate due date of that task, or {@code null} once paging has reached undated tasks
+     * @param taskId  id of that task
+     */
+    public record PageCursor(LocalDate dueDate, long taskId) {}
+
+    /**
+     * One page of tasks.
+     *
+     * @param tasks tasks on this page
+     * @param next  cursor for the following page, or {@code null} when there are no more tasks
+     */
+    public record TaskPage(List<Task> tasks, PageCursor next) {
+        public boolean hasMore() { return next != null; }
+    }
+
     public Optional<Task> findById(long taskId, long userId) {
-        try (Connection c = DatabaseConnection.getConnection();
+        try (Connection c = connections.getConnection();
              PreparedStatement ps = c.prepareStatement(SQL_SELECT_ONE)) {
             ps.setLong(1, taskId);
             ps.setLong(2, userId);
@@ -71,18 +195,10 @@ public class TaskRepository {
 
     // Create
     public Optional<Long> insert(Task t) {
-        try (Connection c = DatabaseConnection.getConnection();
+        try (Connection c = connections.getConnection();
              PreparedStatement ps = c.prepareStatement(SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
 
-            ps.setLong(1, t.getUserId());
-            ps.setString(2, nullIfBlank(t.getSubject()));
-            ps.setString(3, t.getTitle());
-            ps.setString(4, DateUtil.toIso(t.getDueDate()));
-            ps.setString(5, nullIfBlank(t.getNotes()));
-            setNullableInt(ps, 6, t.getWeight());
-            setNullableDouble(ps, 7, t.getAchievedMark());
-            setNullableDouble(ps, 8, t.getMaxMark());
-
+            bindInsert(ps, t);
             int rows = ps.executeUpdate();
             if (rows == 0) return Optional.empty();
 
@@ -97,17 +213,9 @@ public class TaskRepository {
 
     // Update
     public boolean update(Task t) {
-        try (Connection c = DatabaseConnection.getConnection();
+        try (Connection c = connections.getConnection();
              PreparedStatement ps = c.prepareStatement(SQL_UPDATE)) {
-            ps.setString(1, nullIfBlank(t.getSubject()));
-            ps.setString(2, t.getTitle());
-            ps.setString(3, DateUtil.toIso(t.getDueDate()));
-            ps.setString(4, nullIfBlank(t.getNotes()));
-            setNullableInt(ps, 5, t.getWeight());
-            setNullableDouble(ps, 6, t.getAchievedMark());
-            setNullableDouble(ps, 7, t.getMaxMark());
-            ps.setLong(8, t.getTaskId());
-            ps.setLong(9, t.getUserId());
+            bindUpdate(ps, t);
             return ps.executeUpdate() > 0;
         } catch (SQLException e) {
             System.err.println("update failed: " + e.getMessage());
@@ -117,7 +225,7 @@ public class TaskRepository {
 
     // Delete
     public boolean delete(long taskId, long userId) {
-        try (Connection c = DatabaseConnection.getConnection();
+        try (Connection c = connections.getConnection();
              PreparedStatement ps = c.prepareStatement(SQL_DELETE)) {
             ps.setLong(1, taskId);
             ps.setLong(2, userId);
@@ -128,7 +236,149 @@ public class TaskRepository {
         }
     }
 
+    // Batch writes: one transaction (one commit/fsync) per call instead of one per row
+
+    /**
+     * Inserts all tasks in a single transaction.
+     * AUTOINCREMENT hands out consecutive ids while this transaction holds the write lock,
+     * so the ids are derived from the last inserted rowid.
+     *
+     * @param tasks tasks to insert
+     * @return generated task ids in the same order as {@code tasks}; empty if nothing was inserted
+     */
+    public List<Long> insertAll(List<Task> tasks) {
+        if (tasks == null || tasks.isEmpty()) return List.of();
+        try (Connection c = connections.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(SQL_INSERT)) {
+                for (Task t : tasks) {
+                    bindInsert(ps, t);
+                    ps.addBatch();
+                }
+                int[] counts = ps.executeBatch();
+                for (int n : counts) {
+                    if (n == 0) throw new SQLException("batch insert skipped a row");
+                }
+
+                long last;
+                try (PreparedStatement rowid = c.prepareStatement(SQL_LAST_ROWID);
+                     ResultSet rs = rowid.executeQuery()) {
+                    if (!rs.next()) throw new SQLException("no rowid after batch insert");
+                    last = rs.getLong(1);
+                }
+                c.commit();
+
+                List<Long> ids = new ArrayList<>(tasks.size());
+                long first = last - tasks.size() + 1;
+                for (int i = 0; i < tasks.size(); i++) ids.add(first + i);
+                return ids;
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("insertAll failed: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Updates all tasks in a single transaction. Each task must carry its id and owning user id.
+     *
+     * @return number of rows updated, or 0 if the batch was rolled back
+     */
+    public int updateAll(List<Task> tasks) {
+        if (tasks == null || tasks.isEmpty()) return 0;
+        try (Connection c = connections.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(SQL_UPDATE)) {
+                for (Task t : tasks) {
+                    bindUpdate(ps, t);
+                    ps.addBatch();
+                }
+                int updated = sum(ps.executeBatch());
+                c.commit();
+                return updated;
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("updateAll failed: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Deletes the given tasks of one user in a single transaction.
+     *
+     * @return number of rows deleted, or 0 if the batch was rolled back
+     */
+    public int deleteAll(List<Long> taskIds, long userId) {
+        if (taskIds == null || taskIds.isEmpty()) return 0;
+        try (Connection c = connections.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(SQL_DELETE)) {
+                for (Long id : taskIds) {
+                    ps.setLong(1, id);
+                    ps.setLong(2, userId);
+                    ps.addBatch();
+                }
+                int deleted = sum(ps.executeBatch());
+                c.commit();
+                return deleted;
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("deleteAll failed: " + e.getMessage());
+            return 0;
+        }
+    }
+
     // Helpers
+    private static void readInto(PreparedStatement ps, List<Task> out) throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) out.add(mapRow(rs));
+        }
+    }
+
+    private static void bindInsert(PreparedStatement ps, Task t) throws SQLException {
+        ps.setLong(1, t.getUserId());
+        ps.setString(2, nullIfBlank(t.getSubject()));
+        ps.setString(3, t.getTitle());
+        ps.setString(4, DateUtil.toIso(t.getDueDate()));
+        ps.setString(5, nullIfBlank(t.getNotes()));
+        setNullableInt(ps, 6, t.getWeight());
+        setNullableDouble(ps, 7, t.getAchievedMark());
+        setNullableDouble(ps, 8, t.getMaxMark());
+    }
+
+    private static void bindUpdate(PreparedStatement ps, Task t) throws SQLException {
+        ps.setString(1, nullIfBlank(t.getSubject()));
+        ps.setString(2, t.getTitle());
+        ps.setString(3, DateUtil.toIso(t.getDueDate()));
+        ps.setString(4, nullIfBlank(t.getNotes()));
+        setNullableInt(ps, 5, t.getWeight());
+        setNullableDouble(ps, 6, t.getAchievedMark());
+        setNullableDouble(ps, 7, t.getMaxMark());
+        ps.setLong(8, t.getTaskId());
+        ps.setLong(9, t.getUserId());
+    }
+
+    private static int sum(int[] counts) {
+        int total = 0;
+        for (int n : counts) total += Math.max(n, 0);
+        return total;
+    }
+
     private static Task mapRow(ResultSet rs) throws SQLException {
         Task t = new Task();
         t.setTaskId(rs.getLong("task_id"));
@@ -11,6 +11,14 @@ public class UserRepository {
 
     // Removed local DB URL, schema creation and init()
 
+    // Constant SQL text so pooled connections can reuse their cached prepared statements
+    private static final String SQL_INSERT =
+            "INSERT INTO users (username, email, first_name, last_name, password_hash) VALUES (?,?,?,?,?)";
+    private static final String SQL_EXISTS_BY_USERNAME = "SELECT 1 FROM users WHERE username = ? LIMIT 1";
+    private static final String SQL_EXISTS_BY_EMAIL = "SELECT 1 FROM users WHERE email = ? LIMIT 1";
+    private static final String SQL_SELECT_BY_USERNAME =
+            "SELECT user_id, username, email, first_name, last_name, password_hash, created_at FROM users WHERE username = ?";
+
     public UserRepository() {
     }
 
@@ -31,9 +39,8 @@ public class UserRepository {
      * while keeping the older createUser(...) method for compatibility.
      */
     public boolean createUserOrThrow(String username, String email, String firstName, String lastName, String passwordHash) throws UserCreationException {
-        final String sql = "INSERT INTO users (username, email, first_name, last_name, password_hash) VALUES (?,?,?,?,?)";
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(SQL_INSERT)) {
             ps.setString(1, username);
             ps.setString(2, email);
             ps.setString(3, firstName);
@@ -54,9 +61,8 @@ public class UserRepository {
     }
 
     public boolean existsByUsername(String username) {
-        final String sql = "SELECT 1 FROM users WHERE username = ? LIMIT 1";
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(SQL_EXISTS_BY_USERNAME)) {
             ps.setString(1, username);
             try (ResultSet rs = ps.executeQuery()) {
                 return rs.next();
@@ -67,9 +73,8 @@ public class UserRepository {
     }
 
     public boolean existsByEmail(String email) {
-        final String sql = "SELECT 1 FROM users WHERE email = ? LIMIT 1";
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(SQL_EXISTS_BY_EMAIL)) {
             ps.setString(1, email);
             try (ResultSet rs = ps.executeQuery()) {
                 return rs.next();
@@ -80,9 +85,8 @@ public class UserRepository {
     }
 
     public Optional<User> findByUsername(String username) {
-        final String sql = "SELECT user_id, username, email, first_name, last_name, password_hash, created_at FROM users WHERE username = ?";
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(SQL_SELECT_BY_USERNAME)) {
             ps.setString(1, username);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
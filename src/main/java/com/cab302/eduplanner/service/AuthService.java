@@ -3,7 +3,11 @@ package com.cab302.eduplanner.service;
 import com.cab302.eduplanner.repository.UserRepository;
 import org.mindrot.jbcrypt.BCrypt;
 
+import com.cab302.eduplanner.DatabaseExecutor;
+import com.cab302.eduplanner.repository.AsyncUserRepository;
+
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 // CHANGE: Use UserSession as the single source of truth for logged-in state.
 import com.cab302.eduplanner.appcontext.UserSession; // CHANGE: new import
@@ -13,6 +17,7 @@ import com.cab302.eduplanner.appcontext.UserSession; // CHANGE: new import
  */
 public class AuthService {
     private final UserRepository repo = new UserRepository();
+    private final AsyncUserRepository asyncRepo = new AsyncUserRepository(repo, DatabaseExecutor.shared());
 
     /**
      * Registration result status codes.
@@ -74,7 +79,22 @@ public class AuthService {
     }
 
     public synchronized boolean authenticate(String username, String password) {
-        Optional<UserRepository.User> u = repo.findByUsername(username);
+        return verify(repo.findByUsername(username), password);
+    }
+
+    /**
+     * Authenticates without blocking the caller. The user lookup runs on the database reader pool
+     * and the BCrypt check on the common pool, so neither holds up the JavaFX Application Thread.
+     * @param username the username
+     * @param password the password
+     * @return a future completing with true if the credentials are valid
+     */
+    public CompletableFuture<Boolean> authenticateAsync(String username, String password) {
+        return asyncRepo.findByUsername(username)
+                .thenApplyAsync(u -> verify(u, password));
+    }
+
+    private boolean verify(Optional<UserRepository.User> u, String password) {
         if (u.isEmpty()) return false;
         String storedHash = u.get().getPasswordHash();
         if (storedHash == null || storedHash.isBlank()) return false;
@@ -91,6 +111,7 @@ public class AuthService {
     }
 
     public void logout() {
+        DriveImportService.stopWatching();
         UserSession.clear();
     }
 }
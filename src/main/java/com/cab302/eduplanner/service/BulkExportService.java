@@ -0,0 +1,281 @@
+package com.cab302.eduplanner.service;
+
+import com.cab302.eduplanner.model.FlashcardDeck;
+import com.cab302.eduplanner.model.FlashcardFolder;
+import com.cab302.eduplanner.model.Folder;
+import com.cab302.eduplanner.model.Note;
+import com.cab302.eduplanner.repository.FlashcardRepository;
+import com.cab302.eduplanner.repository.NoteRepository;
+import com.cab302.eduplanner.service.FlashcardExportService.Card;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exports all of a user's notes (PDF) and flashcard decks (PDF and CSV) into one ZIP archive.
+ * Documents are rendered in memory on a small worker pool and written to the archive in order by the
+ * calling thread, so there are no temporary files and at most {@code 2 x threads} rendered documents are
+ * held at once. Run it off the FX thread.
+ *
+ * <p>Archive layout: {@code Notes/<folder>/<title>.pdf} and {@code Flashcards/<folder>/<deck>.pdf|.csv}.</p>
+ */
+public class BulkExportService {
+
+    /**
+     * Snapshot of an export.
+     *
+     * @param documents    files written to the archive so far
+     * @param total        files the export will write
+     * @param bytes        rendered size of the files written so far, before ZIP compression
+     * @param elapsedNanos time since the export started
+     */
+    public record Progress(int documents, int total, long bytes, long elapsedNanos) {
+
+        public double documentsPerSecond() {
+            return elapsedNanos == 0 ? 0 : documents * 1e9 / elapsedNanos;
+        }
+
+        public double megabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : bytes / 1e6 * 1e9 / elapsedNanos;
+        }
+
+        /** e.g. {@code 12 / 40 files, 3.1 files/s, 1.2 MB/s} */
+        public String describe() {
+            return String.format(Locale.ROOT, "%d / %d files, %.1f files/s, %.1f MB/s",
+                    documents, total, documentsPerSecond(), megabytesPerSecond());
+        }
+    }
+
+    /** Receives progress after each note or deck is added to the archive. */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(Progress progress);
+    }
+
+    /** One rendered file; PDFs are already compressed, so they are stored rather than deflated again. */
+    private record Entry(String name, byte[] data, boolean deflate) {}
+
+    private final NoteRepository noteRepo;
+    private final FlashcardRepository flashcardRepo;
+    private final NoteExportService noteExport = new NoteExportService();
+    private final FlashcardExportService cardExport = new FlashcardExportService();
+    private final int threads;
+
+    public BulkExportService() {
+        this(new NoteRepository(), new FlashcardRepository(),
+                Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1)));
+    }
+
+    /** @param threads documents rendered at once */
+    public BulkExportService(NoteRepository noteRepo, FlashcardRepository flashcardRepo, int threads) {
+        this.noteRepo = noteRepo;
+        this.flashcardRepo = flashcardRepo;
+        this.threads = threads;
+    }
+
+    /**
+     * Renders every note and deck of {@code userId} into a ZIP archive written to {@code out}.
+     * The stream is finished as a ZIP but not closed.
+     *
+     * @param cancelled polled between documents; returning true stops the export
+     * @return the final progress; {@code total} is 0 if the user has nothing to export
+     * @throws CancellationException if {@code cancelled} returned true
+     * @throws IOException           if a document cannot be loaded or rendered, or the archive cannot be written
+     */
+    public Progress exportAll(long userId, OutputStream out, ProgressListener progress,
+                              BooleanSupplier cancelled) throws IOException {
+        long start = System.nanoTime();
+        List<Callable<List<Entry>>> jobs = new ArrayList<>();
+        int total = 0;
+        Set<String> names = new HashSet<>();
+
+        for (Folder folder : noteRepo.loadTree(userId)) {
+            for (Note note : folder.getNotes()) {
+                String name = uniqueName(names, "Notes/" + clean(folder.getName()) + "/" + clean(note.getTitle()), ".pdf");
+                long noteId = note.getNoteId();
+                String title = note.getTitle();
+                jobs.add(() -> List.of(renderNote(name, noteId, userId, title)));
+                total++;
+            }
+        }
+        for (FlashcardFolder folder : flashcardRepo.loadTree(userId)) {
+            for (FlashcardDeck deck : folder.getDecks()) {
+                String base = "Flashcards/" + clean(folder.getName()) + "/" + clean(deck.getName());
+                String pdfName = uniqueName(names, base, ".pdf");
+                String csvName = uniqueName(names, base, ".csv");
+                long deckId = deck.getDeckId();
+                String deckName = deck.getName();
+                jobs.add(() -> renderDeck(pdfName, csvName, deckId, userId, deckName));
+                total += 2;
+            }
+        }
+
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "bulk-export-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            // A sliding window of renders: workers stay busy while the archive is written in a fixed order
+            ArrayDeque<Future<List<Entry>>> window = new ArrayDeque<>();
+            int next = 0, documents = 0;
+            long bytes = 0;
+            while (next < jobs.size() || !window.isEmpty()) {
+                while (next < jobs.size() && window.size() < threads * 2) window.add(pool.submit(jobs.get(next++)));
+                if (cancelled.getAsBoolean()) throw new CancellationException("Export cancelled");
+
+                for (Entry entry : await(window.poll())) {
+                    write(zip, entry);
+                    documents++;
+                    bytes += entry.data().length;
+                }
+                progress.onProgress(new Progress(documents, total, bytes, System.nanoTime() - start));
+            }
+            zip.finish();
+            return new Progress(documents, total, bytes, System.nanoTime() - start);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Entry renderNote(String name, long noteId, long userId, String title) throws IOException {
+        String content = noteRepo.loadContent(noteId, userId)
+                .orElseThrow(() -> new IOException("Could not load note \"" + title + "\""));
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        noteExport.writePdf(title, content, pdf);
+        return new Entry(name, pdf.toByteArray(), false);
+    }
+
+    private List<Entry> renderDeck(String pdfName, String csvName, long deckId, long userId, String deckName)
+            throws IOException {
+        List<Card> cards = loadDeck(deckId, userId);
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        cardExport.writePdf(deckName, cards, pdf);
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        try (Writer w = new OutputStreamWriter(csv, StandardCharsets.UTF_8)) {
+            cardExport.writeCsv(cards, w);
+        }
+        return List.of(new Entry(pdfName, pdf.toByteArray(), false), new Entry(csvName, csv.toByteArray(), true));
+    }
+
+    /**
+     * Every deck as {@code <folder>/<deck>.pdf} and {@code <folder>/<deck>.csv}, rendered when the sync asks
+     * for it. Used by "Export to Drive", which mirrors these into the Drive folder; the CSV is the copy
+     * {@link DriveImportService} reads back when it is edited there.
+     */
+    public Map<String, DriveService.Content> deckFiles(long userId) {
+        Map<String, DriveService.Content> files = new LinkedHashMap<>();
+        Set<String> names = new HashSet<>();
+        for (FlashcardFolder folder : flashcardRepo.loadTree(userId)) {
+            for (FlashcardDeck deck : folder.getDecks()) {
+                String name = uniqueName(names, clean(folder.getName()) + "/" + clean(deck.getName()), "");
+                long deckId = deck.getDeckId();
+                String deckName = deck.getName();
+                files.put(name + ".pdf", out -> cardExport.writePdf(deckName, loadDeck(deckId, userId), out));
+                files.put(name + ".csv", out -> {
+                    Writer w = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                    cardExport.writeCsv(loadDeck(deckId, userId), w);
+                });
+            }
+        }
+        return files;
+    }
+
+    /** Every note as {@code <folder>/<title>.md} with the title as a heading, loaded when the sync asks for it. */
+    public Map<String, DriveService.Content> noteMarkdown(long userId) {
+        Map<String, DriveService.Content> files = new LinkedHashMap<>();
+        Set<String> names = new HashSet<>();
+        for (Folder folder : noteRepo.loadTree(userId)) {
+            for (Note note : folder.getNotes()) {
+                String name = uniqueName(names, clean(folder.getName()) + "/" + clean(note.getTitle()), ".md");
+                long noteId = note.getNoteId();
+                String title = note.getTitle();
+                files.put(name, out -> {
+                    String content = noteRepo.loadContent(noteId, userId)
+                            .orElseThrow(() -> new IOException("Could not load note \"" + title + "\""));
+                    out.write(("# " + title + "\n\n" + content + "\n").getBytes(StandardCharsets.UTF_8));
+                });
+            }
+        }
+        return files;
+    }
+
+    /** Throws rather than rendering a deck that could not be read as an empty one. */
+    private List<Card> loadDeck(long deckId, long userId) throws IOException {
+        try {
+            return flashcardRepo.loadAllCardsOrThrow(deckId, userId).stream()
+                    .map(f -> new Card(f.getQuestion(), f.getAnswer()))
+                    .toList();
+        } catch (SQLException e) {
+            throw new IOException("Could not load deck " + deckId + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static List<Entry> await(Future<List<Entry>> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Export interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IOException(cause);
+        }
+    }
+
+    private static void write(ZipOutputStream zip, Entry entry) throws IOException {
+        ZipEntry ze = new ZipEntry(entry.name());
+        if (!entry.deflate()) {
+            // Stored entries need their size and CRC up front; the bytes are already in hand
+            CRC32 crc = new CRC32();
+            crc.update(entry.data());
+            ze.setMethod(ZipEntry.STORED);
+            ze.setSize(entry.data().length);
+            ze.setCompressedSize(entry.data().length);
+            ze.setCrc(crc.getValue());
+        }
+        zip.putNextEntry(ze);
+        zip.write(entry.data());
+        zip.closeEntry();
+    }
+
+    /** Keeps a name usable as a path segment on Windows, macOS and Linux. */
+    static String clean(String name) {
+        String s = name == null ? "" : name.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]+", "_").strip();
+        // Trailing dots and spaces are dropped by Windows Explorer
+        s = s.replaceAll("[. ]+$", "");
+        return s.isEmpty() ? "Untitled" : s;
+    }
+
+    static String uniqueName(Set<String> taken, String base, String extension) {
+        String name = base + extension;
+        for (int i = 2; !taken.add(name.toLowerCase(Locale.ROOT)); i++) name = base + " (" + i + ")" + extension;
+        return name;
+    }
+}
@@ -0,0 +1,135 @@
+package com.cab302.eduplanner.service;
+
+import com.cab302.eduplanner.repository.ExtractedTextRepository;
+import com.cab302.eduplanner.util.HashUtil;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link DocumentTextExtractor} that remembers what it extracted, keyed by the SHA-256 of the file bytes,
+ * the file format, {@link DocumentTextExtractor#VERSION} and the character budget. Recent results are held in memory (LRU) and
+ * every result is also stored in SQLite, so analysing the same rubric against many submissions, or
+ * again after a restart, hashes the file but does not parse it. Renaming or moving a file still hits;
+ * editing it misses.
+ */
+public class CachingDocumentTextExtractor extends DocumentTextExtractor {
+
+    private static final int MEMORY_ENTRIES = 32;
+    // Page-range workers per PDF; the assignment and rubric are already extracted side by side
+    private static final int PDF_WORKERS = 2;
+
+    /**
+     * Cache counters since start-up.
+     *
+     * @param memoryHits  lookups served from memory
+     * @param diskHits    lookups served from SQLite
+     * @param misses      lookups that parsed the document
+     * @param parseNanos  total time spent parsing on misses
+     */
+    public record Stats(long memoryHits, long diskHits, long misses, long parseNanos) {
+
+        /** Fraction of lookups that skipped parsing, between 0 and 1. */
+        public double hitRate() {
+            long total = memoryHits + diskHits + misses;
+            return total == 0 ? 0.0 : (double) (memoryHits + diskHits) / total;
+        }
+    }
+
+    private static final class Holder {
+        private static final CachingDocumentTextExtractor INSTANCE =
+                new CachingDocumentTextExtractor(new ExtractedTextRepository(), MEMORY_ENTRIES, PDF_WORKERS);
+    }
+
+    /** Application-wide extractor, so the in-memory cache survives between analyses. */
+    public static CachingDocumentTextExtractor shared() {
+        return Holder.INSTANCE;
+    }
+
+    private final ExtractedTextRepository store;
+    private final Map<String, String> memory;
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+
+    /**
+     * @param store         persistent cache; null keeps the cache in memory only
+     * @param memoryEntries documents held in memory
+     */
+    public CachingDocumentTextExtractor(ExtractedTextRepository store, int memoryEntries) {
+        this(store, memoryEntries, 1);
+    }
+
+    /**
+     * @param store         persistent cache; null keeps the cache in memory only
+     * @param memoryEntries documents held in memory
+     * @param pdfWorkers    threads that strip page ranges of one PDF on a miss
+     */
+    public CachingDocumentTextExtractor(ExtractedTextRepository store, int memoryEntries, int pdfWorkers) {
+        super(pdfWorkers);
+        this.store = store;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+    }
+
+    @Override
+    public String extractText(Path path, int maxCharacters) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("Path must not be null");
+        }
+        if (!Files.exists(path)) {
+            throw new IOException("File does not exist: " + path);
+        }
+
+        String format = format(path);
+        String hash = HashUtil.sha256Hex(path);
+        String key = hash + ":" + format + ":" + VERSION + ":" + maxCharacters;
+
+        String text;
+        synchronized (memory) {
+            text = memory.get(key);
+        }
+        if (text != null) {
+            memoryHits.increment();
+            return text;
+        }
+
+        Optional<String> stored = store == null ? Optional.empty() : store.find(hash, format, VERSION, maxCharacters);
+        if (stored.isPresent()) {
+            diskHits.increment();
+            text = stored.get();
+        } else {
+            long start = System.nanoTime();
+            text = super.extractText(path, maxCharacters);
+            parseNanos.add(System.nanoTime() - start);
+            misses.increment();
+            if (store != null) store.save(hash, format, VERSION, maxCharacters, text);
+        }
+        synchronized (memory) {
+            memory.put(key, text);
+        }
+        return text;
+    }
+
+    /** Returns a snapshot of the hit and miss counters. */
+    public Stats stats() {
+        return new Stats(memoryHits.sum(), diskHits.sum(), misses.sum(), parseNanos.sum());
+    }
+
+    private static String format(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1);
+    }
+}
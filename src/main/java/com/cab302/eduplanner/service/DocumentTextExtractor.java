@@ -3,24 +3,67 @@ package com.cab302.eduplanner.service;
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
-import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
+import org.apache.poi.xwpf.usermodel.IBodyElement;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.Locale;
-import java.util.regex.Pattern;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility component that normalises different document formats into plain text so they can be sent to LLMs.
+ * Text is streamed into a fixed character budget with whitespace collapsed as it arrives, and reading
+ * stops once the budget is full: a PDF is stripped page by page, a DOCX walked element by element, so a
+ * long document costs about as much as its first few pages. Optionally, PDF page ranges are stripped on
+ * several threads and reassembled in page order, which helps with long PDFs that carry little text per page.
  */
 public class DocumentTextExtractor {
 
-    private static final int MAX_CHARACTERS = 12_000;
-    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    /**
+     * Identifies the extraction and normalisation rules. Bump it whenever they change so text cached by
+     * {@link CachingDocumentTextExtractor} is extracted again.
+     */
+    public static final int VERSION = 2;
+
+    /** Characters kept per document. */
+    public static final int MAX_CHARACTERS = 12_000;
+
+    /** Pages stripped per task when PDF page ranges are extracted in parallel. */
+    static final int PAGES_PER_RANGE = 4;
+
+    private final int pdfWorkers;
+
+    public DocumentTextExtractor() {
+        this(1);
+    }
+
+    /**
+     * @param pdfWorkers threads that strip page ranges of one PDF at the same time; 1 strips it page by
+     *                   page on the calling thread
+     */
+    public DocumentTextExtractor(int pdfWorkers) {
+        if (pdfWorkers < 1) {
+            throw new IllegalArgumentException("pdfWorkers must be at least 1");
+        }
+        this.pdfWorkers = pdfWorkers;
+    }
 
     /**
      * Reads the provided file, extracts its textual contents and normalises whitespace.
@@ -30,6 +73,16 @@ public class DocumentTextExtractor {
      * @throws IOException if the file cannot be read or the format is unsupported
      */
     public String extractText(Path path) throws IOException {
+        return extractText(path, MAX_CHARACTERS);
+    }
+
+    /**
+     * Extracts at most {@code maxCharacters} of normalised text: runs of whitespace become one space and
+     * the result is trimmed.
+     *
+     * @throws IOException if the file cannot be read or the format is unsupported
+     */
+    public String extractText(Path path, int maxCharacters) throws IOException {
         if (path == null) {
             throw new IllegalArgumentException("Path must not be null");
         }
@@ -38,46 +91,200 @@ public class DocumentTextExtractor {
         }
 
         String fileName = path.getFileName().toString().toLowerCase(Locale.ROOT);
-        if (fileName.endsWith(".pdf")) {
-            return prepareFromPdf(path);
+        TextBudget text = new TextBudget(maxCharacters);
+        try {
+            if (fileName.endsWith(".pdf")) {
+                prepareFromPdf(path, text);
+            } else if (fileName.endsWith(".docx")) {
+                prepareFromDocx(path, text);
+            } else if (fileName.endsWith(".txt")) {
+                prepareFromText(path, text);
+            } else {
+                throw new IOException("Unsupported file type: " + fileName);
+            }
+        } catch (BudgetReached full) {
+            // Enough text; the rest of the document is never read
         }
-        if (fileName.endsWith(".docx")) {
-            return prepareFromDocx(path);
+        return text.toString();
+    }
+
+    private void prepareFromPdf(Path path, TextBudget text) throws IOException {
+        int pages;
+        try (PDDocument document = Loader.loadPDF(path.toFile())) {
+            pages = document.getNumberOfPages();
+            if (pdfWorkers <= 1 || pages <= PAGES_PER_RANGE) {
+                stripPages(document, 1, pages, text);
+                return;
+            }
         }
-        if (fileName.endsWith(".txt")) {
-            return prepareFromText(path);
+        // Closed first, so only the workers' copies are held while the ranges are stripped
+        prepareFromPdfRanges(path, pages, text);
+    }
+
+    /**
+     * Strips page ranges on a pool of workers, each with its own copy of the document because a
+     * {@link PDDocument} must not be shared between threads. A sliding window keeps the workers a few
+     * ranges ahead while finished ranges are written to the budget in page order; once the budget is full
+     * the ranges still queued are cancelled.
+     */
+    private void prepareFromPdfRanges(Path path, int pages, TextBudget text) throws IOException {
+        Queue<PDDocument> opened = new ConcurrentLinkedQueue<>();
+        ThreadLocal<PDDocument> workerDocument = new ThreadLocal<>();
+        ExecutorService pool = Executors.newFixedThreadPool(pdfWorkers, r -> {
+            Thread t = new Thread(r, "pdf-text-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            ArrayDeque<Future<String>> window = new ArrayDeque<>();
+            int next = 1;
+            while (next <= pages || !window.isEmpty()) {
+                while (next <= pages && window.size() < pdfWorkers * 2) {
+                    int first = next, last = Math.min(pages, next + PAGES_PER_RANGE - 1);
+                    window.add(pool.submit(() -> {
+                        PDDocument document = workerDocument.get();
+                        if (document == null) {
+                            document = Loader.loadPDF(path.toFile());
+                            workerDocument.set(document);
+                            opened.add(document);
+                        }
+                        StringWriter range = new StringWriter();
+                        stripPages(document, first, last, range);
+                        return range.toString();
+                    }));
+                    next = last + 1;
+                }
+                text.write(await(window.poll()));
+            }
+        } finally {
+            pool.shutdownNow();
+            try {
+                // A range still being stripped holds its document; let it finish before closing
+                pool.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (PDDocument document : opened) {
+                document.close();
+            }
         }
+    }
 
-        throw new IOException("Unsupported file type: " + fileName);
+    private static void stripPages(PDDocument document, int first, int last, Writer out) throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        for (int page = first; page <= last; page++) {
+            stripper.setStartPage(page);
+            stripper.setEndPage(page);
+            stripper.writeText(document, out);
+        }
     }
 
-    private String prepareFromPdf(Path path) throws IOException {
-        try (PDDocument document = Loader.loadPDF(path.toFile())) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            return prepareText(stripper.getText(document));
+    private static String await(Future<String> range) throws IOException {
+        try {
+            return range.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("PDF extraction interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IOException(cause);
         }
     }
 
-    private String prepareFromDocx(Path path) throws IOException {
+    private void prepareFromDocx(Path path, TextBudget text) throws IOException {
         try (InputStream inputStream = Files.newInputStream(path);
-             XWPFDocument document = new XWPFDocument(inputStream);
-             XWPFWordExtractor extractor = new XWPFWordExtractor(document)) {
-            return prepareText(extractor.getText());
+             XWPFDocument document = new XWPFDocument(inputStream)) {
+            for (IBodyElement element : document.getBodyElements()) {
+                if (element instanceof XWPFParagraph paragraph) {
+                    text.write(paragraph.getText());
+                } else if (element instanceof XWPFTable table) {
+                    text.write(table.getText()); // rubrics are usually tables
+                }
+                text.write('\n');
+            }
         }
     }
 
-    private String prepareFromText(Path path) throws IOException {
-        return prepareText(Files.readString(path, StandardCharsets.UTF_8));
+    private void prepareFromText(Path path, TextBudget text) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            char[] buf = new char[8192];
+            for (int n; (n = reader.read(buf)) != -1; ) {
+                text.write(buf, 0, n);
+            }
+        }
     }
 
-    private String prepareText(String rawText) {
-        if (rawText == null) {
-            return "";
+    /** Thrown by {@link TextBudget} to stop the parser; carries no stack trace. */
+    private static final class BudgetReached extends IOException {
+        BudgetReached() {
+            super("character budget reached");
         }
-        String normalised = WHITESPACE.matcher(rawText).replaceAll(" ").trim();
-        if (normalised.length() > MAX_CHARACTERS) {
-            return normalised.substring(0, MAX_CHARACTERS);
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * Collects normalised text in one pass: whitespace ({@code \s}: space, tab, line breaks, form feed,
+     * vertical tab) collapses to a single space, leading whitespace and control characters are skipped,
+     * and trailing whitespace is never written. The builder is sized to the budget up front, so nothing
+     * else is allocated while text streams in; once it is full the next write throws {@link BudgetReached}.
+     */
+    static final class TextBudget extends Writer {
+        private final StringBuilder out;
+        private final int max;
+        private boolean pendingSpace;
+
+        TextBudget(int max) {
+            this.max = max;
+            this.out = new StringBuilder(max);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            for (int i = off, end = off + len; i < end; i++) put(cbuf[i]);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            for (int i = off, end = off + len; i < end; i++) put(str.charAt(i));
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            put((char) c);
+        }
+
+        private void put(char c) throws IOException {
+            if (out.length() == max) throw new BudgetReached();
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B') {
+                pendingSpace = out.length() > 0;
+                return;
+            }
+            if (out.length() == 0 && c <= ' ') return; // String.trim() would drop it
+            if (pendingSpace) {
+                pendingSpace = false;
+                out.append(' ');
+                if (out.length() == max) throw new BudgetReached();
+            }
+            out.append(c);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return out.toString();
         }
-        return normalised;
     }
-}
\ No newline at end of file
+}
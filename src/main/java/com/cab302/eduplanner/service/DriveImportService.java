@@ -0,0 +1,311 @@
+package com.cab302.eduplanner.service;
+
+import com.cab302.eduplanner.model.FlashcardDeck;
+import com.cab302.eduplanner.model.FlashcardFolder;
+import com.cab302.eduplanner.model.Folder;
+import com.cab302.eduplanner.model.Note;
+import com.cab302.eduplanner.repository.FlashcardRepository;
+import com.cab302.eduplanner.repository.NoteRepository;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.prefs.Preferences;
+
+/**
+ * Brings edits made in the Drive folder back into the app: notes edited as {@code Notes/<folder>/<title>.md}
+ * and decks edited as {@code Flashcards/<folder>/<deck>.csv} (or {@code .tsv}). Files are matched to notes
+ * and decks by the same names "Sync to Drive" writes; a file with no match becomes a new note or deck.
+ * A file whose content already matches the database changes nothing, so the app's own exports are not
+ * imported back. Deleting a file never deletes a note or deck.
+ *
+ * <p>{@link #startWatching(long)} keeps one {@link FolderWatcher} on the configured Drive folders and
+ * imports each debounced batch of changes.</p>
+ */
+public class DriveImportService {
+
+    // Same preference NoteController's "Setup Drive Sync" writes
+    private static final String NOTES_PREF_NODE = "com.cab302.eduplanner.notes";
+    private static final String NOTES_PREF_DRIVE_PATH = "driveSyncPath";
+    private static final Duration QUIET = Duration.ofSeconds(2);
+    private static final Duration MAX_DELAY = Duration.ofSeconds(15);
+
+    /**
+     * Outcome of one batch.
+     *
+     * @param notesUpdated existing notes whose title or content changed
+     * @param notesCreated notes created from new files
+     * @param decksUpdated existing decks whose cards changed
+     * @param decksCreated decks created from new files
+     */
+    public record ImportSummary(int notesUpdated, int notesCreated, int decksUpdated, int decksCreated) {
+
+        public boolean isEmpty() {
+            return notesUpdated + notesCreated + decksUpdated + decksCreated == 0;
+        }
+    }
+
+    /** A note's Markdown file as "Sync to Drive" writes it: {@code # title}, a blank line, then the content. */
+    record MarkdownNote(String title, String content) {}
+
+    private static FolderWatcher watcher;
+    private static List<Path> watchedRoots = List.of();
+    private static long watchedUser;
+
+    private final NoteRepository noteRepo;
+    private final FlashcardRepository flashcardRepo;
+    private final FlashcardImportService cardImport;
+    private final long userId;
+    private final Path notesDir;
+    private final Path flashcardsDir;
+
+    /** @param notesDir or {@code flashcardsDir} may be null if that folder is not synced */
+    public DriveImportService(long userId, Path notesDir, Path flashcardsDir) {
+        this(new NoteRepository(), new FlashcardRepository(), userId, notesDir, flashcardsDir);
+    }
+
+    public DriveImportService(NoteRepository noteRepo, FlashcardRepository flashcardRepo,
+                              long userId, Path notesDir, Path flashcardsDir) {
+        this.noteRepo = noteRepo;
+        this.flashcardRepo = flashcardRepo;
+        this.cardImport = new FlashcardImportService(flashcardRepo);
+        this.userId = userId;
+        this.notesDir = notesDir == null ? null : notesDir.toAbsolutePath().normalize();
+        this.flashcardsDir = flashcardsDir == null ? null : flashcardsDir.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Starts watching the Drive folders configured for notes and flashcards, replacing an earlier watch.
+     * Does nothing if the same folders are already watched for this user; call again after the Drive
+     * folder setting changes.
+     */
+    public static synchronized void startWatching(long userId) {
+        List<Path> roots = new ArrayList<>();
+        Path notesDir = null, flashcardsDir = null;
+        String notesRoot = Preferences.userRoot().node(NOTES_PREF_NODE).get(NOTES_PREF_DRIVE_PATH, null);
+        if (notesRoot != null && Files.isDirectory(Path.of(notesRoot, "EduPlanner", "Notes"))) {
+            notesDir = Path.of(notesRoot, "EduPlanner", "Notes");
+            roots.add(notesDir);
+        }
+        File driveFolder = new GoogleDriveService().getSavedDriveFolder();
+        if (driveFolder != null && new File(driveFolder, "Flashcards").isDirectory()) {
+            flashcardsDir = new File(driveFolder, "Flashcards").toPath();
+            roots.add(flashcardsDir);
+        }
+        if (watcher != null && watchedUser == userId && watchedRoots.equals(roots)) return;
+
+        stopWatching();
+        if (roots.isEmpty()) return;
+        DriveImportService importer = new DriveImportService(userId, notesDir, flashcardsDir);
+        try {
+            watcher = new FolderWatcher(roots, QUIET, MAX_DELAY, importer::accepts, changed -> {
+                ImportSummary summary = importer.importChanges(changed);
+                if (!summary.isEmpty()) System.err.println("Drive import: " + summary);
+            });
+            watcher.start();
+            watchedRoots = roots;
+            watchedUser = userId;
+        } catch (IOException e) {
+            System.err.println("Drive watch could not start: " + e.getMessage());
+            watcher = null;
+        }
+    }
+
+    /** Stops watching the Drive folders, e.g. on logout. */
+    public static synchronized void stopWatching() {
+        if (watcher == null) return;
+        try {
+            watcher.close();
+        } catch (IOException e) {
+            System.err.println("Drive watch did not stop cleanly: " + e.getMessage());
+        }
+        watcher = null;
+        watchedRoots = List.of();
+    }
+
+    /** Whether {@code file} is a note or deck file this service imports. */
+    boolean accepts(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (notesDir != null && file.startsWith(notesDir)) return name.endsWith(".md");
+        if (flashcardsDir != null && file.startsWith(flashcardsDir)) return name.endsWith(".csv") || name.endsWith(".tsv");
+        return false;
+    }
+
+    /**
+     * Imports changed note and deck files. Each file is handled on its own; one that cannot be read or
+     * saved is reported and skipped.
+     */
+    public ImportSummary importChanges(Collection<Path> files) {
+        return importChanges(files, new HashSet<>());
+    }
+
+    /**
+     * Imports one file that "Sync to Drive" is about to overwrite, so an edit the watcher has not picked
+     * up yet is not lost. Use as the sync's {@link DriveService.EditImporter}.
+     *
+     * @return true if the app now holds the file's content
+     */
+    public boolean importEdit(Path file) {
+        Path abs = file.toAbsolutePath().normalize();
+        Set<Path> imported = new HashSet<>();
+        importChanges(List.of(abs), imported);
+        return imported.contains(abs);
+    }
+
+    private ImportSummary importChanges(Collection<Path> files, Set<Path> imported) {
+        List<Path> notes = new ArrayList<>(), decks = new ArrayList<>();
+        for (Path file : files) {
+            Path abs = file.toAbsolutePath().normalize();
+            if (!accepts(abs) || !Files.isRegularFile(abs)) continue;
+            if (notesDir != null && abs.startsWith(notesDir)) notes.add(abs);
+            else decks.add(abs);
+        }
+        int[] noteCounts = notes.isEmpty() ? new int[2] : importNotes(notes, imported);
+        int[] deckCounts = decks.isEmpty() ? new int[2] : importDecks(decks, imported);
+        return new ImportSummary(noteCounts[0], noteCounts[1], deckCounts[0], deckCounts[1]);
+    }
+
+    /** Adds each file whose content is now in the database to {@code imported}. */
+    private int[] importNotes(List<Path> files, Set<Path> imported) {
+        // The same names noteMarkdown gives each note, so a file finds the note it was written from
+        List<Folder> tree = noteRepo.loadTree(userId);
+        Map<String, Note> byName = new HashMap<>();
+        Map<String, Folder> folders = new HashMap<>();
+        Set<String> names = new HashSet<>();
+        for (Folder folder : tree) {
+            folders.putIfAbsent(key(BulkExportService.clean(folder.getName())), folder);
+            for (Note note : folder.getNotes()) {
+                String name = BulkExportService.uniqueName(names,
+                        BulkExportService.clean(folder.getName()) + "/" + BulkExportService.clean(note.getTitle()), "");
+                byName.put(key(name), note);
+            }
+        }
+
+        int updated = 0, created = 0;
+        for (Path file : files) {
+            Path rel = notesDir.relativize(file);
+            if (rel.getNameCount() != 2) continue; // only <folder>/<title>.md
+            String folderName = rel.getName(0).toString();
+            String stem = stem(rel.getFileName().toString());
+            try {
+                MarkdownNote md = parseMarkdown(Files.readString(file, StandardCharsets.UTF_8), stem);
+                Note note = byName.get(key(folderName + "/" + stem));
+                if (note != null) {
+                    String current = noteRepo.loadContent(note.getNoteId(), userId).orElse(null);
+                    if (md.content().equals(current) && md.title().equals(note.getTitle())) {
+                        imported.add(file);
+                        continue;
+                    }
+                    if (!noteRepo.updateNote(note.getNoteId(), userId, md.title(), md.content())) {
+                        throw new IOException("could not save the note");
+                    }
+                    note.setTitle(md.title());
+                    updated++;
+                } else {
+                    Folder folder = folders.get(key(folderName));
+                    if (folder == null) {
+                        long id = noteRepo.createFolder(userId, folderName)
+                                .orElseThrow(() -> new IOException("could not create folder " + folderName));
+                        folder = new Folder(id, folderName);
+                        folders.put(key(folderName), folder);
+                    }
+                    long id = noteRepo.createNote(folder.getFolderId(), userId, md.title(), md.content())
+                            .orElseThrow(() -> new IOException("could not create the note"));
+                    byName.put(key(folderName + "/" + stem), new Note(id, md.title()));
+                    created++;
+                }
+                imported.add(file);
+            } catch (IOException e) {
+                System.err.println("Drive import of " + file + " failed: " + e.getMessage());
+            }
+        }
+        return new int[]{updated, created};
+    }
+
+    private int[] importDecks(List<Path> files, Set<Path> imported) {
+        List<FlashcardFolder> tree = flashcardRepo.loadTree(userId);
+        Map<String, FlashcardDeck> byName = new HashMap<>();
+        Map<String, FlashcardFolder> folders = new HashMap<>();
+        Set<String> names = new HashSet<>();
+        for (FlashcardFolder folder : tree) {
+            folders.putIfAbsent(key(BulkExportService.clean(folder.getName())), folder);
+            for (FlashcardDeck deck : folder.getDecks()) {
+                String name = BulkExportService.uniqueName(names,
+                        BulkExportService.clean(folder.getName()) + "/" + BulkExportService.clean(deck.getName()), "");
+                byName.put(key(name), deck);
+            }
+        }
+
+        int updated = 0, created = 0;
+        for (Path file : files) {
+            Path rel = flashcardsDir.relativize(file);
+            if (rel.getNameCount() != 2) continue; // only <folder>/<deck>.csv
+            String folderName = rel.getName(0).toString();
+            String stem = stem(rel.getFileName().toString());
+            try {
+                FlashcardDeck deck = byName.get(key(folderName + "/" + stem));
+                boolean isNew = deck == null;
+                if (isNew) {
+                    FlashcardFolder folder = folders.get(key(folderName));
+                    if (folder == null) {
+                        long id = flashcardRepo.createFolder(userId, folderName)
+                                .orElseThrow(() -> new IOException("could not create folder " + folderName));
+                        folder = new FlashcardFolder(id, folderName);
+                        folders.put(key(folderName), folder);
+                    }
+                    long id = flashcardRepo.createDeck(folder.getFolderId(), userId, stem)
+                            .orElseThrow(() -> new IOException("could not create the deck"));
+                    deck = new FlashcardDeck(id, stem);
+                    byName.put(key(folderName + "/" + stem), deck);
+                }
+                FlashcardImportService.DeckChanges changes = cardImport.syncDeck(file, deck.getDeckId(), userId);
+                if (isNew) created++;
+                else if (changes.added() + changes.removed() > 0) updated++;
+                imported.add(file);
+            } catch (IOException e) {
+                System.err.println("Drive import of " + file + " failed: " + e.getMessage());
+            }
+        }
+        return new int[]{updated, created};
+    }
+
+    /**
+     * Splits a note file into title and content. The first line is the title if it is a {@code #}
+     * heading; otherwise the whole file is the content and {@code fallbackTitle} the title.
+     */
+    static MarkdownNote parseMarkdown(String text, String fallbackTitle) {
+        String body = text.startsWith("\uFEFF") ? text.substring(1) : text;
+        String title = fallbackTitle;
+        if (body.startsWith("# ")) {
+            int eol = body.indexOf('\n');
+            title = eol < 0 ? body.substring(2) : body.substring(2, eol);
+            if (title.endsWith("\r")) title = title.substring(0, title.length() - 1);
+            body = eol < 0 ? "" : body.substring(eol + 1);
+            if (body.startsWith("\r\n")) body = body.substring(2);
+            else if (body.startsWith("\n")) body = body.substring(1);
+        }
+        if (body.endsWith("\r\n")) body = body.substring(0, body.length() - 2);
+        else if (body.endsWith("\n")) body = body.substring(0, body.length() - 1);
+        return new MarkdownNote(title, body);
+    }
+
+    private static String stem(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1 +1,312 @@
-package com.cab302.eduplanner.service; public class DriveService {}
\ No newline at end of file
+package com.cab302.eduplanner.service;
+
+import com.cab302.eduplanner.util.HashUtil;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Incremental sync of generated files into the Google Drive desktop client's folder.
+ * The Drive client uploads every file whose bytes or timestamp change, so a plain copy re-uploads
+ * everything on every export. This keeps a manifest of what it last wrote (SHA-256, size, mtime) per
+ * target folder and only touches files whose content changed, plus files it wrote earlier that are no
+ * longer part of the set. Files it did not write are never touched, and neither are files edited in the
+ * folder since the last sync unless an {@link EditImporter} has brought the edit into the app first.
+ *
+ * <p>Manifests live outside the Drive folder so they are not uploaded themselves. Run syncs off the FX
+ * thread.</p>
+ */
+public class DriveService {
+
+    private static final String MANIFEST_HEADER = "# eduplanner drive sync v1";
+
+    /** Renders one file's bytes; called once per sync to hash the content. */
+    @FunctionalInterface
+    public interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /** Brings a file edited in the sync folder into the app before the sync overwrites it. */
+    @FunctionalInterface
+    public interface EditImporter {
+        /** @return true if the app now holds the edit, so the file may be rendered and written again */
+        boolean importEdit(Path file);
+    }
+
+    /**
+     * Outcome of a sync.
+     *
+     * @param written      files created or replaced
+     * @param unchanged    files left alone because their content matched
+     * @param deleted      files removed because they are no longer in the set
+     * @param bytesWritten size of the written files
+     * @param bytesSkipped size of the unchanged files, i.e. what a full copy would have re-uploaded
+     * @param conflicts    files left as they are because they were edited in the folder and the edit could
+     *                     not be imported
+     */
+    public record SyncResult(int written, int unchanged, int deleted, long bytesWritten, long bytesSkipped,
+                             List<String> conflicts) {
+
+        public SyncResult {
+            conflicts = List.copyOf(conflicts);
+        }
+
+        /** e.g. {@code 2 updated (14 KB), 40 unchanged (1.2 MB skipped), 1 removed} */
+        public String describe() {
+            String text = written + " updated (" + size(bytesWritten) + "), " + unchanged + " unchanged ("
+                    + size(bytesSkipped) + " skipped), " + deleted + " removed";
+            if (conflicts.isEmpty()) return text;
+            return text + "\n" + conflicts.size() + " kept because they were edited in Drive: "
+                    + String.join(", ", conflicts);
+        }
+
+        private static String size(long bytes) {
+            if (bytes < 1024) return bytes + " B";
+            if (bytes < 1024 * 1024) return String.format(Locale.ROOT, "%.0f KB", bytes / 1024.0);
+            return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024));
+        }
+    }
+
+    /** What the manifest remembers about a file this service wrote. */
+    private record Synced(String hash, long size, long mtime) {}
+
+    private record Write(String name, byte[] data, String hash) {}
+
+    private final GoogleDriveService drive;
+    private final Path manifestDir;
+
+    public DriveService() {
+        this(new GoogleDriveService(), Path.of(System.getProperty("user.home"), ".eduplanner", "drive-sync"));
+    }
+
+    /** @param manifestDir where manifests are kept, one per synced folder */
+    public DriveService(GoogleDriveService drive, Path manifestDir) {
+        this.drive = drive;
+        this.manifestDir = manifestDir;
+    }
+
+    /**
+     * Syncs {@code files} into a subfolder of the saved Drive folder, e.g. {@code Flashcards}.
+     *
+     * @throws IOException if no Drive folder is set up, or a file cannot be written
+     * @see #sync(Path, Map)
+     */
+    public SyncResult syncSubfolder(String subfolder, Map<String, Content> files) throws IOException {
+        return sync(subfolder(subfolder), files, file -> false);
+    }
+
+    /**
+     * The subfolder of the saved Drive folder, created if needed.
+     *
+     * @throws IOException if no Drive folder is set up
+     */
+    public Path subfolder(String name) throws IOException {
+        File dir = drive.ensureSubfolder(name);
+        if (dir == null) throw new IOException("No Drive folder is set up");
+        return dir.toPath();
+    }
+
+    /**
+     * Like {@link #sync(Path, Map, EditImporter)}, but every file edited in the folder is kept as a conflict.
+     */
+    public SyncResult sync(Path folder, Map<String, Content> files) throws IOException {
+        return sync(folder, files, file -> false);
+    }
+
+    /**
+     * Makes {@code folder} hold exactly {@code files} among the files this service manages there.
+     * Every file is rendered and hashed first; a file is rewritten only if its hash differs from the
+     * manifest or it is missing on disk. Writes, deletes and the manifest update then run as one batch,
+     * each write going through a temporary file so Drive never uploads half a file.
+     *
+     * <p>A file whose bytes no longer match the manifest was edited in the folder, e.g. before the Drive
+     * watcher's debounce imported it. It is handed to {@code edits} before its content is
+     * rendered; if that imports it, the file is rendered from the updated data and written as usual.
+     * Otherwise the file is left alone and reported in {@link SyncResult#conflicts()}, and the next sync
+     * tries again. An edited file that is no longer in the set is not deleted; it is reported once and
+     * from then on belongs to the user.</p>
+     *
+     * @param files contents keyed by path relative to {@code folder}, using {@code /} as separator
+     * @param edits imports files edited in the folder since the last sync
+     * @throws IllegalArgumentException if a name escapes {@code folder}
+     * @throws IOException              if a file cannot be rendered, written or deleted; files already
+     *                                  written are recorded, so the next sync picks up where this stopped
+     */
+    public SyncResult sync(Path folder, Map<String, Content> files, EditImporter edits) throws IOException {
+        Path root = folder.toAbsolutePath().normalize();
+        Path manifestFile = manifestFor(root);
+        Map<String, Synced> previous = readManifest(manifestFile);
+        Map<String, Synced> next = new LinkedHashMap<>();
+
+        // Plan: hash everything, keep only the bytes of files that need writing
+        List<Write> writes = new ArrayList<>();
+        List<String> conflicts = new ArrayList<>();
+        int unchanged = 0;
+        long bytesSkipped = 0;
+        for (Map.Entry<String, Content> e : files.entrySet()) {
+            String name = e.getKey();
+            Path target = resolve(root, name);
+            Synced known = previous.get(name);
+            boolean edited = known != null && editedOnDisk(target, known);
+            if (edited && !edits.importEdit(target)) {
+                next.put(name, known); // still ours: written again once the edit is imported
+                conflicts.add(name);
+                continue;
+            }
+            ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            e.getValue().writeTo(buf);
+            byte[] data = buf.toByteArray();
+            String hash = HashUtil.sha256Hex(data);
+
+            if (known != null && known.hash().equals(hash) && !edited && matchesDisk(target, known)) {
+                next.put(name, known);
+                unchanged++;
+                bytesSkipped += known.size();
+            } else {
+                writes.add(new Write(name, data, hash));
+            }
+        }
+        List<String> orphans = new ArrayList<>();
+        for (Map.Entry<String, Synced> e : previous.entrySet()) {
+            if (files.containsKey(e.getKey())) continue;
+            Path target = resolve(root, e.getKey());
+            if (editedOnDisk(target, e.getValue())) conflicts.add(e.getKey()); // now the user's file
+            else orphans.add(e.getKey());
+        }
+
+        // Apply
+        long bytesWritten = 0;
+        int deleted = 0;
+        try {
+            TreeSet<Path> dirs = new TreeSet<>();
+            for (Write w : writes) dirs.add(resolve(root, w.name()).getParent());
+            for (Path dir : dirs) Files.createDirectories(dir);
+
+            for (Write w : writes) {
+                Path target = resolve(root, w.name());
+                writeAtomically(target, w.data());
+                next.put(w.name(), new Synced(w.hash(), w.data().length, Files.getLastModifiedTime(target).toMillis()));
+                bytesWritten += w.data().length;
+            }
+            for (String name : orphans) {
+                Path target = resolve(root, name);
+                if (Files.deleteIfExists(target)) deleted++;
+                pruneEmptyParents(root, target);
+            }
+        } finally {
+            // Anything a failure left behind stays in the manifest, so the next sync still owns it
+            for (Write w : writes) {
+                if (!next.containsKey(w.name()) && previous.containsKey(w.name())) next.put(w.name(), previous.get(w.name()));
+            }
+            for (String name : orphans) {
+                if (Files.exists(resolve(root, name))) next.put(name, previous.get(name));
+            }
+            writeManifest(manifestFile, root, next);
+        }
+        return new SyncResult(writes.size(), unchanged, deleted, bytesWritten, bytesSkipped, conflicts);
+    }
+
+    Path manifestFor(Path root) {
+        String key = HashUtil.sha256Hex(root.toString().getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+        return manifestDir.resolve(key + ".tsv");
+    }
+
+    private static Path resolve(Path root, String name) {
+        Path target = root.resolve(name).normalize();
+        if (!target.startsWith(root) || target.equals(root) || name.contains("\n")) {
+            throw new IllegalArgumentException("Not a file inside the sync folder: " + name);
+        }
+        return target;
+    }
+
+    private static boolean matchesDisk(Path target, Synced known) {
+        try {
+            // Size and mtime are enough to notice edits without re-reading the file
+            return Files.size(target) == known.size()
+                    && Files.getLastModifiedTime(target).toMillis() == known.mtime();
+        } catch (IOException e) {
+            return false; // missing or unreadable: write it again
+        }
+    }
+
+    /** Whether a file this service wrote now holds different bytes; a missing file is not an edit. */
+    private static boolean editedOnDisk(Path target, Synced known) {
+        if (!Files.exists(target) || matchesDisk(target, known)) return false;
+        try {
+            return !HashUtil.sha256Hex(target).equals(known.hash());
+        } catch (IOException e) {
+            return true; // unreadable: leave it alone
+        }
+    }
+
+    private static void writeAtomically(Path target, byte[] data) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), ".sync-", ".tmp");
+        try {
+            Files.write(temp, data);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void pruneEmptyParents(Path root, Path file) throws IOException {
+        for (Path dir = file.getParent(); dir != null && !dir.equals(root); dir = dir.getParent()) {
+            try {
+                if (!Files.deleteIfExists(dir)) return;
+            } catch (DirectoryNotEmptyException e) {
+                return;
+            }
+        }
+    }
+
+    private static Map<String, Synced> readManifest(Path file) throws IOException {
+        Map<String, Synced> entries = new LinkedHashMap<>();
+        if (!Files.exists(file)) return entries;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] f = line.split("\t", 4);
+            if (f.length < 4) continue; // damaged line: the file is simply written again
+            try {
+                entries.put(f[3], new Synced(f[0], Long.parseLong(f[1]), Long.parseLong(f[2])));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return entries;
+    }
+
+    private static void writeManifest(Path file, Path root, Map<String, Synced> entries) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), ".manifest-", ".tmp");
+        try {
+            try (BufferedWriter w = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                w.write(MANIFEST_HEADER + "\n# " + root + "\n");
+                for (Map.Entry<String, Synced> e : entries.entrySet()) {
+                    Synced s = e.getValue();
+                    w.write(s.hash() + "\t" + s.size() + "\t" + s.mtime() + "\t" + e.getKey() + "\n");
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -1,21 +1,23 @@
 package com.cab302.eduplanner.service;
 
+import com.cab302.eduplanner.util.HashUtil;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
 import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
 
 import java.io.File;
-import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /** Export a flashcard deck to CSV/PDF, and copy into a target folder (e.g., Drive). */
 public class FlashcardExportService {
@@ -31,24 +33,14 @@ public class FlashcardExportService {
 
     private static final DateTimeFormatter TS = DateTimeFormatter.ofPattern("yyyyMMdd-HHmm");
 
-    // PDFBox 3.x fonts
-    private static final PDFont FONT_BODY  = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
-    private static final PDFont FONT_BOLD  = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
-
     /** Export as UTF-8 CSV: columns Front,Back with basic quoting. */
     public File exportCsv(String deckName, List<Card> cards, File destDir) throws Exception {
         if (!destDir.exists()) destDir.mkdirs();
         String base = safe(deckName.isBlank() ? "deck" : deckName);
         File out = new File(destDir, base + "-" + TS.format(LocalDateTime.now()) + ".csv");
 
-        try (FileWriter fw = new FileWriter(out)) {
-            fw.write("Front,Back\n");
-            for (Card c : cards) {
-                fw.write(csv(c.front));
-                fw.write(",");
-                fw.write(csv(c.back));
-                fw.write("\n");
-            }
+        try (Writer w = Files.newBufferedWriter(out.toPath(), StandardCharsets.UTF_8)) {
+            writeCsv(cards, w);
         }
         return out;
     }
@@ -59,101 +51,69 @@ public class FlashcardExportService {
         String base = safe(deckName.isBlank() ? "deck" : deckName);
         File out = new File(destDir, base + "-" + TS.format(LocalDateTime.now()) + ".pdf");
 
-        try (PDDocument doc = new PDDocument()) {
-            PDPage page = new PDPage(PDRectangle.A4);
-            doc.addPage(page);
-
-            float margin = 50f;
-            float pageW = page.getMediaBox().getWidth();
-            float pageH = page.getMediaBox().getHeight();
-            float width = pageW - margin * 2;
-            float y = pageH - margin;
-
-            PDPageContentStream cs = new PDPageContentStream(doc, page);
-
-            // Title
-            cs.beginText();
-            cs.setFont(FONT_BOLD, 18);
-            cs.newLineAtOffset(margin, y);
-            cs.showText("Deck: " + (deckName == null || deckName.isBlank() ? "Untitled" : deckName));
-            cs.endText();
-            y -= 26;
-
-            for (Card card : cards) {
-                // Ensure space
-                if (y < margin + 80) {
-                    cs.close();
-                    page = new PDPage(PDRectangle.A4);
-                    doc.addPage(page);
-                    cs = new PDPageContentStream(doc, page);
-                    y = page.getMediaBox().getHeight() - margin;
-                }
-
-                // Q:
-                y = block(cs, "Q:", card.front, margin, y, width);
+        try (OutputStream os = Files.newOutputStream(out.toPath())) {
+            writePdf(deckName, cards, os);
+        }
+        return out;
+    }
 
-                // A:
-                y = block(cs, "A:", card.back, margin, y, width);
+    /** Writes the Front,Back CSV to {@code out}; the writer is flushed but left open. */
+    public void writeCsv(List<Card> cards, Writer out) throws IOException {
+        out.write("Front,Back\n");
+        for (Card c : cards) {
+            out.write(csv(c.front));
+            out.write(",");
+            out.write(csv(c.back));
+            out.write("\n");
+        }
+        out.flush();
+    }
 
-                y -= 10;
+    /**
+     * Renders the deck PDF straight into {@code out}, e.g. a ZIP entry. PDFBox closes the stream when it
+     * finishes, so pass one that can be closed.
+     */
+    public void writePdf(String deckName, List<Card> cards, OutputStream out) throws IOException {
+        // PDFBox fonts cache widths and encodings without locking, so each export makes its own
+        PDFont fontBody = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+        PDFont fontBold = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
+        try (PDDocument doc = new PDDocument()) {
+            // Content-based file ID instead of the clock, so an unchanged deck exports to identical bytes
+            long id = Objects.hashCode(deckName);
+            for (Card c : cards) id = 31 * (31 * id + c.front.hashCode()) + c.back.hashCode();
+            doc.setDocumentId(id);
+            try (PdfTextLayout layout = new PdfTextLayout(doc, PDRectangle.A4, 50f)) {
+                layout.line("Deck: " + (deckName == null || deckName.isBlank() ? "Untitled" : deckName), fontBold, 18, 26);
+
+                for (Card card : cards) {
+                    // Start a card on a new page rather than with only its label at the bottom
+                    layout.ensureSpace(80);
+                    block(layout, "Q:", card.front, fontBold, fontBody);
+                    block(layout, "A:", card.back, fontBold, fontBody);
+                    layout.skip(10);
+                }
             }
-
-            cs.close();
             doc.save(out);
         }
-        return out;
     }
 
     /** Copy a file into target folder (e.g., Drive/Flashcards). */
     public File copyToFolder(File source, File destFolder) throws Exception {
         if (!destFolder.exists()) destFolder.mkdirs();
         File dest = new File(destFolder, source.getName());
+        // Leave an identical copy alone, so the Drive client has nothing to upload again
+        if (HashUtil.sameContent(source.toPath(), dest.toPath())) return dest;
         Files.copy(source.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
         return dest;
     }
 
     // ---------- helpers ----------
 
-    private static float block(PDPageContentStream cs, String label, String text,
-                               float x, float y, float width) throws Exception {
-        cs.beginText();
-        cs.setFont(FONT_BOLD, 12);
-        cs.newLineAtOffset(x, y);
-        cs.showText(label);
-        cs.endText();
-        y -= 16;
-
-        for (String line : wrap(text, width, 11f)) {
-            cs.beginText();
-            cs.setFont(FONT_BODY, 11);
-            cs.newLineAtOffset(x, y);
-            cs.showText(line);
-            cs.endText();
-            y -= 14;
-        }
-        y -= 8;
-        return y;
-    }
-
-    private static List<String> wrap(String text, float widthPx, float fontSize) throws Exception {
-        var words = (text == null ? "" : text.replace("\r", "")).split("\\s+");
-        var lines = new ArrayList<String>();
-        StringBuilder line = new StringBuilder();
-        for (String w : words) {
-            String test = (line.length() == 0) ? w : line + " " + w;
-            float testWidth = FONT_BODY.getStringWidth(test) / 1000f * fontSize;
-            if (testWidth > widthPx && line.length() > 0) {
-                lines.add(line.toString());
-                line.setLength(0);
-                line.append(w);
-            } else {
-                line.setLength(0);
-                line.append(test);
-            }
-        }
-        if (line.length() > 0) lines.add(line.toString());
-        if (lines.isEmpty()) lines.add("");
-        return lines;
+    private static void block(PdfTextLayout layout, String label, String text, PDFont labelFont, PDFont textFont)
+            throws IOException {
+        layout.line(label, labelFont, 12, 16);
+        layout.paragraph(text, textFont, 11, 14);
+        layout.skip(8);
     }
 
     private static String safe(String s) { return s.replaceAll("[^a-zA-Z0-9._-]+", "_"); }
@@ -0,0 +1,314 @@
+package com.cab302.eduplanner.service;
+
+import com.cab302.eduplanner.model.Flashcard;
+import com.cab302.eduplanner.repository.FlashcardRepository;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Imports flashcards from CSV or TSV files, including the {@code Front,Back} CSV written by
+ * {@link FlashcardExportService#exportCsv}.
+ * The file is read in one streaming pass and cards are written in transactions of {@link #BATCH_SIZE},
+ * so memory stays flat however large the file is. Run it off the FX thread.
+ */
+public class FlashcardImportService {
+
+    /** Cards written per transaction. */
+    public static final int BATCH_SIZE = 1_000;
+
+    private static final int READ_BUFFER_CHARS = 64 * 1024;
+
+    /**
+     * Outcome of an import.
+     *
+     * @param imported cards written
+     * @param skipped  rows without both a question and an answer
+     */
+    public record ImportResult(int imported, int skipped) {}
+
+    /**
+     * Outcome of {@link #syncDeck}.
+     *
+     * @param added   cards inserted
+     * @param removed cards deleted
+     */
+    public record DeckChanges(int added, int removed) {}
+
+    /** Receives progress after each batch is committed. */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long bytesRead, long totalBytes, int imported);
+    }
+
+    private final FlashcardRepository repository;
+
+    public FlashcardImportService() {
+        this(new FlashcardRepository());
+    }
+
+    public FlashcardImportService(FlashcardRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Streams {@code file} into an existing deck.
+     * Column 1 is the question and column 2 the answer; further columns are ignored. A first row of
+     * {@code Front,Back} or {@code Question,Answer} is treated as a header. Files ending in {@code .tsv}
+     * or {@code .txt} are tab-separated, anything else is comma-separated. Quoted fields may contain
+     * delimiters, doubled quotes and line breaks.
+     *
+     * <p>Batches already committed stay in the deck if the import is cancelled or fails; callers that
+     * want all-or-nothing import into a fresh deck and delete it on failure.</p>
+     *
+     * @param cancelled polled between rows; returning true stops the import
+     * @throws CancellationException if {@code cancelled} returned true
+     * @throws IOException           if the file cannot be read or a batch cannot be saved
+     */
+    public ImportResult importInto(Path file, long deckId, long userId,
+                                   ProgressListener progress, BooleanSupplier cancelled) throws IOException {
+        long total = Files.size(file);
+        char delimiter = delimiterFor(file);
+
+        try (CountingInputStream bytes = new CountingInputStream(Files.newInputStream(file));
+             Reader reader = new InputStreamReader(bytes, StandardCharsets.UTF_8)) {
+            List<Flashcard> batch = new ArrayList<>(BATCH_SIZE);
+            int[] imported = {0};
+            int skipped = readCards(new RowReader(reader, delimiter), cancelled, card -> {
+                batch.add(card);
+                if (batch.size() == BATCH_SIZE) {
+                    imported[0] += flush(batch, deckId, userId);
+                    progress.onProgress(bytes.count(), total, imported[0]);
+                }
+            });
+            imported[0] += flush(batch, deckId, userId);
+            progress.onProgress(total, total, imported[0]);
+            return new ImportResult(imported[0], skipped);
+        }
+    }
+
+    /**
+     * Makes an existing deck hold the cards in {@code file}, e.g. after the deck's CSV was edited in the
+     * Drive folder. Cards whose question and answer are unchanged are kept with their review schedule;
+     * cards no longer in the file are deleted and new ones are added. A file that matches the deck
+     * changes nothing. The deck is read in full before anything changes, and the deletions and additions
+     * are applied in one transaction, so a failed read or write leaves the deck as it was.
+     *
+     * @return cards added and removed
+     * @throws IOException if the file cannot be read or the deck cannot be updated
+     */
+    public DeckChanges syncDeck(Path file, long deckId, long userId) throws IOException {
+        List<Flashcard> wanted = new ArrayList<>();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            readCards(new RowReader(reader, delimiterFor(file)), () -> false, wanted::add);
+        }
+
+        // Match cards by content; duplicates are matched one for one
+        Map<String, ArrayDeque<Flashcard>> existing = new HashMap<>();
+        try {
+            for (Flashcard card : repository.loadAllCardsOrThrow(deckId, userId)) {
+                existing.computeIfAbsent(key(card), k -> new ArrayDeque<>()).add(card);
+            }
+            List<Flashcard> added = new ArrayList<>();
+            for (Flashcard card : wanted) {
+                ArrayDeque<Flashcard> same = existing.get(key(card));
+                if (same == null || same.poll() == null) added.add(card);
+            }
+            List<Long> removed = new ArrayList<>();
+            for (ArrayDeque<Flashcard> stale : existing.values()) {
+                for (Flashcard card : stale) removed.add(card.getCardId());
+            }
+            repository.replaceCards(deckId, userId, removed, added);
+            return new DeckChanges(added.size(), removed.size());
+        } catch (SQLException e) {
+            throw new IOException("Could not update the deck: " + e.getMessage(), e);
+        }
+    }
+
+    private static String key(Flashcard card) {
+        return card.getQuestion() + '\u0000' + card.getAnswer();
+    }
+
+    @FunctionalInterface
+    private interface CardSink {
+        void accept(Flashcard card) throws IOException;
+    }
+
+    /** Reads every card row into {@code sink}; returns the rows skipped for lacking a question or answer. */
+    private static int readCards(RowReader rows, BooleanSupplier cancelled, CardSink sink) throws IOException {
+        int skipped = 0;
+        boolean first = true;
+        for (List<String> row; (row = rows.next()) != null; ) {
+            if (cancelled.getAsBoolean()) throw new CancellationException("Import cancelled");
+            if (first) {
+                first = false;
+                // Spreadsheet exports often start with a byte-order mark
+                if (row.getFirst().startsWith("\uFEFF")) row.set(0, row.getFirst().substring(1));
+                if (isHeader(row)) continue;
+            }
+            String question = row.isEmpty() ? "" : row.get(0).strip();
+            String answer = row.size() < 2 ? "" : row.get(1).strip();
+            if (question.isEmpty() || answer.isEmpty()) {
+                if (!(row.size() == 1 && question.isEmpty())) skipped++; // blank lines are not worth reporting
+                continue;
+            }
+            sink.accept(new Flashcard(question, answer));
+        }
+        return skipped;
+    }
+
+    private int flush(List<Flashcard> batch, long deckId, long userId) throws IOException {
+        if (batch.isEmpty()) return 0;
+        int written = repository.insertCards(deckId, userId, batch);
+        if (written != batch.size()) throw new IOException("Could not save imported cards");
+        batch.clear();
+        return written;
+    }
+
+    static char delimiterFor(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".tsv") || name.endsWith(".txt") ? '\t' : ',';
+    }
+
+    private static boolean isHeader(List<String> row) {
+        if (row.size() < 2) return false;
+        String a = row.get(0).strip(), b = row.get(1).strip();
+        return (a.equalsIgnoreCase("front") && b.equalsIgnoreCase("back"))
+                || (a.equalsIgnoreCase("question") && b.equalsIgnoreCase("answer"));
+    }
+
+    /**
+     * Minimal RFC 4180 record reader over its own character buffer, so at most one buffer of the
+     * file is in memory. A quote only opens a quoted field at the start of the field; CRLF, LF and CR
+     * all end a record.
+     */
+    static final class RowReader {
+        private final Reader in;
+        private final char delimiter;
+        private final char[] buf = new char[READ_BUFFER_CHARS];
+        private int pos, len;
+        private final List<String> fields = new ArrayList<>();
+        private final StringBuilder field = new StringBuilder();
+
+        RowReader(Reader in, char delimiter) {
+            this.in = in;
+            this.delimiter = delimiter;
+        }
+
+        /**
+         * Reads the next record.
+         *
+         * @return its fields, valid until the next call; null at end of input
+         */
+        List<String> next() throws IOException {
+            fields.clear();
+            field.setLength(0);
+            int c = read();
+            if (c == -1) return null;
+
+            boolean quoted = false;
+            boolean fieldStart = true;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) break; // unterminated quote: keep what we have
+                    if (c == '"') {
+                        int n = read();
+                        if (n == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = n;
+                            continue;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == -1 || c == '\n' || c == '\r') {
+                    if (c == '\r' && peek() == '\n') pos++;
+                    break;
+                } else if (c == delimiter) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    fieldStart = true;
+                    c = read();
+                    continue;
+                } else if (c == '"' && fieldStart) {
+                    quoted = true;
+                } else {
+                    field.append((char) c);
+                }
+                fieldStart = false;
+                c = read();
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        private int read() throws IOException {
+            int c = peek();
+            if (c != -1) pos++;
+            return c;
+        }
+
+        private int peek() throws IOException {
+            if (pos == len) {
+                len = in.read(buf, 0, buf.length);
+                pos = 0;
+                if (len <= 0) {
+                    len = 0;
+                    return -1;
+                }
+            }
+            return buf[pos];
+        }
+    }
+
+    /** Counts bytes handed to the decoder, for progress against the file size. */
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long count() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
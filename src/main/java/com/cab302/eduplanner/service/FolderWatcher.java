@@ -0,0 +1,199 @@
+package com.cab302.eduplanner.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Watches folder trees for files that were created or changed and reports them in batches.
+ * Events are collected until the folders have been quiet for a while (or a maximum delay passes during
+ * a long burst), then each file is reported at most once per batch. A file is only reported if its size
+ * or modification time differs from what was last seen, so the repeated events Drive emits while
+ * downloading, and files it merely touches, are dropped.
+ *
+ * <p>An event-queue overflow or a newly created folder is handled by scanning just that folder against
+ * the same size/mtime snapshot, not by reporting everything again. Hidden files and temporary files
+ * ({@code .tmp}, {@code ~$...}) are ignored. The listener runs on the watcher's own daemon thread.</p>
+ */
+public class FolderWatcher implements Closeable {
+
+    /** Receives the files that changed since the previous batch, in the order they were first seen. */
+    @FunctionalInterface
+    public interface Listener {
+        void onChanges(Set<Path> changed);
+    }
+
+    private record Stat(long size, long mtime) {}
+
+    private final List<Path> roots;
+    private final long quietNanos;
+    private final long maxDelayNanos;
+    private final Predicate<Path> accept;
+    private final Listener listener;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> keys = new HashMap<>();
+    private final Map<Path, Stat> seen = new HashMap<>();
+    private final Thread thread;
+
+    /**
+     * Registers every folder under {@code roots}; call {@link #start()} to begin watching.
+     *
+     * @param quiet    how long the folders must be quiet before a batch is reported
+     * @param maxDelay longest a change waits while events keep arriving
+     * @param accept   which files to report, e.g. by extension
+     * @throws IOException if a folder cannot be registered
+     */
+    public FolderWatcher(List<Path> roots, Duration quiet, Duration maxDelay,
+                         Predicate<Path> accept, Listener listener) throws IOException {
+        this.roots = roots.stream().map(p -> p.toAbsolutePath().normalize()).toList();
+        this.quietNanos = quiet.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.accept = accept;
+        this.listener = listener;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.thread = new Thread(this::run, "folder-watcher");
+        this.thread.setDaemon(true);
+        try {
+            for (Path root : this.roots) register(root);
+        } catch (IOException e) {
+            watchService.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Starts the watcher thread. Files that already exist are reported in the first batch, so changes
+     * made while the app was closed are picked up once.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /** Stops watching; a batch that is being reported finishes first. */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+
+    private void run() {
+        Set<Path> pending = new LinkedHashSet<>();
+        Set<Path> rescan = new LinkedHashSet<>(roots);
+        long firstEvent = System.nanoTime(), lastEvent = firstEvent - quietNanos;
+        try {
+            while (true) {
+                WatchKey key;
+                if (pending.isEmpty() && rescan.isEmpty()) {
+                    key = watchService.take();
+                    firstEvent = System.nanoTime();
+                } else {
+                    long due = Math.min(lastEvent + quietNanos, firstEvent + maxDelayNanos);
+                    key = watchService.poll(Math.max(0, due - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (key == null) {
+                        flush(pending, rescan);
+                        continue;
+                    }
+                }
+                lastEvent = System.nanoTime();
+                collect(key, pending, rescan);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private void collect(WatchKey key, Set<Path> pending, Set<Path> rescan) {
+        Path dir = keys.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                // Events were lost: compare this folder (or everything, if we don't know which) with the snapshot
+                if (dir != null) rescan.add(dir);
+                else rescan.addAll(roots);
+                continue;
+            }
+            if (dir == null) continue;
+            Path path = dir.resolve((Path) event.context());
+            if (event.kind() == ENTRY_DELETE) {
+                seen.remove(path);
+            } else if (Files.isDirectory(path)) {
+                if (event.kind() == ENTRY_CREATE) rescan.add(path); // a folder moved in arrives as one event
+            } else {
+                pending.add(path);
+            }
+        }
+        if (!key.reset()) keys.remove(key);
+    }
+
+    private void flush(Set<Path> pending, Set<Path> rescan) {
+        Set<Path> changed = new LinkedHashSet<>();
+        for (Path dir : rescan) {
+            try {
+                register(dir);
+                try (var files = Files.walk(dir)) {
+                    files.filter(Files::isRegularFile).forEach(pending::add);
+                }
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("Folder watch: could not scan " + dir + ": " + e.getMessage());
+            }
+        }
+        for (Path file : pending) {
+            if (ignored(file)) continue;
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                if (!attrs.isRegularFile()) continue;
+                Stat stat = new Stat(attrs.size(), attrs.lastModifiedTime().toMillis());
+                if (!stat.equals(seen.put(file, stat))) changed.add(file);
+            } catch (IOException e) {
+                // gone again before the batch was reported
+            }
+        }
+        pending.clear();
+        rescan.clear();
+        if (changed.isEmpty()) return;
+        try {
+            listener.onChanges(changed);
+        } catch (RuntimeException e) {
+            System.err.println("Folder watch: listener failed: " + e.getMessage());
+        }
+    }
+
+    private boolean ignored(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(".") || name.startsWith("~$") || name.endsWith(".tmp") || !accept.test(file);
+    }
+
+    private void register(Path root) throws IOException {
+        if (!Files.isDirectory(root)) return;
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                // Registering a folder again returns its existing key
+                keys.put(dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package com.cab302.eduplanner.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Writes batch grading outcomes to a CSV file, one row per submission, flushed as each row arrives so
+ * the file can be opened while a batch is still running.
+ */
+public class GradeCsvWriter implements RubricAnalysisService.BatchListener, Closeable {
+
+    private static final String HEADER = "Submission,Score,Max Score,Categories,Error\n";
+
+    private final Writer out;
+
+    public GradeCsvWriter(Path file) throws IOException {
+        this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        out.write(HEADER);
+        out.flush();
+    }
+
+    @Override
+    public synchronized void onResult(RubricAnalysisService.SubmissionResult outcome) {
+        StringBuilder row = new StringBuilder(csv(outcome.submission().getFileName().toString()));
+        if (outcome.succeeded()) {
+            String categories = outcome.result().getCategories().stream()
+                    .map(c -> String.format(Locale.ROOT, "%s %s/%s", c.getName(), number(c.getScore()), number(c.getMaxScore())))
+                    .collect(Collectors.joining("; "));
+            row.append(',').append(number(outcome.result().getOverallScore()))
+                    .append(',').append(number(outcome.result().getOverallMaxScore()))
+                    .append(',').append(csv(categories))
+                    .append(',');
+        } else {
+            row.append(",,,,").append(csv(outcome.error()));
+        }
+        try {
+            out.write(row.append('\n').toString());
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private static String number(double value) {
+        return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    private static String csv(String s) {
+        String v = s == null ? "" : s;
+        if (v.contains(",") || v.contains("\"") || v.contains("\n")) {
+            v = "\"" + v.replace("\"", "\"\"") + "\"";
+        }
+        return v;
+    }
+}
@@ -1,8 +1,7 @@
 package com.cab302.eduplanner.service;
 
+import com.cab302.eduplanner.util.HashUtil;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.apache.pdfbox.pdmodel.font.PDType1Font;
@@ -10,11 +9,15 @@ import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.Objects;
 
 public class NoteExportService {
 
@@ -22,10 +25,13 @@ public class NoteExportService {
     private static final float FONT_SIZE = 11f;
     private static final float LINE_HEIGHT = 14f;
     private static final float TITLE_SIZE = 16f;
+    private static final float MARGIN = 50f;
 
-    // PDFBox 3.x fonts
-    private static final PDFont FONT_BODY  = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
-    private static final PDFont FONT_TITLE = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
+    /** Receives PDF export progress as characters of the note body laid out so far. */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long charsDone, long totalChars);
+    }
 
     public File exportToTxt(String title, String body, File destDir) throws Exception {
         if (!destDir.exists()) destDir.mkdirs();
@@ -44,59 +50,89 @@ public class NoteExportService {
         if (!destDir.exists()) destDir.mkdirs();
         String safeTitle = safeName(title);
         File out = new File(destDir, safeTitle + "-" + TS.format(LocalDateTime.now()) + ".pdf");
+        writePdf(title, body, out);
+        return out;
+    }
+
+    /** Writes a note as an A4 PDF to {@code out}; see {@link #writePdf(String, String, File, ProgressListener)}. */
+    public void writePdf(String title, String body, File out) throws IOException {
+        writePdf(title, body, out, (done, total) -> {});
+    }
+
+    /**
+     * Writes a note as an A4 PDF to {@code out}, flowing onto as many pages as the body needs.
+     * Blank lines separate paragraphs and single line breaks are kept.
+     *
+     * <p>The PDF is written to a temporary file beside {@code out} and moved over it once saved, so a
+     * failed export never leaves a truncated file or damages an earlier export. Large notes take a while;
+     * call this off the FX thread.</p>
+     *
+     * @param progress told how many characters of the body have been laid out, after each paragraph
+     */
+    public void writePdf(String title, String body, File out, ProgressListener progress) throws IOException {
+        Path target = out.toPath().toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(temp)) {
+                render(title, body == null ? "" : body, os, progress);
+            }
+            moveIntoPlace(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Renders a note as an A4 PDF straight into {@code out}, e.g. a ZIP entry. PDFBox closes the stream
+     * when it finishes, so pass one that can be closed.
+     */
+    public void writePdf(String title, String body, OutputStream out) throws IOException {
+        render(title, body == null ? "" : body, out, (done, total) -> {});
+    }
 
+    private static void render(String title, String body, OutputStream out, ProgressListener progress) throws IOException {
+        // PDFBox fonts cache widths and encodings without locking, so each export makes its own
+        PDFont fontBody = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+        PDFont fontTitle = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
         try (PDDocument doc = new PDDocument()) {
-            PDPage page = new PDPage(PDRectangle.A4);
-            doc.addPage(page);
-
-            float margin = 50f;
-            float pageWidth = page.getMediaBox().getWidth();
-            float pageHeight = page.getMediaBox().getHeight();
-            float usableWidth = pageWidth - margin * 2;
-
-            PDPageContentStream cs = new PDPageContentStream(doc, page);
-
-            // Title
-            float y = pageHeight - margin;
-            cs.beginText();
-            cs.setFont(FONT_TITLE, TITLE_SIZE);
-            cs.newLineAtOffset(margin, y);
-            cs.showText((title == null || title.isBlank()) ? "Untitled Note" : title);
-            cs.endText();
-
-            y -= (TITLE_SIZE + 14f);
-
-            // Body
-            List<String> paragraphs = List.of((body == null ? "" : body).split("\\R\\R"));
-            for (String para : paragraphs) {
-                for (String line : wrap(para, usableWidth)) {
-                    if (y < margin + LINE_HEIGHT) {
-                        cs.close();
-                        page = new PDPage(PDRectangle.A4);
-                        doc.addPage(page);
-                        cs = new PDPageContentStream(doc, page);
-                        y = page.getMediaBox().getHeight() - margin;
+            // PDFBox seeds the file ID with the clock unless told otherwise; a content-based seed makes
+            // an unchanged note export to identical bytes, which Drive sync relies on
+            doc.setDocumentId(31L * Objects.hashCode(title) + body.hashCode());
+            try (PdfTextLayout layout = new PdfTextLayout(doc, PDRectangle.A4, MARGIN)) {
+                layout.line((title == null || title.isBlank()) ? "Untitled Note" : title,
+                        fontTitle, TITLE_SIZE, TITLE_SIZE + 14f);
+
+                long total = body.length(), done = 0;
+                for (String para : body.split("\\R\\R")) {
+                    for (String line : para.split("\\R")) {
+                        layout.paragraph(line, fontBody, FONT_SIZE, LINE_HEIGHT);
                     }
-                    cs.beginText();
-                    cs.setFont(FONT_BODY, FONT_SIZE);
-                    cs.newLineAtOffset(margin, y);
-                    cs.showText(line);
-                    cs.endText();
-                    y -= LINE_HEIGHT;
+                    layout.skip(10f);
+                    done = Math.min(total, done + para.length() + 2);
+                    progress.onProgress(done, total);
                 }
-                y -= 10f;
+                progress.onProgress(total, total);
             }
-
-            cs.close();
             doc.save(out);
         }
-        return out;
+    }
+
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Some network and synced drives can't rename atomically; a plain replace is the best left
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
     }
 
     /** Copy a file into a chosen directory (e.g., Google Drive Notes). */
     public File exportFileToDriveFolder(File source, File driveFolder) throws Exception {
         if (!driveFolder.exists()) driveFolder.mkdirs();
         File dest = new File(driveFolder, source.getName());
+        // Leave an identical copy alone, so the Drive client has nothing to upload again
+        if (HashUtil.sameContent(source.toPath(), dest.toPath())) return dest;
         Files.copy(source.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
         return dest;
     }
@@ -106,28 +142,6 @@ public class NoteExportService {
         return s.replaceAll("[^a-zA-Z0-9._-]+", "_");
     }
 
-    private static List<String> wrap(String text, float widthPx) throws Exception {
-        var words = text.replace("\r", "").split("\\s+");
-        var lines = new java.util.ArrayList<String>();
-        StringBuilder line = new StringBuilder();
-
-        for (String w : words) {
-            String test = (line.length() == 0) ? w : line + " " + w;
-            float testWidth = FONT_BODY.getStringWidth(test) / 1000f * FONT_SIZE;
-            if (testWidth > widthPx && line.length() > 0) {
-                lines.add(line.toString());
-                line.setLength(0);
-                line.append(w);
-            } else {
-                line.setLength(0);
-                line.append(test);
-            }
-        }
-        if (line.length() > 0) lines.add(line.toString());
-        if (lines.isEmpty()) lines.add("");
-        return lines;
-    }
-
     public interface FlashcardLike {
         String getFront();
         String getBack();
@@ -0,0 +1,181 @@
+package com.cab302.eduplanner.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes wrapped text top to bottom over as many pages as it needs, shared by the note and flashcard
+ * PDF exports.
+ * Word widths are summed from a per-font cache of glyph advance widths and a line's width is kept as a
+ * running total, so wrapping is linear in the text length rather than re-measuring the whole line for
+ * every word. One instance writes one document; close it before saving the document.
+ */
+public class PdfTextLayout implements Closeable {
+
+    // Weak keys so fonts created for a single export don't pin their cache
+    private static final Map<PDFont, GlyphWidths> WIDTHS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final PDDocument doc;
+    private final PDRectangle pageSize;
+    private final float margin;
+    private PDPageContentStream cs;
+    private float y;
+    private int pages;
+
+    /** Pages are added to {@code doc} as text reaches the bottom margin; the first one on the first write. */
+    public PdfTextLayout(PDDocument doc, PDRectangle pageSize, float margin) {
+        this.doc = doc;
+        this.pageSize = pageSize;
+        this.margin = margin;
+    }
+
+    /** Width available to a line between the side margins. */
+    public float width() {
+        return pageSize.getWidth() - margin * 2;
+    }
+
+    public int pageCount() {
+        return pages;
+    }
+
+    /** Starts a new page unless {@code height} points are left above the bottom margin. */
+    public void ensureSpace(float height) throws IOException {
+        if (cs == null || y < margin + height) newPage();
+    }
+
+    /** Writes one unwrapped line and moves down by {@code leading}. */
+    public void line(String text, PDFont font, float fontSize, float leading) throws IOException {
+        ensureSpace(leading);
+        cs.beginText();
+        cs.setFont(font, fontSize);
+        cs.newLineAtOffset(margin, y);
+        cs.showText(text);
+        cs.endText();
+        y -= leading;
+    }
+
+    /** Wraps {@code text} to the page width and writes it, breaking onto new pages between lines. */
+    public void paragraph(String text, PDFont font, float fontSize, float leading) throws IOException {
+        for (String line : wrap(text, font, fontSize, width())) {
+            line(line, font, fontSize, leading);
+        }
+    }
+
+    /** Leaves {@code points} of vertical space. */
+    public void skip(float points) {
+        y -= points;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (cs != null) cs.close();
+        cs = null;
+    }
+
+    private void newPage() throws IOException {
+        if (cs != null) cs.close();
+        PDPage page = new PDPage(pageSize);
+        doc.addPage(page);
+        cs = new PDPageContentStream(doc, page);
+        y = page.getMediaBox().getHeight() - margin;
+        pages++;
+    }
+
+    /**
+     * Greedy word wrap. Runs of whitespace, including line breaks, separate words and become a single
+     * space; a word wider than the line gets a line of its own.
+     *
+     * @param maxWidth line width in points
+     * @return at least one line; a single empty line for blank text
+     * @throws IllegalArgumentException if the font cannot encode a character, as {@link PDFont#getStringWidth} does
+     */
+    public static List<String> wrap(String text, PDFont font, float fontSize, float maxWidth) throws IOException {
+        List<String> lines = new ArrayList<>();
+        String s = text == null ? "" : text;
+        GlyphWidths widths = widthsFor(font);
+        // Compare in font units (1/1000 em) so the per-glyph sums need no scaling
+        float max = maxWidth * 1000f / fontSize;
+        float space = widths.of(font, ' ');
+
+        StringBuilder line = new StringBuilder();
+        float lineWidth = 0;
+        int i = 0, n = s.length();
+        while (i < n) {
+            while (i < n && Character.isWhitespace(s.charAt(i))) i++;
+            if (i == n) break;
+            int start = i;
+            float wordWidth = 0;
+            while (i < n && !Character.isWhitespace(s.charAt(i))) {
+                int cp = s.codePointAt(i);
+                wordWidth += widths.of(font, cp);
+                i += Character.charCount(cp);
+            }
+
+            if (line.isEmpty()) {
+                line.append(s, start, i);
+                lineWidth = wordWidth;
+            } else if (lineWidth + space + wordWidth > max) {
+                lines.add(line.toString());
+                line.setLength(0);
+                line.append(s, start, i);
+                lineWidth = wordWidth;
+            } else {
+                line.append(' ').append(s, start, i);
+                lineWidth += space + wordWidth;
+            }
+        }
+        if (!line.isEmpty() || lines.isEmpty()) lines.add(line.toString());
+        return lines;
+    }
+
+    static GlyphWidths widthsFor(PDFont font) {
+        return WIDTHS.computeIfAbsent(font, f -> new GlyphWidths());
+    }
+
+    /**
+     * Advance widths of one font in font units, measured once per character. The font is passed in rather
+     * than held, so the cache entry does not keep its own weak key alive.
+     * Racing threads may both measure a glyph, but they store the same value, so no locking is needed.
+     */
+    static final class GlyphWidths {
+        // Latin-1 covers almost all text these exports see; NaN marks a glyph not measured yet
+        private final float[] latin = new float[256];
+        private final Map<Integer, Float> other = new ConcurrentHashMap<>();
+
+        GlyphWidths() {
+            Arrays.fill(latin, Float.NaN);
+        }
+
+        /** @param font the font these widths were cached under */
+        float of(PDFont font, int codePoint) throws IOException {
+            if (codePoint < latin.length) {
+                float w = latin[codePoint];
+                if (Float.isNaN(w)) latin[codePoint] = w = measure(font, codePoint);
+                return w;
+            }
+            Float w = other.get(codePoint);
+            if (w == null) {
+                w = measure(font, codePoint);
+                other.put(codePoint, w);
+            }
+            return w;
+        }
+
+        private static float measure(PDFont font, int codePoint) throws IOException {
+            return font.getStringWidth(new String(Character.toChars(codePoint)));
+        }
+    }
+}
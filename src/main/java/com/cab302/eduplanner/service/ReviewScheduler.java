@@ -0,0 +1,132 @@
+package com.cab302.eduplanner.service;
+
+import com.cab302.eduplanner.model.Flashcard;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+/**
+ * SM-2 spaced-repetition scheduling for one review session.
+ * Cards sit in a min-heap ordered by due time, so {@link #nextDue()} is O(1) and rescheduling a
+ * reviewed card is O(log n), which keeps a 50k-card deck responsive. The scheduler only updates the
+ * cards' in-memory state; callers persist it (see {@code FlashcardRepository#updateSchedule}).
+ *
+ * <p>Not thread-safe; use it from the thread that owns the session.</p>
+ */
+public class ReviewScheduler {
+
+    /** Lowest ease SM-2 allows, so hard cards still move forward. */
+    public static final double MIN_EASE = 1.3;
+
+    /** A lapsed card comes back after this delay, within the same session. */
+    public static final Duration RELEARN_DELAY = Duration.ofMinutes(10);
+
+    private static final long DAY_MS = Duration.ofDays(1).toMillis();
+
+    /** How well the user recalled a card; {@code quality} is the SM-2 response grade (0-5). */
+    public enum Grade {
+        AGAIN(1), HARD(3), GOOD(4), EASY(5);
+
+        private final int quality;
+
+        Grade(int quality) { this.quality = quality; }
+
+        public int quality() { return quality; }
+    }
+
+    // Ties on due time fall back to creation order, so new cards come out in the order they were written
+    private final PriorityQueue<Flashcard> queue = new PriorityQueue<>(
+            Comparator.comparingLong(Flashcard::getDueAt).thenComparingLong(Flashcard::getCardId));
+    private final Clock clock;
+
+    public ReviewScheduler() {
+        this(Clock.systemUTC());
+    }
+
+    /** @param clock source of "now"; tests and simulations pass their own */
+    public ReviewScheduler(Clock clock) {
+        this.clock = clock;
+    }
+
+    /** Adds cards to the session. */
+    public void addAll(Collection<Flashcard> cards) {
+        queue.addAll(cards);
+    }
+
+    public void add(Flashcard card) {
+        queue.add(card);
+    }
+
+    /** Removes a card, e.g. after it was deleted. O(n); reviews never need it. */
+    public boolean remove(Flashcard card) {
+        return queue.remove(card);
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * The card to show next, without removing it.
+     *
+     * @return the earliest-due card if it is due now; empty if nothing is due
+     */
+    public Optional<Flashcard> nextDue() {
+        Flashcard head = queue.peek();
+        return head != null && head.getDueAt() <= clock.millis() ? Optional.of(head) : Optional.empty();
+    }
+
+    /**
+     * When the next card becomes due.
+     *
+     * @return epoch millis of the earliest due time; empty if the session has no cards
+     */
+    public Optional<Long> nextDueAt() {
+        Flashcard head = queue.peek();
+        return head == null ? Optional.empty() : Optional.of(head.getDueAt());
+    }
+
+    /**
+     * Records a review and moves the card to its new place in the queue.
+     * The card is normally the one returned by {@link #nextDue()}, which makes this O(log n).
+     *
+     * @param card  a card in this session
+     * @param grade how well it was recalled
+     */
+    public void review(Flashcard card, Grade grade) {
+        // Its key is about to change, so it has to leave the heap first
+        if (queue.peek() == card) queue.poll();
+        else if (!queue.remove(card)) throw new IllegalArgumentException("Card is not in this session");
+        schedule(card, grade, clock.millis());
+        queue.add(card);
+    }
+
+    /**
+     * Applies one SM-2 step to a card's schedule.
+     * A failed recall resets the repetition count and brings the card back after {@link #RELEARN_DELAY};
+     * a pass waits 1 day, then 6, then the previous interval times the ease. The ease moves up or down
+     * with the grade and never drops below {@link #MIN_EASE}.
+     *
+     * @param now epoch millis of the review
+     */
+    public static void schedule(Flashcard card, Grade grade, long now) {
+        int q = grade.quality();
+        double ease = Math.max(MIN_EASE, card.getEase() + 0.1 - (5 - q) * (0.08 + (5 - q) * 0.02));
+
+        if (q < 3) {
+            card.setSchedule(ease, 0, 0, now + RELEARN_DELAY.toMillis());
+            return;
+        }
+        int repetitions = card.getRepetitions() + 1;
+        int interval = switch (repetitions) {
+            case 1 -> 1;
+            case 2 -> 6;
+            default -> (int) Math.round(Math.max(1, card.getIntervalDays()) * ease);
+        };
+        card.setSchedule(ease, interval, repetitions, now + interval * DAY_MS);
+    }
+}
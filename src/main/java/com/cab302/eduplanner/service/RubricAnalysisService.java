@@ -2,46 +2,400 @@ package com.cab302.eduplanner.service;
 
 import com.cab302.eduplanner.integration.openai.OpenAiRubricClient;
 import com.cab302.eduplanner.model.RubricAnalysisResult;
+import com.cab302.eduplanner.model.RubricCategoryEvaluation;
+import com.cab302.eduplanner.repository.RubricRepository;
+import com.cab302.eduplanner.util.HashUtil;
+import com.cab302.eduplanner.util.TokenBucket;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import okhttp3.OkHttpClient;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 /**
  * High-level orchestration service that converts uploaded documents to text and calls the OpenAI rubric grader.
+ * The rubric and the assignment are extracted at the same time, so the request goes out as soon as the
+ * slower of the two is ready. An analysis grades one request's worth of the assignment unless the caller
+ * asks for the whole of it, which is graded in chunks and can take several paid requests.
+ * Grades are cached in {@link RubricRepository} by the hashes of both texts and the model, so submitting
+ * the same documents again skips the grader. A whole folder of submissions can be graded against one
+ * rubric in a batch. A single analysis can report each category as soon as the streamed grade contains it.
  */
 public class RubricAnalysisService {
 
+    /** Characters of the assignment that are graded in chunks when the whole assignment is asked for. */
+    static final int ASSIGNMENT_CHARACTERS = 120_000;
+
+    private static final class Extraction {
+        private static final ExecutorService POOL = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "rubric-extract");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Grade cache counters since the service was created.
+     *
+     * @param hits   analyses answered from the cache
+     * @param misses analyses sent to the grader
+     */
+    public record CacheStats(long hits, long misses) {
+
+        /** Fraction of analyses answered from the cache, between 0 and 1. */
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+
+    /**
+     * Limits for batch grading.
+     *
+     * @param maxConcurrentRequests submissions being graded by the API at once
+     * @param requestsPerSecond     steady rate of grading requests; a long submission graded in chunks
+     *                              counts one request per chunk
+     * @param burst                 requests that may start at once before the rate applies
+     */
+    public record BatchOptions(int maxConcurrentRequests, double requestsPerSecond, int burst) {
+        public BatchOptions {
+            if (maxConcurrentRequests < 1 || !(requestsPerSecond > 0) || burst < 1) {
+                throw new IllegalArgumentException("batch limits must be positive");
+            }
+        }
+
+        /** Four submissions at a time, two requests per second with bursts of four. */
+        public static BatchOptions defaults() {
+            return new BatchOptions(4, 2.0, 4);
+        }
+    }
+
+    /**
+     * Outcome of grading one submission in a batch; exactly one of {@code result} and {@code error} is set.
+     *
+     * @param elapsedNanos time from the start of its extraction to its grade or failure
+     */
+    public record SubmissionResult(Path submission, RubricAnalysisResult result, String error, boolean cached,
+                                   long elapsedNanos) {
+        public boolean succeeded() {
+            return result != null;
+        }
+    }
+
+    /**
+     * Totals for a finished batch.
+     *
+     * @param graded       submissions with a grade
+     * @param failed       submissions that could not be graded
+     * @param elapsedNanos wall-clock time of the whole batch, including rubric extraction
+     */
+    public record BatchSummary(int graded, int failed, long elapsedNanos) {
+    }
+
+    /** Receives each submission's outcome as soon as it is known; called concurrently from worker threads. */
+    @FunctionalInterface
+    public interface BatchListener {
+        void onResult(SubmissionResult result);
+    }
+
     private final DocumentTextExtractor textExtractor;
     private final OpenAiRubricClient openAiClient;
+    private final RubricRepository gradeCache;
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    private static final class Holder {
+        private static final RubricAnalysisService INSTANCE = new RubricAnalysisService();
+    }
+
+    /**
+     * Application-wide service, so the grader's connections, circuit breaker and counters outlive any one
+     * Rubric screen.
+     */
+    public static RubricAnalysisService shared() {
+        return Holder.INSTANCE;
+    }
 
     public RubricAnalysisService() {
-        this(new DocumentTextExtractor(),
-                new OpenAiRubricClient(createDefaultClient(), new ObjectMapper(), System.getenv("OPENAI_API_KEY"), "gpt-5-nano-2025-08-07"));
+        this(CachingDocumentTextExtractor.shared(),
+                new OpenAiRubricClient(OpenAiRubricClient.sharedHttpClient(), new ObjectMapper(), System.getenv("OPENAI_API_KEY"), "gpt-5-nano-2025-08-07",
+                        endpointFromEnvironment()),
+                new RubricRepository());
     }
 
     /**
-     * Creates a default OkHttpClient with longer timeouts for API calls.
+     * Responses endpoint under {@code OPENAI_BASE_URL} (for example {@code http://localhost:8080/v1}),
+     * or null for the OpenAI default.
      */
-    private static OkHttpClient createDefaultClient() {
-        return new OkHttpClient.Builder()
-                .connectTimeout(Duration.ofSeconds(10))
-                .readTimeout(Duration.ofSeconds(120))
-                .writeTimeout(Duration.ofSeconds(60))
-                .build();
+    private static String endpointFromEnvironment() {
+        String base = System.getenv("OPENAI_BASE_URL");
+        if (base == null || base.isBlank()) return null;
+        return base.replaceAll("/+$", "") + "/responses";
     }
 
     public RubricAnalysisService(DocumentTextExtractor textExtractor, OpenAiRubricClient openAiClient) {
+        this(textExtractor, openAiClient, null);
+    }
+
+    /**
+     * @param gradeCache stores grades between runs; null grades every analysis
+     */
+    public RubricAnalysisService(DocumentTextExtractor textExtractor, OpenAiRubricClient openAiClient,
+                                 RubricRepository gradeCache) {
         this.textExtractor = Objects.requireNonNull(textExtractor, "textExtractor");
         this.openAiClient = Objects.requireNonNull(openAiClient, "openAiClient");
+        this.gradeCache = gradeCache;
     }
 
     public RubricAnalysisResult analyse(Path assignmentPath, Path rubricPath) throws IOException {
-        String assignmentText = textExtractor.extractText(assignmentPath);
+        return analyse(assignmentPath, rubricPath, null);
+    }
+
+    /**
+     * Grades the assignment against the rubric, reusing a cached grade for the same texts and model.
+     *
+     * @param taskId task the rubric belongs to, so a new grade is linked to it; null for none
+     */
+    public RubricAnalysisResult analyse(Path assignmentPath, Path rubricPath, Long taskId) throws IOException {
+        return analyse(assignmentPath, rubricPath, taskId, null);
+    }
+
+    /**
+     * Grades like {@link #analyse(Path, Path, Long)} and reports each category as soon as it is known. Only the
+     * first {@link DocumentTextExtractor#MAX_CHARACTERS} characters of the assignment are graded, in one request.
+     */
+    public RubricAnalysisResult analyse(Path assignmentPath, Path rubricPath, Long taskId,
+                                        Consumer<RubricCategoryEvaluation> onCategory) throws IOException {
+        return analyse(assignmentPath, rubricPath, taskId, false, onCategory);
+    }
+
+    /**
+     * Grades like {@link #analyse(Path, Path, Long)} and reports each category as soon as it is known. A
+     * submission that fits in one request is graded as a stream, so categories arrive while the model is
+     * still writing the rest; a cached grade or a chunked one reports all its categories once it is ready.
+     *
+     * @param wholeAssignment grade up to {@link #ASSIGNMENT_CHARACTERS} characters in chunks, which can take up
+     *                        to {@link #maxRequests()} requests; false grades one request's worth
+     * @param onCategory      called on the grading thread with each category; null to only return the result
+     */
+    public RubricAnalysisResult analyse(Path assignmentPath, Path rubricPath, Long taskId, boolean wholeAssignment,
+                                        Consumer<RubricCategoryEvaluation> onCategory) throws IOException {
+        int assignmentCharacters = wholeAssignment ? ASSIGNMENT_CHARACTERS : DocumentTextExtractor.MAX_CHARACTERS;
+        // Both documents are extracted on workers; whichever fails first cancels the other
+        CompletionService<String> extractions = new ExecutorCompletionService<>(Extraction.POOL);
+        Future<String> rubric = extractions.submit(() -> textExtractor.extractText(rubricPath));
+        Future<String> assignment = extractions.submit(() -> textExtractor.extractText(assignmentPath, assignmentCharacters));
+        try {
+            for (int i = 0; i < 2; i++) await(extractions);
+        } finally {
+            rubric.cancel(true);
+            assignment.cancel(true);
+        }
+        String rubricText = rubric.resultNow();
+        String assignmentText = assignment.resultNow();
+
+        RubricRepository.GradeKey key = gradeKey(sha256(rubricText), assignmentText);
+        Optional<RubricAnalysisResult> cached = cachedGrade(key);
+        if (cached.isPresent()) {
+            // A grade first made without a task still gets linked once a task is chosen
+            if (taskId != null) remember(key, cached.get(), rubricPath, taskId);
+            if (onCategory != null) cached.get().getCategories().forEach(onCategory);
+            return cached.get();
+        }
+        RubricAnalysisResult result;
+        if (onCategory != null && openAiClient.requestCount(assignmentText) == 1) {
+            result = openAiClient.gradeAssignmentStreaming(rubricText, assignmentText, onCategory);
+        } else {
+            result = openAiClient.gradeAssignmentInChunks(rubricText, assignmentText).result();
+            if (onCategory != null) result.getCategories().forEach(onCategory);
+        }
+        remember(key, result, rubricPath, taskId);
+        return result;
+    }
+
+    /**
+     * Grades every PDF, DOCX and TXT file directly inside {@code folder} against one rubric, which is
+     * extracted once. Each submission runs on its own virtual thread as a pipeline: extraction (at most one
+     * per processor), the grade cache, then the API, which at most {@code options.maxConcurrentRequests()}
+     * submissions use at once and which a token bucket holds to {@code options.requestsPerSecond()}.
+     * Outcomes reach {@code listener} in completion order; a submission that fails is reported and the
+     * batch carries on.
+     *
+     * @throws IOException if the folder cannot be listed or the rubric cannot be extracted
+     */
+    public BatchSummary analyseFolder(Path folder, Path rubricPath, BatchOptions options, BatchListener listener)
+            throws IOException {
+        long start = System.nanoTime();
+        List<Path> submissions = listSubmissions(folder, rubricPath);
         String rubricText = textExtractor.extractText(rubricPath);
-        return openAiClient.gradeAssignment(rubricText, assignmentText);
+        String rubricHash = sha256(rubricText);
+
+        Semaphore extracting = new Semaphore(Runtime.getRuntime().availableProcessors());
+        Semaphore grading = new Semaphore(options.maxConcurrentRequests());
+        TokenBucket rate = new TokenBucket(options.burst(), options.requestsPerSecond());
+        AtomicInteger graded = new AtomicInteger();
+        List<Future<?>> pending = new ArrayList<>(submissions.size());
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Path submission : submissions) {
+                pending.add(threads.submit(() -> {
+                    SubmissionResult outcome = gradeSubmission(submission, rubricText, rubricHash, extracting, grading, rate);
+                    if (outcome.succeeded()) graded.incrementAndGet();
+                    listener.onResult(outcome);
+                }));
+            }
+        } // waits for every submission
+        for (Future<?> submission : pending) {
+            // Grading failures are reported as outcomes; only a failing listener ends up here
+            awaitListener(submission);
+        }
+        return new BatchSummary(graded.get(), submissions.size() - graded.get(), System.nanoTime() - start);
+    }
+
+    private SubmissionResult gradeSubmission(Path submission, String rubricText, String rubricHash,
+                                             Semaphore extracting, Semaphore grading, TokenBucket rate) {
+        long start = System.nanoTime();
+        try {
+            String assignmentText;
+            extracting.acquire();
+            try {
+                assignmentText = textExtractor.extractText(submission, ASSIGNMENT_CHARACTERS);
+            } finally {
+                extracting.release();
+            }
+
+            RubricRepository.GradeKey key = gradeKey(rubricHash, assignmentText);
+            Optional<RubricAnalysisResult> cached = cachedGrade(key);
+            if (cached.isPresent()) {
+                return new SubmissionResult(submission, cached.get(), null, true, System.nanoTime() - start);
+            }
+
+            RubricAnalysisResult result;
+            grading.acquire();
+            try {
+                rate.acquire(openAiClient.requestCount(assignmentText));
+                result = openAiClient.gradeAssignmentInChunks(rubricText, assignmentText).result();
+            } finally {
+                grading.release();
+            }
+            remember(key, result, null, null);
+            return new SubmissionResult(submission, result, null, false, System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new SubmissionResult(submission, null, "Cancelled", false, System.nanoTime() - start);
+        } catch (IOException | RuntimeException e) {
+            return new SubmissionResult(submission, null, e.getMessage() == null ? e.toString() : e.getMessage(),
+                    false, System.nanoTime() - start);
+        }
+    }
+
+    /** Supported documents directly inside the folder, by name, leaving out the rubric itself. */
+    static List<Path> listSubmissions(Path folder, Path rubricPath) throws IOException {
+        if (!Files.isDirectory(folder)) {
+            throw new IOException("Not a folder: " + folder);
+        }
+        List<Path> submissions = new ArrayList<>();
+        try (var entries = Files.list(folder)) {
+            for (Path p : entries.sorted().toList()) {
+                String name = p.getFileName().toString().toLowerCase(Locale.ROOT);
+                boolean supported = name.endsWith(".pdf") || name.endsWith(".docx") || name.endsWith(".txt");
+                if (supported && !name.startsWith(".") && !name.startsWith("~$") && Files.isRegularFile(p)
+                        && !Files.isSameFile(p, rubricPath)) {
+                    submissions.add(p);
+                }
+            }
+        }
+        return submissions;
+    }
+
+    private RubricRepository.GradeKey gradeKey(String rubricHash, String assignmentText) {
+        return new RubricRepository.GradeKey(rubricHash, sha256(assignmentText), openAiClient.getModel());
+    }
+
+    private Optional<RubricAnalysisResult> cachedGrade(RubricRepository.GradeKey key) {
+        Optional<RubricAnalysisResult> cached = gradeCache == null ? Optional.empty() : gradeCache.find(key);
+        if (cached.isPresent()) {
+            cacheHits.increment();
+        } else {
+            cacheMisses.increment();
+        }
+        return cached;
+    }
+
+    private void remember(RubricRepository.GradeKey key, RubricAnalysisResult result, Path rubricPath, Long taskId) {
+        if (gradeCache == null) return;
+        Long rubricId = taskId == null ? null
+                : gradeCache.attachToTask(taskId, rubricPath.toAbsolutePath().toString()).orElse(null);
+        gradeCache.save(key, result, rubricId);
+    }
+
+    /** Most requests one whole-assignment analysis can make. */
+    public int maxRequests() {
+        return openAiClient.requestCount("x".repeat(ASSIGNMENT_CHARACTERS));
+    }
+
+    /** Most recent grade linked to the task; empty if there is none or grades are not cached. */
+    public Optional<RubricAnalysisResult> latestForTask(long taskId) {
+        return gradeCache == null ? Optional.empty() : gradeCache.findLatestForTask(taskId);
+    }
+
+    /** Returns a snapshot of the grade cache counters. */
+    public CacheStats cacheStats() {
+        return new CacheStats(cacheHits.sum(), cacheMisses.sum());
+    }
+
+    /** Retry, hedging and circuit breaker counters of the grader client. */
+    public OpenAiRubricClient.ResilienceStats resilienceStats() {
+        return openAiClient.resilienceStats();
+    }
+
+    private static String sha256(String text) {
+        return HashUtil.sha256Hex(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void awaitListener(Future<?> submission) throws IOException {
+        try {
+            submission.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Batch interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException io) throw io.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IOException(cause);
+        }
+    }
+
+    /** Waits for the next extraction to finish and rethrows its failure. */
+    private static void await(CompletionService<String> extractions) throws IOException {
+        try {
+            extractions.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Extraction interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IOException(cause);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,245 @@
+package com.cab302.eduplanner.service;
+
+import com.cab302.eduplanner.ConnectionSource;
+import com.cab302.eduplanner.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Full-text search over a user's notes, tasks and flashcards, backed by the FTS5 indexes from schema
+ * migrations 4 and 5. Each source is ranked with BM25 (title and question matches weigh more than body
+ * matches), the sources are merged
+ * by score, and highlighted snippets are built only for the hits that are returned.
+ *
+ * <p>BM25 has to score every matching document, which is too slow for very common terms in a large library.
+ * Each source therefore ranks at most {@link #CANDIDATE_WINDOW} of its newest matches. Selective queries
+ * are ranked exactly; very broad ones are ranked among recent documents, which keeps a search of a
+ * 100k-document library within {@link #LATENCY_BUDGET_MS}.</p>
+ */
+public class SearchService {
+
+    /** Target upper bound for one search; slower searches are logged. */
+    public static final long LATENCY_BUDGET_MS = 20;
+
+    /** Newest matches ranked per source when a query matches more documents than this. */
+    static final int CANDIDATE_WINDOW = 1000;
+
+    /** Marks a matched term inside {@link SearchHit#snippet()}. */
+    public static final String HIGHLIGHT_START = "[";
+    public static final String HIGHLIGHT_END = "]";
+
+    private static final int SNIPPET_TOKENS = 12;
+
+    /** Longest prefix covered by the FTS {@code prefix='2 3'} option; shorter prefixes are cheap to expand. */
+    private static final int INDEXED_PREFIX_LENGTH = 3;
+
+    /** What a hit refers to; {@link SearchHit#id()} is that table's primary key. */
+    public enum Kind { NOTE, TASK, FLASHCARD }
+
+    /**
+     * One search result.
+     *
+     * @param kind    what was matched
+     * @param id      note_id, task_id or card_id
+     * @param title   title of the matched item (a flashcard's question)
+     * @param snippet short excerpt with matched terms wrapped in {@link #HIGHLIGHT_START}/{@link #HIGHLIGHT_END}
+     * @param score   BM25 score; lower is a better match
+     */
+    public record SearchHit(Kind kind, long id, String title, String snippet, double score) {}
+
+    /**
+     * SQL for one indexed table.
+     * {@code candidates} binds (match, userId, window, limit) and returns (id, score), best first.
+     * {@code detail} binds (match, minId, maxId, JSON array of ids) and returns (id, title, snippet).
+     * It evaluates the MATCH once for all ids; a per-id lookup would rebuild a prefix term's doclist every time.
+     */
+    private record Source(Kind kind, String candidates, String detail) {}
+
+    private static final List<Source> SOURCES = List.of(
+            new Source(Kind.NOTE, """
+                SELECT id, score FROM (
+                    SELECT notes_fts.rowid AS id, bm25(notes_fts, 5.0, 1.0) AS score
+                    FROM notes_fts
+                    JOIN notes n ON n.note_id = notes_fts.rowid
+                    JOIN folders f ON f.folder_id = n.folder_id
+                    WHERE notes_fts MATCH ?1 AND f.user_id = ?2
+                    ORDER BY notes_fts.rowid DESC
+                    LIMIT ?3)
+                ORDER BY score
+                LIMIT ?4
+                """, """
+                SELECT n.note_id, n.title, snippet(notes_fts, -1, '%s', '%s', '…', %d)
+                FROM notes_fts
+                JOIN notes n ON n.note_id = notes_fts.rowid
+                WHERE notes_fts MATCH ?1 AND notes_fts.rowid BETWEEN ?2 AND ?3
+                  AND +notes_fts.rowid IN (SELECT value FROM json_each(?4))
+                """.formatted(HIGHLIGHT_START, HIGHLIGHT_END, SNIPPET_TOKENS)),
+            new Source(Kind.TASK, """
+                SELECT id, score FROM (
+                    SELECT tasks_fts.rowid AS id, bm25(tasks_fts, 5.0, 1.0, 2.0) AS score
+                    FROM tasks_fts
+                    JOIN tasks t ON t.task_id = tasks_fts.rowid
+                    WHERE tasks_fts MATCH ?1 AND t.user_id = ?2
+                    ORDER BY tasks_fts.rowid DESC
+                    LIMIT ?3)
+                ORDER BY score
+                LIMIT ?4
+                """, """
+                SELECT t.task_id, t.title, snippet(tasks_fts, -1, '%s', '%s', '…', %d)
+                FROM tasks_fts
+                JOIN tasks t ON t.task_id = tasks_fts.rowid
+                WHERE tasks_fts MATCH ?1 AND tasks_fts.rowid BETWEEN ?2 AND ?3
+                  AND +tasks_fts.rowid IN (SELECT value FROM json_each(?4))
+                """.formatted(HIGHLIGHT_START, HIGHLIGHT_END, SNIPPET_TOKENS)),
+            new Source(Kind.FLASHCARD, """
+                SELECT id, score FROM (
+                    SELECT flashcards_fts.rowid AS id, bm25(flashcards_fts, 5.0, 1.0) AS score
+                    FROM flashcards_fts
+                    JOIN flashcards c ON c.card_id = flashcards_fts.rowid
+                    JOIN flashcard_decks d ON d.deck_id = c.deck_id
+                    JOIN flashcard_folders f ON f.folder_id = d.folder_id
+                    WHERE flashcards_fts MATCH ?1 AND f.user_id = ?2
+                    ORDER BY flashcards_fts.rowid DESC
+                    LIMIT ?3)
+                ORDER BY score
+                LIMIT ?4
+                """, """
+                SELECT c.card_id, c.question, snippet(flashcards_fts, -1, '%s', '%s', '…', %d)
+                FROM flashcards_fts
+                JOIN flashcards c ON c.card_id = flashcards_fts.rowid
+                WHERE flashcards_fts MATCH ?1 AND flashcards_fts.rowid BETWEEN ?2 AND ?3
+                  AND +flashcards_fts.rowid IN (SELECT value FROM json_each(?4))
+                """.formatted(HIGHLIGHT_START, HIGHLIGHT_END, SNIPPET_TOKENS))
+    );
+
+    private final ConnectionSource connections;
+
+    public SearchService() {
+        this(DatabaseConnection::getConnection);
+    }
+
+    public SearchService(ConnectionSource connections) {
+        this.connections = connections;
+    }
+
+    /**
+     * Searches the user's notes, tasks and flashcards. Every word must match; the last word also matches as a prefix,
+     * so results update sensibly while the user is still typing.
+     *
+     * <p>Expanding a long prefix means merging the posting lists of every term it covers, which is slow for
+     * prefixes of common words. So when the last word is longer than the indexed prefix lengths, the exact
+     * words are tried first and the prefix search only runs if they do not fill the page.</p>
+     *
+     * @param userId owner of the documents
+     * @param query  free text as typed by the user; FTS5 operators are treated as plain text
+     * @param limit  maximum number of hits
+     * @return best hits first; empty for a blank query or on error
+     */
+    public List<SearchHit> search(long userId, String query, int limit) {
+        List<String> terms = terms(query);
+        if (terms.isEmpty() || limit <= 0) return List.of();
+
+        long start = System.nanoTime();
+        try (Connection c = connections.getConnection()) {
+            if (terms.getLast().length() > INDEXED_PREFIX_LENGTH) {
+                List<SearchHit> exact = run(c, toMatchExpression(terms, false), userId, limit);
+                if (exact.size() >= limit) return exact;
+            }
+            return run(c, toMatchExpression(terms, true), userId, limit);
+        } catch (SQLException e) {
+            System.err.println("search failed: " + e.getMessage());
+            return List.of();
+        } finally {
+            long ms = (System.nanoTime() - start) / 1_000_000;
+            if (ms > LATENCY_BUDGET_MS) {
+                System.err.println("Search over budget: " + ms + " ms for \"" + query + "\"");
+            }
+        }
+    }
+
+    private List<SearchHit> run(Connection c, String match, long userId, int limit) throws SQLException {
+        // Rank ids first, then build snippets for the final page only (one query per source)
+        List<Candidate> candidates = new ArrayList<>();
+        for (Source source : SOURCES) {
+            try (PreparedStatement ps = c.prepareStatement(source.candidates())) {
+                ps.setString(1, match);
+                ps.setLong(2, userId);
+                ps.setInt(3, CANDIDATE_WINDOW);
+                ps.setInt(4, limit);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) candidates.add(new Candidate(source, rs.getLong(1), rs.getDouble(2)));
+                }
+            }
+        }
+        candidates.sort(Comparator.comparingDouble(Candidate::score));
+        List<Candidate> top = candidates.subList(0, Math.min(limit, candidates.size()));
+
+        Map<Candidate, SearchHit> hits = new HashMap<>();
+        for (Source source : SOURCES) {
+            List<Candidate> mine = top.stream().filter(cand -> cand.source() == source).toList();
+            if (mine.isEmpty()) continue;
+            Map<Long, Candidate> byId = new HashMap<>();
+            StringJoiner ids = new StringJoiner(",", "[", "]");
+            for (Candidate cand : mine) {
+                byId.put(cand.id(), cand);
+                ids.add(Long.toString(cand.id()));
+            }
+            try (PreparedStatement ps = c.prepareStatement(source.detail())) {
+                ps.setString(1, match);
+                ps.setLong(2, Collections.min(byId.keySet()));
+                ps.setLong(3, Collections.max(byId.keySet()));
+                ps.setString(4, ids.toString());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Candidate cand = byId.get(rs.getLong(1));
+                        hits.put(cand, new SearchHit(source.kind(), cand.id(),
+                                rs.getString(2), rs.getString(3), cand.score()));
+                    }
+                }
+            }
+        }
+        List<SearchHit> ranked = new ArrayList<>(hits.size());
+        for (Candidate cand : top) {
+            SearchHit hit = hits.get(cand);
+            if (hit != null) ranked.add(hit);
+        }
+        return ranked;
+    }
+
+    private record Candidate(Source source, long id, double score) {}
+
+    /** Splits input the way the unicode61 tokenizer does: on anything that is not a letter, digit or mark. */
+    static List<String> terms(String query) {
+        if (query == null) return List.of();
+        List<String> terms = new ArrayList<>();
+        for (String word : query.split("[^\\p{L}\\p{N}\\p{M}]+")) {
+            if (!word.isEmpty()) terms.add(word);
+        }
+        return terms;
+    }
+
+    /**
+     * Builds a safe FTS5 query: each word becomes a quoted phrase, so quotes, colons, NEAR, AND/OR/NOT
+     * and the like are matched literally.
+     *
+     * @param prefix whether the last word should also match longer words
+     */
+    static String toMatchExpression(List<String> terms, boolean prefix) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < terms.size(); i++) {
+            if (i > 0) sb.append(' ');
+            sb.append('"').append(terms.get(i)).append('"');
+        }
+        return prefix ? sb.append('*').toString() : sb.toString();
+    }
+}
@@ -0,0 +1,97 @@
+package com.cab302.eduplanner.util;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Consecutive-failure circuit breaker. After {@code failureThreshold} failures in a row the circuit opens
+ * and callers are turned away without trying, so an unhealthy service is not hammered and users get an
+ * answer straight away. Once {@code openDuration} has passed one caller is let through as a probe: success
+ * closes the circuit, failure opens it for another period.
+ */
+public final class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private boolean probing;
+
+    /**
+     * @param failureThreshold consecutive failures that open the circuit
+     * @param openDuration     how long the circuit stays open before a probe is allowed
+     */
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this(failureThreshold, openDuration, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier nanoClock) {
+        if (failureThreshold < 1 || openDuration.isNegative()) {
+            throw new IllegalArgumentException("failureThreshold must be positive and openDuration not negative");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Asks to make a call. Returns false while the circuit is open, or half-open with a probe already out;
+     * a caller that gets true must report the outcome with {@link #recordSuccess} or {@link #recordFailure},
+     * or hand the permit back with {@link #release} if the call ended without one.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            probing = false;
+        }
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if (probing) yield false;
+                probing = true;
+                yield true;
+            }
+        };
+    }
+
+    public synchronized void recordSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+        probing = false;
+    }
+
+    /**
+     * Gives back a permit whose call ended without telling anything about the service, e.g. because the
+     * caller was interrupted. A half-open circuit lets the next caller probe instead.
+     */
+    public synchronized void release() {
+        probing = false;
+    }
+
+    public synchronized void recordFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = nanoClock.getAsLong();
+            probing = false;
+        }
+    }
+
+    /** Time until a probe is allowed, zero unless the circuit is open. */
+    public synchronized Duration retryIn() {
+        if (state != State.OPEN) return Duration.ZERO;
+        return Duration.ofNanos(Math.max(0, openNanos - (nanoClock.getAsLong() - openedAt)));
+    }
+
+    public synchronized State state() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+}
@@ -0,0 +1,70 @@
+package com.cab302.eduplanner.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with logarithmic buckets: each bucket's upper bound is 2^(1/4) (about 19%)
+ * above the previous one, from 1 ms to about two minutes, so any percentile is reported to within one
+ * bucket. Recording is a single atomic increment and safe from any thread.
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS_PER_DOUBLING = 4;
+    private static final long[] UPPER_BOUNDS = new long[BUCKETS_PER_DOUBLING * 17 + 1];
+
+    static {
+        for (int i = 0; i < UPPER_BOUNDS.length; i++) {
+            UPPER_BOUNDS[i] = Math.round(TimeUnit.MILLISECONDS.toNanos(1) * Math.pow(2, (double) i / BUCKETS_PER_DOUBLING));
+        }
+    }
+
+    // One extra bucket for anything slower than the last bound
+    private final AtomicLongArray counts = new AtomicLongArray(UPPER_BOUNDS.length + 1);
+
+    public void record(long nanos) {
+        counts.incrementAndGet(bucket(nanos));
+    }
+
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) total += counts.get(i);
+        return total;
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile, in nanoseconds; 0 when nothing has been
+     * recorded. Samples beyond the last bucket report {@link Long#MAX_VALUE}.
+     *
+     * @param percentile between 0 (exclusive) and 1 (inclusive), for example 0.95
+     */
+    public long percentileNanos(double percentile) {
+        if (!(percentile > 0 && percentile <= 1)) {
+            throw new IllegalArgumentException("percentile must be in (0, 1]");
+        }
+        long[] snapshot = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < snapshot.length; i++) total += snapshot[i] = counts.get(i);
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(percentile * total), seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return i < UPPER_BOUNDS.length ? UPPER_BOUNDS[i] : Long.MAX_VALUE;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /** Percentile in milliseconds, for logs and status text. */
+    public double percentileMillis(double percentile) {
+        return percentileNanos(percentile) / 1e6;
+    }
+
+    private static int bucket(long nanos) {
+        int low = 0, high = UPPER_BOUNDS.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (UPPER_BOUNDS[mid] < nanos) low = mid + 1; else high = mid;
+        }
+        return low;
+    }
+}
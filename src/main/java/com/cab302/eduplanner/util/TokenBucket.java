@@ -0,0 +1,58 @@
+package com.cab302.eduplanner.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket rate limiter: up to {@code capacity} permits can be taken at once, after which permits
+ * refill at a steady rate. A caller that finds the bucket short reserves its permits anyway and sleeps
+ * until they would have refilled, so waiting callers are served in arrival order without holding a lock.
+ * Sleeping is cheap on virtual threads.
+ */
+public final class TokenBucket {
+
+    private final double capacity;
+    private final double permitsPerNano;
+    private final LongSupplier nanoClock;
+    private double tokens;
+    private long refilledAt;
+
+    /**
+     * @param capacity          permits available in a burst; the bucket starts full
+     * @param permitsPerSecond  steady refill rate
+     */
+    public TokenBucket(int capacity, double permitsPerSecond) {
+        this(capacity, permitsPerSecond, System::nanoTime);
+    }
+
+    TokenBucket(int capacity, double permitsPerSecond, LongSupplier nanoClock) {
+        if (capacity < 1 || !(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("capacity and rate must be positive");
+        }
+        this.capacity = capacity;
+        this.permitsPerNano = permitsPerSecond / 1e9;
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.refilledAt = nanoClock.getAsLong();
+    }
+
+    /** Takes one permit, sleeping until it is available. */
+    public void acquire() throws InterruptedException {
+        acquire(1);
+    }
+
+    /** Takes {@code permits} permits, sleeping until they are available. */
+    public void acquire(int permits) throws InterruptedException {
+        long wait = reserve(permits);
+        if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+    }
+
+    /** Takes the permits now and returns how long the caller must wait before using them, in nanoseconds. */
+    synchronized long reserve(int permits) {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * permitsPerNano);
+        refilledAt = now;
+        tokens -= permits;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / permitsPerNano);
+    }
+}
@@ -9,6 +9,7 @@ module com.cab302.eduplanner {
     requires org.xerial.sqlitejdbc;
     requires com.fasterxml.jackson.databind;
     requires okhttp3;
+    requires okio;
 
 
     requires org.apache.pdfbox;
@@ -0,0 +1,172 @@
+package com.cab302.eduplanner;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        String url = "jdbc:sqlite:" + tempDir.resolve("pool-test.db");
+        pool = new ConnectionPool(url, 2, 100, List.of(
+                "PRAGMA foreign_keys = ON;",
+                "PRAGMA journal_mode = WAL;"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void pragmasAreAppliedToPooledConnections() throws SQLException {
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+            try (ResultSet rs = st.executeQuery("PRAGMA foreign_keys")) {
+                assertTrue(rs.next());
+                assertEquals(1, rs.getInt(1));
+            }
+            try (ResultSet rs = st.executeQuery("PRAGMA journal_mode")) {
+                assertTrue(rs.next());
+                assertEquals("wal", rs.getString(1).toLowerCase());
+            }
+        }
+    }
+
+    @Test
+    void closingReturnsConnectionInsteadOfOpeningNewOnes() throws SQLException {
+        for (int i = 0; i < 10; i++) {
+            try (Connection c = pool.getConnection()) {
+                assertFalse(c.isClosed());
+            }
+        }
+        ConnectionPool.Stats stats = pool.stats();
+        assertEquals(1, stats.open(), "Sequential borrows should reuse one physical connection");
+        assertEquals(1, stats.idle());
+        assertEquals(0, stats.active());
+        assertEquals(10, stats.acquisitions());
+    }
+
+    @Test
+    void returnedConnectionRejectsFurtherUse() throws SQLException {
+        Connection c = pool.getConnection();
+        c.close();
+        assertTrue(c.isClosed());
+        assertThrows(SQLException.class, c::createStatement);
+    }
+
+    @Test
+    void borrowTimesOutWhenPoolIsExhausted() throws SQLException {
+        try (Connection a = pool.getConnection(); Connection b = pool.getConnection()) {
+            assertThrows(SQLException.class, () -> pool.getConnection());
+            assertEquals(2, pool.stats().active());
+        }
+        assertEquals(1, pool.stats().timeouts());
+        assertTrue(pool.stats().maxWaitNanos() > 0);
+    }
+
+    @Test
+    void openTransactionIsRolledBackOnReturn() throws SQLException {
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+            st.execute("CREATE TABLE t (v INTEGER)");
+        }
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+            c.setAutoCommit(false);
+            st.execute("INSERT INTO t VALUES (1)");
+        }
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM t")) {
+            assertTrue(c.getAutoCommit());
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void repeatedPrepareOfSameSqlHitsStatementCache() throws SQLException {
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+            st.execute("CREATE TABLE t (v INTEGER)");
+        }
+        for (int i = 0; i < 5; i++) {
+            try (Connection c = pool.getConnection();
+                 PreparedStatement ps = c.prepareStatement("INSERT INTO t VALUES (?)")) {
+                ps.setInt(1, i);
+                assertEquals(1, ps.executeUpdate());
+            }
+        }
+        ConnectionPool.StatementCacheStats stats = pool.statementCacheStats();
+        assertEquals(1, stats.misses());
+        assertEquals(4, stats.hits());
+        assertEquals(0.8, stats.hitRate(), 1e-9);
+
+        try (Connection c = pool.getConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT COUNT(*) FROM t");
+             ResultSet rs = ps.executeQuery()) {
+            assertTrue(rs.next());
+            assertEquals(5, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void nestedPrepareOfSameSqlGetsIndependentStatement() throws SQLException {
+        try (Connection c = pool.getConnection();
+             PreparedStatement outer = c.prepareStatement("SELECT 1");
+             PreparedStatement inner = c.prepareStatement("SELECT 1")) {
+            assertNotSame(outer, inner);
+            try (ResultSet a = outer.executeQuery(); ResultSet b = inner.executeQuery()) {
+                assertTrue(a.next());
+                assertTrue(b.next());
+            }
+        }
+    }
+
+    @Test
+    void closedStatementProxyCannotTouchTheNextCheckout() throws SQLException {
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+            st.execute("CREATE TABLE t (v INTEGER)");
+        }
+        try (Connection c = pool.getConnection()) {
+            PreparedStatement stale = c.prepareStatement("INSERT INTO t VALUES (?)");
+            stale.close();
+            assertTrue(stale.isClosed());
+            assertThrows(SQLException.class, () -> stale.setInt(1, 1));
+
+            try (PreparedStatement current = c.prepareStatement("INSERT INTO t VALUES (?)")) {
+                assertEquals(1, pool.statementCacheStats().hits(), "same cached statement checked out again");
+                current.setInt(1, 7);
+                current.addBatch();
+                stale.close(); // a second close of the old proxy must not reset the new checkout
+                assertFalse(current.isClosed());
+                assertEquals(1, current.executeBatch().length, "the batch added through the new checkout survives");
+            }
+        }
+    }
+
+    @Test
+    void closingStatementClosesItsResultSet() throws SQLException {
+        ResultSet rs;
+        try (Connection c = pool.getConnection()) {
+            try (PreparedStatement ps = c.prepareStatement("SELECT 1 UNION ALL SELECT 2")) {
+                rs = ps.executeQuery();
+                assertTrue(rs.next());
+            }
+            assertTrue(rs.isClosed(), "no read cursor is left on the pooled connection");
+        }
+    }
+}
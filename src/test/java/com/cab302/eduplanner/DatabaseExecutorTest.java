@@ -0,0 +1,81 @@
+package com.cab302.eduplanner;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseExecutorTest {
+
+    private final DatabaseExecutor executor = new DatabaseExecutor(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void writesRunOneAtATimeOnTheWriterThread() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(executor.write("test.write", () -> {
+                maxConcurrent.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(1);
+                running.decrementAndGet();
+                return Thread.currentThread().getName();
+            }));
+        }
+        for (CompletableFuture<String> f : futures) {
+            assertEquals("db-writer-1", f.join());
+        }
+        assertEquals(1, maxConcurrent.get());
+    }
+
+    @Test
+    void readsRunOnReaderThreads() {
+        String name = executor.read("test.read", () -> Thread.currentThread().getName()).join();
+        assertTrue(name.startsWith("db-reader-"));
+    }
+
+    @Test
+    void failuresCompleteExceptionallyAndAreCounted() {
+        CompletableFuture<Object> f = executor.read("test.fail", () -> {
+            throw new IllegalStateException("boom");
+        });
+        CompletionException ex = assertThrows(CompletionException.class, f::join);
+        assertInstanceOf(IllegalStateException.class, ex.getCause());
+
+        DatabaseExecutor.CallMetrics m = executor.metrics().getFirst();
+        assertEquals("test.fail", m.operation());
+        assertEquals(1, m.calls());
+        assertEquals(1, m.failures());
+    }
+
+    @Test
+    void metricsRecordQueueWaitBehindEarlierWrites() {
+        CompletableFuture<Void> slow = executor.write("test.slow", () -> {
+            Thread.sleep(50);
+            return null;
+        });
+        CompletableFuture<Void> queued = executor.write("test.queued", () -> null);
+        CompletableFuture.allOf(slow, queued).join();
+
+        DatabaseExecutor.CallMetrics m = executor.metrics().stream()
+                .filter(c -> c.operation().equals("test.queued"))
+                .findFirst().orElseThrow();
+        assertTrue(m.maxQueueMs() >= 40, "queued write should have waited for the slow one");
+
+        DatabaseExecutor.CallMetrics s = executor.metrics().stream()
+                .filter(c -> c.operation().equals("test.slow"))
+                .findFirst().orElseThrow();
+        assertTrue(s.avgExecMs() >= 40);
+    }
+}
@@ -0,0 +1,120 @@
+package com.cab302.eduplanner;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Connection conn;
+
+    @BeforeEach
+    void open() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:sqlite:" + tempDir.resolve("migrate-test.db"));
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        conn.close();
+    }
+
+    @Test
+    void freshDatabaseIsMigratedToLatestVersion() throws SQLException {
+        SchemaMigrator migrator = new SchemaMigrator();
+
+        List<SchemaMigrator.Migration> applied = migrator.migrate(conn);
+
+        assertEquals(migrator.latestVersion(), applied.size());
+        assertEquals(migrator.latestVersion(), SchemaMigrator.readVersion(conn));
+        assertTrue(exists("table", "tasks"));
+        assertTrue(exists("index", "idx_tasks_user_due"));
+        assertFalse(exists("index", "idx_tasks_user_id"));
+    }
+
+    @Test
+    void currentDatabaseIsLeftAlone() throws SQLException {
+        SchemaMigrator migrator = new SchemaMigrator();
+        migrator.migrate(conn);
+
+        assertTrue(migrator.migrate(conn).isEmpty());
+        assertTrue(conn.getAutoCommit());
+    }
+
+    @Test
+    void legacyDatabaseWithoutVersionAdoptsBaseline() throws SQLException {
+        // Shape left behind by the old initSchema(): tables present, user_version still 0
+        try (Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE users (user_id INTEGER PRIMARY KEY AUTOINCREMENT, username TEXT NOT NULL UNIQUE,"
+                    + " email TEXT UNIQUE, first_name TEXT, last_name TEXT, password_hash TEXT NOT NULL,"
+                    + " created_at TEXT, updated_at TEXT)");
+            st.execute("CREATE TABLE tasks (task_id INTEGER PRIMARY KEY AUTOINCREMENT, user_id INTEGER NOT NULL,"
+                    + " subject TEXT, title TEXT NOT NULL, due_date TEXT, notes TEXT, weight INTEGER,"
+                    + " achieved_mark REAL, max_mark REAL, created_at TEXT NOT NULL DEFAULT (datetime('now')),"
+                    + " updated_at TEXT NOT NULL DEFAULT (datetime('now')),"
+                    + " FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE)");
+            st.execute("CREATE INDEX idx_tasks_user_id ON tasks(user_id)");
+            st.execute("INSERT INTO users (username, password_hash) VALUES ('kept', 'x')");
+        }
+
+        new SchemaMigrator().migrate(conn);
+
+        assertFalse(exists("index", "idx_tasks_user_id"));
+        assertTrue(exists("table", "rubrics"));
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM users")) {
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void failingMigrationRollsBackEveryPendingStep() throws SQLException {
+        SchemaMigrator broken = new SchemaMigrator(List.of(
+                new SchemaMigrator.Migration(1, "ok", List.of("CREATE TABLE a (id INTEGER)")),
+                new SchemaMigrator.Migration(2, "bad", List.of("CREATE TABLE b (id INTEGER", "unused"))));
+
+        SQLException ex = assertThrows(SQLException.class, () -> broken.migrate(conn));
+
+        assertTrue(ex.getMessage().contains("Migration 2"));
+        assertEquals(0, SchemaMigrator.readVersion(conn));
+        assertFalse(exists("table", "a"));
+        assertTrue(conn.getAutoCommit());
+    }
+
+    @Test
+    void databaseNewerThanBuildIsRejected() throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("PRAGMA user_version = 99");
+        }
+        assertThrows(SQLException.class, () -> new SchemaMigrator().migrate(conn));
+    }
+
+    @Test
+    void versionsMustBeConsecutive() {
+        assertThrows(IllegalArgumentException.class, () -> new SchemaMigrator(List.of(
+                new SchemaMigrator.Migration(1, "one", List.of()),
+                new SchemaMigrator.Migration(3, "three", List.of()))));
+    }
+
+    private boolean exists(String type, String name) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT 1 FROM sqlite_master WHERE type = '" + type
+                     + "' AND name = '" + name + "'")) {
+            return rs.next();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.cab302.eduplanner.integration.openai;
+
+import com.cab302.eduplanner.integration.openai.StubGraderServer.Fault;
+import com.cab302.eduplanner.util.CircuitBreaker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenAiRubricClientResilienceTest {
+
+    private StubGraderServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new StubGraderServer(Duration.ZERO);
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        server.close();
+    }
+
+    private OpenAiRubricClient client(OpenAiRubricClient.Resilience resilience) {
+        return new OpenAiRubricClient(new OkHttpClient(), new ObjectMapper(), "test-key", "test-model",
+                server.endpoint(), resilience);
+    }
+
+    private static OpenAiRubricClient.Resilience retries(int maxAttempts) {
+        return new OpenAiRubricClient.Resilience(maxAttempts, Duration.ofMillis(10), Duration.ofSeconds(5), 0, 10,
+                Duration.ofSeconds(30));
+    }
+
+    @Test
+    void transientFailuresAreRetried() throws IOException {
+        server.inject(Fault.status(503), Fault.disconnect(), Fault.status(500));
+        OpenAiRubricClient client = client(retries(4));
+
+        assertEquals(7.0, client.gradeAssignment("rubric", "essay").getOverallScore());
+
+        assertEquals(4, server.requests());
+        OpenAiRubricClient.ResilienceStats stats = client.resilienceStats();
+        assertEquals(4, stats.attempts());
+        assertEquals(3, stats.retries());
+        assertEquals(CircuitBreaker.State.CLOSED, stats.circuit());
+    }
+
+    @Test
+    void finalStatusesAndExhaustedRetriesFail() {
+        server.inject(Fault.status(400));
+        IOException badRequest = assertThrows(IOException.class, () -> client(retries(4)).gradeAssignment("rubric", "essay"));
+        assertTrue(badRequest.getMessage().contains("status 400"), badRequest.getMessage());
+        assertEquals(1, server.requests(), "a bad request is not retried");
+
+        server.inject(Fault.status(502), Fault.status(502), Fault.status(502), Fault.status(502));
+        IOException exhausted = assertThrows(IOException.class, () -> client(retries(3)).gradeAssignment("rubric", "essay"));
+        assertTrue(exhausted.getMessage().contains("status 502"), exhausted.getMessage());
+        assertEquals(4, server.requests());
+    }
+
+    @Test
+    void retryAfterIsHonoured() throws IOException {
+        server.inject(Fault.rateLimited("1"));
+        long start = System.nanoTime();
+        client(retries(2)).gradeAssignment("rubric", "essay");
+        assertTrue(System.nanoTime() - start >= 1_000_000_000L, "waited the second the server asked for");
+        assertEquals(2, server.requests());
+
+        server.inject(Fault.rateLimited("3600"));
+        IOException tooLong = assertThrows(IOException.class, () -> client(retries(4)).gradeAssignment("rubric", "essay"));
+        assertTrue(tooLong.getMessage().contains("status 429"), tooLong.getMessage());
+        assertEquals(3, server.requests(), "a wait beyond maxDelay is not sat out");
+    }
+
+    private Response rateLimited(String... headerPairs) {
+        Response.Builder response = new Response.Builder()
+                .request(new Request.Builder().url(server.endpoint()).build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(429)
+                .message("Too Many Requests");
+        for (int i = 0; i < headerPairs.length; i += 2) response.header(headerPairs[i], headerPairs[i + 1]);
+        return response.build();
+    }
+
+    @Test
+    void retryAfterHeaderForms() {
+        assertEquals(Duration.ofSeconds(2), OpenAiRubricClient.retryAfter(rateLimited("Retry-After", "2")));
+        assertEquals(Duration.ofMillis(250), OpenAiRubricClient.retryAfter(rateLimited("retry-after-ms", "250", "Retry-After", "1")));
+        String inTenSeconds = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(10));
+        Duration untilDate = OpenAiRubricClient.retryAfter(rateLimited("Retry-After", inTenSeconds));
+        assertTrue(untilDate.toSeconds() >= 8 && untilDate.toSeconds() <= 10, untilDate.toString());
+        assertNull(OpenAiRubricClient.retryAfter(rateLimited("Retry-After", "soon")));
+        assertNull(OpenAiRubricClient.retryAfter(rateLimited()));
+    }
+
+    @Test
+    void openCircuitFailsFastThenRecovers() throws Exception {
+        OpenAiRubricClient client = client(new OpenAiRubricClient.Resilience(1, Duration.ZERO, Duration.ZERO, 0, 3,
+                Duration.ofMillis(300)));
+        server.inject(Fault.status(503), Fault.status(503), Fault.status(503));
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IOException.class, () -> client.gradeAssignment("rubric", "essay"));
+        }
+
+        IOException fastFail = assertThrows(IOException.class, () -> client.gradeAssignment("rubric", "essay"));
+        assertTrue(fastFail.getMessage().contains("paused"), fastFail.getMessage());
+        assertEquals(3, server.requests(), "the open circuit kept the request from the server");
+        assertEquals(CircuitBreaker.State.OPEN, client.resilienceStats().circuit());
+        assertEquals(1, client.resilienceStats().rejected());
+
+        Thread.sleep(350);
+        assertEquals(7.0, client.gradeAssignment("rubric", "essay").getOverallScore(), "the probe succeeds");
+        assertEquals(CircuitBreaker.State.CLOSED, client.resilienceStats().circuit());
+    }
+
+    @Test
+    void interruptedProbeDoesNotKeepTheCircuitShut() throws Exception {
+        OpenAiRubricClient client = client(new OpenAiRubricClient.Resilience(1, Duration.ZERO, Duration.ZERO, 0.9, 1,
+                Duration.ZERO));
+        for (int i = 0; i < OpenAiRubricClient.MIN_HEDGE_SAMPLES; i++) {
+            client.gradeAssignment("rubric", "essay");
+        }
+        server.inject(Fault.status(503), Fault.slow(Duration.ofSeconds(3)), Fault.slow(Duration.ofSeconds(3)));
+        assertThrows(IOException.class, () -> client.gradeAssignment("rubric", "essay"));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, client.resilienceStats().circuit());
+
+        // The probe is hedged, then interrupted while it waits for either call
+        AtomicReference<Throwable> probe = new AtomicReference<>();
+        Thread caller = new Thread(() -> probe.set(assertThrows(IOException.class,
+                () -> client.gradeAssignment("rubric", "essay"))));
+        caller.start();
+        Thread.sleep(300);
+        caller.interrupt();
+        caller.join(2_000);
+        assertInstanceOf(InterruptedIOException.class, probe.get());
+
+        assertEquals(7.0, client.gradeAssignment("rubric", "essay").getOverallScore(), "the next caller may probe");
+        assertEquals(CircuitBreaker.State.CLOSED, client.resilienceStats().circuit());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void slowAttemptIsHedged() throws IOException {
+        OpenAiRubricClient client = client(new OpenAiRubricClient.Resilience(1, Duration.ZERO, Duration.ZERO, 0.9, 5,
+                Duration.ofSeconds(30)));
+        for (int i = 0; i < OpenAiRubricClient.MIN_HEDGE_SAMPLES; i++) {
+            client.gradeAssignment("rubric", "essay");
+        }
+        assertEquals(0, client.resilienceStats().hedges(), "no hedging while requests are quick");
+
+        server.inject(Fault.slow(Duration.ofSeconds(3)));
+        long start = System.nanoTime();
+        assertEquals(7.0, client.gradeAssignment("rubric", "essay").getOverallScore());
+
+        assertTrue(System.nanoTime() - start < 2_000_000_000L, "the duplicate answered before the slow attempt");
+        assertEquals(1, client.resilienceStats().hedges());
+        assertEquals(OpenAiRubricClient.MIN_HEDGE_SAMPLES + 2, client.resilienceStats().attempts());
+        assertTrue(client.attemptLatency().count() >= OpenAiRubricClient.MIN_HEDGE_SAMPLES + 1);
+    }
+}
@@ -0,0 +1,356 @@
+package com.cab302.eduplanner.integration.openai;
+
+import com.cab302.eduplanner.model.RubricAnalysisResult;
+import com.cab302.eduplanner.model.RubricCategoryEvaluation;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class OpenAiRubricClientTest {
+
+    private static final Pattern PART = Pattern.compile("this is part (\\d+)");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    /**
+     * Client whose requests never leave the process: each one is answered with the grade returned by
+     * {@code gradeForPart} for the part number named in the prompt (0 when the prompt names none).
+     */
+    private OpenAiRubricClient client(IntFunction<RubricAnalysisResult> gradeForPart) {
+        Interceptor fakeApi = chain -> {
+            calls.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Buffer sent = new Buffer();
+                chain.request().body().writeTo(sent);
+                String input = mapper.readTree(sent.readUtf8()).path("input").asText();
+                Matcher m = PART.matcher(input);
+                int part = m.find() ? Integer.parseInt(m.group(1)) : 0;
+                Thread.sleep(50);
+
+                ObjectNode body = mapper.createObjectNode();
+                body.putArray("output").addObject().putArray("content").addObject()
+                        .put("type", "output_text")
+                        .put("text", mapper.writeValueAsString(gradeForPart.apply(part)));
+                body.putObject("usage").put("input_tokens", input.length() / 4).put("output_tokens", 100);
+                return new Response.Builder()
+                        .request(chain.request())
+                        .protocol(Protocol.HTTP_1_1)
+                        .code(200)
+                        .message("OK")
+                        .body(ResponseBody.create(mapper.writeValueAsString(body), MediaType.get("application/json")))
+                        .build();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        };
+        OkHttpClient http = new OkHttpClient.Builder().addInterceptor(fakeApi).build();
+        return new OpenAiRubricClient(http, mapper, "test-key", "test-model");
+    }
+
+    private static RubricCategoryEvaluation category(String name, double score, String evidence) {
+        return new RubricCategoryEvaluation(name, score, 10.0, evidence, List.of("improve " + name + " " + score));
+    }
+
+    @Test
+    void shortSubmissionIsOneRequestWithoutPartContext() throws IOException {
+        RubricAnalysisResult grade = new RubricAnalysisResult(8.0, 10.0, List.of(category("Clarity", 8, "intro")));
+        OpenAiRubricClient.ChunkedGrading graded = client(part -> {
+            assertEquals(0, part);
+            return grade;
+        }).gradeAssignmentInChunks("rubric", "a short essay");
+
+        assertEquals(1, calls.get());
+        assertEquals(8.0, graded.result().getOverallScore());
+        assertEquals(1, graded.chunks().size());
+        assertEquals(100, graded.outputTokens());
+    }
+
+    @Test
+    void longSubmissionIsGradedInBoundedParallelChunks() throws IOException {
+        String essay = "word ".repeat(10_000).trim(); // 49,999 characters
+        OpenAiRubricClient client = client(part -> new RubricAnalysisResult(0.0, 20.0, List.of(
+                category("Clarity", part == 2 ? 9 : 4, "part " + part),
+                category("Referencing", part == 5 ? 7 : 0, part == 5 ? "bibliography" : ""))));
+
+        OpenAiRubricClient.ChunkedGrading graded = client.gradeAssignmentInChunks("rubric", essay, 10_000, 1_000, 2);
+
+        assertEquals(6, graded.chunks().size());
+        assertEquals(6, calls.get());
+        assertTrue(maxInFlight.get() <= 2, "at most two requests at once, saw " + maxInFlight.get());
+        assertTrue(maxInFlight.get() > 1, "chunks were sent one at a time");
+
+        RubricAnalysisResult result = graded.result();
+        assertEquals(List.of("Clarity", "Referencing"), result.getCategories().stream().map(RubricCategoryEvaluation::getName).toList());
+        assertEquals("part 2", result.getCategories().get(0).getEvidence());
+        assertEquals("bibliography", result.getCategories().get(1).getEvidence());
+        assertEquals(16.0, result.getOverallScore());
+        assertEquals(20.0, result.getOverallMaxScore());
+
+        for (int i = 0; i < 6; i++) {
+            OpenAiRubricClient.ChunkMetrics m = graded.chunks().get(i);
+            assertEquals(i, m.index());
+            assertTrue(m.latencyNanos() >= 50_000_000L);
+            assertTrue(m.inputTokens() > 0);
+        }
+        assertEquals(6, client.stats().requests());
+        assertEquals(graded.inputTokens(), client.stats().inputTokens());
+    }
+
+    @Test
+    void chunksOverlapAndCoverTheWholeText() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < 5_000; i++) text.append("w").append(i).append(' ');
+        String essay = text.toString().trim();
+
+        List<String> chunks = OpenAiRubricClient.split(essay, 1_000, 200);
+
+        for (String chunk : chunks) {
+            assertTrue(chunk.length() <= 1_000);
+            assertFalse(chunk.startsWith(" ") || chunk.endsWith(" "), "cut on a word boundary: " + chunk);
+        }
+        for (int i = 1; i < chunks.size(); i++) {
+            String previous = chunks.get(i - 1), current = chunks.get(i);
+            int shared = previous.length() - previous.indexOf(current.substring(0, 20));
+            assertTrue(shared >= 100 && shared <= 200, "overlap of " + shared);
+        }
+        assertTrue(essay.startsWith(chunks.getFirst()));
+        assertTrue(essay.endsWith(chunks.getLast()));
+        assertEquals(List.of("short"), OpenAiRubricClient.split("short", 1_000, 200));
+        assertThrows(IllegalArgumentException.class, () -> OpenAiRubricClient.split(essay, 1_000, 500));
+    }
+
+    @Test
+    void mergeKeepsEachCategoryBestScore() {
+        RubricAnalysisResult merged = OpenAiRubricClient.merge(List.of(
+                new RubricAnalysisResult(5.0, 20.0, List.of(category("Clarity", 5, "a"), category("Analysis", 0, ""))),
+                new RubricAnalysisResult(6.0, 20.0, List.of(category(" clarity ", 3, "b"), category("Analysis", 6, "c")))));
+
+        assertEquals(2, merged.getCategories().size());
+        RubricCategoryEvaluation clarity = merged.getCategories().get(0);
+        assertEquals("Clarity", clarity.getName());
+        assertEquals("a", clarity.getEvidence());
+        assertEquals(List.of("improve Clarity 5.0"), clarity.getImprovementSteps());
+        assertEquals("c", merged.getCategories().get(1).getEvidence());
+        assertEquals(11.0, merged.getOverallScore());
+
+        RubricAnalysisResult noCategories = OpenAiRubricClient.merge(List.of(
+                new RubricAnalysisResult(4.0, 10.0, null), new RubricAnalysisResult(7.0, 10.0, null)));
+        assertEquals(7.0, noCategories.getOverallScore());
+        assertEquals(10.0, noCategories.getOverallMaxScore());
+    }
+
+    @Test
+    void failedChunkFailsTheGrade() {
+        OpenAiRubricClient client = client(part -> {
+            if (part == 3) throw new IllegalStateException("bad chunk");
+            return new RubricAnalysisResult(1.0, 1.0, List.of());
+        });
+        String essay = "word ".repeat(5_000);
+
+        assertThrows(IllegalStateException.class,
+                () -> client.gradeAssignmentInChunks("rubric", essay, 5_000, 500, 3));
+    }
+
+    private static RubricAnalysisResult threeCategories() {
+        return new RubricAnalysisResult(19.0, 30.0, List.of(
+                category("Clarity", 7, "the introduction \"sets out\" the argument"),
+                category("Analysis", 6, "section 2 — weighs both sides"),
+                category("Referencing", 6, "bibliography")));
+    }
+
+    /** Client whose requests are answered with the given server-sent events. */
+    private OpenAiRubricClient streamingClient(String events) {
+        Interceptor fakeApi = chain -> new Response.Builder()
+                .request(chain.request())
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create(events, MediaType.get("text/event-stream")))
+                .build();
+        return new OpenAiRubricClient(new OkHttpClient.Builder().addInterceptor(fakeApi).build(), mapper, "test-key", "test-model");
+    }
+
+    @Test
+    void incrementalParserReportsEachCategoryWhenItCloses() throws IOException {
+        String json = mapper.writeValueAsString(threeCategories());
+        String expected = mapper.writeValueAsString(mapper.readValue(json, RubricAnalysisResult.class));
+        int firstClosed = json.indexOf('}') + 1;
+
+        for (int step : new int[]{1, 7, 64, json.length()}) {
+            List<RubricCategoryEvaluation> seen = new ArrayList<>();
+            IncrementalGradeParser parser = new IncrementalGradeParser(mapper, seen::add);
+            for (int i = 0; i < json.length(); i += step) {
+                parser.feed(json.substring(i, Math.min(json.length(), i + step)));
+                if (step == 1 && i + 1 == firstClosed) {
+                    assertEquals(1, seen.size(), "first category reported as soon as its brace arrives");
+                }
+            }
+            RubricAnalysisResult result = parser.finish();
+            assertEquals(expected, mapper.writeValueAsString(result), "pieces of " + step);
+            assertEquals(List.of("Clarity", "Analysis", "Referencing"), seen.stream().map(RubricCategoryEvaluation::getName).toList());
+        }
+
+        IncrementalGradeParser cut = new IncrementalGradeParser(mapper, c -> { });
+        cut.feed(json.substring(0, json.length() - 3));
+        assertThrows(IOException.class, cut::finish);
+    }
+
+    @Test
+    void streamedGradeShowsCategoriesBeforeTheStreamEnds() throws IOException {
+        try (StubGraderServer server = new StubGraderServer(Duration.ZERO, Duration.ofMillis(15), threeCategories())) {
+            OpenAiRubricClient client = new OpenAiRubricClient(new OkHttpClient(), mapper, "test-key", "test-model", server.endpoint());
+            List<String> seen = new ArrayList<>();
+            List<Integer> finishedWhenSeen = new ArrayList<>();
+
+            RubricAnalysisResult result = client.gradeAssignmentStreaming("rubric", "essay", category -> {
+                seen.add(category.getName());
+                finishedWhenSeen.add(server.streamsFinished());
+            });
+
+            assertEquals(List.of("Clarity", "Analysis", "Referencing"), seen);
+            assertEquals(List.of(0, 0, 0), finishedWhenSeen, "every category arrived while the stream was still open");
+            assertEquals(mapper.writeValueAsString(threeCategories()), mapper.writeValueAsString(result));
+            assertEquals(1, client.stats().requests());
+            assertEquals(120, client.stats().outputTokens());
+        }
+    }
+
+    @Test
+    void streamErrorEventFailsTheGrade() {
+        String events = """
+                event: response.output_text.delta
+                data: {"type":"response.output_text.delta","delta":"{\\"overallScore\\": 3"}
+
+                event: response.failed
+                data: {"type":"response.failed","response":{"status":"failed","error":{"code":"server_error","message":"model overloaded"}}}
+
+                """;
+        IOException failed = assertThrows(IOException.class,
+                () -> streamingClient(events).gradeAssignmentStreaming("rubric", "essay", c -> { }));
+        assertTrue(failed.getMessage().contains("model overloaded"), failed.getMessage());
+
+        String cutOff = """
+                data: {"type":"response.output_text.delta","delta":"{\\"overallScore\\": 3, \\"categories\\": ["}
+
+                """;
+        assertThrows(IOException.class,
+                () -> streamingClient(cutOff).gradeAssignmentStreaming("rubric", "essay", c -> { }));
+    }
+
+    @Test
+    void payloadIsOneJsonObjectWithTheTextEscaped() throws IOException {
+        OpenAiRubricClient client = client(part -> null);
+        String rubric = "Clarity \"quoted\"\tand a back\\slash";
+        String essay = "line one\nline two \u0001 caf\u00e9 \uD83D\uDE00 end";
+
+        JsonNode sent = mapper.readTree(client.payload(rubric, essay, "part context", false).readUtf8());
+
+        assertEquals("test-model", sent.path("model").asText());
+        assertTrue(sent.path("instructions").asText().startsWith("You are a high level academic grader."));
+        assertEquals("part context\n\nRubric:\n" + rubric + "\n\nAssignment:\n" + essay, sent.path("input").asText());
+        assertEquals("json_schema", sent.path("text").path("format").path("type").asText());
+        assertEquals(3, sent.path("text").path("format").path("schema").path("required").size());
+        assertTrue(sent.path("stream").isMissingNode());
+
+        JsonNode streamed = mapper.readTree(client.payload(rubric, essay, null, true).readUtf8());
+        assertTrue(streamed.path("stream").asBoolean());
+        assertEquals("Rubric:\n" + rubric + "\n\nAssignment:\n" + essay, streamed.path("input").asText());
+    }
+
+    /**
+     * HotSpot's per-thread allocation counter as a supplier, or null if the JVM has none. Reached entirely
+     * through reflection: the tests run patched into com.cab302.eduplanner, which does not read
+     * java.management.
+     */
+    private static LongSupplier allocationCounter() {
+        try {
+            Object threads = Class.forName("java.lang.management.ManagementFactory")
+                    .getMethod("getThreadMXBean").invoke(null);
+            Method allocated = Class.forName("com.sun.management.ThreadMXBean").getMethod("getCurrentThreadAllocatedBytes");
+            if (!allocated.getDeclaringClass().isInstance(threads)) return null;
+            return () -> {
+                try {
+                    return (long) allocated.invoke(threads);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkPayloadAllocations(TestReporter reporter) throws Exception {
+        LongSupplier allocated = allocationCounter();
+        assumeTrue(allocated != null, "allocation counter not available");
+
+        OpenAiRubricClient client = client(part -> null);
+        String rubric = "Criterion: clear argument, evidence, referencing. ".repeat(40);
+        String essay = "The essay develops its argument with \"quoted\" sources.\n".repeat(2_000); // ~110 KB
+        long payloadBytes = client.payload(rubric, essay, null, false).size();
+
+        // What building each request used to cost: a JSON tree holding the joined prompt, written to a
+        // String, then encoded to UTF-8
+        JsonNode sent = mapper.readTree(client.payload(rubric, essay, null, false).readUtf8());
+        ObjectNode template = (ObjectNode) sent.deepCopy();
+        template.remove("input");
+        String instructions = sent.path("instructions").asText();
+
+        int rounds = 200;
+        long treeBytes = 0, bufferBytes = 0;
+        for (int warmup = 0; warmup < 2; warmup++) {
+            long before = allocated.getAsLong();
+            for (int i = 0; i < rounds; i++) {
+                ObjectNode node = template.deepCopy();
+                node.put("input", instructions + "\n\nRubric:\n" + rubric + "\n\nAssignment:\n" + essay);
+                assertTrue(mapper.writeValueAsString(node).getBytes(StandardCharsets.UTF_8).length > 0);
+            }
+            long middle = allocated.getAsLong();
+            for (int i = 0; i < rounds; i++) {
+                Buffer payload = client.payload(rubric, essay, null, false);
+                assertEquals(payloadBytes, payload.size());
+                payload.clear();
+            }
+            long after = allocated.getAsLong();
+            treeBytes = (middle - before) / rounds;
+            bufferBytes = (after - middle) / rounds;
+        }
+
+        reporter.publishEntry("payload of " + payloadBytes + " bytes", "JSON tree " + treeBytes
+                + " bytes allocated per request, prefix + generator " + bufferBytes);
+        assertTrue(bufferBytes * 4 < treeBytes, "at most a quarter of the allocation of the tree-built payload");
+    }
+}
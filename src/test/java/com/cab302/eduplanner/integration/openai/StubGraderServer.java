@@ -0,0 +1,266 @@
+package com.cab302.eduplanner.integration.openai;
+
+import com.cab302.eduplanner.model.RubricAnalysisResult;
+import com.cab302.eduplanner.model.RubricCategoryEvaluation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local HTTP/1.1 server that answers every request like the Responses API after a fixed delay, so the
+ * grading pipeline can be exercised and benchmarked without network access or API spend. Point an
+ * {@link OpenAiRubricClient} at {@link #endpoint()}. A request with {@code "stream": true} is answered with
+ * server-sent events instead: the grade JSON is cut into small text deltas sent one at a time.
+ * {@link #inject} queues faults that the next requests get instead of a normal answer.
+ */
+public final class StubGraderServer implements Closeable {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    /** Grade returned unless another is given. */
+    public static final RubricAnalysisResult GRADE = new RubricAnalysisResult(7.0, 10.0, List.of(
+            new RubricCategoryEvaluation("Clarity", 7.0, 10.0, "the introduction", List.of("Signpost each section"))));
+
+    /** Characters of the grade JSON per streamed delta. */
+    static final int DELTA_CHARACTERS = 24;
+
+    private final ServerSocket socket;
+    private final Duration latency;
+    private final Duration eventGap;
+    private final RubricAnalysisResult grade;
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final List<Long> arrivals = new ArrayList<>();
+    private final AtomicInteger streamsFinished = new AtomicInteger();
+    private final Queue<Fault> faults = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Misbehaviour for one request.
+     *
+     * @param status     error status to answer with, 0 to answer normally
+     * @param retryAfter value of the {@code Retry-After} header sent with the error, null for none
+     * @param delay      extra wait before answering
+     * @param dropConnection close the connection without answering
+     */
+    public record Fault(int status, String retryAfter, Duration delay, boolean dropConnection) {
+
+        public static Fault status(int status) {
+            return new Fault(status, null, Duration.ZERO, false);
+        }
+
+        public static Fault rateLimited(String retryAfter) {
+            return new Fault(429, retryAfter, Duration.ZERO, false);
+        }
+
+        public static Fault slow(Duration delay) {
+            return new Fault(0, null, delay, false);
+        }
+
+        public static Fault disconnect() {
+            return new Fault(0, null, Duration.ZERO, true);
+        }
+    }
+
+    public StubGraderServer(Duration latency) throws IOException {
+        this(latency, Duration.ZERO, GRADE);
+    }
+
+    /**
+     * @param latency  delay before the response, or before the first event of a stream
+     * @param eventGap delay before each further streamed event
+     * @param grade    grade every request is answered with
+     */
+    public StubGraderServer(Duration latency, Duration eventGap, RubricAnalysisResult grade) throws IOException {
+        this.latency = latency;
+        this.eventGap = eventGap;
+        this.grade = grade;
+        this.socket = new ServerSocket(0, 200, InetAddress.getLoopbackAddress());
+        connections.submit(this::acceptLoop);
+    }
+
+    public String endpoint() {
+        return "http://127.0.0.1:" + socket.getLocalPort() + "/v1/responses";
+    }
+
+    public int requests() {
+        return requests.get();
+    }
+
+    /** Most requests the server was handling at the same time. */
+    public int maxInFlight() {
+        return maxInFlight.get();
+    }
+
+    /** Queues faults for the next requests, one request each, in order. */
+    public void inject(Fault... next) {
+        faults.addAll(List.of(next));
+    }
+
+    /** Streamed responses whose last event has been sent. */
+    public int streamsFinished() {
+        return streamsFinished.get();
+    }
+
+    /** {@link System#nanoTime()} at which each request arrived, in arrival order. */
+    public synchronized List<Long> arrivals() {
+        return List.copyOf(arrivals);
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+        connections.shutdownNow();
+    }
+
+    private Void acceptLoop() {
+        while (!socket.isClosed()) {
+            try {
+                Socket connection = socket.accept();
+                connections.submit(() -> serve(connection));
+            } catch (IOException closed) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private void serve(Socket connection) {
+        try (connection;
+             InputStream in = new BufferedInputStream(connection.getInputStream());
+             OutputStream out = connection.getOutputStream()) {
+            for (String requestLine; (requestLine = readLine(in)) != null && !requestLine.isEmpty(); ) {
+                int length = 0;
+                for (String header; (header = readLine(in)) != null && !header.isEmpty(); ) {
+                    if (header.toLowerCase(Locale.ROOT).startsWith("content-length:")) {
+                        length = Integer.parseInt(header.substring("content-length:".length()).trim());
+                    }
+                }
+                byte[] prompt = in.readNBytes(length);
+                Fault fault = faults.poll();
+                if (fault != null) {
+                    Thread.sleep(fault.delay());
+                    if (fault.dropConnection() || fault.status() != 0) {
+                        arrived();
+                        inFlight.decrementAndGet();
+                        if (fault.dropConnection()) return;
+                        byte[] error = JSON.writeValueAsBytes(JSON.createObjectNode().set("error",
+                                JSON.createObjectNode().put("message", "injected " + fault.status())));
+                        out.write(("HTTP/1.1 " + fault.status() + " Injected\r\nContent-Type: application/json\r\n"
+                                + (fault.retryAfter() == null ? "" : "Retry-After: " + fault.retryAfter() + "\r\n")
+                                + "Content-Length: " + error.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                        out.write(error);
+                        out.flush();
+                        continue;
+                    }
+                }
+                if (JSON.readTree(prompt).path("stream").asBoolean()) {
+                    stream(prompt.length, out);
+                    continue;
+                }
+                byte[] body = respond(prompt.length);
+                out.write(("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: " + body.length
+                        + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.write(body);
+                out.flush();
+            }
+        } catch (IOException | InterruptedException ignored) {
+            // Client hung up or the server is closing
+        }
+    }
+
+    private byte[] respond(int promptBytes) throws IOException, InterruptedException {
+        arrived();
+        try {
+            Thread.sleep(latency);
+            ObjectNode response = JSON.createObjectNode();
+            response.putArray("output").addObject().putArray("content").addObject()
+                    .put("type", "output_text")
+                    .put("text", JSON.writeValueAsString(grade));
+            response.putObject("usage").put("input_tokens", promptBytes / 4).put("output_tokens", 120);
+            return JSON.writeValueAsBytes(response);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /** Sends the grade as Responses API events in a chunked body, one HTTP chunk per event. */
+    private void stream(int promptBytes, OutputStream out) throws IOException, InterruptedException {
+        arrived();
+        try {
+            out.write(("HTTP/1.1 200 OK\r\nContent-Type: text/event-stream\r\nTransfer-Encoding: chunked\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            Thread.sleep(latency);
+            ObjectNode created = JSON.createObjectNode().put("type", "response.created");
+            created.putObject("response").put("status", "in_progress");
+            event(out, created);
+
+            String text = JSON.writeValueAsString(grade);
+            for (int i = 0; i < text.length(); i += DELTA_CHARACTERS) {
+                Thread.sleep(eventGap);
+                event(out, JSON.createObjectNode()
+                        .put("type", "response.output_text.delta")
+                        .put("delta", text.substring(i, Math.min(text.length(), i + DELTA_CHARACTERS))));
+            }
+
+            Thread.sleep(eventGap);
+            ObjectNode completed = JSON.createObjectNode().put("type", "response.completed");
+            ObjectNode response = completed.putObject("response").put("status", "completed");
+            response.putObject("usage").put("input_tokens", promptBytes / 4).put("output_tokens", 120);
+            event(out, completed);
+            out.write("0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            streamsFinished.incrementAndGet();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private static void event(OutputStream out, ObjectNode event) throws IOException {
+        byte[] bytes = ("event: " + event.path("type").asText() + "\ndata: " + JSON.writeValueAsString(event) + "\n\n")
+                .getBytes(StandardCharsets.UTF_8);
+        out.write((Integer.toHexString(bytes.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(bytes);
+        out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private void arrived() {
+        synchronized (this) {
+            arrivals.add(System.nanoTime());
+        }
+        requests.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        for (int b; (b = in.read()) != -1; ) {
+            if (b == '\n') {
+                return line.toString(StandardCharsets.US_ASCII).stripTrailing();
+            }
+            line.write(b);
+        }
+        return line.size() == 0 ? null : line.toString(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,61 @@
+package com.cab302.eduplanner.repository;
+
+import com.cab302.eduplanner.ConnectionPool;
+import com.cab302.eduplanner.SchemaMigrator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Runs against a scratch database migrated to the current schema. */
+class ExtractedTextRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ConnectionPool pool;
+    private ExtractedTextRepository repo;
+    private final String hash = "0f".repeat(32);
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = new ConnectionPool("jdbc:sqlite:" + tempDir.resolve("extracted-test.db"), 2, 5_000,
+                List.of("PRAGMA foreign_keys = ON;", "PRAGMA journal_mode = WAL;", "PRAGMA synchronous = NORMAL;"));
+        try (Connection c = pool.getConnection()) {
+            new SchemaMigrator().migrate(c);
+        }
+        repo = new ExtractedTextRepository(pool::getConnection);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void savedTextIsFoundByHashFormatVersionAndBudget() {
+        assertTrue(repo.find(hash, "pdf", 1, 100).isEmpty());
+
+        assertTrue(repo.save(hash, "pdf", 1, 100, "rubric text"));
+
+        assertEquals("rubric text", repo.find(hash, "pdf", 1, 100).orElseThrow());
+        assertTrue(repo.find(hash, "docx", 1, 100).isEmpty());
+        assertTrue(repo.find(hash, "pdf", 2, 100).isEmpty(), "a new extractor version misses");
+        assertTrue(repo.find(hash, "pdf", 1, 200).isEmpty(), "a different budget misses");
+    }
+
+    @Test
+    void savingAgainReplacesTheText() {
+        repo.save(hash, "txt", 1, 100, "old");
+        repo.save(hash, "txt", 1, 100, "new");
+
+        assertEquals("new", repo.find(hash, "txt", 1, 100).orElseThrow());
+    }
+}
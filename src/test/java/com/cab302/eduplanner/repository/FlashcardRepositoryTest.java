@@ -1,48 +1,181 @@
 package com.cab302.eduplanner.repository;
 
+import com.cab302.eduplanner.ConnectionPool;
+import com.cab302.eduplanner.SchemaMigrator;
+import com.cab302.eduplanner.model.Flashcard;
 import com.cab302.eduplanner.model.FlashcardDeck;
 import com.cab302.eduplanner.model.FlashcardFolder;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+/** Runs against a scratch database migrated to the current schema. */
 class FlashcardRepositoryTest {
 
+    @TempDir
+    Path tempDir;
+
+    private ConnectionPool pool;
+    private FlashcardRepository repo;
+    private final long userId = 1;
+    private final long otherUserId = 2;
+
     @BeforeEach
-    void setUp() {
-        FlashcardRepository.clear();
+    void setUp() throws SQLException {
+        pool = new ConnectionPool("jdbc:sqlite:" + tempDir.resolve("flashcards-test.db"), 2, 5_000,
+                List.of("PRAGMA foreign_keys = ON;", "PRAGMA journal_mode = WAL;", "PRAGMA synchronous = NORMAL;"));
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+            new SchemaMigrator().migrate(c);
+            st.executeUpdate("INSERT INTO users (user_id, username, password_hash) VALUES (1, 'cards', 'x'), (2, 'other', 'x')");
+        }
+        repo = new FlashcardRepository(pool::getConnection);
     }
 
     @AfterEach
     void tearDown() {
-        FlashcardRepository.clear();
+        pool.shutdown();
+    }
+
+    @Test
+    void treeLoadsFoldersAndDeckHeaders() {
+        long folderA = repo.createFolder(userId, "Folder A").orElseThrow();
+        long folderB = repo.createFolder(userId, "Folder B").orElseThrow();
+        repo.createDeck(folderB, userId, "Deck B1").orElseThrow();
+        long deck = repo.createDeck(folderA, userId, "Deck A1").orElseThrow();
+        repo.createCard(deck, userId, "Q", "A").orElseThrow();
+
+        List<FlashcardFolder> tree = repo.loadTree(userId);
+
+        assertEquals(List.of("Folder A", "Folder B"), tree.stream().map(FlashcardFolder::getName).toList());
+        FlashcardDeck loaded = tree.getFirst().getDecks().getFirst();
+        assertEquals(deck, loaded.getDeckId());
+        assertEquals("Deck A1", loaded.getName());
+        assertTrue(loaded.getFlashcards().isEmpty(), "cards are loaded on demand");
+        assertEquals("Deck B1", tree.get(1).getDecks().getFirst().getName());
     }
 
     @Test
-    void getFoldersReflectsNewlyAddedFolder() {
-        List<FlashcardFolder> folders = FlashcardRepository.getFolders();
-        FlashcardFolder folder = new FlashcardFolder("Test Folder");
-        FlashcardDeck deck = new FlashcardDeck("Deck A");
-        folder.getDecks().add(deck);
+    void cardsArePagedInCreationOrder() {
+        long folder = repo.createFolder(userId, "CAB302").orElseThrow();
+        long deckId = repo.createDeck(folder, userId, "Week 1").orElseThrow();
+        int total = FlashcardRepository.PAGE_SIZE + 5;
+        for (int i = 0; i < total; i++) repo.createCard(deckId, userId, "Q" + i, "A" + i).orElseThrow();
+
+        assertEquals(total, repo.countCards(deckId, userId));
+        List<Flashcard> first = repo.loadCards(deckId, userId, 0, 3);
+        assertEquals(List.of("Q0", "Q1", "Q2"), first.stream().map(Flashcard::getQuestion).toList());
+        List<Flashcard> next = repo.loadCards(deckId, userId, first.getLast().getCardId(), 3);
+        assertEquals("Q3", next.getFirst().getQuestion());
+
+        FlashcardDeck deck = new FlashcardDeck(deckId, "Week 1");
+        assertTrue(repo.loadNextPage(deck, userId));
+        assertEquals(total, deck.getCardCount());
+        assertEquals(FlashcardRepository.PAGE_SIZE, deck.getFlashcards().size());
+        assertTrue(repo.loadNextPage(deck, userId));
+        assertTrue(deck.isFullyLoaded());
+        assertFalse(repo.loadNextPage(deck, userId));
+        assertEquals("Q" + (total - 1), deck.getFlashcards().getLast().getQuestion());
+    }
+
+    @Test
+    void cardsCanBeEditedAndDeleted() {
+        long folder = repo.createFolder(userId, "CAB302").orElseThrow();
+        long deck = repo.createDeck(folder, userId, "Week 1").orElseThrow();
+        long card = repo.createCard(deck, userId, "Old Q", "Old A").orElseThrow();
+
+        assertTrue(repo.updateCard(card, userId, "New Q", "New A"));
+        Flashcard loaded = repo.loadCards(deck, userId, 0, 10).getFirst();
+        assertEquals("New Q", loaded.getQuestion());
+        assertEquals("New A", loaded.getAnswer());
+
+        assertTrue(repo.renameDeck(deck, userId, "Week one"));
+        assertTrue(repo.renameFolder(folder, userId, "CAB 302"));
+        assertEquals("Week one", repo.loadTree(userId).getFirst().getDecks().getFirst().getName());
 
-        folders.add(folder);
+        assertTrue(repo.deleteCard(card, userId));
+        assertEquals(0, repo.countCards(deck, userId));
+    }
+
+    @Test
+    void replaceCardsIsAllOrNothing() throws SQLException {
+        long folder = repo.createFolder(userId, "CAB302").orElseThrow();
+        long deck = repo.createDeck(folder, userId, "Week 1").orElseThrow();
+        long keep = repo.createCard(deck, userId, "Q1", "A1").orElseThrow();
+        long drop = repo.createCard(deck, userId, "Q2", "A2").orElseThrow();
+        long otherDeck = repo.createDeck(folder, userId, "Week 2").orElseThrow();
+        long elsewhere = repo.createCard(otherDeck, userId, "Q", "A").orElseThrow();
+
+        assertThrows(SQLException.class, () ->
+                repo.replaceCards(deck, userId, List.of(drop, elsewhere), List.of(new Flashcard("Q3", "A3"))));
+        assertEquals(List.of("Q1", "Q2"), repo.loadAllCardsOrThrow(deck, userId).stream().map(Flashcard::getQuestion).toList());
+        assertThrows(SQLException.class, () -> repo.replaceCards(deck, otherUserId, List.of(drop), List.of()));
+
+        repo.replaceCards(deck, userId, List.of(drop), List.of(new Flashcard("Q3", "A3")));
+        List<Flashcard> cards = repo.loadAllCardsOrThrow(deck, userId);
+        assertEquals(List.of("Q1", "Q3"), cards.stream().map(Flashcard::getQuestion).toList());
+        assertEquals(keep, cards.getFirst().getCardId());
+        assertEquals(1, repo.countCards(otherDeck, userId));
+    }
+
+    @Test
+    void reviewScheduleIsPersisted() {
+        long folder = repo.createFolder(userId, "CAB302").orElseThrow();
+        long deck = repo.createDeck(folder, userId, "Week 1").orElseThrow();
+        repo.createCard(deck, userId, "Q1", "A1").orElseThrow();
+        repo.createCard(deck, userId, "Q2", "A2").orElseThrow();
+        long now = 1_700_000_000_000L;
+        assertEquals(2, repo.countDue(deck, userId, now), "new cards are due immediately");
+
+        Flashcard card = repo.loadCards(deck, userId, 0, 10).getFirst();
+        card.setSchedule(2.36, 6, 2, now + 6 * 86_400_000L);
+        assertTrue(repo.updateSchedule(card, userId));
+        assertFalse(repo.updateSchedule(card, otherUserId));
+
+        Flashcard reloaded = repo.loadCards(deck, userId, 0, 10).getFirst();
+        assertEquals(2.36, reloaded.getEase(), 1e-9);
+        assertEquals(6, reloaded.getIntervalDays());
+        assertEquals(2, reloaded.getRepetitions());
+        assertEquals(card.getDueAt(), reloaded.getDueAt());
+        assertEquals(1, repo.countDue(deck, userId, now));
+        assertEquals(0, repo.countDue(deck, otherUserId, now));
+    }
+
+    @Test
+    void otherUsersCannotReadOrWriteFlashcards() {
+        long folder = repo.createFolder(userId, "Private").orElseThrow();
+        long deck = repo.createDeck(folder, userId, "Deck").orElseThrow();
+        long card = repo.createCard(deck, userId, "Q", "A").orElseThrow();
 
-        assertTrue(FlashcardRepository.getFolders().contains(folder));
-        assertEquals(1, FlashcardRepository.getFolders().size());
-        assertSame(deck, FlashcardRepository.getFolders().getFirst().getDecks().getFirst());
+        assertTrue(repo.loadTree(otherUserId).isEmpty());
+        assertEquals(0, repo.countCards(deck, otherUserId));
+        assertTrue(repo.loadCards(deck, otherUserId, 0, 10).isEmpty());
+        assertTrue(repo.createDeck(folder, otherUserId, "Intruder").isEmpty());
+        assertTrue(repo.createCard(deck, otherUserId, "Intruder", "").isEmpty());
+        assertFalse(repo.updateCard(card, otherUserId, "Changed", "Changed"));
+        assertFalse(repo.deleteCard(card, otherUserId));
+        assertFalse(repo.deleteDeck(deck, otherUserId));
+        assertFalse(repo.deleteFolder(folder, otherUserId));
+        assertEquals(1, repo.countCards(deck, userId));
     }
 
     @Test
-    void clearRemovesAllFolders() {
-        FlashcardRepository.getFolders().add(new FlashcardFolder("Folder One"));
-        FlashcardRepository.getFolders().add(new FlashcardFolder("Folder Two"));
+    void deletingFolderRemovesDecksAndCards() {
+        long folder = repo.createFolder(userId, "Old").orElseThrow();
+        long deck = repo.createDeck(folder, userId, "Deck").orElseThrow();
+        repo.createCard(deck, userId, "Q", "A").orElseThrow();
 
-        FlashcardRepository.clear();
+        assertTrue(repo.deleteFolder(folder, userId));
 
-        assertTrue(FlashcardRepository.getFolders().isEmpty(), "Repository should be empty after clear()");
+        assertTrue(repo.loadTree(userId).isEmpty());
+        assertEquals(0, repo.countCards(deck, userId));
     }
 }
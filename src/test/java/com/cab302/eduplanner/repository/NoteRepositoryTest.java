@@ -0,0 +1,137 @@
+package com.cab302.eduplanner.repository;
+
+import com.cab302.eduplanner.ConnectionPool;
+import com.cab302.eduplanner.SchemaMigrator;
+import com.cab302.eduplanner.model.Folder;
+import com.cab302.eduplanner.model.Note;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Runs against a scratch database migrated to the current schema. */
+class NoteRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ConnectionPool pool;
+    private NoteRepository repo;
+    private final long userId = 1;
+    private final long otherUserId = 2;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = new ConnectionPool("jdbc:sqlite:" + tempDir.resolve("notes-test.db"), 2, 5_000,
+                List.of("PRAGMA foreign_keys = ON;", "PRAGMA journal_mode = WAL;", "PRAGMA synchronous = NORMAL;"));
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+            new SchemaMigrator().migrate(c);
+            st.executeUpdate("INSERT INTO users (user_id, username, password_hash) VALUES (1, 'notes', 'x'), (2, 'other', 'x')");
+        }
+        repo = new NoteRepository(pool::getConnection);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void treeLoadsHeadersWithoutContent() {
+        long week1 = repo.createFolder(userId, "Week 1").orElseThrow();
+        long week2 = repo.createFolder(userId, "Week 2").orElseThrow();
+        repo.createNote(week2, userId, "Tutorial", "x".repeat(100_000));
+        repo.createNote(week1, userId, "Lecture", "Intro");
+        repo.createNote(week1, userId, "Reading", "Chapter 1");
+
+        List<Folder> tree = repo.loadTree(userId);
+
+        assertEquals(List.of("Week 1", "Week 2"), tree.stream().map(Folder::getName).toList());
+        assertEquals(List.of("Lecture", "Reading"), tree.get(0).getNotes().stream().map(Note::getTitle).toList());
+        assertEquals(1, tree.get(1).getNotes().size());
+        for (Folder f : tree) {
+            for (Note n : f.getNotes()) {
+                assertFalse(n.isContentLoaded());
+                assertTrue(n.getNoteId() > 0);
+            }
+        }
+    }
+
+    @Test
+    void contentLoadsOnDemand() {
+        long folder = repo.createFolder(userId, "CAB302").orElseThrow();
+        long note = repo.createNote(folder, userId, "Week 1", "Review lecture notes").orElseThrow();
+
+        assertEquals("Review lecture notes", repo.loadContent(note, userId).orElseThrow());
+
+        assertTrue(repo.updateNote(note, userId, "Week 1", "Updated"));
+        assertEquals("Updated", repo.loadContent(note, userId).orElseThrow());
+
+        assertTrue(repo.renameNote(note, userId, "Week one"));
+        assertEquals("Week one", repo.loadTree(userId).getFirst().getNotes().getFirst().getTitle());
+        assertEquals("Updated", repo.loadContent(note, userId).orElseThrow());
+    }
+
+    @Test
+    void otherUsersCannotReadOrWriteNotes() {
+        long folder = repo.createFolder(userId, "Private").orElseThrow();
+        long note = repo.createNote(folder, userId, "Secret", "Body").orElseThrow();
+
+        assertTrue(repo.loadTree(otherUserId).isEmpty());
+        assertTrue(repo.loadContent(note, otherUserId).isEmpty());
+        assertTrue(repo.createNote(folder, otherUserId, "Intruder", "").isEmpty());
+        assertFalse(repo.updateNote(note, otherUserId, "Changed", "Changed"));
+        assertFalse(repo.deleteNote(note, otherUserId));
+        assertFalse(repo.deleteFolder(folder, otherUserId));
+        assertEquals("Body", repo.loadContent(note, userId).orElseThrow());
+    }
+
+    @Test
+    void folderCreatedBetweenTheTwoReadsIsSkipped() {
+        long week1 = repo.createFolder(userId, "Week 1").orElseThrow();
+        repo.createNote(week1, userId, "Lecture", "Intro");
+        // Another writer adds a folder with a note after the folders are read but before the notes are
+        NoteRepository racing = new NoteRepository(() -> {
+            Connection c = pool.getConnection();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("prepareStatement") && ((String) args[0]).contains("JOIN notes")) {
+                            long late = repo.createFolder(userId, "Imported").orElseThrow();
+                            repo.createNote(late, userId, "From Drive", "Body");
+                        }
+                        try {
+                            return method.invoke(c, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        });
+
+        List<Folder> tree = racing.loadTree(userId);
+
+        assertEquals(List.of("Week 1"), tree.stream().map(Folder::getName).toList());
+        assertEquals(1, tree.getFirst().getNotes().size());
+        assertEquals(2, repo.loadTree(userId).size());
+    }
+
+    @Test
+    void deletingFolderRemovesItsNotes() {
+        long folder = repo.createFolder(userId, "Old").orElseThrow();
+        long note = repo.createNote(folder, userId, "Gone", "Body").orElseThrow();
+
+        assertTrue(repo.deleteFolder(folder, userId));
+
+        assertTrue(repo.loadTree(userId).isEmpty());
+        assertTrue(repo.loadContent(note, userId).isEmpty());
+    }
+}
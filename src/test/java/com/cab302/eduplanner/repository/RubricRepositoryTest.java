@@ -0,0 +1,91 @@
+package com.cab302.eduplanner.repository;
+
+import com.cab302.eduplanner.ConnectionPool;
+import com.cab302.eduplanner.SchemaMigrator;
+import com.cab302.eduplanner.model.RubricAnalysisResult;
+import com.cab302.eduplanner.model.RubricCategoryEvaluation;
+import com.cab302.eduplanner.model.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Runs against a scratch database migrated to the current schema. */
+class RubricRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ConnectionPool pool;
+    private RubricRepository repo;
+    private final String hash = "0f".repeat(32);
+    private final long userId = 1;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = new ConnectionPool("jdbc:sqlite:" + tempDir.resolve("rubric-test.db"), 2, 5_000,
+                List.of("PRAGMA foreign_keys = ON;", "PRAGMA journal_mode = WAL;", "PRAGMA synchronous = NORMAL;"));
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+            new SchemaMigrator().migrate(c);
+            st.executeUpdate("INSERT INTO users (user_id, username, password_hash) VALUES (1, 'rubric', 'x')");
+        }
+        repo = new RubricRepository(pool::getConnection, RubricRepository.DEFAULT_TTL);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    private static RubricAnalysisResult grade(double score) {
+        return new RubricAnalysisResult(score, 10.0, List.of(
+                new RubricCategoryEvaluation("Clarity", score, 10.0, "intro", List.of("tighten the thesis"))));
+    }
+
+    @Test
+    void savedGradeIsFoundByBothHashesAndModel() {
+        RubricRepository.GradeKey key = new RubricRepository.GradeKey(hash, "a1", "model-a");
+        assertTrue(repo.find(key).isEmpty());
+
+        assertTrue(repo.save(key, grade(7), null));
+
+        RubricAnalysisResult found = repo.find(key).orElseThrow();
+        assertEquals(7.0, found.getOverallScore());
+        assertEquals("tighten the thesis", found.getCategories().getFirst().getImprovementSteps().getFirst());
+        assertTrue(repo.find(new RubricRepository.GradeKey(hash, "a2", "model-a")).isEmpty());
+        assertTrue(repo.find(new RubricRepository.GradeKey(hash, "a1", "model-b")).isEmpty(), "another model misses");
+    }
+
+    @Test
+    void expiredGradeMisses() {
+        RubricRepository.GradeKey key = new RubricRepository.GradeKey(hash, "a1", "model-a");
+        repo.save(key, grade(7), null);
+
+        assertTrue(new RubricRepository(pool::getConnection, Duration.ZERO.minusMillis(1)).find(key).isEmpty());
+        assertTrue(repo.find(key).isPresent());
+    }
+
+    @Test
+    void gradeIsLinkedToTheTaskThroughItsRubric() {
+        long taskId = new TaskRepository(pool::getConnection).insert(new Task(userId, "CAB302", "Report", LocalDate.now(),
+                null, 40, null, null)).orElseThrow();
+        Long rubricId = repo.attachToTask(taskId, "/tmp/rubric.pdf").orElseThrow();
+        assertEquals(rubricId, repo.attachToTask(taskId, "/tmp/rubric.pdf").orElseThrow(), "attaching again reuses the row");
+
+        repo.save(new RubricRepository.GradeKey(hash, "a1", "model-a"), grade(5), rubricId);
+        repo.save(new RubricRepository.GradeKey(hash, "a2", "model-a"), grade(8), rubricId);
+
+        assertEquals(8.0, repo.findLatestForTask(taskId).orElseThrow().getOverallScore());
+        assertTrue(repo.attachToTask(-1, "/tmp/rubric.pdf").isEmpty(), "unknown task");
+    }
+}
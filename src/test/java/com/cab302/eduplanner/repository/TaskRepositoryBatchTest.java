@@ -0,0 +1,125 @@
+package com.cab302.eduplanner.repository;
+
+import com.cab302.eduplanner.ConnectionPool;
+import com.cab302.eduplanner.SchemaMigrator;
+import com.cab302.eduplanner.model.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Correctness checks for the batch write API plus a small benchmark (rows/sec for 1, 100 and 10,000 tasks).
+ * Runs against a scratch database migrated to the current schema, so nothing touches the development database.
+ */
+class TaskRepositoryBatchTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ConnectionPool pool;
+    private TaskRepository repo;
+    private final long userId = 1;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = new ConnectionPool("jdbc:sqlite:" + tempDir.resolve("tasks-test.db"), 2, 5_000,
+                List.of("PRAGMA foreign_keys = ON;", "PRAGMA journal_mode = WAL;", "PRAGMA synchronous = NORMAL;"));
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+            new SchemaMigrator().migrate(c);
+            st.executeUpdate("INSERT INTO users (user_id, username, password_hash) VALUES (1, 'batch', 'x')");
+        }
+        repo = new TaskRepository(pool::getConnection);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void insertAllReturnsIdsInInputOrder() {
+        List<Task> batch = tasks(5);
+
+        List<Long> ids = repo.insertAll(batch);
+
+        assertEquals(5, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Task stored = repo.findById(ids.get(i), userId).orElseThrow();
+            assertEquals(batch.get(i).getTitle(), stored.getTitle());
+        }
+    }
+
+    @Test
+    void updateAllAndDeleteAllAffectEveryRow() {
+        List<Task> batch = tasks(3);
+        List<Long> ids = repo.insertAll(batch);
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).setTaskId(ids.get(i));
+            batch.get(i).setTitle("Renamed " + i);
+        }
+
+        assertEquals(3, repo.updateAll(batch));
+        assertEquals("Renamed 2", repo.findById(ids.get(2), userId).orElseThrow().getTitle());
+
+        assertEquals(3, repo.deleteAll(ids, userId));
+        assertTrue(repo.findByUserId(userId).isEmpty());
+    }
+
+    @Test
+    void failingRowRollsBackWholeBatch() {
+        List<Task> batch = tasks(3);
+        batch.get(1).setMaxMark(-1.0); // violates CHECK (max_mark > 0)
+
+        assertTrue(repo.insertAll(batch).isEmpty());
+        assertTrue(repo.findByUserId(userId).isEmpty());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkBatchInsertThroughput(TestReporter reporter) {
+        for (int size : new int[]{1, 100, 10_000}) {
+            List<Task> batch = tasks(size);
+            long start = System.nanoTime();
+            List<Long> ids = repo.insertAll(batch);
+            long elapsed = System.nanoTime() - start;
+            assertEquals(size, ids.size());
+            reporter.publishEntry("insertAll " + size, rate(size, elapsed));
+            repo.deleteAll(ids, userId);
+        }
+
+        // Baseline: the same 100 rows through single-row insert (one transaction each)
+        List<Task> baseline = tasks(100);
+        long start = System.nanoTime();
+        for (Task t : baseline) assertTrue(repo.insert(t).isPresent());
+        reporter.publishEntry("insert x1 " + baseline.size(), rate(baseline.size(), System.nanoTime() - start));
+    }
+
+    private List<Task> tasks(int n) {
+        List<Task> out = new ArrayList<>(n);
+        LocalDate base = LocalDate.of(2025, 2, 24);
+        for (int i = 0; i < n; i++) {
+            out.add(new Task(userId, "CAB302", "Assessment " + i, base.plusDays(i % 120),
+                    "Imported", 10, null, 100.0));
+        }
+        return out;
+    }
+
+    private static String rate(int rows, long nanos) {
+        return String.format(Locale.ROOT, "%.2f ms, %.0f rows/sec",
+                nanos / 1_000_000.0, rows / (nanos / 1_000_000_000.0));
+    }
+}
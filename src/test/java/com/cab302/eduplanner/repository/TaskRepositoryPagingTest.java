@@ -0,0 +1,107 @@
+package com.cab302.eduplanner.repository;
+
+import com.cab302.eduplanner.ConnectionPool;
+import com.cab302.eduplanner.SchemaMigrator;
+import com.cab302.eduplanner.model.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Runs against a scratch database migrated to the current schema. */
+class TaskRepositoryPagingTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ConnectionPool pool;
+    private TaskRepository repo;
+    private final long userId = 1;
+
+    @BeforeEach
+    void seedTasks() throws SQLException {
+        pool = new ConnectionPool("jdbc:sqlite:" + tempDir.resolve("paging-test.db"), 2, 5_000,
+                List.of("PRAGMA foreign_keys = ON;", "PRAGMA journal_mode = WAL;", "PRAGMA synchronous = NORMAL;"));
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+            new SchemaMigrator().migrate(c);
+            st.executeUpdate("INSERT INTO users (user_id, username, password_hash) VALUES (1, 'paging', 'x')");
+        }
+        repo = new TaskRepository(pool::getConnection);
+
+        // 7 dated tasks (two sharing a due date) and 3 undated tasks, inserted out of order
+        LocalDate d = LocalDate.of(2025, 3, 1);
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(task("no date A", null));
+        tasks.add(task("week 3", d.plusWeeks(3)));
+        tasks.add(task("week 1 first", d.plusWeeks(1)));
+        tasks.add(task("week 1 second", d.plusWeeks(1)));
+        tasks.add(task("no date B", null));
+        tasks.add(task("week 0", d));
+        tasks.add(task("week 5", d.plusWeeks(5)));
+        tasks.add(task("week 2", d.plusWeeks(2)));
+        tasks.add(task("week 4", d.plusWeeks(4)));
+        tasks.add(task("no date C", null));
+        assertEquals(tasks.size(), repo.insertAll(tasks).size());
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void pagesConcatenateToFullOrderedList() {
+        List<Long> expected = ids(repo.findByUserId(userId));
+
+        List<Long> paged = new ArrayList<>();
+        TaskRepository.PageCursor cursor = null;
+        int pages = 0;
+        do {
+            TaskRepository.TaskPage page = repo.findPageByUserId(userId, cursor, 3);
+            assertTrue(page.tasks().size() <= 3);
+            paged.addAll(ids(page.tasks()));
+            cursor = page.next();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(expected, paged);
+        assertEquals(4, pages);
+    }
+
+    @Test
+    void undatedTasksComeLast() {
+        List<Task> all = repo.findByUserId(userId);
+        assertEquals("week 0", all.getFirst().getTitle());
+        assertNull(all.get(7).getDueDate());
+        assertNull(all.getLast().getDueDate());
+        assertNotNull(all.get(6).getDueDate());
+    }
+
+    @Test
+    void forEachStreamsSameOrderAsFindByUserId() {
+        List<Long> streamed = new ArrayList<>();
+        repo.forEachByUserId(userId, t -> streamed.add(t.getTaskId()));
+
+        assertEquals(ids(repo.findByUserId(userId)), streamed);
+    }
+
+    private Task task(String title, LocalDate due) {
+        return new Task(userId, "CAB302", title, due, null, null, null, null);
+    }
+
+    private static List<Long> ids(List<Task> tasks) {
+        List<Long> out = new ArrayList<>();
+        for (Task t : tasks) out.add(t.getTaskId());
+        return out;
+    }
+}
@@ -0,0 +1,205 @@
+package com.cab302.eduplanner.service;
+
+import com.cab302.eduplanner.model.Flashcard;
+import com.cab302.eduplanner.model.FlashcardDeck;
+import com.cab302.eduplanner.model.FlashcardFolder;
+import com.cab302.eduplanner.model.Folder;
+import com.cab302.eduplanner.model.Note;
+import com.cab302.eduplanner.repository.FlashcardRepository;
+import com.cab302.eduplanner.repository.NoteRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkExportServiceTest {
+
+    /** Serves notes from memory so export can be tested without a database. */
+    private static final class InMemoryNotes extends NoteRepository {
+        final List<Folder> folders = new ArrayList<>();
+        final Map<Long, String> contents = new HashMap<>();
+        private long nextId = 1;
+
+        void add(Folder folder, String title, String content) {
+            long id = nextId++;
+            folder.addNote(new Note(id, title));
+            if (content != null) contents.put(id, content);
+        }
+
+        @Override
+        public List<Folder> loadTree(long userId) {
+            return folders;
+        }
+
+        @Override
+        public Optional<String> loadContent(long noteId, long userId) {
+            return Optional.ofNullable(contents.get(noteId));
+        }
+    }
+
+    private static final class InMemoryFlashcards extends FlashcardRepository {
+        final List<FlashcardFolder> folders = new ArrayList<>();
+        final Map<Long, List<Flashcard>> cards = new HashMap<>();
+
+        @Override
+        public List<FlashcardFolder> loadTree(long userId) {
+            return folders;
+        }
+
+        @Override
+        public List<Flashcard> loadAllCardsOrThrow(long deckId, long userId) {
+            return cards.getOrDefault(deckId, List.of());
+        }
+    }
+
+    private final InMemoryNotes notes = new InMemoryNotes();
+    private final InMemoryFlashcards flashcards = new InMemoryFlashcards();
+
+    @Test
+    void archiveHoldsEveryNoteAndDeck() throws IOException {
+        Folder week1 = new Folder(1, "Week 1");
+        notes.add(week1, "Lecture", "Intro\n\nMore text");
+        notes.add(week1, "lecture", "Same name, different case");
+        Folder odd = new Folder(2, "a/b: c?");
+        notes.add(odd, "", "Untitled note");
+        notes.folders.addAll(List.of(week1, odd));
+
+        FlashcardFolder cab302 = new FlashcardFolder(1, "CAB302");
+        cab302.getDecks().add(new FlashcardDeck(7, "Java"));
+        flashcards.folders.add(cab302);
+        List<Flashcard> deck = new ArrayList<>();
+        for (int i = 1; i <= FlashcardRepository.PAGE_SIZE + 50; i++) deck.add(new Flashcard(i, "Q" + i, "A, " + i));
+        flashcards.cards.put(7L, deck);
+
+        List<BulkExportService.Progress> progress = new ArrayList<>();
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        BulkExportService.Progress result = new BulkExportService(notes, flashcards, 3)
+                .exportAll(1, zip, progress::add, () -> false);
+
+        Map<String, ZipEntry> entries = new LinkedHashMap<>();
+        Map<String, byte[]> data = new HashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip.toByteArray()))) {
+            for (ZipEntry e; (e = in.getNextEntry()) != null; ) {
+                entries.put(e.getName(), e);
+                data.put(e.getName(), in.readAllBytes());
+            }
+        }
+
+        assertEquals(List.of(
+                "Notes/Week 1/Lecture.pdf",
+                "Notes/Week 1/lecture (2).pdf",
+                "Notes/a_b_ c_/Untitled.pdf",
+                "Flashcards/CAB302/Java.pdf",
+                "Flashcards/CAB302/Java.csv"), List.copyOf(entries.keySet()));
+        assertEquals(ZipEntry.STORED, entries.get("Flashcards/CAB302/Java.pdf").getMethod());
+        assertEquals(ZipEntry.DEFLATED, entries.get("Flashcards/CAB302/Java.csv").getMethod());
+        assertEquals("%PDF", new String(data.get("Notes/Week 1/Lecture.pdf"), 0, 4, StandardCharsets.ISO_8859_1));
+
+        List<String> csv = new String(data.get("Flashcards/CAB302/Java.csv"), StandardCharsets.UTF_8).lines().toList();
+        assertEquals("Front,Back", csv.getFirst());
+        assertEquals(FlashcardRepository.PAGE_SIZE + 51, csv.size());
+        assertEquals("Q250,\"A, 250\"", csv.getLast());
+
+        assertEquals(5, result.documents());
+        assertEquals(5, result.total());
+        assertEquals(result.documents(), progress.getLast().documents());
+        assertTrue(result.bytes() > 0);
+    }
+
+    @Test
+    void missingNoteFailsTheExport() {
+        Folder folder = new Folder(1, "Week 1");
+        notes.add(folder, "Fine", "text");
+        notes.add(folder, "Gone", null);
+        notes.folders.add(folder);
+
+        IOException e = assertThrows(IOException.class, () -> new BulkExportService(notes, flashcards, 2)
+                .exportAll(1, new ByteArrayOutputStream(), p -> {}, () -> false));
+        assertTrue(e.getMessage().contains("Gone"));
+    }
+
+    @Test
+    void cancellingStopsBetweenDocuments() {
+        Folder folder = new Folder(1, "Week 1");
+        for (int i = 0; i < 20; i++) notes.add(folder, "Note " + i, "text " + i);
+        notes.folders.add(folder);
+        List<BulkExportService.Progress> progress = new ArrayList<>();
+
+        assertThrows(CancellationException.class, () -> new BulkExportService(notes, flashcards, 2)
+                .exportAll(1, new ByteArrayOutputStream(), progress::add, () -> progress.size() >= 3));
+        assertEquals(3, progress.size());
+    }
+
+    @Test
+    void driveDeckFilesPairPdfAndCsv() throws IOException {
+        FlashcardFolder cab302 = new FlashcardFolder(1, "CAB302");
+        cab302.getDecks().add(new FlashcardDeck(7, "Java"));
+        cab302.getDecks().add(new FlashcardDeck(8, "java"));
+        flashcards.folders.add(cab302);
+        flashcards.cards.put(7L, List.of(new Flashcard(1, "Q1", "A1")));
+
+        Map<String, DriveService.Content> files = new BulkExportService(notes, flashcards, 1).deckFiles(1);
+
+        assertEquals(List.of("CAB302/Java.pdf", "CAB302/Java.csv", "CAB302/java (2).pdf", "CAB302/java (2).csv"),
+                List.copyOf(files.keySet()));
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        files.get("CAB302/Java.csv").writeTo(csv);
+        assertEquals("Front,Back\nQ1,A1\n", csv.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void parallelWorkersRenderTheSameBytesAsOne() throws IOException {
+        Folder folder = new Folder(1, "Semester");
+        for (int i = 0; i < 24; i++) {
+            notes.add(folder, "Note " + i, ("Week " + i + " café naïve résumé, fiancée. ").repeat(200 + i * 20));
+        }
+        notes.folders.add(folder);
+
+        assertEquals(entries(1), entries(4));
+    }
+
+    private Map<String, String> entries(int threads) throws IOException {
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        new BulkExportService(notes, flashcards, threads).exportAll(1, zip, p -> {}, () -> false);
+        Map<String, String> out = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip.toByteArray()))) {
+            for (ZipEntry e; (e = in.getNextEntry()) != null; ) {
+                out.put(e.getName(), new String(in.readAllBytes(), StandardCharsets.ISO_8859_1));
+            }
+        }
+        return out;
+    }
+
+    /** Exports 200 ten-page notes with one worker and with four; reports files/s and MB/s for each. */
+    @Test
+    @Tag("benchmark")
+    void benchmarkParallelRendering(TestReporter reporter) throws IOException {
+        Folder folder = new Folder(1, "Semester");
+        String body = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor. ".repeat(600);
+        for (int i = 0; i < 200; i++) notes.add(folder, "Note " + i, body);
+        notes.folders.add(folder);
+
+        for (int threads : new int[]{1, 4}) {
+            ByteArrayOutputStream zip = new ByteArrayOutputStream();
+            BulkExportService.Progress result = new BulkExportService(notes, flashcards, threads)
+                    .exportAll(1, zip, p -> {}, () -> false);
+            reporter.publishEntry(threads + " thread(s)", result.describe() + ", " + zip.size() / 1024 + " KB archive");
+            assertEquals(200, result.documents());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.cab302.eduplanner.service;
+
+import com.cab302.eduplanner.repository.ExtractedTextRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingDocumentTextExtractorTest {
+
+    @TempDir
+    Path tempDir;
+
+    /** Keeps entries in memory so the persistent layer can be tested without a database. */
+    private static final class InMemoryStore extends ExtractedTextRepository {
+        final Map<String, String> entries = new HashMap<>();
+
+        @Override
+        public Optional<String> find(String sha256, String format, int extractorVersion, int maxCharacters) {
+            return Optional.ofNullable(entries.get(sha256 + format + extractorVersion + "/" + maxCharacters));
+        }
+
+        @Override
+        public boolean save(String sha256, String format, int extractorVersion, int maxCharacters, String text) {
+            entries.put(sha256 + format + extractorVersion + "/" + maxCharacters, text);
+            return true;
+        }
+    }
+
+    private final InMemoryStore store = new InMemoryStore();
+
+    @Test
+    void sameContentIsParsedOnce() throws IOException {
+        Path rubric = Files.writeString(tempDir.resolve("rubric.txt"), "Criteria:\n\n  clarity   and   structure ");
+        Path copy = Files.copy(rubric, tempDir.resolve("renamed.txt"));
+        CachingDocumentTextExtractor extractor = new CachingDocumentTextExtractor(store, 8);
+
+        for (int i = 0; i < 5; i++) assertEquals("Criteria: clarity and structure", extractor.extractText(rubric));
+        assertEquals("Criteria: clarity and structure", extractor.extractText(copy));
+
+        var stats = extractor.stats();
+        assertEquals(1, stats.misses());
+        assertEquals(5, stats.memoryHits());
+        assertEquals(5.0 / 6, stats.hitRate(), 1e-9);
+    }
+
+    @Test
+    void restartIsServedFromTheStore() throws IOException {
+        Path rubric = Files.writeString(tempDir.resolve("rubric.txt"), "Criteria");
+        new CachingDocumentTextExtractor(store, 8).extractText(rubric);
+
+        CachingDocumentTextExtractor restarted = new CachingDocumentTextExtractor(store, 8);
+        restarted.extractText(rubric);
+        restarted.extractText(rubric);
+
+        assertEquals(new CachingDocumentTextExtractor.Stats(1, 1, 0, 0), restarted.stats());
+    }
+
+    @Test
+    void editedFileIsExtractedAgain() throws IOException {
+        Path rubric = Files.writeString(tempDir.resolve("rubric.txt"), "version one");
+        CachingDocumentTextExtractor extractor = new CachingDocumentTextExtractor(null, 8);
+        assertEquals("version one", extractor.extractText(rubric));
+
+        Files.writeString(rubric, "version two");
+        assertEquals("version two", extractor.extractText(rubric));
+        assertEquals(2, extractor.stats().misses());
+    }
+
+    @Test
+    void eachBudgetIsCachedSeparately() throws IOException {
+        Path essay = Files.writeString(tempDir.resolve("essay.txt"), "one two three four");
+        CachingDocumentTextExtractor extractor = new CachingDocumentTextExtractor(store, 8);
+
+        assertEquals("one two", extractor.extractText(essay, 7));
+        assertEquals("one two three four", extractor.extractText(essay));
+        assertEquals("one two", extractor.extractText(essay, 7));
+
+        assertEquals(2, extractor.stats().misses());
+        assertEquals(2, store.entries.size());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() throws IOException {
+        Path a = Files.writeString(tempDir.resolve("a.txt"), "a");
+        Path b = Files.writeString(tempDir.resolve("b.txt"), "b");
+        Path c = Files.writeString(tempDir.resolve("c.txt"), "c");
+        CachingDocumentTextExtractor extractor = new CachingDocumentTextExtractor(null, 2);
+
+        extractor.extractText(a);
+        extractor.extractText(b);
+        extractor.extractText(a); // a is now more recent than b
+        extractor.extractText(c); // evicts b
+        extractor.extractText(a);
+        extractor.extractText(b);
+
+        assertEquals(4, extractor.stats().misses());
+        assertEquals(2, extractor.stats().memoryHits());
+    }
+}
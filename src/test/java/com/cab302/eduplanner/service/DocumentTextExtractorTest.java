@@ -0,0 +1,146 @@
+package com.cab302.eduplanner.service;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentTextExtractorTest {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @TempDir
+    Path tempDir;
+
+    private final DocumentTextExtractor extractor = new DocumentTextExtractor();
+
+    @Test
+    void budgetMatchesRegexNormalisation() throws IOException {
+        Random rnd = new Random(18);
+        String[] pieces = {"a", "rubric", "é", " ", "  ", "\t", "\r\n", "\n\n", "\f", "\u000B", " ", "."};
+        for (int round = 0; round < 500; round++) {
+            StringBuilder raw = new StringBuilder();
+            for (int i = rnd.nextInt(60); i > 0; i--) raw.append(pieces[rnd.nextInt(pieces.length)]);
+            int max = 1 + rnd.nextInt(40);
+
+            DocumentTextExtractor.TextBudget budget = new DocumentTextExtractor.TextBudget(max);
+            try {
+                budget.write(raw.toString());
+            } catch (IOException full) {
+                // budget reached
+            }
+            assertEquals(legacyPrepare(raw.toString(), max), budget.toString(), "input: " + raw);
+        }
+    }
+
+    @Test
+    void textFileStopsAtTheBudget() throws IOException {
+        Path file = tempDir.resolve("long.txt");
+        Files.writeString(file, "  Criterion one:\n\n\tclarity.  ".repeat(100_000));
+
+        String text = extractor.extractText(file, 50);
+
+        assertEquals(legacyPrepare(Files.readString(file), 50), text);
+        assertEquals(50, text.length());
+        assertEquals("Criterion one: clarity.", extractor.extractText(
+                Files.writeString(tempDir.resolve("short.txt"), "\n Criterion one:\n\tclarity. \n")));
+    }
+
+    @Test
+    void unsupportedTypeIsRejected() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("rubric.odt"), "x");
+        assertThrows(IOException.class, () -> extractor.extractText(file));
+    }
+
+    /**
+     * Extracts a 400-page PDF with the previous approach (strip every page, regex, then truncate) and with
+     * page-by-page streaming; both return the same text. Reports the best of three runs of each.
+     */
+    @Test
+    @Tag("benchmark")
+    void benchmark400PagePdf(TestReporter reporter) throws IOException {
+        Path pdf = tempDir.resolve("long.pdf");
+        try (PDDocument doc = new PDDocument()) {
+            try (PdfTextLayout layout = new PdfTextLayout(doc, PDRectangle.A4, 50f)) {
+                PDFont font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+                Random rnd = new Random(400);
+                while (layout.pageCount() < 400) {
+                    layout.paragraph("Criterion " + rnd.nextInt(100) + ": the submission demonstrates clear structure,"
+                            + " accurate referencing and critical analysis of the sources. ".repeat(3), font, 11f, 14f);
+                    layout.skip(10f);
+                }
+            }
+            doc.save(pdf.toFile());
+        }
+
+        long before = Long.MAX_VALUE, after = Long.MAX_VALUE;
+        String legacy = null, streamed = null;
+        for (int round = 0; round < 3; round++) {
+            long t = System.nanoTime();
+            legacy = legacyPdf(pdf);
+            before = Math.min(before, System.nanoTime() - t);
+
+            t = System.nanoTime();
+            streamed = extractor.extractText(pdf);
+            after = Math.min(after, System.nanoTime() - t);
+        }
+
+        assertEquals(legacy, streamed);
+        assertEquals(DocumentTextExtractor.MAX_CHARACTERS, streamed.length());
+        reporter.publishEntry("400-page PDF", "full strip " + before / 1_000_000 + " ms, streaming "
+                + after / 1_000_000 + " ms");
+    }
+
+    /**
+     * Strips a 400-page PDF page by page and in parallel page ranges, with a budget large enough to read
+     * every page; the ranges are reassembled into exactly the same text.
+     */
+    @Test
+    void parallelPageRangesMatchSequentialExtraction() throws IOException {
+        Path pdf = tempDir.resolve("slides.pdf");
+        try (PDDocument doc = new PDDocument()) {
+            for (int i = 0; i < 400; i++) doc.addPage(new PDPage(PDRectangle.A4));
+            doc.save(pdf.toFile());
+        }
+        DocumentTextExtractor parallel = new DocumentTextExtractor(4);
+        int everything = 2_000_000;
+
+        assertEquals(extractor.extractText(pdf, everything), parallel.extractText(pdf, everything));
+        assertEquals(extractor.extractText(pdf), parallel.extractText(pdf), "stops at the default budget too");
+        assertEquals(extractor.extractText(pdf, 7_777), parallel.extractText(pdf, 7_777));
+    }
+
+    @Test
+    void workerCountMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new DocumentTextExtractor(0));
+    }
+
+    // ---- the implementation the streaming extraction replaced, kept as the baseline ----
+
+    private static String legacyPdf(Path path) throws IOException {
+        try (PDDocument document = Loader.loadPDF(path.toFile())) {
+            return legacyPrepare(new PDFTextStripper().getText(document), DocumentTextExtractor.MAX_CHARACTERS);
+        }
+    }
+
+    private static String legacyPrepare(String rawText, int max) {
+        String normalised = WHITESPACE.matcher(rawText).replaceAll(" ").trim();
+        return normalised.length() > max ? normalised.substring(0, max) : normalised;
+    }
+}
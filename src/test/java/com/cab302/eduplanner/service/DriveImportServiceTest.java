@@ -0,0 +1,224 @@
+package com.cab302.eduplanner.service;
+
+import com.cab302.eduplanner.model.Flashcard;
+import com.cab302.eduplanner.model.FlashcardDeck;
+import com.cab302.eduplanner.model.FlashcardFolder;
+import com.cab302.eduplanner.model.Folder;
+import com.cab302.eduplanner.model.Note;
+import com.cab302.eduplanner.repository.FlashcardRepository;
+import com.cab302.eduplanner.repository.NoteRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DriveImportServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    /** Keeps notes in memory so import can be tested without a database. */
+    private static final class InMemoryNotes extends NoteRepository {
+        final List<Folder> folders = new ArrayList<>();
+        final Map<Long, String> contents = new HashMap<>();
+        int updates;
+        private long nextId = 100;
+
+        @Override
+        public List<Folder> loadTree(long userId) {
+            return folders;
+        }
+
+        @Override
+        public Optional<String> loadContent(long noteId, long userId) {
+            return Optional.ofNullable(contents.get(noteId));
+        }
+
+        @Override
+        public Optional<Long> createFolder(long userId, String name) {
+            Folder folder = new Folder(nextId++, name);
+            folders.add(folder);
+            return Optional.of(folder.getFolderId());
+        }
+
+        @Override
+        public Optional<Long> createNote(long folderId, long userId, String title, String content) {
+            long id = nextId++;
+            folders.stream().filter(f -> f.getFolderId() == folderId).findFirst().orElseThrow()
+                    .addNote(new Note(id, title));
+            contents.put(id, content);
+            return Optional.of(id);
+        }
+
+        @Override
+        public boolean updateNote(long noteId, long userId, String title, String content) {
+            updates++;
+            contents.put(noteId, content);
+            return true;
+        }
+    }
+
+    private static final class InMemoryFlashcards extends FlashcardRepository {
+        final List<FlashcardFolder> folders = new ArrayList<>();
+        final Map<Long, List<Flashcard>> cards = new HashMap<>();
+        boolean failLoads;
+        private long nextId = 100;
+
+        @Override
+        public List<FlashcardFolder> loadTree(long userId) {
+            return folders;
+        }
+
+        @Override
+        public List<Flashcard> loadCards(long deckId, long userId, long afterCardId, int limit) {
+            return cards.getOrDefault(deckId, List.of()).stream()
+                    .filter(c -> c.getCardId() > afterCardId).limit(limit).toList();
+        }
+
+        @Override
+        public Optional<Long> createFolder(long userId, String name) {
+            FlashcardFolder folder = new FlashcardFolder(nextId++, name);
+            folders.add(folder);
+            return Optional.of(folder.getFolderId());
+        }
+
+        @Override
+        public Optional<Long> createDeck(long folderId, long userId, String name) {
+            long id = nextId++;
+            folders.stream().filter(f -> f.getFolderId() == folderId).findFirst().orElseThrow()
+                    .getDecks().add(new FlashcardDeck(id, name));
+            return Optional.of(id);
+        }
+
+        @Override
+        public int insertCards(long deckId, long userId, List<Flashcard> batch) {
+            List<Flashcard> deck = cards.computeIfAbsent(deckId, k -> new ArrayList<>());
+            for (Flashcard c : batch) deck.add(new Flashcard(nextId++, c.getQuestion(), c.getAnswer()));
+            return batch.size();
+        }
+
+        @Override
+        public List<Flashcard> loadAllCardsOrThrow(long deckId, long userId) throws SQLException {
+            if (failLoads) throw new SQLException("pool timed out");
+            return new ArrayList<>(cards.getOrDefault(deckId, List.of()));
+        }
+
+        @Override
+        public void replaceCards(long deckId, long userId, Collection<Long> removed, List<Flashcard> added) {
+            List<Flashcard> deck = cards.computeIfAbsent(deckId, k -> new ArrayList<>());
+            deck.removeIf(c -> removed.contains(c.getCardId()));
+            insertCards(deckId, userId, added);
+        }
+    }
+
+    private final InMemoryNotes notes = new InMemoryNotes();
+    private final InMemoryFlashcards flashcards = new InMemoryFlashcards();
+
+    private DriveImportService importer() {
+        return new DriveImportService(notes, flashcards, 1, tempDir.resolve("Notes"), tempDir.resolve("Flashcards"));
+    }
+
+    private Path write(String name, String text) throws IOException {
+        Path file = tempDir.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, text);
+        return file;
+    }
+
+    @Test
+    void editedNoteIsUpdatedAndOwnExportIsNot() throws IOException {
+        Folder week1 = new Folder(1, "Week 1");
+        week1.addNote(new Note(10, "Lecture"));
+        week1.addNote(new Note(11, "Tutorial"));
+        notes.folders.add(week1);
+        notes.contents.put(10L, "old text");
+        notes.contents.put(11L, "unchanged");
+
+        Path edited = write("Notes/Week 1/Lecture.md", "# Lecture\n\nnew text\nsecond line\n");
+        Path exported = write("Notes/Week 1/Tutorial.md", "# Tutorial\n\nunchanged\n");
+
+        var summary = importer().importChanges(List.of(edited, exported));
+
+        assertEquals(new DriveImportService.ImportSummary(1, 0, 0, 0), summary);
+        assertEquals("new text\nsecond line", notes.contents.get(10L));
+        assertEquals(1, notes.updates);
+    }
+
+    @Test
+    void newFilesBecomeNotesAndFolders() throws IOException {
+        Path file = write("Notes/Week 2/Ideas.md", "just text, no heading");
+
+        var summary = importer().importChanges(List.of(file));
+
+        assertEquals(1, summary.notesCreated());
+        Folder folder = notes.folders.getFirst();
+        assertEquals("Week 2", folder.getName());
+        assertEquals("Ideas", folder.getNotes().getFirst().getTitle());
+        assertEquals("just text, no heading", notes.contents.get(folder.getNotes().getFirst().getNoteId()));
+    }
+
+    @Test
+    void editedDeckKeepsUnchangedCards() throws IOException {
+        FlashcardFolder cab302 = new FlashcardFolder(1, "CAB302");
+        cab302.getDecks().add(new FlashcardDeck(7, "Java"));
+        flashcards.folders.add(cab302);
+        flashcards.cards.put(7L, new ArrayList<>(List.of(
+                new Flashcard(1, "Q1", "A1"), new Flashcard(2, "Q2", "A2"), new Flashcard(3, "Q3", "A3"))));
+
+        Path csv = write("Flashcards/CAB302/Java.csv", "Front,Back\nQ1,A1\nQ3,A3 edited\nQ4,A4\n");
+        var summary = importer().importChanges(List.of(csv));
+
+        assertEquals(1, summary.decksUpdated());
+        List<Flashcard> deck = flashcards.cards.get(7L);
+        assertEquals(List.of("Q1", "Q3", "Q4"), deck.stream().map(Flashcard::getQuestion).toList());
+        assertEquals(1, deck.getFirst().getCardId(), "unchanged card keeps its id and schedule");
+
+        assertTrue(importer().importChanges(List.of(csv)).isEmpty(), "importing the same file again changes nothing");
+        assertTrue(importer().importEdit(csv), "a file already in the deck counts as imported");
+    }
+
+    @Test
+    void deckThatCannotBeReadIsLeftAlone() throws IOException {
+        FlashcardFolder cab302 = new FlashcardFolder(1, "CAB302");
+        cab302.getDecks().add(new FlashcardDeck(7, "Java"));
+        flashcards.folders.add(cab302);
+        flashcards.cards.put(7L, new ArrayList<>(List.of(new Flashcard(1, "Q1", "A1"))));
+        flashcards.failLoads = true;
+
+        Path csv = write("Flashcards/CAB302/Java.csv", "Front,Back\nQ1,A1\n");
+
+        assertTrue(importer().importChanges(List.of(csv)).isEmpty());
+        assertEquals(1, flashcards.cards.get(7L).size(), "a failed read is not an empty deck");
+        assertFalse(importer().importEdit(csv), "so Sync to Drive keeps the file");
+    }
+
+    @Test
+    void otherFilesAreIgnored() throws IOException {
+        Path pdf = write("Flashcards/CAB302/Java.pdf", "%PDF");
+        Path nested = write("Notes/a/b/deep.md", "# deep");
+
+        assertTrue(importer().importChanges(List.of(pdf, nested)).isEmpty());
+        assertTrue(notes.folders.isEmpty());
+    }
+
+    @Test
+    void markdownParsing() {
+        assertEquals(new DriveImportService.MarkdownNote("Title", "body"),
+                DriveImportService.parseMarkdown("\uFEFF# Title\r\n\r\nbody\r\n", "file"));
+        assertEquals(new DriveImportService.MarkdownNote("file", "## not a title\n"),
+                DriveImportService.parseMarkdown("## not a title\n\n", "file"));
+        assertEquals(new DriveImportService.MarkdownNote("Only", ""),
+                DriveImportService.parseMarkdown("# Only", "file"));
+    }
+}
@@ -0,0 +1,134 @@
+package com.cab302.eduplanner.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DriveServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private DriveService service() {
+        return new DriveService(null, tempDir.resolve("manifests"));
+    }
+
+    private static DriveService.Content text(String s) {
+        return out -> out.write(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void secondSyncWritesNothing() throws IOException {
+        Path drive = tempDir.resolve("drive");
+        Map<String, DriveService.Content> files = new LinkedHashMap<>();
+        files.put("Week 1/Lecture.md", text("# Lecture\n"));
+        files.put("Week 2/Tutorial.md", text("# Tutorial\n"));
+
+        DriveService.SyncResult first = service().sync(drive, files);
+        assertEquals(2, first.written());
+        assertEquals("# Lecture\n", Files.readString(drive.resolve("Week 1/Lecture.md")));
+        long mtime = Files.getLastModifiedTime(drive.resolve("Week 1/Lecture.md")).toMillis();
+
+        DriveService.SyncResult second = service().sync(drive, files);
+        assertEquals(0, second.written());
+        assertEquals(2, second.unchanged());
+        assertEquals(first.bytesWritten(), second.bytesSkipped());
+        assertEquals(mtime, Files.getLastModifiedTime(drive.resolve("Week 1/Lecture.md")).toMillis());
+    }
+
+    @Test
+    void onlyChangedAndRemovedFilesAreTouched() throws IOException {
+        Path drive = tempDir.resolve("drive");
+        Map<String, DriveService.Content> files = new LinkedHashMap<>();
+        files.put("Week 1/Lecture.md", text("v1"));
+        files.put("Week 2/Tutorial.md", text("tutorial"));
+        files.put("Week 3/Old.md", text("old"));
+        service().sync(drive, files);
+        Files.writeString(drive.resolve("Week 2/Mine.txt"), "written by the user");
+
+        files.put("Week 1/Lecture.md", text("v2"));
+        files.remove("Week 3/Old.md");
+        DriveService.SyncResult result = service().sync(drive, files);
+
+        assertEquals(1, result.written());
+        assertEquals(1, result.unchanged());
+        assertEquals(1, result.deleted());
+        assertEquals("v2", Files.readString(drive.resolve("Week 1/Lecture.md")));
+        assertFalse(Files.exists(drive.resolve("Week 3")), "emptied folder is removed");
+        assertEquals("written by the user", Files.readString(drive.resolve("Week 2/Mine.txt")));
+    }
+
+    @Test
+    void fileEditedOnDiskIsKeptAsConflict() throws IOException {
+        Path drive = tempDir.resolve("drive");
+        Map<String, DriveService.Content> files = Map.of("Deck.csv", text("Front,Back\n"));
+        service().sync(drive, files);
+
+        Files.writeString(drive.resolve("Deck.csv"), "edited elsewhere");
+        DriveService.SyncResult result = service().sync(drive, files);
+
+        assertEquals(0, result.written());
+        assertEquals(List.of("Deck.csv"), result.conflicts());
+        assertEquals("edited elsewhere", Files.readString(drive.resolve("Deck.csv")));
+        assertEquals(List.of("Deck.csv"), service().sync(drive, files).conflicts(), "still kept on the next sync");
+    }
+
+    @Test
+    void fileEditedOnDiskIsImportedBeforeItIsRewritten() throws IOException {
+        Path drive = tempDir.resolve("drive");
+        StringBuilder app = new StringBuilder("Front,Back\n");
+        Map<String, DriveService.Content> files = Map.of("Deck.csv", out -> out.write(app.toString().getBytes(StandardCharsets.UTF_8)));
+        service().sync(drive, files);
+
+        Files.writeString(drive.resolve("Deck.csv"), "Front,Back\nQ,A");
+        List<Path> imported = new ArrayList<>();
+        DriveService.SyncResult result = service().sync(drive, files, file -> {
+            imported.add(file);
+            app.append("Q,A\n"); // what the importer saved
+            return true;
+        });
+
+        assertEquals(List.of(drive.resolve("Deck.csv").toAbsolutePath()), imported);
+        assertEquals(1, result.written());
+        assertTrue(result.conflicts().isEmpty());
+        assertEquals("Front,Back\nQ,A\n", Files.readString(drive.resolve("Deck.csv")));
+    }
+
+    @Test
+    void missingFileIsRestoredAndEditedOrphanIsKept() throws IOException {
+        Path drive = tempDir.resolve("drive");
+        Map<String, DriveService.Content> files = new LinkedHashMap<>();
+        files.put("Gone.md", text("gone"));
+        files.put("Old.md", text("old"));
+        service().sync(drive, files);
+
+        Files.delete(drive.resolve("Gone.md"));
+        Files.writeString(drive.resolve("Old.md"), "kept by the user");
+        files.remove("Old.md");
+        DriveService.SyncResult result = service().sync(drive, files);
+
+        assertEquals(1, result.written());
+        assertEquals(0, result.deleted());
+        assertEquals(List.of("Old.md"), result.conflicts());
+        assertEquals("gone", Files.readString(drive.resolve("Gone.md")));
+        assertTrue(service().sync(drive, files).conflicts().isEmpty(), "an edited orphan is no longer managed");
+        assertEquals("kept by the user", Files.readString(drive.resolve("Old.md")));
+    }
+
+    @Test
+    void namesMustStayInsideTheFolder() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service().sync(tempDir.resolve("drive"), Map.of("../escape.md", text("x"))));
+        assertFalse(Files.exists(tempDir.resolve("escape.md")));
+    }
+}
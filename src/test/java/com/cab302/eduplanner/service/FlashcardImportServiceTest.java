@@ -0,0 +1,119 @@
+package com.cab302.eduplanner.service;
+
+import com.cab302.eduplanner.model.Flashcard;
+import com.cab302.eduplanner.repository.FlashcardRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlashcardImportServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    /** Records batches instead of writing them, so import can be tested without a database. */
+    private static final class RecordingRepository extends FlashcardRepository {
+        final List<Flashcard> cards = new ArrayList<>();
+        int batches;
+        int largestBatch;
+
+        @Override
+        public int insertCards(long deckId, long userId, List<Flashcard> batch) {
+            batches++;
+            largestBatch = Math.max(largestBatch, batch.size());
+            if (cards.size() < 10) cards.addAll(batch.subList(0, Math.min(10, batch.size())));
+            return batch.size();
+        }
+    }
+
+    private final RecordingRepository repo = new RecordingRepository();
+    private final FlashcardImportService importer = new FlashcardImportService(repo);
+
+    @Test
+    void rowReaderHandlesQuotesEmbeddedNewlinesAndLineEndings() throws IOException {
+        var rows = new FlashcardImportService.RowReader(
+                new StringReader("a,b\r\n\"x, y\",\"say \"\"hi\"\"\nthere\"\rlast,row"), ',');
+
+        assertEquals(List.of("a", "b"), List.copyOf(rows.next()));
+        assertEquals(List.of("x, y", "say \"hi\"\nthere"), List.copyOf(rows.next()));
+        assertEquals(List.of("last", "row"), List.copyOf(rows.next()));
+        assertNull(rows.next());
+    }
+
+    @Test
+    void readsExportedCsvAndSkipsItsHeader() throws IOException {
+        Path file = write("deck.csv", "\uFEFFFront,Back\n\"What is 1,2?\",A list\n\nQ only,\nBig-O?,O(1)\n");
+
+        var result = importer.importInto(file, 1, 1, (read, total, n) -> {}, () -> false);
+
+        assertEquals(2, result.imported());
+        assertEquals(1, result.skipped());
+        assertEquals("What is 1,2?", repo.cards.get(0).getQuestion());
+        assertEquals("O(1)", repo.cards.get(1).getAnswer());
+    }
+
+    @Test
+    void readsTabSeparatedFiles() throws IOException {
+        Path file = write("anki.tsv", "capital of France\tParis\textra\ttags\nH2O\twater\n");
+
+        var result = importer.importInto(file, 1, 1, (read, total, n) -> {}, () -> false);
+
+        assertEquals(2, result.imported());
+        assertEquals("Paris", repo.cards.getFirst().getAnswer());
+    }
+
+    @Test
+    void importsLargeFileInBoundedBatchesWithProgress() throws IOException {
+        final int rows = 100_000;
+        Path file = tempDir.resolve("big.csv");
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            w.write("Front,Back\n");
+            for (int i = 0; i < rows; i++) w.write("Question " + i + ",\"Answer, number " + i + "\"\n");
+        }
+        List<Long> progress = new ArrayList<>();
+
+        var result = importer.importInto(file, 1, 1, (read, total, n) -> progress.add(read), () -> false);
+
+        assertEquals(rows, result.imported());
+        assertEquals(FlashcardImportService.BATCH_SIZE, repo.largestBatch);
+        assertEquals(rows / FlashcardImportService.BATCH_SIZE, repo.batches);
+        assertEquals(Files.size(file), (long) progress.getLast());
+        for (int i = 1; i < progress.size(); i++) assertTrue(progress.get(i) >= progress.get(i - 1));
+    }
+
+    @Test
+    void cancellationStopsTheImport() throws IOException {
+        Path file = write("deck.csv", "q1,a1\nq2,a2\nq3,a3\n");
+        int[] polls = {0};
+
+        assertThrows(CancellationException.class,
+                () -> importer.importInto(file, 1, 1, (read, total, n) -> {}, () -> ++polls[0] > 2));
+        assertEquals(0, repo.batches);
+    }
+
+    @Test
+    void failedBatchAbortsTheImport() throws IOException {
+        Path file = write("deck.csv", "q1,a1\n");
+        var failing = new FlashcardImportService(new FlashcardRepository() {
+            @Override
+            public int insertCards(long deckId, long userId, List<Flashcard> batch) { return 0; }
+        });
+
+        assertThrows(IOException.class, () -> failing.importInto(file, 1, 1, (read, total, n) -> {}, () -> false));
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(tempDir.resolve(name), content, StandardCharsets.UTF_8);
+    }
+}
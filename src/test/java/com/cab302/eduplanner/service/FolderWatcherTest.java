@@ -0,0 +1,93 @@
+package com.cab302.eduplanner.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FolderWatcherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final LinkedBlockingQueue<Set<Path>> batches = new LinkedBlockingQueue<>();
+
+    private FolderWatcher watch(Path root) throws IOException {
+        FolderWatcher watcher = new FolderWatcher(List.of(root), Duration.ofMillis(300), Duration.ofSeconds(5),
+                p -> p.toString().endsWith(".md"), batches::add);
+        watcher.start();
+        return watcher;
+    }
+
+    private Set<Path> nextBatch() throws InterruptedException {
+        Set<Path> batch = batches.poll(10, TimeUnit.SECONDS);
+        assertNotNull(batch, "no batch reported");
+        return batch;
+    }
+
+    @Test
+    void existingFilesAreReportedOnceAtStart() throws Exception {
+        Path root = Files.createDirectories(tempDir.resolve("Notes"));
+        Path note = Files.writeString(Files.createDirectories(root.resolve("Week 1")).resolve("a.md"), "a");
+        Files.writeString(root.resolve("ignored.txt"), "x");
+
+        try (FolderWatcher ignored = watch(root)) {
+            assertEquals(Set.of(note), nextBatch());
+            assertNull(batches.poll(800, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    void burstOfWritesIsCoalescedIntoOneBatch() throws Exception {
+        Path root = Files.createDirectories(tempDir.resolve("Notes"));
+        Path seed = Files.writeString(root.resolve("seed.md"), "s");
+        try (FolderWatcher ignored = watch(root)) {
+            // Let the start-up scan finish first, or it can catch a.md mid-burst and rightly report it again
+            assertEquals(Set.of(seed), nextBatch());
+            Path a = root.resolve("a.md"), b = root.resolve("b.md");
+            for (int i = 0; i < 20; i++) {
+                Files.writeString(a, "a" + i);
+                Files.writeString(b, "b" + i);
+                Files.writeString(root.resolve(".a.md.tmp"), "partial");
+            }
+            Path sub = root.resolve("Week 2");
+            Files.createDirectories(sub);
+            Path c = Files.writeString(sub.resolve("c.md"), "c");
+
+            // Events may split across a quiet gap on a slow machine; together they name each file once
+            Set<Path> seen = new HashSet<>(nextBatch());
+            for (Set<Path> more; (more = batches.poll(800, TimeUnit.MILLISECONDS)) != null; ) {
+                for (Path p : more) assertTrue(seen.add(p), p + " reported twice");
+            }
+            assertEquals(Set.of(a, b, c), seen);
+        }
+    }
+
+    @Test
+    void touchingWithoutChangingIsNotReported() throws Exception {
+        Path root = Files.createDirectories(tempDir.resolve("Notes"));
+        Path note = Files.writeString(root.resolve("a.md"), "same");
+        try (FolderWatcher ignored = watch(root)) {
+            nextBatch();
+            // Same size and mtime, as when Drive re-downloads a file it already has
+            long mtime = Files.getLastModifiedTime(note).toMillis();
+            Files.writeString(note, "same");
+            Files.setLastModifiedTime(note, FileTime.fromMillis(mtime));
+            assertNull(batches.poll(800, TimeUnit.MILLISECONDS));
+
+            Files.writeString(note, "changed");
+            assertEquals(Set.of(note), nextBatch());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.cab302.eduplanner.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoteExportServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final NoteExportService service = new NoteExportService();
+
+    @Test
+    void pdfReplacesEarlierExportAndReportsProgress() throws IOException {
+        File out = tempDir.resolve("note.pdf").toFile();
+        Files.writeString(out.toPath(), "earlier export");
+        String body = "First paragraph\nwith a line break.\n\n".repeat(2_000);
+        List<Long> progress = new ArrayList<>();
+
+        service.writePdf("Week 1", body, out, (done, total) -> {
+            assertEquals(body.length(), total);
+            progress.add(done);
+        });
+
+        byte[] pdf = Files.readAllBytes(out.toPath());
+        assertEquals("%PDF", new String(pdf, 0, 4, StandardCharsets.ISO_8859_1));
+        assertEquals(body.length(), (long) progress.getLast());
+        for (int i = 1; i < progress.size(); i++) assertTrue(progress.get(i) >= progress.get(i - 1));
+        assertEquals(List.of(out.toPath()), files());
+    }
+
+    @Test
+    void failedExportLeavesExistingFileAlone() throws IOException {
+        File out = tempDir.resolve("note.pdf").toFile();
+        Files.writeString(out.toPath(), "earlier export");
+
+        // Helvetica has no CJK glyphs, so the export fails partway through
+        assertThrows(IllegalArgumentException.class,
+                () -> service.writePdf("Notes", "Fine so far\n\n中文", out));
+
+        assertEquals("earlier export", Files.readString(out.toPath()));
+        assertEquals(List.of(out.toPath()), files(), "temporary file is cleaned up");
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.toList();
+        }
+    }
+}
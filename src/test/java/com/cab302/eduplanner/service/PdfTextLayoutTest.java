@@ -0,0 +1,199 @@
+package com.cab302.eduplanner.service;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfTextLayoutTest {
+
+    private static final PDFont HELVETICA = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+    private static final PDFont HELVETICA_BOLD = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
+    private static final float WIDTH = PDRectangle.A4.getWidth() - 100f; // 50pt margins, as the exports use
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void wrapMatchesMeasuringWholeLines() throws IOException {
+        String text = words(new Random(302), 5_000);
+
+        assertEquals(legacyWrap(text, 11f, WIDTH), PdfTextLayout.wrap(text, HELVETICA, 11f, WIDTH));
+        assertEquals(legacyWrap(text, 24f, WIDTH), PdfTextLayout.wrap(text, HELVETICA, 24f, WIDTH));
+    }
+
+    @Test
+    void blankTextAndLongWords() throws IOException {
+        assertEquals(List.of(""), PdfTextLayout.wrap("  \n ", HELVETICA, 11f, WIDTH));
+        assertEquals(List.of("a b"), PdfTextLayout.wrap("\ta \r\n b ", HELVETICA, 11f, WIDTH));
+
+        String longWord = "x".repeat(500);
+        assertEquals(List.of("short", longWord, "tail"),
+                PdfTextLayout.wrap("short " + longWord + " tail", HELVETICA, 11f, WIDTH));
+    }
+
+    @Test
+    void linesFlowOntoNewPages() throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            PdfTextLayout layout = new PdfTextLayout(doc, PDRectangle.A4, 50f);
+            try (layout) {
+                for (int i = 0; i < 200; i++) layout.line("Line " + i, HELVETICA, 11f, 14f);
+            }
+
+            // 52 lines of 14pt fit between the margins of an A4 page
+            assertEquals(4, layout.pageCount());
+            assertEquals(4, doc.getNumberOfPages());
+        }
+    }
+
+    /**
+     * Exports a note of about 50 pages with the previous wrapping, which re-measured the whole line for
+     * every word, and with {@link PdfTextLayout}; both must produce the same pages.
+     */
+    @Test
+    void longNoteHasTheSamePagesAsBefore() throws IOException {
+        StringBuilder note = new StringBuilder();
+        Random rnd = new Random(500);
+        // Paragraphs of about 10 wrapped lines; 260 of them fill roughly 50 A4 pages in Helvetica 11
+        for (int p = 0; p < 260; p++) note.append(words(rnd, 140)).append("\n\n");
+        String body = note.toString();
+
+        File legacyOut = tempDir.resolve("legacy.pdf").toFile();
+        File out = tempDir.resolve("layout.pdf").toFile();
+        legacyExport("Long note", body, legacyOut);
+        new NoteExportService().writePdf("Long note", body, out);
+
+        try (PDDocument a = Loader.loadPDF(legacyOut); PDDocument b = Loader.loadPDF(out)) {
+            assertEquals(a.getNumberOfPages(), b.getNumberOfPages());
+            assertTrue(b.getNumberOfPages() >= 45, "pages " + b.getNumberOfPages());
+        }
+    }
+
+    /**
+     * Times a 500-page note export with the previous wrapping and with {@link PdfTextLayout}, best of three
+     * runs each after a warm-up, and reports both.
+     */
+    @Test
+    @Tag("benchmark")
+    void benchmarkFiveHundredPageExport(TestReporter reporter) throws IOException {
+        StringBuilder note = new StringBuilder();
+        Random rnd = new Random(500);
+        for (int p = 0; p < 2_600; p++) note.append(words(rnd, 140)).append("\n\n");
+        String body = note.toString();
+        File legacyOut = tempDir.resolve("legacy.pdf").toFile();
+        File out = tempDir.resolve("layout.pdf").toFile();
+        NoteExportService export = new NoteExportService();
+
+        legacyExport("Long note", body, legacyOut);
+        export.writePdf("Long note", body, out);
+        long legacy = Long.MAX_VALUE, layout = Long.MAX_VALUE;
+        for (int run = 0; run < 3; run++) {
+            long start = System.nanoTime();
+            legacyExport("Long note", body, legacyOut);
+            long middle = System.nanoTime();
+            export.writePdf("Long note", body, out);
+            long end = System.nanoTime();
+            legacy = Math.min(legacy, middle - start);
+            layout = Math.min(layout, end - middle);
+        }
+
+        int pages;
+        try (PDDocument a = Loader.loadPDF(legacyOut); PDDocument b = Loader.loadPDF(out)) {
+            pages = b.getNumberOfPages();
+            assertEquals(a.getNumberOfPages(), pages);
+            assertTrue(pages >= 450, "pages " + pages);
+        }
+        reporter.publishEntry(pages + "-page note export", String.format(Locale.ROOT,
+                "whole-line measuring %d ms, PdfTextLayout %d ms", legacy / 1_000_000, layout / 1_000_000));
+        assertTrue(layout < legacy, "PdfTextLayout is not slower than the wrapping it replaced");
+    }
+
+    private static String words(Random rnd, int count) {
+        String[] vocabulary = {"the", "assessment", "is", "due", "in", "week", "twelve", "and", "covers",
+                "software", "development", "practice", "with", "a", "focus", "on", "testing", "Java", "CAB302"};
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(rnd.nextInt(20) == 0 ? "  " : " ");
+            sb.append(vocabulary[rnd.nextInt(vocabulary.length)]);
+        }
+        return sb.toString();
+    }
+
+    // ---- the implementation PdfTextLayout replaced, kept as the baseline ----
+
+    private static List<String> legacyWrap(String text, float fontSize, float widthPx) throws IOException {
+        var words = text.replace("\r", "").split("\\s+");
+        var lines = new ArrayList<String>();
+        StringBuilder line = new StringBuilder();
+        for (String w : words) {
+            String test = (line.length() == 0) ? w : line + " " + w;
+            float testWidth = HELVETICA.getStringWidth(test) / 1000f * fontSize;
+            if (testWidth > widthPx && line.length() > 0) {
+                lines.add(line.toString());
+                line.setLength(0);
+                line.append(w);
+            } else {
+                line.setLength(0);
+                line.append(test);
+            }
+        }
+        if (line.length() > 0) lines.add(line.toString());
+        if (lines.isEmpty()) lines.add("");
+        return lines;
+    }
+
+    private static void legacyExport(String title, String body, File out) throws IOException {
+        float margin = 50f;
+        try (PDDocument doc = new PDDocument()) {
+            PDPage page = new PDPage(PDRectangle.A4);
+            doc.addPage(page);
+            PDPageContentStream cs = new PDPageContentStream(doc, page);
+            float y = page.getMediaBox().getHeight() - margin;
+            cs.beginText();
+            cs.setFont(HELVETICA_BOLD, 16f);
+            cs.newLineAtOffset(margin, y);
+            cs.showText(title);
+            cs.endText();
+            y -= 30f;
+
+            for (String para : body.split("\\R\\R")) {
+                for (String line : legacyWrap(para, 11f, WIDTH)) {
+                    if (y < margin + 14f) {
+                        cs.close();
+                        page = new PDPage(PDRectangle.A4);
+                        doc.addPage(page);
+                        cs = new PDPageContentStream(doc, page);
+                        y = page.getMediaBox().getHeight() - margin;
+                    }
+                    cs.beginText();
+                    cs.setFont(HELVETICA, 11f);
+                    cs.newLineAtOffset(margin, y);
+                    cs.showText(line);
+                    cs.endText();
+                    y -= 14f;
+                }
+                y -= 10f;
+            }
+            cs.close();
+            doc.save(out);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.cab302.eduplanner.service;
+
+import com.cab302.eduplanner.model.Flashcard;
+import com.cab302.eduplanner.service.ReviewScheduler.Grade;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReviewSchedulerTest {
+
+    private static final long DAY = Duration.ofDays(1).toMillis();
+
+    private final SimClock clock = new SimClock(1_700_000_000_000L);
+    private final ReviewScheduler scheduler = new ReviewScheduler(clock);
+
+    @Test
+    void successfulReviewsFollowSm2Intervals() {
+        Flashcard card = card(1);
+
+        ReviewScheduler.schedule(card, Grade.GOOD, 0);
+        assertEquals(1, card.getIntervalDays());
+        ReviewScheduler.schedule(card, Grade.GOOD, 0);
+        assertEquals(6, card.getIntervalDays());
+        ReviewScheduler.schedule(card, Grade.GOOD, 0);
+        assertEquals(15, card.getIntervalDays()); // 6 * 2.5
+        assertEquals(15 * DAY, card.getDueAt());
+        assertEquals(3, card.getRepetitions());
+        assertEquals(Flashcard.DEFAULT_EASE, card.getEase(), 1e-9);
+    }
+
+    @Test
+    void easeFollowsGradeAndHasAFloor() {
+        Flashcard easy = card(1);
+        ReviewScheduler.schedule(easy, Grade.EASY, 0);
+        assertEquals(2.6, easy.getEase(), 1e-9);
+
+        Flashcard hard = card(2);
+        for (int i = 0; i < 20; i++) ReviewScheduler.schedule(hard, Grade.HARD, 0);
+        assertEquals(ReviewScheduler.MIN_EASE, hard.getEase(), 1e-9);
+    }
+
+    @Test
+    void lapseResetsRepetitionsAndComesBackSoon() {
+        Flashcard card = card(1);
+        card.setSchedule(2.5, 30, 5, 0);
+
+        ReviewScheduler.schedule(card, Grade.AGAIN, 1_000);
+
+        assertEquals(0, card.getRepetitions());
+        assertEquals(0, card.getIntervalDays());
+        assertEquals(1_000 + ReviewScheduler.RELEARN_DELAY.toMillis(), card.getDueAt());
+        ReviewScheduler.schedule(card, Grade.GOOD, 0);
+        assertEquals(1, card.getIntervalDays());
+    }
+
+    @Test
+    void servesEarliestDueCardFirstAndNothingBeforeItIsDue() {
+        Flashcard later = card(1);
+        later.setSchedule(2.5, 3, 1, clock.millis() + DAY);
+        Flashcard newA = card(2);
+        Flashcard newB = card(3);
+        scheduler.addAll(List.of(later, newB, newA));
+
+        assertSame(newA, scheduler.nextDue().orElseThrow());
+        scheduler.review(newA, Grade.GOOD);
+        assertSame(newB, scheduler.nextDue().orElseThrow());
+        scheduler.review(newB, Grade.AGAIN);
+
+        assertTrue(scheduler.nextDue().isEmpty());
+        assertEquals(clock.millis() + ReviewScheduler.RELEARN_DELAY.toMillis(), (long) scheduler.nextDueAt().orElseThrow());
+
+        clock.advance(ReviewScheduler.RELEARN_DELAY.toMillis());
+        assertSame(newB, scheduler.nextDue().orElseThrow());
+        clock.advance(DAY);
+        assertSame(newB, scheduler.nextDue().orElseThrow()); // due 10 min after the review, before `later`
+        assertEquals(3, scheduler.size());
+    }
+
+    @Test
+    void reviewingCardOutsideSessionIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> scheduler.review(card(9), Grade.GOOD));
+    }
+
+    /**
+     * Replays a year of daily study over a 50k-card deck: 200 new cards a day, every due card reviewed,
+     * recall probability falling with interval length. Checks the average cost of picking and rescheduling a card.
+     */
+    @Test
+    @Tag("benchmark")
+    void benchmarkYearOfReviewsOn50kCards() {
+        final int cards = 50_000, newPerDay = 200, days = 365;
+        Random rnd = new Random(302);
+        List<Flashcard> deck = new ArrayList<>(cards);
+        for (int i = 1; i <= cards; i++) deck.add(card(i));
+
+        long reviews = 0, opNanos = 0, worstNanos = 0;
+        int introduced = 0;
+        for (int day = 0; day < days; day++) {
+            // Unseen cards join the session a batch at a time, like a daily new-card limit
+            for (int i = 0; i < newPerDay && introduced < cards; i++) {
+                Flashcard c = deck.get(introduced++);
+                c.setSchedule(Flashcard.DEFAULT_EASE, 0, 0, clock.millis());
+                scheduler.add(c);
+            }
+            long endOfDay = clock.millis() + DAY;
+            while (true) {
+                long t = System.nanoTime();
+                Optional<Flashcard> next = scheduler.nextDue();
+                if (next.isEmpty()) {
+                    // Relearning cards come back later the same day
+                    long dueAt = scheduler.nextDueAt().orElse(Long.MAX_VALUE);
+                    if (dueAt >= endOfDay) break;
+                    clock.set(dueAt);
+                    continue;
+                }
+                Flashcard c = next.get();
+                double recall = Math.exp(-c.getIntervalDays() / (c.getEase() * 40.0));
+                Grade grade = rnd.nextDouble() > recall * 0.95 ? Grade.AGAIN
+                        : rnd.nextDouble() < 0.2 ? Grade.EASY : Grade.GOOD;
+                scheduler.review(c, grade);
+                long took = System.nanoTime() - t;
+                opNanos += took;
+                worstNanos = Math.max(worstNanos, took);
+                reviews++;
+            }
+            clock.set(endOfDay);
+        }
+
+        double avgMicros = opNanos / 1e3 / reviews;
+        assertEquals(cards, scheduler.size());
+        assertTrue(reviews > scheduler.size(), "every card is reviewed at least once");
+        assertTrue(avgMicros < 50, "average review cost " + avgMicros + " us, worst " + worstNanos / 1e3 + " us");
+    }
+
+    private static Flashcard card(long id) {
+        return new Flashcard(id, "Q" + id, "A" + id);
+    }
+
+    /** Clock the simulation moves by hand. */
+    private static final class SimClock extends Clock {
+        private long now;
+
+        SimClock(long now) { this.now = now; }
+
+        void advance(long ms) { now += ms; }
+
+        void set(long ms) { now = ms; }
+
+        @Override public long millis() { return now; }
+
+        @Override public Instant instant() { return Instant.ofEpochMilli(now); }
+
+        @Override public ZoneId getZone() { return ZoneOffset.UTC; }
+
+        @Override public Clock withZone(ZoneId zone) { return this; }
+    }
+}
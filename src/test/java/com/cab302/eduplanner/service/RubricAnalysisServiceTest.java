@@ -0,0 +1,235 @@
+package com.cab302.eduplanner.service;
+
+import com.cab302.eduplanner.integration.openai.OpenAiRubricClient;
+import com.cab302.eduplanner.integration.openai.StubGraderServer;
+import com.cab302.eduplanner.model.RubricAnalysisResult;
+import com.cab302.eduplanner.repository.RubricRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RubricAnalysisServiceTest {
+
+    /** Records what would have been sent instead of calling OpenAI. */
+    private static final class RecordingClient extends OpenAiRubricClient {
+        String rubricText;
+        String assignmentText;
+        int calls;
+
+        RecordingClient() {
+            super(new OkHttpClient(), new ObjectMapper(), "test-key", "test-model");
+        }
+
+        @Override
+        public ChunkedGrading gradeAssignmentInChunks(String rubricText, String assignmentText) {
+            this.rubricText = rubricText;
+            this.assignmentText = assignmentText;
+            calls++;
+            return new ChunkedGrading(new RubricAnalysisResult(7.0, 10.0, List.of()), List.of());
+        }
+    }
+
+    private final RecordingClient client = new RecordingClient();
+
+    @Test
+    void documentsAreExtractedAtTheSameTime() throws IOException {
+        // Each extraction waits for the other to start, so running them one after the other would time out
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        DocumentTextExtractor extractor = new DocumentTextExtractor() {
+            @Override
+            public String extractText(Path path, int maxCharacters) throws IOException {
+                bothStarted.countDown();
+                try {
+                    if (!bothStarted.await(5, TimeUnit.SECONDS)) throw new IOException("extracted one at a time");
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return "text of " + path.getFileName() + " within " + maxCharacters;
+            }
+        };
+
+        RubricAnalysisResult result = new RubricAnalysisService(extractor, client)
+                .analyse(Path.of("essay.pdf"), Path.of("rubric.docx"));
+
+        assertEquals(7.0, result.getOverallScore());
+        assertEquals("text of rubric.docx within " + DocumentTextExtractor.MAX_CHARACTERS, client.rubricText);
+        assertEquals("text of essay.pdf within " + DocumentTextExtractor.MAX_CHARACTERS, client.assignmentText,
+                "one request's worth unless the whole assignment is asked for");
+    }
+
+    @Test
+    void wholeAssignmentIsKeptForChunkedGrading() throws IOException {
+        DocumentTextExtractor extractor = new DocumentTextExtractor() {
+            @Override
+            public String extractText(Path path, int maxCharacters) {
+                return "text of " + path.getFileName() + " within " + maxCharacters;
+            }
+        };
+        RubricAnalysisService service = new RubricAnalysisService(extractor, client);
+
+        service.analyse(Path.of("essay.pdf"), Path.of("rubric.docx"), null, true, null);
+
+        assertEquals("text of essay.pdf within " + RubricAnalysisService.ASSIGNMENT_CHARACTERS, client.assignmentText);
+        assertEquals(11, service.maxRequests());
+    }
+
+    @Test
+    void extractionFailureIsReportedAndNothingIsSent() {
+        DocumentTextExtractor extractor = new DocumentTextExtractor() {
+            @Override
+            public String extractText(Path path, int maxCharacters) throws IOException {
+                if (path.toString().startsWith("rubric")) throw new IOException("Unsupported file type: rubric.odt");
+                return "essay";
+            }
+        };
+
+        IOException e = assertThrows(IOException.class,
+                () -> new RubricAnalysisService(extractor, client).analyse(Path.of("essay.txt"), Path.of("rubric.odt")));
+        assertEquals("Unsupported file type: rubric.odt", e.getMessage());
+        assertNull(client.rubricText);
+    }
+
+    @Test
+    void eitherFailureCancelsTheOtherExtraction() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        DocumentTextExtractor extractor = new DocumentTextExtractor() {
+            @Override
+            public String extractText(Path path, int maxCharacters) throws IOException {
+                if (path.toString().startsWith("essay")) {
+                    // Fail once the rubric is underway; cancelling a task that never started interrupts nothing
+                    try {
+                        started.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new IOException("Could not read essay.pdf");
+                }
+                started.countDown();
+                try {
+                    Thread.sleep(10_000); // a long rubric
+                } catch (InterruptedException e) {
+                    cancelled.countDown();
+                }
+                return "rubric";
+            }
+        };
+
+        IOException e = assertThrows(IOException.class,
+                () -> new RubricAnalysisService(extractor, client).analyse(Path.of("essay.pdf"), Path.of("rubric.pdf")));
+        assertEquals("Could not read essay.pdf", e.getMessage());
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS), "the rubric extraction was interrupted");
+        assertNull(client.rubricText);
+    }
+
+    /** Keeps grades in memory so caching can be tested without a database. */
+    private static final class InMemoryGrades extends RubricRepository {
+        final Map<GradeKey, RubricAnalysisResult> grades = new HashMap<>();
+        final Map<GradeKey, Long> rubricIds = new HashMap<>();
+
+        @Override
+        public Optional<RubricAnalysisResult> find(GradeKey key) {
+            return Optional.ofNullable(grades.get(key));
+        }
+
+        @Override
+        public boolean save(GradeKey key, RubricAnalysisResult result, Long rubricId) {
+            grades.put(key, result);
+            rubricIds.put(key, rubricId);
+            return true;
+        }
+
+        @Override
+        public Optional<Long> attachToTask(long taskId, String location) {
+            return Optional.of(taskId * 10);
+        }
+
+        @Override
+        public Optional<RubricAnalysisResult> findLatestForTask(long taskId) {
+            return grades.entrySet().stream()
+                    .filter(e -> Long.valueOf(taskId * 10).equals(rubricIds.get(e.getKey())))
+                    .map(Map.Entry::getValue)
+                    .findFirst();
+        }
+    }
+
+    @Test
+    void identicalResubmissionIsServedFromTheCache() throws IOException {
+        DocumentTextExtractor extractor = new DocumentTextExtractor() {
+            @Override
+            public String extractText(Path path, int maxCharacters) {
+                return path.getFileName().toString().startsWith("rubric") ? "rubric text" : "essay text";
+            }
+        };
+        InMemoryGrades grades = new InMemoryGrades();
+        RubricAnalysisService service = new RubricAnalysisService(extractor, client, grades);
+
+        RubricAnalysisResult first = service.analyse(Path.of("essay.pdf"), Path.of("rubric.pdf"), 4L);
+        RubricAnalysisResult again = service.analyse(Path.of("essay-copy.pdf"), Path.of("rubric.pdf"));
+
+        assertSame(first, again);
+        assertEquals(1, client.calls);
+        assertEquals(new RubricAnalysisService.CacheStats(1, 1), service.cacheStats());
+        assertEquals(0.5, service.cacheStats().hitRate());
+        RubricRepository.GradeKey key = grades.grades.keySet().iterator().next();
+        assertEquals("test-model", key.model());
+        assertEquals(Long.valueOf(40), grades.rubricIds.get(key), "grade is linked to the task's rubric");
+    }
+
+    @Test
+    void cachedGradeIsLinkedToTheTaskChosenLater() throws IOException {
+        DocumentTextExtractor extractor = new DocumentTextExtractor() {
+            @Override
+            public String extractText(Path path, int maxCharacters) {
+                return path.getFileName().toString().startsWith("rubric") ? "rubric text" : "essay text";
+            }
+        };
+        RubricAnalysisService service = new RubricAnalysisService(extractor, client, new InMemoryGrades());
+
+        RubricAnalysisResult graded = service.analyse(Path.of("essay.pdf"), Path.of("rubric.pdf"));
+        assertTrue(service.latestForTask(7).isEmpty());
+
+        service.analyse(Path.of("essay.pdf"), Path.of("rubric.pdf"), 7L);
+
+        assertEquals(1, client.calls);
+        assertSame(graded, service.latestForTask(7).orElseThrow());
+    }
+
+    @Test
+    void categoriesAreReportedFromTheStreamAndFromTheCache() throws IOException {
+        DocumentTextExtractor extractor = new DocumentTextExtractor() {
+            @Override
+            public String extractText(Path path, int maxCharacters) {
+                return path.getFileName().toString().startsWith("rubric") ? "rubric text" : "essay text";
+            }
+        };
+        try (StubGraderServer server = new StubGraderServer(Duration.ZERO, Duration.ofMillis(5), StubGraderServer.GRADE)) {
+            OpenAiRubricClient streaming = new OpenAiRubricClient(new OkHttpClient(), new ObjectMapper(), "test-key",
+                    "test-model", server.endpoint());
+            RubricAnalysisService service = new RubricAnalysisService(extractor, streaming, new InMemoryGrades());
+            List<String> seen = new ArrayList<>();
+
+            RubricAnalysisResult first = service.analyse(Path.of("essay.pdf"), Path.of("rubric.pdf"), null,
+                    category -> seen.add(category.getName()));
+            service.analyse(Path.of("essay.pdf"), Path.of("rubric.pdf"), null, category -> seen.add("cached " + category.getName()));
+
+            assertEquals(7.0, first.getOverallScore());
+            assertEquals(List.of("Clarity", "cached Clarity"), seen);
+            assertEquals(1, server.streamsFinished(), "one streamed request; the second analysis hit the cache");
+            assertEquals(1, server.requests());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.cab302.eduplanner.service;
+
+import com.cab302.eduplanner.integration.openai.OpenAiRubricClient;
+import com.cab302.eduplanner.integration.openai.StubGraderServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Batch grading against a local stub of the Responses API, plus a throughput benchmark
+ * (submissions/sec with one and eight requests in flight) tagged {@code benchmark}.
+ */
+class RubricBatchGradingTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final List<RubricAnalysisService.SubmissionResult> outcomes = Collections.synchronizedList(new ArrayList<>());
+
+    private RubricAnalysisService service(StubGraderServer server) {
+        OpenAiRubricClient client = new OpenAiRubricClient(new OkHttpClient(), new ObjectMapper(), "test-key",
+                "test-model", server.endpoint());
+        return new RubricAnalysisService(new DocumentTextExtractor(), client);
+    }
+
+    private Path rubric() throws IOException {
+        return Files.writeString(tempDir.resolve("rubric.txt"), "Clarity: 10 marks. Referencing: 10 marks.");
+    }
+
+    private Path submissions(int count) throws IOException {
+        Path folder = Files.createDirectories(tempDir.resolve("submissions"));
+        for (int i = 0; i < count; i++) {
+            Files.writeString(folder.resolve(String.format(Locale.ROOT, "student-%03d.txt", i)),
+                    "Essay " + i + ": the argument is developed over several sections. ".repeat(20));
+        }
+        return folder;
+    }
+
+    @Test
+    void everySubmissionIsGradedAndStreamedToCsv() throws IOException {
+        Path folder = submissions(12);
+        Files.writeString(folder.resolve("notes.md"), "not a submission");
+        Files.writeString(folder.resolve("~$student-000.txt"), "office lock file");
+        Path csv = tempDir.resolve("grades.csv");
+
+        RubricAnalysisService.BatchSummary summary;
+        try (StubGraderServer server = new StubGraderServer(Duration.ofMillis(100));
+             GradeCsvWriter writer = new GradeCsvWriter(csv)) {
+            summary = service(server).analyseFolder(folder, rubric(),
+                    new RubricAnalysisService.BatchOptions(3, 1_000, 1_000), outcome -> {
+                        outcomes.add(outcome);
+                        writer.onResult(outcome);
+                    });
+            assertEquals(12, server.requests());
+            assertTrue(server.maxInFlight() <= 3, "cap of three requests, saw " + server.maxInFlight());
+        }
+
+        assertEquals(new RubricAnalysisService.BatchSummary(12, 0, summary.elapsedNanos()), summary);
+        assertEquals(12, outcomes.size());
+        assertTrue(outcomes.stream().allMatch(o -> o.succeeded() && o.result().getOverallScore() == 7.0));
+
+        List<String> lines = Files.readAllLines(csv);
+        assertEquals("Submission,Score,Max Score,Categories,Error", lines.getFirst());
+        assertEquals(13, lines.size());
+        assertTrue(lines.contains("student-004.txt,7,10,Clarity 7/10,"), lines.toString());
+    }
+
+    @Test
+    void failedSubmissionIsReportedAndTheBatchCarriesOn() throws IOException {
+        Path folder = submissions(3);
+        Files.writeString(folder.resolve("broken.pdf"), "not a pdf");
+
+        try (StubGraderServer server = new StubGraderServer(Duration.ZERO)) {
+            RubricAnalysisService.BatchSummary summary = service(server).analyseFolder(folder, rubric(),
+                    RubricAnalysisService.BatchOptions.defaults(), outcomes::add);
+
+            assertEquals(3, summary.graded());
+            assertEquals(1, summary.failed());
+        }
+        RubricAnalysisService.SubmissionResult broken = outcomes.stream()
+                .filter(o -> o.submission().getFileName().toString().equals("broken.pdf")).findFirst().orElseThrow();
+        assertFalse(broken.succeeded());
+        assertNotNull(broken.error());
+    }
+
+    @Test
+    void tokenBucketHoldsTheRequestRate() throws IOException {
+        Path folder = submissions(12);
+
+        try (StubGraderServer server = new StubGraderServer(Duration.ZERO)) {
+            long start = System.nanoTime();
+            service(server).analyseFolder(folder, rubric(), new RubricAnalysisService.BatchOptions(8, 20, 2), outcomes::add);
+            long elapsed = System.nanoTime() - start;
+
+            // Two requests go at once, the other ten wait for tokens at 20 per second
+            assertTrue(elapsed >= 450_000_000L, "finished in " + elapsed / 1_000_000 + " ms");
+            List<Long> arrivals = server.arrivals();
+            assertTrue(arrivals.getLast() - arrivals.getFirst() >= 450_000_000L);
+        }
+    }
+
+    @Test
+    void listingSkipsTheRubricAndOtherFiles() throws IOException {
+        Path folder = submissions(2);
+        Path rubricInFolder = Files.writeString(folder.resolve("rubric.docx"), "x");
+        Files.createDirectories(folder.resolve("nested.pdf"));
+
+        assertEquals(List.of(folder.resolve("student-000.txt"), folder.resolve("student-001.txt")),
+                RubricAnalysisService.listSubmissions(folder, rubricInFolder));
+        assertThrows(IOException.class, () -> RubricAnalysisService.listSubmissions(folder.resolve("missing"), rubricInFolder));
+    }
+
+    /**
+     * Grades 32 submissions against a stub that takes 150 ms per request, one at a time and then eight at
+     * a time; with no rate limit, throughput should scale with the number of requests in flight.
+     */
+    @Test
+    @Tag("benchmark")
+    void benchmarkConcurrentBatch(TestReporter reporter) throws IOException {
+        Path folder = submissions(32);
+        Path rubric = rubric();
+
+        long sequential, concurrent;
+        try (StubGraderServer server = new StubGraderServer(Duration.ofMillis(150))) {
+            RubricAnalysisService service = service(server);
+            sequential = service.analyseFolder(folder, rubric, new RubricAnalysisService.BatchOptions(1, 1_000, 1_000),
+                    outcome -> { }).elapsedNanos();
+            concurrent = service.analyseFolder(folder, rubric, new RubricAnalysisService.BatchOptions(8, 1_000, 1_000),
+                    outcome -> { }).elapsedNanos();
+            assertEquals(64, server.requests());
+        }
+
+        reporter.publishEntry("32 submissions at 150 ms each", String.format(Locale.ROOT,
+                "1 in flight %.1f/s (%d ms), 8 in flight %.1f/s (%d ms)",
+                32e9 / sequential, sequential / 1_000_000, 32e9 / concurrent, concurrent / 1_000_000));
+        assertTrue(sequential > concurrent * 3, "eight in flight should be well over three times faster");
+    }
+}
@@ -0,0 +1,232 @@
+package com.cab302.eduplanner.service;
+
+import com.cab302.eduplanner.ConnectionPool;
+import com.cab302.eduplanner.SchemaMigrator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against a scratch database migrated to the current schema, so the 100k-document benchmark
+ * does not touch the development database.
+ */
+class SearchServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ConnectionPool pool;
+    private SearchService search;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = new ConnectionPool("jdbc:sqlite:" + tempDir.resolve("search-test.db"), 2, 5_000,
+                List.of("PRAGMA foreign_keys = ON;", "PRAGMA journal_mode = WAL;", "PRAGMA synchronous = NORMAL;"));
+        try (Connection c = pool.getConnection()) {
+            new SchemaMigrator().migrate(c);
+        }
+        search = new SearchService(pool::getConnection);
+        exec("INSERT INTO users (user_id, username, password_hash) VALUES (1, 'alice', 'x'), (2, 'bob', 'x')");
+        exec("INSERT INTO folders (folder_id, user_id, name) VALUES (1, 1, 'CAB302'), (2, 2, 'Other')");
+        exec("INSERT INTO flashcard_folders (folder_id, user_id, name) VALUES (1, 1, 'CAB302'), (2, 2, 'Other')");
+        exec("INSERT INTO flashcard_decks (deck_id, folder_id, name) VALUES (1, 1, 'Week 1'), (2, 2, 'Other')");
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void userInputIsQuotedSoOperatorsMatchLiterally() {
+        List<String> terms = SearchService.terms("NOT title:\"x");
+        assertEquals(List.of("NOT", "title", "x"), terms);
+        assertEquals("\"NOT\" \"title\" \"x\"*", SearchService.toMatchExpression(terms, true));
+        assertEquals("\"NOT\" \"title\" \"x\"", SearchService.toMatchExpression(terms, false));
+        assertTrue(SearchService.terms("  *:() ").isEmpty());
+        assertTrue(search.search(1, "\"unbalanced", 10).isEmpty());
+    }
+
+    @Test
+    void findsNotesAndTasksWithHighlightedSnippets() {
+        exec("INSERT INTO notes (folder_id, title, content) VALUES (1, 'Sprint review', 'Agile retrospective notes')");
+        exec("INSERT INTO tasks (user_id, subject, title, notes) VALUES (1, 'CAB302', 'Agile report', 'Due week 9')");
+        exec("INSERT INTO notes (folder_id, title, content) VALUES (1, 'Unrelated', 'Nothing to see')");
+
+        List<SearchService.SearchHit> hits = search.search(1, "agile", 10);
+
+        assertEquals(2, hits.size());
+        assertTrue(hits.stream().anyMatch(h -> h.kind() == SearchService.Kind.NOTE && h.title().equals("Sprint review")));
+        assertTrue(hits.stream().anyMatch(h -> h.kind() == SearchService.Kind.TASK && h.title().equals("Agile report")));
+        for (SearchService.SearchHit h : hits) {
+            assertTrue(h.snippet().contains("[Agile]"), h.snippet());
+        }
+    }
+
+    @Test
+    void findsFlashcardsByQuestionOrAnswer() {
+        exec("INSERT INTO flashcards (deck_id, question, answer) VALUES (1, 'Big-O of binary search?', 'O(log n)')");
+        exec("INSERT INTO flashcards (deck_id, question, answer) VALUES (1, 'Sorting', 'Merge sort uses binary splits')");
+        exec("INSERT INTO flashcards (deck_id, question, answer) VALUES (2, 'Binary trees', 'not mine')");
+
+        List<SearchService.SearchHit> hits = search.search(1, "binary", 10);
+
+        assertEquals(2, hits.size());
+        assertTrue(hits.stream().allMatch(h -> h.kind() == SearchService.Kind.FLASHCARD));
+        assertEquals("Big-O of binary search?", hits.getFirst().title());
+    }
+
+    @Test
+    void titleMatchesOutrankBodyMatches() {
+        exec("INSERT INTO notes (folder_id, title, content) VALUES (1, 'Week 3', 'We covered normalisation today')");
+        exec("INSERT INTO notes (folder_id, title, content) VALUES (1, 'Normalisation', 'Lecture summary')");
+
+        List<SearchService.SearchHit> hits = search.search(1, "normalisation", 10);
+
+        assertEquals("Normalisation", hits.getFirst().title());
+    }
+
+    @Test
+    void lastWordMatchesAsPrefix() {
+        exec("INSERT INTO notes (folder_id, title, content) VALUES (1, 'Databases', 'Indexing strategies')");
+
+        assertEquals(1, search.search(1, "index", 10).size());   // no exact match, falls back to prefix
+        assertEquals(1, search.search(1, "ind", 10).size());     // served by the prefix index
+        assertEquals(1, search.search(1, "databases ind", 10).size());
+        assertTrue(search.search(1, "index databases", 10).isEmpty());
+    }
+
+    @Test
+    void resultsAreScopedToUser() {
+        exec("INSERT INTO notes (folder_id, title, content) VALUES (2, 'Secret', 'quarterly plan')");
+        exec("INSERT INTO tasks (user_id, title) VALUES (2, 'quarterly review')");
+
+        assertTrue(search.search(1, "quarterly", 10).isEmpty());
+        assertEquals(2, search.search(2, "quarterly", 10).size());
+    }
+
+    @Test
+    void triggersKeepIndexInStepWithEdits() {
+        exec("INSERT INTO notes (note_id, folder_id, title, content) VALUES (10, 1, 'Draft', 'photosynthesis')");
+        exec("INSERT INTO tasks (task_id, user_id, title) VALUES (20, 1, 'Essay on photosynthesis')");
+        assertEquals(2, search.search(1, "photosynthesis", 10).size());
+
+        exec("UPDATE notes SET content = 'respiration' WHERE note_id = 10");
+        exec("DELETE FROM tasks WHERE task_id = 20");
+
+        assertTrue(search.search(1, "photosynthesis", 10).isEmpty());
+        assertEquals(10, search.search(1, "respiration", 10).getFirst().id());
+
+        exec("DELETE FROM folders WHERE folder_id = 1"); // cascades to the note
+        assertTrue(search.search(1, "respiration", 10).isEmpty());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkSearchLatencyOver100kDocuments() throws SQLException {
+        final int notes = 70_000, tasks = 30_000;
+        Random rnd = new Random(302);
+        String[] vocab = new String[5_000];
+        for (int i = 0; i < vocab.length; i++) vocab[i] = randomWord(rnd);
+        double[] cumulative = zipf(vocab.length);
+
+        try (Connection c = pool.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement("INSERT INTO notes (folder_id, title, content) VALUES (1, ?, ?)")) {
+                for (int i = 0; i < notes; i++) {
+                    ps.setString(1, text(rnd, vocab, cumulative, 4));
+                    ps.setString(2, text(rnd, vocab, cumulative, 30));
+                    ps.addBatch();
+                    if (i % 5_000 == 4_999) ps.executeBatch();
+                }
+                ps.executeBatch();
+            }
+            try (PreparedStatement ps = c.prepareStatement(
+                    "INSERT INTO tasks (user_id, subject, title, notes) VALUES (1, ?, ?, ?)")) {
+                for (int i = 0; i < tasks; i++) {
+                    ps.setString(1, "CAB" + (100 + rnd.nextInt(300)));
+                    ps.setString(2, text(rnd, vocab, cumulative, 5));
+                    ps.setString(3, text(rnd, vocab, cumulative, 20));
+                    ps.addBatch();
+                    if (i % 5_000 == 4_999) ps.executeBatch();
+                }
+                ps.executeBatch();
+            }
+            c.commit();
+        }
+
+        // Mix of very common, mid-frequency and rare terms, two-word queries and short prefixes
+        List<String> queries = new ArrayList<>();
+        for (int rank : new int[]{0, 1, 5, 20, 100, 500, 2_000, 4_000}) queries.add(vocab[rank]);
+        queries.add(vocab[0] + " " + vocab[50]);
+        queries.add(vocab[10] + " " + vocab[1_000]);
+        queries.add(vocab[3].substring(0, 2));
+        queries.add(vocab[700].substring(0, 3));
+        queries.add(vocab[20].substring(0, 5));
+
+        for (String q : queries) search.search(1, q, 20); // warm-up
+
+        List<Long> samples = new ArrayList<>();
+        for (int round = 0; round < 5; round++) {
+            for (String q : queries) {
+                long t = System.nanoTime();
+                List<SearchService.SearchHit> hits = search.search(1, q, 20);
+                samples.add(System.nanoTime() - t);
+                assertFalse(hits.isEmpty(), "no hits for " + q);
+            }
+        }
+        long[] sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+        double p50 = sorted[sorted.length / 2] / 1e6;
+        double p95 = sorted[(int) (sorted.length * 0.95)] / 1e6;
+
+        assertTrue(p50 < SearchService.LATENCY_BUDGET_MS, "median search latency " + p50 + " ms, p95 " + p95 + " ms");
+    }
+
+    private void exec(String sql) {
+        try (Connection c = pool.getConnection(); Statement st = c.createStatement()) {
+            st.execute(sql);
+        } catch (SQLException e) {
+            throw new IllegalStateException(sql, e);
+        }
+    }
+
+    private static String randomWord(Random rnd) {
+        char[] w = new char[3 + rnd.nextInt(7)];
+        for (int i = 0; i < w.length; i++) w[i] = (char) ('a' + rnd.nextInt(26));
+        return new String(w);
+    }
+
+    /** Cumulative Zipf weights, so a few words are very common and most are rare, as in real text. */
+    private static double[] zipf(int n) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) cumulative[i] = sum += 1.0 / (i + 1);
+        for (int i = 0; i < n; i++) cumulative[i] /= sum;
+        return cumulative;
+    }
+
+    private static String text(Random rnd, String[] vocab, double[] cumulative, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            int idx = Arrays.binarySearch(cumulative, rnd.nextDouble());
+            if (idx < 0) idx = -idx - 1;
+            if (i > 0) sb.append(' ');
+            sb.append(vocab[Math.min(idx, vocab.length - 1)]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,64 @@
+package com.cab302.eduplanner.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofSeconds(10), now::get);
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.recordFailure();
+        }
+    }
+
+    @Test
+    void opensAfterConsecutiveFailuresOnly() {
+        fail(2);
+        breaker.recordSuccess();
+        fail(2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state(), "a success resets the count");
+
+        fail(1);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(Duration.ofSeconds(10), breaker.retryIn());
+    }
+
+    @Test
+    void oneProbeAfterTheCooldown() {
+        fail(3);
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertTrue(breaker.tryAcquire(), "probe");
+        assertFalse(breaker.tryAcquire(), "only one probe at a time");
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state(), "failed probe opens it again");
+
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertTrue(breaker.tryAcquire());
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void releasedProbeLetsTheNextCallerProbe() {
+        fail(3);
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertTrue(breaker.tryAcquire());
+        breaker.release();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state(), "no outcome, no change");
+        assertTrue(breaker.tryAcquire(), "the probe is free again");
+        assertFalse(breaker.tryAcquire());
+    }
+}
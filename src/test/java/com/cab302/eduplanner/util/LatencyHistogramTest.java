@@ -0,0 +1,35 @@
+package com.cab302.eduplanner.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentilesAreWithinOneBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentileNanos(0.5));
+
+        for (int ms = 1; ms <= 100; ms++) histogram.record(TimeUnit.MILLISECONDS.toNanos(ms));
+
+        assertEquals(100, histogram.count());
+        double p50 = histogram.percentileMillis(0.5), p95 = histogram.percentileMillis(0.95);
+        assertTrue(p50 >= 50 && p50 <= 50 * 1.19, "p50 " + p50);
+        assertTrue(p95 >= 95 && p95 <= 95 * 1.19, "p95 " + p95);
+        assertTrue(histogram.percentileMillis(1.0) >= 100);
+    }
+
+    @Test
+    void extremesLandInTheEndBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0);
+        histogram.record(TimeUnit.HOURS.toNanos(1));
+
+        assertEquals(1_000_000L, histogram.percentileNanos(0.5));
+        assertEquals(Long.MAX_VALUE, histogram.percentileNanos(1.0));
+        assertThrows(IllegalArgumentException.class, () -> histogram.percentileNanos(0));
+    }
+}
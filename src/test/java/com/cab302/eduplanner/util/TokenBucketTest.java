@@ -0,0 +1,41 @@
+package com.cab302.eduplanner.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void burstThenSteadyRate() {
+        TokenBucket bucket = new TokenBucket(3, 10, now::get); // one permit per 100 ms
+
+        assertEquals(0, bucket.reserve(1));
+        assertEquals(0, bucket.reserve(2));
+        assertEquals(100_000_000L, bucket.reserve(1), "bucket empty: wait one refill");
+        assertEquals(200_000_000L, bucket.reserve(1), "queued behind the previous caller");
+
+        now.addAndGet(1_000_000_000L); // a second later the debt is repaid and the bucket is full again
+        assertEquals(0, bucket.reserve(3));
+        assertEquals(100_000_000L, bucket.reserve(1));
+    }
+
+    @Test
+    void idleTimeDoesNotOverfill() {
+        TokenBucket bucket = new TokenBucket(2, 10, now::get);
+        now.addAndGet(60_000_000_000L);
+
+        assertEquals(0, bucket.reserve(2));
+        assertTrue(bucket.reserve(1) > 0);
+    }
+
+    @Test
+    void limitsMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0));
+    }
+}